@@ -0,0 +1,66 @@
+package org.example.bench;
+
+import org.example.aggregate.Aggregate;
+import org.example.aggregate.MeasurementAggregator;
+import org.example.aggregate.Metric;
+import org.example.aggregate.Resolution;
+import org.example.aggregate.Stats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Reading ingestion into {@link MeasurementAggregator} and in-memory range queries over a day of minutes. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregatorBenchmark {
+    private static final long T0 = 1_700_000_000L - 1_700_000_000L % 86_400;
+    private static final int STATIONS = 1_000;
+
+    private MeasurementAggregator aggregator;
+    private String[] ids;
+
+    @Setup
+    public void setUp() {
+        aggregator = MeasurementAggregator.builder().build();
+        ids = new String[STATIONS];
+        for (int i = 0; i < STATIONS; i++) ids[i] = String.format("%024x", i);
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        for (String id : ids) {
+            for (int m = 0; m < 1_440; m++) aggregator.add(id, T0 + m * 60L, r.nextDouble(-10, 35), 3, 70, 1013, 0);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void add() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        aggregator.add(ids[r.nextInt(STATIONS)], T0 + r.nextInt(86_400), r.nextDouble(-10, 35), 3, 70, 1013, 0);
+    }
+
+    @Benchmark
+    public List<Aggregate> queryHourBuckets() {
+        return aggregator.query(ids[ThreadLocalRandom.current().nextInt(STATIONS)], Resolution.HOUR, T0, T0 + 86_400, 24);
+    }
+
+    @Benchmark
+    public Stats summarizeDayOfMinutes() {
+        return aggregator.summarize(ids[ThreadLocalRandom.current().nextInt(STATIONS)], Resolution.MINUTE,
+                Metric.TEMPERATURE, T0, T0 + 86_400);
+    }
+}
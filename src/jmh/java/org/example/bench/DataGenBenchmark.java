@@ -0,0 +1,97 @@
+package org.example.bench;
+
+import com.github.javafaker.Faker;
+import org.example.gen.Payload;
+import org.example.gen.StationGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of Faker-based station data against the seeded {@link StationGenerator} that replaced it in the tests. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataGenBenchmark {
+    private final Faker faker = new Faker(Locale.forLanguageTag("en-ZA"));
+    private final StationGenerator generator = new StationGenerator(42);
+    private final byte[] buffer = new byte[StationGenerator.MAX_PAYLOAD];
+    private long index;
+
+    @Benchmark
+    public void fakerCoordinates(Blackhole bh) {
+        bh.consume(faker.number().randomDouble(6, -90, 90));
+        bh.consume(faker.number().randomDouble(6, -180, 180));
+        bh.consume(faker.number().numberBetween(5, 5000));
+    }
+
+    @Benchmark
+    public void fakerNameAndExternalId(Blackhole bh) {
+        bh.consume("ST_" + faker.number().digits(6));
+        bh.consume("Station_" + faker.address().cityName());
+    }
+
+    /** Same ranges and 6-decimal precision from ThreadLocalRandom, for comparison. */
+    @Benchmark
+    public void threadLocalRandomCoordinates(Blackhole bh) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        bh.consume(r.nextLong(-90_000_000L, 90_000_001L) / 1e6);
+        bh.consume(r.nextLong(-180_000_000L, 180_000_001L) / 1e6);
+        bh.consume(r.nextInt(5, 5000));
+    }
+
+    @Benchmark
+    public void generatorCoordinates(Blackhole bh) {
+        long i = index++;
+        bh.consume(generator.latitude(i));
+        bh.consume(generator.longitude(i));
+        bh.consume(generator.altitude(i));
+    }
+
+    /** A complete station payload written into a reused buffer. */
+    @Benchmark
+    public int generatorPayload() {
+        return generator.write(index++, Payload.VALID, buffer, 0);
+    }
+
+    /** Payloads per second from four threads sharing one generator, each on its own cursor; expect well over a million. */
+    @Benchmark
+    @Threads(4)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int generatorPayloadParallel(SharedGenerator shared, ThreadCursor thread) {
+        return shared.generator.write(thread.cursor.next(), Payload.VALID, thread.buffer, 0);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedGenerator {
+        final StationGenerator generator = new StationGenerator(42);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+        final byte[] buffer = new byte[StationGenerator.MAX_PAYLOAD];
+        StationGenerator.Cursor cursor;
+
+        @Setup
+        public void setUp(SharedGenerator shared, ThreadParams params) {
+            cursor = shared.generator.cursor(params.getThreadIndex(), params.getThreadCount());
+        }
+    }
+}
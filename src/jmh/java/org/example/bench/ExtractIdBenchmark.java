@@ -0,0 +1,51 @@
+package org.example.bench;
+
+import io.restassured.path.json.JsonPath;
+import org.example.client.Station;
+import org.example.json.StationCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** {@code BaseTest.extractStationId}-style id extraction from a POST response body. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtractIdBenchmark {
+    private final byte[] body = ("{\"ID\":\"6582b9e3c6f5a60001a4c1d2\",\"updated_at\":\"2024-12-20T09:41:23.412Z\","
+            + "\"created_at\":\"2024-12-20T09:41:23.412Z\",\"user_id\":\"5f1c0a8b9d3e2a0001b7f4c9\","
+            + "\"external_id\":\"ST_482913\",\"name\":\"Station_Port Elizabeth\",\"longitude\":25.619022,"
+            + "\"latitude\":-33.958252,\"altitude\":1437,\"source_type\":5}").getBytes(StandardCharsets.UTF_8);
+
+    /** The original helper: whole body to a Groovy JsonPath map, then a lookup. */
+    @Benchmark
+    public Object jsonPathMap() {
+        Map<String, Object> json = new JsonPath(new String(body, StandardCharsets.UTF_8)).getMap("$");
+        Object v = json.get("id");
+        if (v == null) v = json.get("ID");
+        return v;
+    }
+
+    @Benchmark
+    public String codecReadId() {
+        return StationCodec.readId(body);
+    }
+
+    @Benchmark
+    public Station codecDecodeStation() {
+        return StationCodec.decode(body);
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.bench;
+
+import org.example.client.Station;
+import org.example.geo.Geo;
+import org.example.geo.Neighbor;
+import org.example.geo.StationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** {@link StationIndex} queries and writes at up to 1M stations, against a brute-force haversine scan. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GeoIndexBenchmark {
+    @Param({"100000", "1000000"})
+    public int stations;
+
+    private List<Station> all;
+    private StationIndex index;
+    private double[] batchLats;
+    private double[] batchLons;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom r = new SplittableRandom(42);
+        all = new ArrayList<>(stations);
+        for (int i = 0; i < stations; i++) {
+            all.add(new Station(Integer.toHexString(i), "EXT_" + i, "Station " + i,
+                    Math.toDegrees(Math.asin(2 * r.nextDouble() - 1)), r.nextDouble(-180, 180), 0));
+        }
+        index = StationIndex.of(all);
+        batchLats = new double[1_000];
+        batchLons = new double[1_000];
+        for (int i = 0; i < batchLats.length; i++) {
+            batchLats[i] = r.nextDouble(-90, 90);
+            batchLons[i] = r.nextDouble(-180, 180);
+        }
+    }
+
+    @Benchmark
+    public List<Neighbor> nearest10() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        return index.nearest(r.nextDouble(-90, 90), r.nextDouble(-180, 180), 10);
+    }
+
+    @Benchmark
+    public List<Neighbor> within50km() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        return index.withinRadius(r.nextDouble(-90, 90), r.nextDouble(-180, 180), 50_000);
+    }
+
+    /** 1000 k-NN queries spread over the common pool. */
+    @Benchmark
+    public List<List<Neighbor>> nearest10Batch1000() {
+        return index.nearest(batchLats, batchLons, 10);
+    }
+
+    /** An update (move) of a random station, including amortised rebuilds. */
+    @Benchmark
+    public void update() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        Station s = all.get(r.nextInt(stations));
+        index.put(new Station(s.id(), s.externalId(), s.name(), r.nextDouble(-90, 90), r.nextDouble(-180, 180), 0));
+    }
+
+    /** What the routing layer does today: list everything and compute every distance. */
+    @Benchmark
+    public Station bruteForceNearest1() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        double lat = r.nextDouble(-90, 90), lon = r.nextDouble(-180, 180);
+        Station best = null;
+        double bestD = Double.MAX_VALUE;
+        for (Station s : all) {
+            double d = Geo.haversine(lat, lon, s.latitude(), s.longitude());
+            if (d < bestD) {
+                bestD = d;
+                best = s;
+            }
+        }
+        return best;
+    }
+}
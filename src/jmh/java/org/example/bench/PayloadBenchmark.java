@@ -0,0 +1,70 @@
+package org.example.bench;
+
+import org.example.client.Station;
+import org.example.json.JsonWriter;
+import org.example.json.StationCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/** Station request-body construction: the tests' {@code String.format} text block versus the alternatives. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+    private final Station station = Station.of("ST_482913", "Station_Port Elizabeth", -33.958252, 25.619022, 1437);
+
+    @Benchmark
+    public byte[] stringFormat() {
+        // what StationsCrudTest.createStationTest does today
+        return String.format("""
+                {
+                  "external_id": "%s",
+                  "name": "%s",
+                  "latitude": %s,
+                  "longitude": %s,
+                  "altitude": %s
+                }""", station.externalId(), station.name(), station.latitude(), station.longitude(),
+                (int) station.altitude()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] stringBuilder() {
+        return new StringBuilder(160)
+                .append("{\"external_id\":\"").append(station.externalId())
+                .append("\",\"name\":\"").append(station.name())
+                .append("\",\"latitude\":").append(station.latitude())
+                .append(",\"longitude\":").append(station.longitude())
+                .append(",\"altitude\":").append(station.altitude())
+                .append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** What StationsClient sends: pooled writer plus one exact-size copy for the request publisher. */
+    @Benchmark
+    public byte[] codecToByteArray() {
+        return StationCodec.encode(station);
+    }
+
+    /** Encoding into a pooled buffer without the final copy, e.g. when writing to a stream. */
+    @Benchmark
+    public void codecPooled(Blackhole bh) {
+        try (JsonWriter w = JsonWriter.borrow()) {
+            StationCodec.encode(station, w);
+            bh.consume(w.array());
+            bh.consume(w.size());
+        }
+    }
+}
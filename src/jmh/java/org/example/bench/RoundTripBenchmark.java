@@ -0,0 +1,81 @@
+package org.example.bench;
+
+import io.restassured.RestAssured;
+import io.restassured.specification.RequestSpecification;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.json.StationCodec;
+import org.example.server.StationsServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Full create/get/update/delete chains against a loopback {@link StationsServer}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoundTripBenchmark {
+    private static final String APP_ID = "bench-appid";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private StationsServer server;
+    private StationsClient client;
+    private RequestSpecification spec;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+        spec = RestAssured.given().baseUri(server.baseUri().toString()).queryParam("appid", APP_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        server.close();
+    }
+
+    private Station next() {
+        long n = sequence.incrementAndGet();
+        return Station.of("BENCH_" + n, "Bench station " + n, -33.958252, 25.619022, 1437);
+    }
+
+    @Benchmark
+    public Station crudStationsClient() {
+        Station created = client.create(next());
+        Station read = client.get(created.id());
+        Station updated = client.update(read.id(), Station.of(read.externalId(), read.name() + "u", 1.5, 2.5, 3));
+        client.delete(updated.id());
+        return updated;
+    }
+
+    /** The same chain the way the test classes issue it, for comparison. */
+    @Benchmark
+    public String crudRestAssured() {
+        Station s = next();
+        byte[] created = RestAssured.given().spec(spec).contentType("application/json").body(StationCodec.encode(s))
+                .post("/stations").then().statusCode(201).extract().asByteArray();
+        String id = StationCodec.readId(created);
+        RestAssured.given().spec(spec).get("/stations/" + id).then().statusCode(200);
+        RestAssured.given().spec(spec).contentType("application/json")
+                .body(StationCodec.encode(Station.of(s.externalId(), s.name() + "u", 1.5, 2.5, 3)))
+                .put("/stations/" + id).then().statusCode(200);
+        RestAssured.given().spec(spec).delete("/stations/" + id).then().statusCode(204);
+        return id;
+    }
+}
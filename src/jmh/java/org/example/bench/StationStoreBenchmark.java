@@ -0,0 +1,121 @@
+package org.example.bench;
+
+import org.example.client.Station;
+import org.example.gen.StationGenerator;
+import org.example.server.StationRecord;
+import org.example.server.StationStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Durable {@link StationStore}: acknowledged write throughput with 32 writers sharing group
+ * commits, and time to reopen 1M/10M stations from a snapshot or from the log alone.
+ * 10M stations need roughly 8 GB of heap; run {@code -p stations=1000000} on smaller machines.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class StationStoreBenchmark {
+    private static final StationGenerator DATA = new StationGenerator(42);
+
+    private static StationRecord record(StationStore store, long index) {
+        Station s = DATA.station(index);
+        long now = System.currentTimeMillis();
+        return new StationRecord(store.nextId(), s.externalId(), s.name(), s.latitude(), s.longitude(), s.altitude(), now, now);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Writes {
+        @Param({"true", "false"})
+        public boolean fsync;
+
+        Path dir;
+        StationStore store;
+
+        @Setup(Level.Iteration)
+        public void open() throws IOException {
+            dir = Files.createTempDirectory("store-bench");
+            store = StationStore.durable(dir).fsync(fsync).snapshotOnClose(false).open();
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws IOException {
+            store.close();
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Restart {
+        @Param({"1000000", "10000000"})
+        public int stations;
+
+        /** {@code snapshot}: closed with a snapshot; {@code wal}: every station replayed from the log. */
+        @Param({"snapshot", "wal"})
+        public String from;
+
+        Path dir;
+
+        @Setup(Level.Trial)
+        public void populate() throws IOException {
+            dir = Files.createTempDirectory("store-bench");
+            try (StationStore store = StationStore.durable(dir).fsync(false)
+                    .snapshotAfterBytes(Long.MAX_VALUE).snapshotOnClose(from.equals("snapshot")).open()) {
+                IntStream.range(0, stations).parallel().forEach(i -> store.put(record(store, i)));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            StationStoreBenchmark.delete(dir);
+        }
+    }
+
+    /** One acknowledged put; with fsync it returns only once its group commit is on disk. */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Threads(32)
+    public void put(Writes w) {
+        w.store.put(record(w.store, ThreadLocalRandom.current().nextInt(1_000_000)));
+    }
+
+    /** Opening the directory until the table is usable; the store is closed without a new snapshot. */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public int restart(Restart r) throws IOException {
+        try (StationStore store = StationStore.durable(r.dir).snapshotOnClose(false).open()) {
+            return store.size();
+        }
+    }
+}
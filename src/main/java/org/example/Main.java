@@ -1,17 +1,272 @@
 package org.example;
 
-//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
-// click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
+import org.example.bulk.BulkProvisioner;
+import org.example.bulk.CatalogReconciler;
+import org.example.bulk.ProvisionReport;
+import org.example.bulk.StationCsv;
+import org.example.bulk.StationNdjson;
+import org.example.bulk.SyncPlan;
+import org.example.bulk.SyncReport;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.gen.StationGenerator;
+import org.example.load.LoadGenerator;
+import org.example.load.LoadMix;
+import org.example.load.LoadReport;
+import org.example.server.FaultProfile;
+import org.example.server.StationStore;
+import org.example.server.StationsServer;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Command-line entry point.
+ * <pre>
+ *   provision (&lt;stations.csv&gt; | --generate N [--seed S]) [--base-url URL] [--appid KEY] [--concurrency N] [--max-concurrency N]
+ *   sync (&lt;stations.csv&gt; [--dry-run] [--plan FILE] [--no-delete] | --apply FILE) [--base-url URL] [--appid KEY]
+ *        [--concurrency N] [--max-concurrency N]
+ *   load [--rate R] [--duration SECONDS] [--mix get=6,create=2,update=1,delete=1] [--poisson] [--seed S]
+ *        [--report FILE] [--local [--faults SPEC]] [--base-url URL] [--appid KEY]
+ *   serve [--port P] [--data DIR [--no-fsync]] [--faults SPEC] [--appid KEY]
+ *   export &lt;stations.ndjson.gz&gt; [--base-url URL] [--appid KEY]
+ *   import &lt;stations.ndjson[.gz]&gt; [--checkpoint FILE | --no-checkpoint] [--no-skip-existing] [--base-url URL] [--appid KEY]
+ *          [--concurrency N] [--max-concurrency N]
+ * </pre>
+ * The app id defaults to the {@code OPENWEATHER_APPID} environment variable. {@code export} and
+ * {@code import} move a catalog between environments or accounts through {@link StationNdjson}
+ * files in constant memory; an interrupted import is resumed by running it again. For short
+ * invocations most of the wall time is JVM startup, which a class-data archive cuts down:
+ * {@code java -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=stations.jsa -XX:TieredStopAtLevel=1 ...}.
+ */
 public class Main {
-    public static void main(String[] args) {
-        //TIP Press <shortcut actionId="ShowIntentionActions"/> with your caret at the highlighted text
-        // to see how IntelliJ IDEA suggests fixing it.
-        System.out.printf("Hello and welcome!");
+    /** Options that are switches: they never take the next argument as their value. */
+    private static final Set<String> FLAGS = Set.of("dry-run", "no-delete", "no-checkpoint", "no-skip-existing", "no-fsync", "local", "poisson");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        String[] positional = parseArgs(args, opts);
+        if (positional.length == 0) {
+            usage();
+            System.exit(2);
+        }
+        switch (positional[0]) {
+            case "provision" -> System.exit(provision(positional, opts));
+            case "sync" -> System.exit(sync(positional, opts));
+            case "load" -> System.exit(load(opts));
+            case "serve" -> serve(opts);
+            case "export" -> System.exit(exportCatalog(positional, opts));
+            case "import" -> System.exit(importCatalog(positional, opts));
+            default -> {
+                usage();
+                System.exit(2);
+            }
+        }
+    }
 
-        for (int i = 1; i <= 5; i++) {
-            //TIP Press <shortcut actionId="Debug"/> to start debugging your code. We have set one <icon src="AllIcons.Debugger.Db_set_breakpoint"/> breakpoint
-            // for you, but you can always add more by pressing <shortcut actionId="ToggleLineBreakpoint"/>.
-            System.out.println("i = " + i);
+    private static int provision(String[] positional, Map<String, String> opts) throws Exception {
+        if (positional.length < 2 && !opts.containsKey("generate")) {
+            usage();
+            return 2;
+        }
+        BulkProvisioner provisioner = BulkProvisioner.builder(client(opts))
+                .initialConcurrency(Integer.parseInt(opts.getOrDefault("concurrency", "16")))
+                .maxConcurrency(Integer.parseInt(opts.getOrDefault("max-concurrency", "256")))
+                .progress(r -> System.err.println("[progress] " + r))
+                .build();
+        ProvisionReport report;
+        try (Stream<Station> defs = opts.containsKey("generate") ? generated(opts) : StationCsv.read(Path.of(positional[1]))) {
+            report = provisioner.run(defs.iterator());
+        }
+        System.out.println(report);
+        report.failures().forEach(f -> System.out.println("FAILED " + f.externalId() + ": " + f.reason()));
+        return report.failed() == 0 ? 0 : 1;
+    }
+
+    private static int sync(String[] positional, Map<String, String> opts) throws Exception {
+        if (positional.length < 2 && !opts.containsKey("apply")) {
+            usage();
+            return 2;
+        }
+        CatalogReconciler reconciler = CatalogReconciler.builder(client(opts))
+                .initialConcurrency(Integer.parseInt(opts.getOrDefault("concurrency", "16")))
+                .maxConcurrency(Integer.parseInt(opts.getOrDefault("max-concurrency", "256")))
+                .deletes(!opts.containsKey("no-delete"))
+                .progress(r -> System.err.println("[progress] " + r))
+                .build();
+        Path planFile = opts.containsKey("apply") ? Path.of(opts.get("apply")) : opts.containsKey("plan") ? Path.of(opts.get("plan")) : null;
+        SyncPlan plan;
+        if (opts.containsKey("apply")) {
+            plan = SyncPlan.read(planFile);
+        } else {
+            try (Stream<Station> catalog = StationCsv.read(Path.of(positional[1]))) {
+                plan = reconciler.plan(catalog.iterator());
+            }
+            if (planFile != null) plan.write(planFile);
         }
+        if (opts.containsKey("dry-run")) {
+            plan.print(System.out);
+            return 0;
+        }
+        System.err.println("[plan] " + plan);
+        // a saved plan is journalled so that re-running --apply after a crash resumes it
+        SyncReport report = planFile != null ? reconciler.apply(plan, Path.of(planFile + ".journal")) : reconciler.apply(plan);
+        System.out.println(report);
+        report.failures().forEach(f -> System.out.println("FAILED " + f.externalId() + ": " + f.reason()));
+        return report.failed() == 0 ? 0 : 1;
+    }
+
+    private static int load(Map<String, String> opts) throws Exception {
+        StationsServer local = null;
+        if (opts.containsKey("local")) {
+            local = StationsServer.start("local");
+            if (opts.containsKey("faults")) local.injectFaults(FaultProfile.parse(opts.get("faults")));
+            opts.put("base-url", local.baseUri().toString());
+            opts.put("appid", "local");
+        }
+        try {
+            LoadReport report = LoadGenerator.builder()
+                    .baseUri(baseUri(opts))
+                    .appId(appId(opts))
+                    .rate(Double.parseDouble(opts.getOrDefault("rate", "100")))
+                    .duration(Duration.ofSeconds(Long.parseLong(opts.getOrDefault("duration", "30"))))
+                    .mix(LoadMix.parse(opts.getOrDefault("mix", "get=6,create=2,update=1,delete=1")))
+                    .poisson(opts.containsKey("poisson"))
+                    .seed(seed(opts))
+                    .build()
+                    .run();
+            report.print(System.out);
+            if (local != null && opts.containsKey("faults")) System.out.println(local.faultStats());
+            if (opts.containsKey("report")) report.writeJson(Path.of(opts.get("report")));
+            return 0;
+        } finally {
+            if (local != null) local.close();
+        }
+    }
+
+    /** Streams {@code GET /stations} into an NDJSON file, gzipped if its name ends in {@code .gz}. */
+    private static int exportCatalog(String[] positional, Map<String, String> opts) throws Exception {
+        if (positional.length < 2) {
+            usage();
+            return 2;
+        }
+        long start = System.nanoTime();
+        long exported;
+        try (Stream<Station> stations = client(opts).stream()) {
+            exported = StationNdjson.write(stations.iterator(), Path.of(positional[1]));
+        }
+        System.out.printf("exported=%d elapsed=%.3fs%n", exported, (System.nanoTime() - start) / 1e9);
+        return 0;
+    }
+
+    /** Creates the stations of an NDJSON file, checkpointing next to it so that a rerun resumes. */
+    private static int importCatalog(String[] positional, Map<String, String> opts) throws Exception {
+        if (positional.length < 2) {
+            usage();
+            return 2;
+        }
+        Path file = Path.of(positional[1]);
+        Path checkpoint = opts.containsKey("no-checkpoint") ? null
+                : Path.of(opts.getOrDefault("checkpoint", positional[1] + ".checkpoint"));
+        BulkProvisioner provisioner = BulkProvisioner.builder(client(opts))
+                .initialConcurrency(Integer.parseInt(opts.getOrDefault("concurrency", "16")))
+                .maxConcurrency(Integer.parseInt(opts.getOrDefault("max-concurrency", "256")))
+                .skipExisting(!opts.containsKey("no-skip-existing"))
+                .progress(r -> System.err.println("[progress] " + r))
+                .build();
+        ProvisionReport report;
+        try (Stream<Station> defs = StationNdjson.read(file)) {
+            report = provisioner.run(defs.iterator(), checkpoint);
+        }
+        System.out.println(report);
+        report.failures().forEach(f -> System.out.println("FAILED " + f.externalId() + ": " + f.reason()));
+        return report.failed() == 0 ? 0 : 1;
+    }
+
+    /** Runs the stand-in server until the process is stopped; with {@code --data} its stations survive restarts. */
+    private static void serve(Map<String, String> opts) throws Exception {
+        StationStore store = opts.containsKey("data")
+                ? StationStore.durable(Path.of(opts.get("data"))).fsync(!opts.containsKey("no-fsync")).open()
+                : new StationStore();
+        StationsServer server = StationsServer.start(Integer.parseInt(opts.getOrDefault("port", "8080")), appId(opts), store);
+        if (opts.containsKey("faults")) server.injectFaults(FaultProfile.parse(opts.get("faults")));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.err.println("[serve] " + server.baseUri() + " " + store.stats());
+        Thread.currentThread().join();
+    }
+
+    /** {@code --generate N} seeded stations, indices 0 to N-1. */
+    private static Stream<Station> generated(Map<String, String> opts) {
+        StationGenerator generator = new StationGenerator(seed(opts));
+        return LongStream.range(0, Long.parseLong(opts.get("generate"))).mapToObj(generator::station);
+    }
+
+    static long seed(Map<String, String> opts) {
+        return opts.containsKey("seed") ? Long.parseLong(opts.get("seed")) : System.nanoTime();
+    }
+
+    static StationsClient client(Map<String, String> opts) {
+        return StationsClient.builder().baseUri(baseUri(opts)).appId(appId(opts)).build();
+    }
+
+    static URI baseUri(Map<String, String> opts) {
+        return URI.create(opts.getOrDefault("base-url", "http://api.openweathermap.org/data/3.0"));
+    }
+
+    static String appId(Map<String, String> opts) {
+        String appId = opts.getOrDefault("appid", System.getenv("OPENWEATHER_APPID"));
+        if (appId == null) throw new IllegalArgumentException("--appid or OPENWEATHER_APPID is required");
+        return appId;
+    }
+
+    /**
+     * Splits {@code --key value} and {@code --key=value} options into {@code opts} and returns the
+     * positional arguments. Switches such as {@code --dry-run} map to {@code "true"} and never
+     * consume the argument after them.
+     */
+    public static String[] parseArgs(String[] args, Map<String, String> opts) {
+        Stream.Builder<String> positional = Stream.builder();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                String key = args[i].substring(2);
+                int eq = key.indexOf('=');
+                if (eq >= 0) opts.put(key.substring(0, eq), key.substring(eq + 1));
+                else if (!FLAGS.contains(key) && i + 1 < args.length && !args[i + 1].startsWith("--")) opts.put(key, args[++i]);
+                else opts.put(key, "true");
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        return positional.build().toArray(String[]::new);
+    }
+
+    private static void usage() {
+        System.err.println("""
+                usage:
+                  provision (<stations.csv> | --generate N [--seed S]) [--base-url URL] [--appid KEY] [--concurrency N] [--max-concurrency N]
+                      CSV columns: external_id,name,latitude,longitude,altitude; --generate makes N seeded stations instead
+                  sync (<stations.csv> [--dry-run] [--plan FILE] [--no-delete] | --apply FILE) [--base-url URL] [--appid KEY]
+                       [--concurrency N] [--max-concurrency N]
+                      creates, updates and deletes only what differs from the CSV; --dry-run prints the plan,
+                      --plan saves it, --apply runs a saved plan and resumes it if interrupted
+                  load [--rate R] [--duration SECONDS] [--mix get=6,create=2,update=1,delete=1] [--poisson] [--seed S]
+                       [--report FILE] [--local [--faults SPEC]] [--base-url URL] [--appid KEY]
+                      open-model load at a fixed arrival rate; --local runs against an in-process server
+                      SPEC e.g. latency=lognormal:20ms:0.5,5xx=0.01,429=0.02,reset=0.005,html=0.01,slow=0.05,seed=7
+                  serve [--port P] [--data DIR [--no-fsync]] [--faults SPEC] [--appid KEY]
+                      runs the stand-in server; --data keeps stations in DIR (write-ahead log and snapshots)
+                  export <stations.ndjson.gz> [--base-url URL] [--appid KEY]
+                      streams every station to newline-delimited JSON, gzipped when the name ends in .gz
+                  import <stations.ndjson[.gz]> [--checkpoint FILE | --no-checkpoint] [--no-skip-existing] [--base-url URL]
+                         [--appid KEY] [--concurrency N] [--max-concurrency N]
+                      creates the stations of an export; progress is checkpointed (default <file>.checkpoint)
+                      and running the same import again resumes it without duplicates
+                """);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package org.example.aggregate;
+
+/** One bucket of a station's readings; {@code date} is the bucket start in Unix seconds. */
+public record Aggregate(String stationId, Resolution resolution, long date, Stats temperature,
+                       Stats windSpeed, Stats humidity, Stats pressure, Stats precipitation) {
+
+    public Stats stats(Metric metric) {
+        return switch (metric) {
+            case TEMPERATURE -> temperature;
+            case WIND_SPEED -> windSpeed;
+            case HUMIDITY -> humidity;
+            case PRESSURE -> pressure;
+            case PRECIPITATION -> precipitation;
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Time buckets of one station at one resolution, kept in parallel primitive arrays indexed by
+ * {@code bucket mod capacity}. The ring starts small and doubles until it spans
+ * {@code retention} buckets, so sparse stations stay cheap; beyond that, a new bucket recycles
+ * the slot of the one {@code retention} buckets older, and readings older than the window are
+ * dropped. Not thread-safe; {@link MeasurementAggregator} guards it.
+ */
+final class BucketRing {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int METRICS = Metric.values().length;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long width;
+    private final int retention;
+    private long[] buckets;
+    // per slot and metric: min, max, sum
+    private double[] values;
+    private int[] counts;
+    private long newest = EMPTY;
+
+    BucketRing(long widthSeconds, int retention) {
+        this.width = widthSeconds;
+        this.retention = retention;
+        allocate(Math.min(INITIAL_CAPACITY, retention));
+    }
+
+    /** Folds a reading in; NaN values are ignored. Returns false if it is older than the window. */
+    boolean add(long epochSeconds, double[] readings) {
+        long bucket = Math.floorDiv(epochSeconds, width);
+        if (newest != EMPTY && bucket <= newest - retention) return false;
+        int slot = slotFor(bucket);
+        if (slot < 0) return false;
+        if (bucket > newest) newest = bucket;
+        int base = slot * METRICS;
+        for (int m = 0; m < METRICS; m++) {
+            double v = readings[m];
+            if (Double.isNaN(v)) continue;
+            int c = counts[base + m];
+            int i = (base + m) * 3;
+            if (c == 0) {
+                values[i] = v;
+                values[i + 1] = v;
+                values[i + 2] = v;
+            } else {
+                if (v < values[i]) values[i] = v;
+                if (v > values[i + 1]) values[i + 1] = v;
+                values[i + 2] += v;
+            }
+            counts[base + m] = c + 1;
+        }
+        return true;
+    }
+
+    /** Slot holding {@code bucket}, claiming, recycling or growing as needed; -1 to drop the reading. */
+    private int slotFor(long bucket) {
+        while (true) {
+            int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+            long occupant = buckets[slot];
+            if (occupant == bucket) return slot;
+            if (occupant == EMPTY || occupant <= Math.max(newest, bucket) - retention) {
+                clear(slot, bucket);
+                return slot;
+            }
+            // the occupant is still inside the retention window
+            if (buckets.length < retention) {
+                grow();
+                continue;
+            }
+            if (occupant > bucket) return -1;
+            clear(slot, bucket);
+            return slot;
+        }
+    }
+
+    /** Visits populated buckets with start in {@code [fromBucket, toBucket]}. */
+    void forEach(long fromBucket, long toBucket, BucketVisitor visitor) {
+        long lo = Math.max(fromBucket, newest == EMPTY ? fromBucket : newest - retention + 1);
+        for (int slot = 0; slot < buckets.length; slot++) {
+            long b = buckets[slot];
+            if (b == EMPTY || b < lo || b > toBucket) continue;
+            visitor.visit(b * width, values, counts, slot * METRICS);
+        }
+    }
+
+    long width() {
+        return width;
+    }
+
+    int capacity() {
+        return buckets.length;
+    }
+
+    private void clear(int slot, long bucket) {
+        buckets[slot] = bucket;
+        Arrays.fill(counts, slot * METRICS, (slot + 1) * METRICS, 0);
+    }
+
+    /** Doubles the ring (more if live buckets would collide); at {@code retention} slots they never do. */
+    private void grow() {
+        long[] oldBuckets = buckets;
+        double[] oldValues = values;
+        int[] oldCounts = counts;
+        int capacity = oldBuckets.length;
+        rehash:
+        while (true) {
+            capacity = Math.min(capacity * 2, retention);
+            allocate(capacity);
+            for (int s = 0; s < oldBuckets.length; s++) {
+                long b = oldBuckets[s];
+                if (b == EMPTY || (newest != EMPTY && b <= newest - retention)) continue;
+                int slot = (int) Math.floorMod(b, (long) capacity);
+                if (buckets[slot] != EMPTY) continue rehash;
+                buckets[slot] = b;
+                System.arraycopy(oldCounts, s * METRICS, counts, slot * METRICS, METRICS);
+                System.arraycopy(oldValues, s * METRICS * 3, values, slot * METRICS * 3, METRICS * 3);
+            }
+            return;
+        }
+    }
+
+    private void allocate(int capacity) {
+        buckets = new long[capacity];
+        Arrays.fill(buckets, EMPTY);
+        values = new double[capacity * METRICS * 3];
+        counts = new int[capacity * METRICS];
+    }
+
+    /** Receives one bucket; metric {@code m}'s min/max/sum are at {@code values[(offset + m) * 3 ..]}. */
+    interface BucketVisitor {
+        void visit(long startSeconds, double[] values, int[] counts, int offset);
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.aggregate;
+
+import org.example.client.Measurement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Incremental per-station min/max/sum/count aggregation into minute, hour and day buckets,
+ * the shapes {@code GET /measurements?type=m|h|d} returns.
+ * <p>
+ * Stations are spread over a power-of-two number of shards by id hash; each shard has its own
+ * {@link StampedLock}, so writers for different stations rarely contend and readers share. Each
+ * station keeps one {@link BucketRing} of primitive arrays per resolution, bounded by that
+ * resolution's retention; adding a reading updates the three rings in place and, once the
+ * station has been seen, allocates nothing. Range queries are answered from memory.
+ */
+public class MeasurementAggregator {
+    private static final int METRICS = Metric.values().length;
+
+    private final Shard[] shards;
+    private final int mask;
+    private final int[] retention = new int[Resolution.values().length];
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private MeasurementAggregator(Builder b) {
+        int n = Integer.highestOneBit(Math.max(1, b.shards - 1)) << 1;
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) shards[i] = new Shard();
+        this.mask = n - 1;
+        retention[Resolution.MINUTE.ordinal()] = b.minutes;
+        retention[Resolution.HOUR.ordinal()] = b.hours;
+        retention[Resolution.DAY.ordinal()] = b.days;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void add(Measurement m) {
+        add(m.stationId(), m.dt(), m.temperature(), m.windSpeed(), m.humidity(), m.pressure(), m.precipitation());
+    }
+
+    /** Folds one reading into its station's buckets; NaN values are skipped. Any thread may call this. */
+    public void add(String stationId, long dt, double temperature, double windSpeed,
+                    double humidity, double pressure, double precipitation) {
+        Shard shard = shard(stationId);
+        long stamp = shard.lock.writeLock();
+        try {
+            Series s = shard.series.get(stationId);
+            if (s == null) {
+                s = new Series(retention);
+                shard.series.put(stationId, s);
+            }
+            double[] r = shard.scratch;
+            r[Metric.TEMPERATURE.ordinal()] = temperature;
+            r[Metric.WIND_SPEED.ordinal()] = windSpeed;
+            r[Metric.HUMIDITY.ordinal()] = humidity;
+            r[Metric.PRESSURE.ordinal()] = pressure;
+            r[Metric.PRECIPITATION.ordinal()] = precipitation;
+            boolean kept = false;
+            for (BucketRing ring : s.rings) kept |= ring.add(dt, r);
+            (kept ? accepted : dropped).increment();
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Buckets of {@code stationId} whose start lies in {@code [from, to]} (Unix seconds),
+     * oldest first, at most {@code limit} of them (the most recent ones if there are more).
+     */
+    public List<Aggregate> query(String stationId, Resolution resolution, long from, long to, int limit) {
+        List<Aggregate> out = new ArrayList<>();
+        Shard shard = shard(stationId);
+        long stamp = shard.lock.readLock();
+        try {
+            Series s = shard.series.get(stationId);
+            if (s == null) return out;
+            BucketRing ring = s.rings[resolution.ordinal()];
+            long width = ring.width();
+            ring.forEach(Math.floorDiv(from + width - 1, width), Math.floorDiv(to, width),
+                    (start, values, counts, offset) -> out.add(new Aggregate(stationId, resolution, start,
+                            stats(values, counts, offset, Metric.TEMPERATURE),
+                            stats(values, counts, offset, Metric.WIND_SPEED),
+                            stats(values, counts, offset, Metric.HUMIDITY),
+                            stats(values, counts, offset, Metric.PRESSURE),
+                            stats(values, counts, offset, Metric.PRECIPITATION))));
+        } finally {
+            shard.lock.unlockRead(stamp);
+        }
+        out.sort(Comparator.comparingLong(Aggregate::date));
+        return out.size() > limit ? new ArrayList<>(out.subList(out.size() - limit, out.size())) : out;
+    }
+
+    /**
+     * Folds every bucket of one metric in {@code [from, to]} into a single {@link Stats},
+     * e.g. the max temperature of the last 7 days from day buckets. Does not allocate per bucket.
+     */
+    public Stats summarize(String stationId, Resolution resolution, Metric metric, long from, long to) {
+        Shard shard = shard(stationId);
+        long stamp = shard.lock.readLock();
+        try {
+            Series s = shard.series.get(stationId);
+            if (s == null) return Stats.EMPTY;
+            BucketRing ring = s.rings[resolution.ordinal()];
+            long width = ring.width();
+            double[] acc = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0};
+            ring.forEach(Math.floorDiv(from + width - 1, width), Math.floorDiv(to, width), (start, values, counts, offset) -> {
+                int c = counts[offset + metric.ordinal()];
+                if (c == 0) return;
+                int i = (offset + metric.ordinal()) * 3;
+                acc[0] = Math.min(acc[0], values[i]);
+                acc[1] = Math.max(acc[1], values[i + 1]);
+                acc[2] += values[i + 2];
+                acc[3] += c;
+            });
+            return acc[3] == 0 ? Stats.EMPTY : new Stats(acc[0], acc[1], acc[2], (long) acc[3]);
+        } finally {
+            shard.lock.unlockRead(stamp);
+        }
+    }
+
+    /** Readings folded in, and readings older than every retention window. */
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public int stations() {
+        int n = 0;
+        for (Shard s : shards) {
+            long stamp = s.lock.readLock();
+            try {
+                n += s.series.size();
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        return n;
+    }
+
+    private Shard shard(String stationId) {
+        int h = Objects.requireNonNull(stationId, "stationId").hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static Stats stats(double[] values, int[] counts, int offset, Metric metric) {
+        int c = counts[offset + metric.ordinal()];
+        if (c == 0) return Stats.EMPTY;
+        int i = (offset + metric.ordinal()) * 3;
+        return new Stats(values[i], values[i + 1], values[i + 2], c);
+    }
+
+    private static final class Shard {
+        final StampedLock lock = new StampedLock();
+        final HashMap<String, Series> series = new HashMap<>();
+        // reused under the write lock so add() does not allocate
+        final double[] scratch = new double[METRICS];
+    }
+
+    private static final class Series {
+        final BucketRing[] rings = new BucketRing[Resolution.values().length];
+
+        Series(int[] retention) {
+            for (Resolution r : Resolution.values()) rings[r.ordinal()] = new BucketRing(r.seconds(), retention[r.ordinal()]);
+        }
+    }
+
+    public static class Builder {
+        private int shards = Runtime.getRuntime().availableProcessors() * 4;
+        private int minutes = 24 * 60;
+        private int hours = 30 * 24;
+        private int days = 366;
+
+        /** Number of lock stripes, rounded up to a power of two. */
+        public Builder shards(int shards) {
+            this.shards = shards;
+            return this;
+        }
+
+        /** Buckets kept per station at each resolution; older readings are dropped. */
+        public Builder retention(int minutes, int hours, int days) {
+            if (minutes < 1 || hours < 1 || days < 1) throw new IllegalArgumentException("retention must be positive");
+            this.minutes = minutes;
+            this.hours = hours;
+            this.days = days;
+            return this;
+        }
+
+        public MeasurementAggregator build() {
+            return new MeasurementAggregator(this);
+        }
+    }
+}
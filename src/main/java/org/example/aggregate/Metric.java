@@ -0,0 +1,10 @@
+package org.example.aggregate;
+
+/** Measured quantities that are aggregated, in storage order. */
+public enum Metric {
+    TEMPERATURE,
+    WIND_SPEED,
+    HUMIDITY,
+    PRESSURE,
+    PRECIPITATION
+}
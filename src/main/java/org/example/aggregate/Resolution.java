@@ -0,0 +1,29 @@
+package org.example.aggregate;
+
+/** Aggregation bucket widths, with the {@code type} codes the measurements API uses. */
+public enum Resolution {
+    MINUTE("m", 60),
+    HOUR("h", 3_600),
+    DAY("d", 86_400);
+
+    private final String code;
+    private final long seconds;
+
+    Resolution(String code, long seconds) {
+        this.code = code;
+        this.seconds = seconds;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public long seconds() {
+        return seconds;
+    }
+
+    public static Resolution fromCode(String code) {
+        for (Resolution r : values()) if (r.code.equals(code)) return r;
+        throw new IllegalArgumentException("unknown aggregation type: " + code);
+    }
+}
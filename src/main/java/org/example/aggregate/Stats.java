@@ -0,0 +1,14 @@
+package org.example.aggregate;
+
+/** Min, max and sum of the readings of one metric in one bucket; {@code count} is 0 if there were none. */
+public record Stats(double min, double max, double sum, long count) {
+    public static final Stats EMPTY = new Stats(Double.NaN, Double.NaN, 0, 0);
+
+    public double average() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
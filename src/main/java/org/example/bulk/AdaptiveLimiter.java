@@ -0,0 +1,95 @@
+package org.example.bulk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit: grows by roughly one permit per window of successes and halves
+ * on overload signals (429/5xx), at most once per cooldown so a single burst of rejections
+ * does not collapse the limit to its floor.
+ */
+public class AdaptiveLimiter {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitFreed = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final long cooldownNanos;
+
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long cooldown, TimeUnit unit) {
+        if (minLimit < 1 || maxLimit < minLimit) throw new IllegalArgumentException("bad limits " + minLimit + ".." + maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.cooldownNanos = unit.toNanos(cooldown);
+        this.lastDecrease = System.nanoTime() - cooldownNanos;
+    }
+
+    /** Blocks until the number of in-flight calls is below the current limit. */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) permitFreed.await();
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Additive increase: one extra permit after {@code limit} consecutive successes. */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            double before = limit;
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            if ((int) limit > (int) before) permitFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Multiplicative decrease on a rate-limit or server-overload response. */
+    public void onOverload() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - lastDecrease < cooldownNanos) return;
+            lastDecrease = now;
+            limit = Math.max(minLimit, limit / 2);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package org.example.bulk;
+
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.metrics.Endpoint;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Creates large numbers of stations through a bounded pipeline.
+ * <p>
+ * Input is pulled only when an in-flight permit is available, so memory stays bounded however
+ * large the source is. The permit count adapts (see {@link AdaptiveLimiter}): 429 and 5xx
+ * responses halve it, successes grow it back. A 429 means nothing was written and is retried
+ * straight away after backoff. A 5xx or transport failure may or may not have created the
+ * station, so those definitions are parked and, once the main pass is done, checked against a
+ * single remote listing by {@code external_id} before being re-driven; retries never create
+ * duplicates.
+ * <p>
+ * {@link #run(Iterator, Path)} also keeps a checkpoint: the number of leading definitions that
+ * are known to be created or skipped, saved atomically every 1024 submissions and when the run
+ * ends, however it ends. A rerun over the same input skips that many definitions unread and
+ * confirms the rest against one listing by {@code external_id}, so a run interrupted after
+ * most of a million stations resumes near where it stopped without creating duplicates. The
+ * checkpoint is deleted once a run finishes without failures.
+ */
+public class BulkProvisioner {
+    private static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final StationsClient client;
+    private final AdaptiveLimiter limiter;
+    private final int maxAttempts;
+    private final int maxRounds;
+    private final Duration baseBackoff;
+    private final boolean skipExisting;
+    private final Consumer<ProvisionReport> progress;
+
+    private BulkProvisioner(Builder b) {
+        this.client = b.client;
+        this.limiter = new AdaptiveLimiter(b.initialConcurrency, 1, b.maxConcurrency, 250, TimeUnit.MILLISECONDS);
+        this.maxAttempts = b.maxAttempts;
+        this.maxRounds = b.maxRounds;
+        this.baseBackoff = b.baseBackoff;
+        this.skipExisting = b.skipExisting;
+        this.progress = b.progress;
+    }
+
+    public static Builder builder(StationsClient client) {
+        return new Builder(client);
+    }
+
+    /** Current adaptive in-flight limit; useful for progress output. */
+    public int currentLimit() {
+        return limiter.limit();
+    }
+
+    public ProvisionReport run(Iterator<Station> definitions) throws InterruptedException {
+        try {
+            return run(definitions, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs {@code definitions}, checkpointing progress in {@code checkpoint} (skipped when
+     * {@code null}) and resuming from it if it exists. The checkpoint counts definitions in
+     * input order, so a rerun must be given the same input.
+     */
+    public ProvisionReport run(Iterator<Station> definitions, Path checkpoint) throws IOException, InterruptedException {
+        Run run = new Run(System.nanoTime());
+        Checkpoint cp = Checkpoint.open(checkpoint);
+        long start = cp.watermark();
+        for (long i = 0; i < start && definitions.hasNext(); i++) {
+            definitions.next();
+            run.resumed.increment();
+        }
+        // after a crash, definitions past the checkpoint may have been created without being recorded
+        Set<String> existing = skipExisting || cp.existed ? remoteExternalIds() : Set.of();
+
+        try {
+            Iterator<Definition> source = numbered(definitions, start);
+            for (int round = 0; round < maxRounds && source.hasNext(); round++) {
+                pump(run, source, existing, round == 0, cp);
+                if (run.ambiguous.isEmpty()) break;
+                List<Definition> parked = new ArrayList<>(run.ambiguous);
+                run.ambiguous.clear();
+                Set<String> remote = remoteExternalIds();
+                List<Definition> retry = new ArrayList<>();
+                for (Definition d : parked) {
+                    if (remote.contains(d.station.externalId())) {
+                        run.created.increment();
+                        cp.done(d.seq);
+                    } else if (round + 1 >= maxRounds) {
+                        run.fail(d.station, "unconfirmed after " + maxRounds + " rounds");
+                    } else {
+                        retry.add(d);
+                        client.metrics().recordRetry(Endpoint.CREATE);
+                    }
+                }
+                run.retries.add(retry.size());
+                source = retry.iterator();
+            }
+        } finally {
+            cp.save();
+        }
+        ProvisionReport report = run.report();
+        if (report.failed() == 0) cp.delete();
+        return report;
+    }
+
+    private static Iterator<Definition> numbered(Iterator<Station> definitions, long first) {
+        return new Iterator<>() {
+            long next = first;
+
+            @Override
+            public boolean hasNext() {
+                return definitions.hasNext();
+            }
+
+            @Override
+            public Definition next() {
+                return new Definition(next++, definitions.next());
+            }
+        };
+    }
+
+    private void pump(Run run, Iterator<Definition> source, Set<String> existing, boolean countSubmitted, Checkpoint cp)
+            throws InterruptedException, IOException {
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (source.hasNext()) {
+                Definition d = source.next();
+                if (countSubmitted) {
+                    run.submitted.increment();
+                    if (existing.contains(d.station.externalId())) {
+                        run.skipped.increment();
+                        cp.done(d.seq);
+                        continue;
+                    }
+                }
+                limiter.acquire();
+                exec.execute(() -> {
+                    try {
+                        if (provision(run, d)) cp.done(d.seq);
+                    } finally {
+                        limiter.release();
+                    }
+                });
+                if ((run.submitted.sum() & 0x3FF) == 0) {
+                    cp.save();
+                    if (progress != null) progress.accept(run.report());
+                }
+            }
+        }
+    }
+
+    /** Returns whether the station is known to exist; false when it failed or was parked. */
+    private boolean provision(Run run, Definition d) {
+        Station s = d.station;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                client.create(s);
+                limiter.onSuccess();
+                run.created.increment();
+                return true;
+            } catch (StationsApiException e) {
+                if (e.status() == 429) {
+                    limiter.onOverload();
+                    if (attempt >= maxAttempts) {
+                        run.fail(s, "rate limited after " + attempt + " attempts");
+                        return false;
+                    }
+                    run.retries.increment();
+                    client.metrics().recordRetry(Endpoint.CREATE);
+                    if (!sleep(backoff(attempt, e.retryAfter()))) {
+                        run.fail(s, "interrupted");
+                        return false;
+                    }
+                } else if (e.isRetryable()) {
+                    // the create may have been applied; confirm by external_id before retrying
+                    limiter.onOverload();
+                    run.ambiguous.add(d);
+                    return false;
+                } else {
+                    run.fail(s, e.getMessage());
+                    return false;
+                }
+            }
+        }
+    }
+
+    private Duration backoff(int attempt, Duration retryAfter) {
+        return backoff(baseBackoff, attempt, retryAfter);
+    }
+
+    /** The server's {@code Retry-After} if it sent one, else jittered exponential backoff from {@code base}. */
+    static Duration backoff(Duration base, int attempt, Duration retryAfter) {
+        if (retryAfter != null) return retryAfter;
+        long capped = base.toMillis() << Math.min(attempt - 1, 6);
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(capped / 2, capped + 1));
+    }
+
+    static boolean sleep(Duration d) {
+        try {
+            Thread.sleep(d);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** External ids of the remote catalog, read off the streamed listing rather than a buffered list. */
+    private Set<String> remoteExternalIds() {
+        Set<String> ids = new HashSet<>();
+        try (Stream<Station> listing = client.stream()) {
+            listing.forEach(s -> ids.add(s.externalId()));
+        }
+        return ids;
+    }
+
+    private record Definition(long seq, Station station) {
+    }
+
+    /**
+     * Progress of one run in input order. {@link #watermark()} is the first definition not yet
+     * known to exist; the file holds that number as text and is replaced atomically.
+     */
+    private static final class Checkpoint {
+        private final Path file;
+        private final boolean existed;
+        private final ReentrantLock lock = new ReentrantLock();
+        /** Bit {@code i} is definition {@code base + i}. */
+        private BitSet done = new BitSet();
+        private long base;
+        private long saved = -1;
+
+        private Checkpoint(Path file, long start, boolean existed) {
+            this.file = file;
+            this.base = start;
+            this.existed = existed;
+        }
+
+        static Checkpoint open(Path file) throws IOException {
+            if (file == null || !Files.exists(file)) return new Checkpoint(file, 0, false);
+            String text = Files.readString(file, StandardCharsets.UTF_8).trim();
+            try {
+                return new Checkpoint(file, Long.parseLong(text), true);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException(file + " is not a provisioning checkpoint", e);
+            }
+        }
+
+        void done(long seq) {
+            lock.lock();
+            try {
+                done.set((int) (seq - base));
+                int contiguous = done.nextClearBit(0);
+                if (contiguous >= 4096) {
+                    done = done.get(contiguous, Math.max(contiguous, done.length()));
+                    base += contiguous;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long watermark() {
+            lock.lock();
+            try {
+                return base + done.nextClearBit(0);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void save() throws IOException {
+            if (file == null) return;
+            long w = watermark();
+            if (w == saved) return;
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, Long.toString(w), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saved = w;
+        }
+
+        void delete() throws IOException {
+            if (file != null) Files.deleteIfExists(file);
+        }
+    }
+
+    private static final class Run {
+        final long startNanos;
+        final LongAdder submitted = new LongAdder();
+        final LongAdder created = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder resumed = new LongAdder();
+        final Queue<Definition> ambiguous = new ConcurrentLinkedQueue<>();
+        final Queue<ProvisionReport.Failure> failures = new ConcurrentLinkedQueue<>();
+        final AtomicInteger reportedFailures = new AtomicInteger();
+
+        Run(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void fail(Station s, String reason) {
+            failed.increment();
+            if (reportedFailures.incrementAndGet() <= MAX_REPORTED_FAILURES) {
+                failures.add(new ProvisionReport.Failure(s.externalId(), reason));
+            }
+        }
+
+        ProvisionReport report() {
+            return new ProvisionReport(submitted.sum(), created.sum(), skipped.sum(), failed.sum(), retries.sum(),
+                    resumed.sum(), Duration.ofNanos(System.nanoTime() - startNanos), List.copyOf(failures));
+        }
+    }
+
+    public static class Builder {
+        private final StationsClient client;
+        private int initialConcurrency = 16;
+        private int maxConcurrency = 256;
+        private int maxAttempts = 8;
+        private int maxRounds = 3;
+        private Duration baseBackoff = Duration.ofMillis(200);
+        private boolean skipExisting = true;
+        private Consumer<ProvisionReport> progress;
+
+        private Builder(StationsClient client) {
+            this.client = client;
+        }
+
+        public Builder initialConcurrency(int n) {
+            this.initialConcurrency = n;
+            return this;
+        }
+
+        public Builder maxConcurrency(int n) {
+            this.maxConcurrency = n;
+            return this;
+        }
+
+        /** Attempts per definition when the server answers 429. */
+        public Builder maxAttempts(int n) {
+            this.maxAttempts = n;
+            return this;
+        }
+
+        /** Passes over definitions whose outcome was ambiguous (5xx/transport failure). */
+        public Builder maxRounds(int n) {
+            this.maxRounds = n;
+            return this;
+        }
+
+        public Builder baseBackoff(Duration d) {
+            this.baseBackoff = d;
+            return this;
+        }
+
+        /** Lists the remote catalog first and skips external_ids that already exist. */
+        public Builder skipExisting(boolean skip) {
+            this.skipExisting = skip;
+            return this;
+        }
+
+        /** Called periodically (every 1024 submissions) with an interim report. */
+        public Builder progress(Consumer<ProvisionReport> progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        public BulkProvisioner build() {
+            return new BulkProvisioner(this);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package org.example.bulk;
+
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.metrics.Endpoint;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Brings the remote station catalog in line with a local one, touching only what differs.
+ * <p>
+ * {@link #plan} streams {@code GET /stations} into a hash index keyed by {@code external_id},
+ * then streams the catalog past it: an unknown {@code external_id} becomes a create, a known
+ * one whose name, coordinates or altitude differ becomes an update of that station, and remote
+ * stations the catalog never mentions (and extra remote copies of one {@code external_id})
+ * become deletes, unless deletes are turned off. The catalog itself is never held in memory.
+ * <p>
+ * {@link #apply} runs a plan through the same adaptive in-flight limit as
+ * {@link BulkProvisioner}. A 429 backs off and retries. Updates and deletes are also retried on
+ * 5xx, since repeating them is harmless, and a delete that finds the station gone counts as
+ * done. A create that failed ambiguously is confirmed by {@code external_id} against one
+ * listing before it is re-driven, so nothing is created twice.
+ * <p>
+ * After a crash, planning again and applying only does what is left, because the plan is
+ * computed against the remote state. A saved plan is applied with a journal instead: each
+ * change's row is appended once it succeeds and a rerun skips those rows, after confirming by
+ * {@code external_id} the creates the crash left unrecorded. The journal is deleted once the
+ * plan has been applied without failures.
+ */
+public class CatalogReconciler {
+    private static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final StationsClient client;
+    private final AdaptiveLimiter limiter;
+    private final int maxAttempts;
+    private final int maxRounds;
+    private final Duration baseBackoff;
+    private final boolean deletes;
+    private final Consumer<SyncReport> progress;
+
+    private CatalogReconciler(Builder b) {
+        this.client = b.client;
+        this.limiter = new AdaptiveLimiter(b.initialConcurrency, 1, b.maxConcurrency, 250, TimeUnit.MILLISECONDS);
+        this.maxAttempts = b.maxAttempts;
+        this.maxRounds = b.maxRounds;
+        this.baseBackoff = b.baseBackoff;
+        this.deletes = b.deletes;
+        this.progress = b.progress;
+    }
+
+    public static Builder builder(StationsClient client) {
+        return new Builder(client);
+    }
+
+    /**
+     * Diffs {@code catalog} against the remote listing. Throws {@link IllegalArgumentException}
+     * if the catalog repeats an {@code external_id}.
+     */
+    public SyncPlan plan(Iterator<Station> catalog) {
+        Map<String, Station> remote = new HashMap<>();
+        List<Change> duplicates = new ArrayList<>();
+        try (Stream<Station> listing = client.stream()) {
+            listing.forEach(s -> {
+                if (remote.putIfAbsent(s.externalId(), s) != null) duplicates.add(Change.delete(s));
+            });
+        }
+
+        List<Change> changes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        long unchanged = 0;
+        while (catalog.hasNext()) {
+            Station want = catalog.next();
+            if (!seen.add(want.externalId())) {
+                throw new IllegalArgumentException("duplicate external_id in catalog: " + want.externalId());
+            }
+            Station have = remote.remove(want.externalId());
+            if (have == null) {
+                changes.add(Change.create(want));
+                continue;
+            }
+            Set<Change.Field> diff = Change.Field.diff(have, want);
+            if (diff.isEmpty()) unchanged++;
+            else changes.add(Change.update(have.id(), want, diff));
+        }
+        if (deletes) {
+            changes.addAll(duplicates);
+            for (Station s : remote.values()) changes.add(Change.delete(s));
+        }
+        return new SyncPlan(changes, unchanged);
+    }
+
+    /** Applies a plan just computed; a crash is recovered by planning again. */
+    public SyncReport apply(SyncPlan plan) throws InterruptedException {
+        try {
+            return apply(plan, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies a plan, recording progress in {@code journal} (skipped when {@code null}) and
+     * resuming from it if it exists. Throws {@link IllegalStateException} if the journal was
+     * written for a different plan.
+     */
+    public SyncReport apply(SyncPlan plan, Path journal) throws IOException, InterruptedException {
+        List<Change> changes = plan.changes();
+        Run run = new Run(changes.size(), System.nanoTime());
+        boolean resuming = journal != null && Files.exists(journal);
+        try (Journal log = Journal.open(journal, changes)) {
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < changes.size(); i++) {
+                if (log.isDone(i)) run.resumed.increment();
+                else pending.add(i);
+            }
+            if (resuming) confirmCreates(run, changes, pending, log);
+
+            for (int round = 1; !pending.isEmpty(); round++) {
+                pump(run, changes, pending, log);
+                if (run.ambiguous.isEmpty()) break;
+                List<Integer> parked = new ArrayList<>(run.ambiguous);
+                run.ambiguous.clear();
+                Set<String> remote = remoteExternalIds();
+                pending = new ArrayList<>();
+                for (int i : parked) {
+                    Change c = changes.get(i);
+                    if (remote.contains(c.externalId())) {
+                        run.created.increment();
+                        log.done(i);
+                    } else if (round >= maxRounds) {
+                        run.fail(c, "unconfirmed after " + maxRounds + " rounds");
+                    } else {
+                        pending.add(i);
+                        client.metrics().recordRetry(Endpoint.CREATE);
+                    }
+                }
+                run.retries.add(pending.size());
+            }
+        }
+        SyncReport report = run.report();
+        if (journal != null && report.failed() == 0) Files.deleteIfExists(journal);
+        return report;
+    }
+
+    /** Drops from {@code pending} the creates an interrupted run applied but never journalled. */
+    private void confirmCreates(Run run, List<Change> changes, List<Integer> pending, Journal log) {
+        if (pending.stream().noneMatch(i -> changes.get(i).kind() == Change.Kind.CREATE)) return;
+        Set<String> remote = remoteExternalIds();
+        pending.removeIf(i -> {
+            Change c = changes.get(i);
+            if (c.kind() != Change.Kind.CREATE || !remote.contains(c.externalId())) return false;
+            run.resumed.increment();
+            log.done(i);
+            return true;
+        });
+    }
+
+    private void pump(Run run, List<Change> changes, List<Integer> pending, Journal log) throws InterruptedException {
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            int submitted = 0;
+            for (int i : pending) {
+                limiter.acquire();
+                exec.execute(() -> {
+                    try {
+                        execute(run, i, changes.get(i), log);
+                    } finally {
+                        limiter.release();
+                    }
+                });
+                if (progress != null && (++submitted & 0x3FF) == 0) progress.accept(run.report());
+            }
+        }
+    }
+
+    private void execute(Run run, int index, Change c, Journal log) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                switch (c.kind()) {
+                    case CREATE -> client.create(c.station());
+                    case UPDATE -> client.update(c.id(), c.station());
+                    case DELETE -> client.delete(c.id());
+                }
+                limiter.onSuccess();
+                run.applied(c);
+                log.done(index);
+                return;
+            } catch (StationsApiException e) {
+                if (c.kind() == Change.Kind.DELETE && e.isNotFound()) {
+                    run.applied(c);
+                    log.done(index);
+                    return;
+                }
+                if (!e.isRetryable()) {
+                    run.fail(c, e.getMessage());
+                    return;
+                }
+                limiter.onOverload();
+                if (c.kind() == Change.Kind.CREATE && e.status() != 429) {
+                    // the create may have been applied; confirm by external_id before retrying
+                    run.ambiguous.add(index);
+                    return;
+                }
+                if (attempt >= maxAttempts) {
+                    run.fail(c, "gave up after " + attempt + " attempts: " + e.getMessage());
+                    return;
+                }
+                run.retries.increment();
+                client.metrics().recordRetry(endpoint(c.kind()));
+                if (!BulkProvisioner.sleep(BulkProvisioner.backoff(baseBackoff, attempt, e.retryAfter()))) {
+                    run.fail(c, "interrupted");
+                    return;
+                }
+            } catch (RuntimeException e) {
+                run.fail(c, e.toString());
+                return;
+            }
+        }
+    }
+
+    private static Endpoint endpoint(Change.Kind kind) {
+        return switch (kind) {
+            case CREATE -> Endpoint.CREATE;
+            case UPDATE -> Endpoint.UPDATE;
+            case DELETE -> Endpoint.DELETE;
+        };
+    }
+
+    private Set<String> remoteExternalIds() {
+        Set<String> ids = new HashSet<>();
+        try (Stream<Station> listing = client.stream()) {
+            listing.forEach(s -> ids.add(s.externalId()));
+        }
+        return ids;
+    }
+
+    /**
+     * Rows of a plan that have been applied: a 16-byte little-endian header (magic, then a
+     * fingerprint of the plan) followed by one {@code int} row number per applied change. A
+     * torn last entry from a crash mid-write is cut off on open.
+     */
+    private static final class Journal implements AutoCloseable {
+        private static final int MAGIC = 0x4C4E4A53; // "SJNL"
+        private static final int HEADER = 16;
+
+        private final FileChannel channel;
+        private final BitSet done = new BitSet();
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+        private Journal(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        static Journal open(Path file, List<Change> changes) throws IOException {
+            if (file == null) return new Journal(null);
+            long fingerprint = fingerprint(changes);
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                Journal journal = new Journal(ch);
+                long size = ch.size();
+                if (size < HEADER) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+                    header.putInt(MAGIC).putInt(0).putLong(fingerprint).flip();
+                    ch.truncate(0);
+                    ch.write(header, 0);
+                    ch.position(HEADER);
+                    return journal;
+                }
+                ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+                if (buf.getInt() != MAGIC) throw new IllegalStateException(file + " is not a sync journal");
+                buf.getInt();
+                if (buf.getLong() != fingerprint) throw new IllegalStateException(file + " was written for a different plan");
+                while (buf.remaining() >= Integer.BYTES) {
+                    int row = buf.getInt();
+                    if (row >= 0 && row < changes.size()) journal.done.set(row);
+                }
+                long intact = buf.position();
+                ch.truncate(intact);
+                ch.position(intact);
+                return journal;
+            } catch (IOException | RuntimeException e) {
+                ch.close();
+                throw e;
+            }
+        }
+
+        boolean isDone(int row) {
+            return done.get(row);
+        }
+
+        /** Appends a row; the channel serializes concurrent writers. An I/O error surfaces on close. */
+        void done(int row) {
+            if (channel == null) return;
+            try {
+                channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, row));
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel == null) return;
+            channel.close();
+            if (failure.get() != null) throw failure.get();
+        }
+
+        /** 64-bit FNV-1a over the changes' text, so a journal is never applied to another plan. */
+        private static long fingerprint(List<Change> changes) {
+            long h = 0xcbf29ce484222325L;
+            for (Change c : changes) {
+                for (byte b : (c + "\n").getBytes(StandardCharsets.UTF_8)) {
+                    h ^= b & 0xFF;
+                    h *= 0x100000001b3L;
+                }
+            }
+            return h;
+        }
+    }
+
+    private static final class Run {
+        final long planned;
+        final long startNanos;
+        final LongAdder created = new LongAdder();
+        final LongAdder updated = new LongAdder();
+        final LongAdder deleted = new LongAdder();
+        final LongAdder resumed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final Queue<Integer> ambiguous = new ConcurrentLinkedQueue<>();
+        final Queue<ProvisionReport.Failure> failures = new ConcurrentLinkedQueue<>();
+        final AtomicInteger reportedFailures = new AtomicInteger();
+
+        Run(long planned, long startNanos) {
+            this.planned = planned;
+            this.startNanos = startNanos;
+        }
+
+        void applied(Change c) {
+            switch (c.kind()) {
+                case CREATE -> created.increment();
+                case UPDATE -> updated.increment();
+                case DELETE -> deleted.increment();
+            }
+        }
+
+        void fail(Change c, String reason) {
+            failed.increment();
+            if (reportedFailures.incrementAndGet() <= MAX_REPORTED_FAILURES) {
+                failures.add(new ProvisionReport.Failure(c.externalId(), c.kind() + ": " + reason));
+            }
+        }
+
+        SyncReport report() {
+            return new SyncReport(planned, created.sum(), updated.sum(), deleted.sum(), resumed.sum(), failed.sum(),
+                    retries.sum(), Duration.ofNanos(System.nanoTime() - startNanos), List.copyOf(failures));
+        }
+    }
+
+    public static class Builder {
+        private final StationsClient client;
+        private int initialConcurrency = 16;
+        private int maxConcurrency = 256;
+        private int maxAttempts = 8;
+        private int maxRounds = 3;
+        private Duration baseBackoff = Duration.ofMillis(200);
+        private boolean deletes = true;
+        private Consumer<SyncReport> progress;
+
+        private Builder(StationsClient client) {
+            this.client = client;
+        }
+
+        public Builder initialConcurrency(int n) {
+            this.initialConcurrency = n;
+            return this;
+        }
+
+        /** Upper bound on requests in flight while applying a plan. */
+        public Builder maxConcurrency(int n) {
+            this.maxConcurrency = n;
+            return this;
+        }
+
+        /** Attempts per change on 429, and per update or delete on 5xx/transport failures. */
+        public Builder maxAttempts(int n) {
+            this.maxAttempts = n;
+            return this;
+        }
+
+        /** Passes over creates whose outcome was ambiguous (5xx/transport failure). */
+        public Builder maxRounds(int n) {
+            this.maxRounds = n;
+            return this;
+        }
+
+        public Builder baseBackoff(Duration d) {
+            this.baseBackoff = d;
+            return this;
+        }
+
+        /** Whether remote stations missing from the catalog are deleted; on by default. */
+        public Builder deletes(boolean deletes) {
+            this.deletes = deletes;
+            return this;
+        }
+
+        /** Called every 1024 submitted changes with an interim report. */
+        public Builder progress(Consumer<SyncReport> progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        public CatalogReconciler build() {
+            return new CatalogReconciler(this);
+        }
+    }
+}
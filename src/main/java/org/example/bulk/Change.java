@@ -0,0 +1,87 @@
+package org.example.bulk;
+
+import org.example.client.Station;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * One step of a {@link SyncPlan}.
+ *
+ * @param kind    what to do remotely
+ * @param id      the remote id for updates and deletes, {@code null} for creates
+ * @param station the desired station for creates and updates, the remote one for deletes
+ * @param fields  the fields an update changes; empty for creates and deletes
+ */
+public record Change(Kind kind, String id, Station station, Set<Field> fields) {
+
+    public enum Kind {CREATE, UPDATE, DELETE}
+
+    /** The station fields a catalog owns; the remote id and timestamps are the server's. */
+    public enum Field {
+        NAME, LATITUDE, LONGITUDE, ALTITUDE;
+
+        /** Coordinates and altitude closer than this count as equal, well below the six decimals stored. */
+        static final double TOLERANCE = 1e-7;
+
+        boolean differs(Station a, Station b) {
+            return switch (this) {
+                case NAME -> a.name() == null ? b.name() != null : !a.name().equals(b.name());
+                case LATITUDE -> Math.abs(a.latitude() - b.latitude()) > TOLERANCE;
+                case LONGITUDE -> Math.abs(a.longitude() - b.longitude()) > TOLERANCE;
+                case ALTITUDE -> Math.abs(a.altitude() - b.altitude()) > TOLERANCE;
+            };
+        }
+
+        Object value(Station s) {
+            return switch (this) {
+                case NAME -> s.name();
+                case LATITUDE -> s.latitude();
+                case LONGITUDE -> s.longitude();
+                case ALTITUDE -> s.altitude();
+            };
+        }
+
+        /** The fields in which {@code desired} differs from {@code remote}. */
+        static Set<Field> diff(Station remote, Station desired) {
+            EnumSet<Field> out = EnumSet.noneOf(Field.class);
+            for (Field f : values()) if (f.differs(remote, desired)) out.add(f);
+            return out;
+        }
+    }
+
+    public Change {
+        fields = Set.copyOf(fields);
+    }
+
+    static Change create(Station desired) {
+        return new Change(Kind.CREATE, null, desired, Set.of());
+    }
+
+    static Change update(String id, Station desired, Set<Field> fields) {
+        return new Change(Kind.UPDATE, id, desired.withId(id), fields);
+    }
+
+    static Change delete(Station remote) {
+        return new Change(Kind.DELETE, remote.id(), remote, Set.of());
+    }
+
+    public String externalId() {
+        return station.externalId();
+    }
+
+    /** One line for dry-run output, e.g. {@code UPDATE ST_01 [5f0c...] name="Upington Airport" altitude=1130.0}. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(kind.name()).append(' ').append(externalId());
+        if (id != null) sb.append(" [").append(id).append(']');
+        if (kind == Kind.CREATE) sb.append(' ').append(StationCsv.formatLine(station));
+        for (Field f : Field.values()) {
+            if (!fields.contains(f)) continue;
+            Object v = f.value(station);
+            sb.append(' ').append(f.name().toLowerCase()).append('=');
+            sb.append(v instanceof String str ? '"' + str + '"' : v);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.bulk;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of a bulk provisioning run.
+ *
+ * @param submitted definitions read from the input
+ * @param created   stations created (including ones confirmed after an ambiguous failure)
+ * @param skipped   definitions whose {@code external_id} already existed remotely
+ * @param failed    definitions that could not be created
+ * @param retries   extra attempts made after 429/5xx/transport failures
+ * @param resumed   leading definitions passed over because a checkpoint showed them done
+ * @param failures  first failures, capped to keep the report small
+ */
+public record ProvisionReport(long submitted, long created, long skipped, long failed, long retries,
+                              long resumed, Duration elapsed, List<Failure> failures) {
+
+    public record Failure(String externalId, String reason) {
+    }
+
+    /** Stations created per second of wall-clock time. */
+    public double throughput() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0 : created / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("submitted=%d created=%d skipped=%d failed=%d retries=%d resumed=%d elapsed=%.3fs throughput=%.1f/s",
+                submitted, created, skipped, failed, retries, resumed, elapsed.toNanos() / 1e9, throughput());
+    }
+}
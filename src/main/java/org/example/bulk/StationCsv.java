@@ -0,0 +1,88 @@
+package org.example.bulk;
+
+import org.example.client.Station;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lazily reads station definitions from CSV with columns
+ * {@code external_id,name,latitude,longitude,altitude}. A header row starting with
+ * {@code external_id} and blank lines are skipped; fields may be double-quoted.
+ */
+public final class StationCsv {
+
+    private StationCsv() {
+    }
+
+    /** Streams definitions without loading the file; close the stream to release the file. */
+    public static Stream<Station> read(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file);
+        return reader.lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("external_id"))
+                .map(StationCsv::parseLine)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    public static Station parseLine(String line) {
+        List<String> f = split(line);
+        if (f.size() != 5) throw new IllegalArgumentException("expected 5 columns but got " + f.size() + ": " + line);
+        try {
+            return Station.of(f.get(0), f.get(1),
+                    Double.parseDouble(f.get(2)), Double.parseDouble(f.get(3)), Double.parseDouble(f.get(4)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad number in: " + line, e);
+        }
+    }
+
+    /** The inverse of {@link #parseLine}: one row, with fields quoted where they need it. */
+    public static String formatLine(Station s) {
+        return quote(s.externalId()) + ',' + quote(s.name()) + ',' + s.latitude() + ',' + s.longitude() + ',' + s.altitude();
+    }
+
+    static String quote(String field) {
+        if (field == null) return "";
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) return field;
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    static List<String> split(String line) {
+        List<String> out = new ArrayList<>(5);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString().trim());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        out.add(cur.toString().trim());
+        return out;
+    }
+}
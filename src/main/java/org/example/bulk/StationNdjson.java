@@ -0,0 +1,186 @@
+package org.example.bulk;
+
+import org.example.client.Station;
+import org.example.json.JsonException;
+import org.example.json.JsonWriter;
+import org.example.json.StationCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Station catalogs as newline-delimited JSON, one station object per line:
+ * {@code {"id":...,"external_id":...,"name":...,"latitude":...,"longitude":...,"altitude":...}}.
+ * <p>
+ * {@link #write} streams stations out, gzip-compressed when the file name ends in {@code .gz},
+ * into a {@code .part} file that is renamed into place only once complete, so an interrupted
+ * export never looks finished. {@link #read} detects gzip by its magic bytes and decodes each
+ * line straight from the byte buffer with {@link StationCodec}; blank lines are skipped. Both
+ * hold one line at a time, so memory does not grow with the catalog.
+ */
+public final class StationNdjson {
+    private static final int BUFFER = 1 << 16;
+
+    private StationNdjson() {
+    }
+
+    /** Writes every station from {@code stations} and returns how many were written. */
+    public static long write(Iterator<Station> stations, Path file) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long count = 0;
+        try (OutputStream out = open(part, file.getFileName().toString().endsWith(".gz"));
+             JsonWriter w = JsonWriter.borrow()) {
+            while (stations.hasNext()) {
+                encode(stations.next(), w.reset()).writeTo(out);
+                out.write('\n');
+                count++;
+            }
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /** Streams the stations of {@code file} lazily; close the stream to release the file. */
+    public static Stream<Station> read(Path file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER);
+        InputStream source = in;
+        try {
+            in.mark(2);
+            if (in.read() == 0x1f && in.read() == 0x8b) {
+                in.reset();
+                source = new GZIPInputStream(in, BUFFER);
+            } else {
+                in.reset();
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        LineIterator lines = new LineIterator(source);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(lines, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(lines::close);
+    }
+
+    /** One line: the create fields plus the id the source environment assigned, if any. */
+    public static JsonWriter encode(Station s, JsonWriter out) {
+        out.beginObject();
+        if (s.id() != null) out.name("id").value(s.id());
+        return out.name("external_id").value(s.externalId())
+                .name("name").value(s.name())
+                .name("latitude").value(s.latitude())
+                .name("longitude").value(s.longitude())
+                .name("altitude").value(s.altitude())
+                .endObject();
+    }
+
+    private static OutputStream open(Path file, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        try {
+            return gzip ? new BufferedOutputStream(new GZIPOutputStream(out, BUFFER), BUFFER) : new BufferedOutputStream(out, BUFFER);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /** Finds each {@code '\n'} in a block buffer and decodes the non-blank lines in place. */
+    private static final class LineIterator implements Iterator<Station> {
+        private final InputStream in;
+        private byte[] buf = new byte[BUFFER];
+        private int pos, limit;
+        private long lineNumber;
+        private Station next;
+        private boolean eof;
+
+        LineIterator(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && (!eof || pos < limit)) next = readLine();
+            return next != null;
+        }
+
+        @Override
+        public Station next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Station s = next;
+            next = null;
+            return s;
+        }
+
+        /** The station on the next line, or null for a blank line. */
+        private Station readLine() {
+            int scan = pos, newline;
+            while ((newline = indexOf((byte) '\n', scan, limit)) < 0 && !eof) {
+                int scanned = limit - pos;
+                fill();
+                scan = pos + scanned;
+            }
+            int start = pos, end = newline >= 0 ? newline : limit;
+            pos = newline >= 0 ? newline + 1 : limit;
+            lineNumber++;
+            while (start < end && isSpace(buf[start])) start++;
+            while (end > start && isSpace(buf[end - 1])) end--;
+            if (start == end) return null;
+            try {
+                return StationCodec.decode(buf, start, end - start);
+            } catch (JsonException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        /** Moves the unread bytes to the front, growing the buffer for long lines, and reads more. */
+        private void fill() {
+            int unread = limit - pos;
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, unread);
+            } else if (unread == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            pos = 0;
+            limit = unread;
+            try {
+                int n = in.read(buf, limit, buf.length - limit);
+                if (n < 0) eof = true;
+                else limit += n;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int indexOf(byte b, int from, int to) {
+            for (int i = from; i < to; i++) if (buf[i] == b) return i;
+            return -1;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.bulk;
+
+import org.example.client.Station;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The changes that bring the remote catalog in line with a local one, as computed by
+ * {@link CatalogReconciler#plan}. Stations that already match are only counted.
+ * <p>
+ * A plan can be {@linkplain #write written} to a CSV file and {@linkplain #read read} back, so
+ * a dry run can be reviewed and then applied as is; the row number of each change is what a
+ * resume journal records.
+ */
+public final class SyncPlan {
+    static final String HEADER = "op,id,external_id,name,latitude,longitude,altitude,fields";
+
+    private final List<Change> changes;
+    private final long unchanged;
+
+    SyncPlan(List<Change> changes, long unchanged) {
+        this.changes = List.copyOf(changes);
+        this.unchanged = unchanged;
+    }
+
+    public List<Change> changes() {
+        return changes;
+    }
+
+    /** Catalog stations that already match their remote counterpart. */
+    public long unchanged() {
+        return unchanged;
+    }
+
+    public long count(Change.Kind kind) {
+        return changes.stream().filter(c -> c.kind() == kind).count();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /** Dry-run output: the summary, then one line per change. */
+    public void print(PrintStream out) {
+        out.println(this);
+        for (Change c : changes) out.println(c);
+    }
+
+    public void write(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("# " + this);
+            w.newLine();
+            w.write(HEADER);
+            w.newLine();
+            for (Change c : changes) {
+                w.write(c.kind() + "," + StationCsv.quote(c.id()) + ',' + StationCsv.formatLine(c.station()) + ',');
+                StringBuilder fields = new StringBuilder();
+                for (Change.Field f : Change.Field.values()) {
+                    if (c.fields().contains(f)) fields.append(fields.isEmpty() ? "" : ";").append(f);
+                }
+                w.write(fields.toString());
+                w.newLine();
+            }
+        }
+    }
+
+    public static SyncPlan read(Path file) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        long unchanged = 0;
+        try (BufferedReader r = Files.newBufferedReader(file)) {
+            for (String line; (line = r.readLine()) != null; ) {
+                if (line.startsWith("# ")) {
+                    int at = line.indexOf("unchanged=");
+                    if (at >= 0) unchanged = Long.parseLong(line.substring(at + "unchanged=".length()).trim());
+                    continue;
+                }
+                if (line.isBlank() || line.equals(HEADER)) continue;
+                changes.add(parse(line));
+            }
+        }
+        return new SyncPlan(changes, unchanged);
+    }
+
+    private static Change parse(String line) {
+        List<String> f = StationCsv.split(line);
+        if (f.size() != 8) throw new IllegalArgumentException("expected 8 columns but got " + f.size() + ": " + line);
+        try {
+            Change.Kind kind = Change.Kind.valueOf(f.get(0));
+            String id = f.get(1).isEmpty() ? null : f.get(1);
+            Station s = new Station(id, f.get(2), f.get(3),
+                    Double.parseDouble(f.get(4)), Double.parseDouble(f.get(5)), Double.parseDouble(f.get(6)));
+            Set<Change.Field> fields = EnumSet.noneOf(Change.Field.class);
+            if (!f.get(7).isEmpty()) for (String name : f.get(7).split(";")) fields.add(Change.Field.valueOf(name));
+            if (kind != Change.Kind.CREATE && id == null) throw new IllegalArgumentException(kind + " without an id: " + line);
+            return new Change(kind, id, s, fields);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad number in: " + line, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("create=%d update=%d delete=%d unchanged=%d",
+                count(Change.Kind.CREATE), count(Change.Kind.UPDATE), count(Change.Kind.DELETE), unchanged);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.bulk;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of applying a {@link SyncPlan}.
+ *
+ * @param planned  changes in the plan
+ * @param created  stations created (including ones confirmed after an ambiguous failure)
+ * @param updated  stations updated
+ * @param deleted  stations deleted, or found already gone
+ * @param resumed  changes a crashed earlier run had already applied, taken from its journal
+ *                 or confirmed by {@code external_id}
+ * @param failed   changes that could not be applied
+ * @param retries  extra attempts made after 429/5xx/transport failures
+ * @param failures first failures, capped to keep the report small
+ */
+public record SyncReport(long planned, long created, long updated, long deleted, long resumed, long failed,
+                         long retries, Duration elapsed, List<ProvisionReport.Failure> failures) {
+
+    /** Changes applied per second of wall-clock time. */
+    public double throughput() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0 : (created + updated + deleted) / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("planned=%d created=%d updated=%d deleted=%d resumed=%d failed=%d retries=%d elapsed=%.3fs throughput=%.1f/s",
+                planned, created, updated, deleted, resumed, failed, retries, elapsed.toNanos() / 1e9, throughput());
+    }
+}
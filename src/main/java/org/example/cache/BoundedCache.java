@@ -0,0 +1,197 @@
+package org.example.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded cache with per-entry TTL and frequency-aware eviction.
+ * <p>
+ * Lookups are lock-free. Inserts that need room take a lock, sample a few resident entries and
+ * evict the least frequently used one according to a {@link FrequencySketch} (expired entries
+ * go first). A newcomer less popular than that victim is not admitted (TinyLFU), so a scan of
+ * one-off keys cannot flush the hot set. Expired entries stay resident with their validators
+ * ({@code ETag}/{@code Last-Modified}) so callers can revalidate them cheaply.
+ */
+public final class BoundedCache<V> {
+    private static final int SAMPLE = 8;
+
+    /** A cached value with its HTTP validators. */
+    public static final class Entry<V> {
+        private final String key;
+        private final V value;
+        private final String etag;
+        private final String lastModified;
+        private volatile long expiresAt;
+        private int slot;
+
+        private Entry(String key, V value, String etag, String lastModified, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        public V value() {
+            return value;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        public String lastModified() {
+            return lastModified;
+        }
+
+        public boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry<V>> map;
+    private final Entry<V>[] slots;
+    private int used;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maximumSize, Duration ttl) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive");
+        this.map = new ConcurrentHashMap<>(maximumSize * 4 / 3 + 1);
+        this.slots = (Entry<V>[]) new Entry[maximumSize];
+        this.sketch = new FrequencySketch(maximumSize);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /** Returns the resident entry, fresh or stale, recording the access for eviction decisions. */
+    public Entry<V> lookup(String key) {
+        sketch.increment(key);
+        return map.get(key);
+    }
+
+    /** Records a hit on a fresh entry. */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /** Marks a stale entry as revalidated (304) and restarts its TTL. */
+    public void revalidated(Entry<V> e) {
+        e.expiresAt = System.nanoTime() + ttlNanos;
+        revalidations.increment();
+    }
+
+    /** Inserts or replaces a value, evicting if full; returns false if admission was refused. */
+    public boolean put(String key, V value, String etag, String lastModified) {
+        Entry<V> fresh = new Entry<>(key, value, etag, lastModified, System.nanoTime() + ttlNanos);
+        lock.lock();
+        try {
+            Entry<V> old = map.get(key);
+            if (old != null) {
+                fresh.slot = old.slot;
+                slots[old.slot] = fresh;
+                map.put(key, fresh);
+                return true;
+            }
+            if (used < slots.length) {
+                fresh.slot = used;
+                slots[used++] = fresh;
+                map.put(key, fresh);
+                return true;
+            }
+            Entry<V> victim = sampleVictim();
+            if (victim.isFresh() && sketch.frequency(key) <= sketch.frequency(victim.key)) {
+                rejections.increment();
+                return false;
+            }
+            map.remove(victim.key);
+            evictions.increment();
+            fresh.slot = victim.slot;
+            slots[victim.slot] = fresh;
+            map.put(key, fresh);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Replaces the value after a write through the cache (counted as an invalidation). */
+    public void update(String key, V value, String etag, String lastModified) {
+        invalidations.increment();
+        put(key, value, etag, lastModified);
+    }
+
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            Entry<V> e = map.remove(key);
+            if (e == null) return;
+            invalidations.increment();
+            Entry<V> last = slots[--used];
+            slots[used] = null;
+            if (last != e) {
+                last.slot = e.slot;
+                slots[e.slot] = last;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidations.add(used);
+            map.clear();
+            Arrays.fill(slots, 0, used, null);
+            used = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), revalidations.sum(), evictions.sum(), rejections.sum(),
+                invalidations.sum(), map.size());
+    }
+
+    private Entry<V> sampleVictim() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        Entry<V> victim = null;
+        int victimFreq = Integer.MAX_VALUE;
+        for (int i = 0; i < SAMPLE; i++) {
+            Entry<V> e = slots[r.nextInt(used)];
+            if (!e.isFresh()) return e;
+            int f = sketch.frequency(e.key);
+            if (f < victimFreq) {
+                victim = e;
+                victimFreq = f;
+            }
+        }
+        return victim;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.cache;
+
+/**
+ * Snapshot of cache counters.
+ *
+ * @param hits          lookups answered from a fresh entry
+ * @param misses        lookups that needed a full fetch
+ * @param revalidations stale entries confirmed unchanged by a conditional request (304)
+ * @param evictions     entries removed to make room
+ * @param rejections    fetched values not admitted because they were less popular than the eviction victim
+ * @param invalidations entries dropped or replaced by writes through the cache
+ */
+public record CacheStats(long hits, long misses, long revalidations, long evictions, long rejections,
+                         long invalidations, int size) {
+
+    public double hitRate() {
+        long lookups = hits + misses + revalidations;
+        return lookups == 0 ? 0 : (double) (hits + revalidations) / lookups;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.cache;
+
+/**
+ * Count-min sketch of recent key popularity with 4 hash rows and counters saturating at 15.
+ * Counters are halved once the number of increments reaches ten times the cache capacity,
+ * so old popularity fades. Updates are deliberately unsynchronized: a lost increment only
+ * makes an estimate slightly low, which is acceptable for an eviction heuristic.
+ */
+final class FrequencySketch {
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+        this.table = new int[width * SEEDS.length];
+        this.mask = width - 1;
+        this.sampleSize = Math.max(10 * capacity, 160);
+    }
+
+    void increment(Object key) {
+        int h = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int i = index(h, row);
+            if (table[i] < MAX_COUNT) {
+                table[i]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    int frequency(Object key) {
+        int h = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) min = Math.min(min, table[index(h, row)]);
+        return min;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) table[i] >>>= 1;
+        additions = additions / 2;
+    }
+
+    private int index(int h, int row) {
+        int x = h * SEEDS[row];
+        x ^= x >>> 16;
+        return row * (mask + 1) + (x & mask);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 17;
+        h *= 0xED5AD4BB;
+        h ^= h >>> 11;
+        return h;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key into one call whose result, or failure, every
+ * caller receives. The in-flight table is a {@link ConcurrentHashMap}, so joining an existing
+ * call is a lock-free read and starting one contends only on the key's bin. The entry is
+ * removed before the result is published, so a caller arriving after completion starts a
+ * fresh load rather than seeing an old result.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /** Returns the in-flight load for {@code key}, starting one with {@code loader} if there is none. */
+    public CompletableFuture<V> execute(K key, Function<? super K, ? extends CompletableFuture<? extends V>> loader) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing == null) {
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            existing = inFlight.putIfAbsent(key, mine);
+            if (existing == null) {
+                calls.increment();
+                start(key, mine, loader);
+                return mine.copy();
+            }
+        }
+        shared.increment();
+        return existing.copy();
+    }
+
+    private void start(K key, CompletableFuture<V> mine,
+                       Function<? super K, ? extends CompletableFuture<? extends V>> loader) {
+        CompletableFuture<? extends V> load;
+        try {
+            load = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            return;
+        }
+        load.whenComplete((v, err) -> {
+            inFlight.remove(key, mine);
+            if (err != null) mine.completeExceptionally(err);
+            else mine.complete(v);
+        });
+    }
+
+    /** Loads actually started. */
+    public long calls() {
+        return calls.sum();
+    }
+
+    /** Callers that joined an existing load, i.e. calls saved. */
+    public long shared() {
+        return shared.sum();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
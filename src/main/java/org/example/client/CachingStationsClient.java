@@ -0,0 +1,181 @@
+package org.example.client;
+
+import org.example.cache.BoundedCache;
+import org.example.cache.CacheStats;
+import org.example.cache.SingleFlight;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache in front of {@link StationsClient#get}.
+ * <p>
+ * Fresh entries are served without a request. Once an entry's TTL has passed it is revalidated
+ * with {@code If-None-Match}/{@code If-Modified-Since} when the server supplied validators, so an
+ * unchanged station costs a bodiless 304 instead of a full read; otherwise it is re-fetched.
+ * Creates and updates through this client store the returned station, deletes drop it, so
+ * this client never serves its own stale writes. Size is bounded with frequency-aware
+ * eviction; see {@link BoundedCache}. Concurrent misses of one id share a single request
+ * ({@link SingleFlight}), as do concurrent revalidations of the same cached version; the two
+ * are keyed apart, since a miss must never be handed a bodiless 304.
+ * <p>
+ * Writes bump a per-id generation (striped, so unrelated ids may share one) when they start
+ * and again when they complete. A fetch remembers the generation it started under and does not
+ * store its result if a write has bumped it since, and fetches are keyed by generation, so a
+ * read issued after a write never joins a fetch that may have seen the old station.
+ */
+public class CachingStationsClient {
+    private static final int GENERATION_STRIPES = 1 << 10;
+
+    private final StationsClient delegate;
+    private final BoundedCache<Station> cache;
+    private final SingleFlight<String, StationsClient.Fetched> fetches = new SingleFlight<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public CachingStationsClient(StationsClient delegate, int maximumSize, Duration ttl) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = new BoundedCache<>(maximumSize, ttl);
+    }
+
+    public CompletableFuture<Station> getAsync(String id) {
+        BoundedCache.Entry<Station> e = cache.lookup(id);
+        if (e != null && e.isFresh()) {
+            cache.recordHit();
+            return CompletableFuture.completedFuture(e.value());
+        }
+        long generation = generation(id);
+        if (e == null || !e.hasValidators()) {
+            cache.recordMiss();
+            return fetches.execute(id + '\n' + generation, k -> delegate.fetchAsync(id, null, null))
+                    .thenApply(f -> store(id, generation, f));
+        }
+        String key = id + '\n' + generation + '\n' + e.etag() + '\n' + e.lastModified();
+        return fetches.execute(key, k -> delegate.fetchAsync(id, e.etag(), e.lastModified())).thenApply(f -> {
+            if (f.notModified()) {
+                if (generation(id) == generation) cache.revalidated(e);
+                return e.value();
+            }
+            cache.recordMiss();
+            return store(id, generation, f);
+        }).whenComplete((s, err) -> {
+            if (err != null && unwrap(err) instanceof StationsApiException sae && sae.isNotFound()) {
+                cache.invalidate(id);
+            }
+        });
+    }
+
+    public Station get(String id) {
+        return join(getAsync(id));
+    }
+
+    public CompletableFuture<Station> createAsync(Station station) {
+        return delegate.createFetchedAsync(station).thenApply(f -> {
+            if (f.station().id() != null) {
+                bump(f.station().id());
+                cache.put(f.station().id(), f.station(), f.etag(), f.lastModified());
+            }
+            return f.station();
+        });
+    }
+
+    public Station create(Station station) {
+        return join(createAsync(station));
+    }
+
+    public CompletableFuture<Station> updateAsync(String id, Station station) {
+        bump(id);
+        return delegate.updateFetchedAsync(id, station)
+                .thenApply(f -> {
+                    bump(id);
+                    cache.update(id, f.station(), f.etag(), f.lastModified());
+                    return f.station();
+                })
+                .whenComplete((s, err) -> {
+                    if (err != null) {
+                        bump(id);
+                        cache.invalidate(id);
+                    }
+                });
+    }
+
+    public Station update(String id, Station station) {
+        return join(updateAsync(id, station));
+    }
+
+    public CompletableFuture<Void> deleteAsync(String id) {
+        bump(id);
+        return delegate.deleteAsync(id).whenComplete((v, err) -> {
+            bump(id);
+            cache.invalidate(id);
+        });
+    }
+
+    public void delete(String id) {
+        join(deleteAsync(id));
+    }
+
+    /** Listings are not cached; they pass straight through. */
+    public List<Station> list() {
+        return delegate.list();
+    }
+
+    public void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** Network reads avoided because a concurrent miss for the same id was already in flight. */
+    public long coalescedFetches() {
+        return fetches.shared();
+    }
+
+    public StationsClient delegate() {
+        return delegate;
+    }
+
+    /**
+     * Caches a fetch begun under {@code generation} unless a write has happened since. A write
+     * that bumps between the check and the put is caught by the re-check, which drops the entry.
+     */
+    private Station store(String id, long generation, StationsClient.Fetched f) {
+        if (generation(id) == generation) {
+            cache.put(id, f.station(), f.etag(), f.lastModified());
+            if (generation(id) != generation) cache.invalidate(id);
+        }
+        return f.station();
+    }
+
+    private long generation(String id) {
+        return generations.get(id.hashCode() & (GENERATION_STRIPES - 1));
+    }
+
+    private void bump(String id) {
+        generations.incrementAndGet(id.hashCode() & (GENERATION_STRIPES - 1));
+    }
+
+    static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) t = t.getCause();
+        return t;
+    }
+}
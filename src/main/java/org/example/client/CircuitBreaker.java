@@ -0,0 +1,215 @@
+package org.example.client;
+
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker for one endpoint of a {@link StationsClient}.
+ * <p>
+ * While closed it keeps the outcomes of the last {@code window} calls; once at least
+ * {@code minimumCalls} of them are in and the failed fraction reaches {@code failureRate}, it
+ * opens and every call fails fast with {@link CircuitOpenException} for {@code openFor}. Then
+ * it lets {@code probes} calls through (half-open): if all succeed it closes with an empty
+ * window, the first failure opens it again. Failures are transport errors, timeouts, missed
+ * deadlines and 5xx; 4xx and 429 mean the endpoint is healthy and answering.
+ * <p>
+ * Each permit carries the generation it was issued in, so outcomes of calls admitted before a
+ * transition cannot move the breaker afterwards. Transitions are reported to
+ * {@link ClientMetrics#recordCircuitState}.
+ */
+public final class CircuitBreaker {
+    public enum State {
+        CLOSED(ClientMetrics.CIRCUIT_CLOSED), OPEN(ClientMetrics.CIRCUIT_OPEN), HALF_OPEN(ClientMetrics.CIRCUIT_HALF_OPEN);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        /** The value of the {@code stations_client_circuit_state} gauge. */
+        public int code() {
+            return code;
+        }
+    }
+
+    /** Returned by {@link #acquire()} when the call must not be sent. */
+    static final long REJECTED = -1;
+
+    private final Endpoint endpoint;
+    private final ClientMetrics metrics;
+    private final int minimumCalls;
+    private final double failureRate;
+    private final long openForNanos;
+    private final int probes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] failed;
+    private int size, next, failures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openUntil;
+    private int probesIssued, probesSucceeded;
+
+    private CircuitBreaker(Builder b, Endpoint endpoint, ClientMetrics metrics) {
+        this.endpoint = endpoint;
+        this.metrics = metrics;
+        this.failed = new boolean[b.window];
+        this.minimumCalls = b.minimumCalls;
+        this.failureRate = b.failureRate;
+        this.openForNanos = b.openFor.toNanos();
+        this.probes = b.probes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Endpoint endpoint() {
+        return endpoint;
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits a call, moving an open breaker whose time is up to half-open. Returns the permit
+     * to pass to {@link #record}, or {@link #REJECTED}.
+     */
+    long acquire() {
+        lock.lock();
+        try {
+            if (state == State.CLOSED) return generation;
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openUntil < 0) return REJECTED;
+                transition(State.HALF_OPEN);
+                probesIssued = 0;
+                probesSucceeded = 0;
+            }
+            if (probesIssued >= probes) return REJECTED;
+            probesIssued++;
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Reports the outcome of a call admitted with {@code permit}. */
+    void record(long permit, boolean success) {
+        if (permit == REJECTED) return;
+        lock.lock();
+        try {
+            if (permit != generation) return;
+            if (state == State.HALF_OPEN) {
+                if (!success) open();
+                else if (++probesSucceeded >= probes) close();
+                return;
+            }
+            if (size == failed.length && failed[next]) failures--;
+            failed[next] = !success;
+            if (!success) failures++;
+            next = (next + 1) % failed.length;
+            if (size < failed.length) size++;
+            if (size >= minimumCalls && failures >= failureRate * size) open();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Gives back a permit whose call ended without an outcome, e.g. on interrupt. */
+    void release(long permit) {
+        lock.lock();
+        try {
+            if (permit == generation && state == State.HALF_OPEN) probesIssued--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Time until an open breaker lets a probe through; {@code null} while probes are in flight. */
+    Duration retryIn() {
+        lock.lock();
+        try {
+            return state == State.OPEN ? Duration.ofNanos(Math.max(0, openUntil - System.nanoTime())) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        openUntil = System.nanoTime() + openForNanos;
+        transition(State.OPEN);
+    }
+
+    private void close() {
+        size = next = failures = 0;
+        transition(State.CLOSED);
+    }
+
+    private void transition(State to) {
+        state = to;
+        generation++;
+        metrics.recordCircuitState(endpoint, to.code());
+    }
+
+    public static class Builder {
+        private int window = 50;
+        private int minimumCalls = 20;
+        private double failureRate = 0.5;
+        private Duration openFor = Duration.ofSeconds(5);
+        private int probes = 3;
+
+        private Builder() {
+        }
+
+        /** Number of most recent calls the failure rate is computed over. */
+        public Builder window(int calls) {
+            if (calls < 1) throw new IllegalArgumentException("window must be positive");
+            this.window = calls;
+            return this;
+        }
+
+        /** Calls needed in the window before the breaker may open. */
+        public Builder minimumCalls(int calls) {
+            if (calls < 1) throw new IllegalArgumentException("minimumCalls must be positive");
+            this.minimumCalls = calls;
+            return this;
+        }
+
+        /** Fraction of failed calls in the window that opens the breaker. */
+        public Builder failureRate(double rate) {
+            if (!(rate > 0 && rate <= 1)) throw new IllegalArgumentException("failureRate must be in (0, 1]: " + rate);
+            this.failureRate = rate;
+            return this;
+        }
+
+        /** How long an opened breaker refuses calls before probing. */
+        public Builder openFor(Duration openFor) {
+            this.openFor = Objects.requireNonNull(openFor);
+            return this;
+        }
+
+        /** Probe calls let through half-open; all must succeed to close. */
+        public Builder probes(int probes) {
+            if (probes < 1) throw new IllegalArgumentException("probes must be positive");
+            this.probes = probes;
+            return this;
+        }
+
+        /** One breaker for {@code endpoint}; {@link StationsClient} builds one per endpoint. */
+        public CircuitBreaker build(Endpoint endpoint, ClientMetrics metrics) {
+            if (minimumCalls > window) throw new IllegalArgumentException("minimumCalls exceeds window");
+            return new CircuitBreaker(this, endpoint, metrics);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.client;
+
+import org.example.metrics.Endpoint;
+
+import java.time.Duration;
+
+/**
+ * Raised without sending anything while the {@link CircuitBreaker} of an endpoint is open.
+ * {@link #retryAfter()} is the time left until the breaker lets a probe through, so callers
+ * that already honour {@code Retry-After} back off for exactly that long.
+ */
+public class CircuitOpenException extends StationsApiException {
+    private final Endpoint endpoint;
+
+    public CircuitOpenException(Endpoint endpoint, Duration retryAfter) {
+        super("circuit open for " + endpoint.method() + " " + endpoint.path() + ", retry in "
+                + retryAfter.toMillis() + " ms", retryAfter);
+        this.endpoint = endpoint;
+    }
+
+    public Endpoint endpoint() {
+        return endpoint;
+    }
+}
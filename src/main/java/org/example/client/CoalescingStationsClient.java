@@ -0,0 +1,87 @@
+package org.example.client;
+
+import org.example.cache.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read path of {@link StationsClient} with single-flight coalescing: concurrent
+ * {@code GET /stations/{id}} calls for one id, and concurrent {@code GET /stations} listings,
+ * share one HTTP call. Bulk reads coalesce per id with each other and with single reads.
+ */
+public class CoalescingStationsClient {
+    private static final String LIST_KEY = "";
+
+    private final StationsClient delegate;
+    private final SingleFlight<String, Station> gets = new SingleFlight<>();
+    private final SingleFlight<String, List<Station>> lists = new SingleFlight<>();
+
+    public CoalescingStationsClient(StationsClient delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    public CompletableFuture<Station> getAsync(String id) {
+        return gets.execute(id, delegate::getAsync);
+    }
+
+    public Station get(String id) {
+        return CachingStationsClient.join(getAsync(id));
+    }
+
+    /**
+     * Reads many stations concurrently. Ids that are not found are left out of the result;
+     * any other failure fails the whole batch. Iteration order follows {@code ids}.
+     */
+    public CompletableFuture<Map<String, Station>> getAllAsync(Collection<String> ids) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<CompletableFuture<Station>> reads = new ArrayList<>(unique.size());
+        for (String id : unique) {
+            reads.add(getAsync(id).exceptionally(e -> {
+                if (CachingStationsClient.unwrap(e) instanceof StationsApiException sae && sae.isNotFound()) return null;
+                throw e instanceof RuntimeException re ? re : new RuntimeException(e);
+            }));
+        }
+        return CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            Map<String, Station> out = new LinkedHashMap<>(unique.size() * 4 / 3 + 1);
+            for (int i = 0; i < unique.size(); i++) {
+                Station s = reads.get(i).join();
+                if (s != null) out.put(unique.get(i), s);
+            }
+            return out;
+        });
+    }
+
+    public Map<String, Station> getAll(Collection<String> ids) {
+        return CachingStationsClient.join(getAllAsync(ids));
+    }
+
+    /** The returned list is shared by every coalesced caller and must not be modified. */
+    public CompletableFuture<List<Station>> listAsync() {
+        return lists.execute(LIST_KEY, k -> delegate.listAsync().thenApply(List::copyOf));
+    }
+
+    public List<Station> list() {
+        return CachingStationsClient.join(listAsync());
+    }
+
+    /** HTTP calls avoided because a caller joined one already in flight (single, bulk and list reads). */
+    public long callsSaved() {
+        return gets.shared() + lists.shared();
+    }
+
+    /** HTTP calls actually issued by the read path. */
+    public long callsIssued() {
+        return gets.calls() + lists.calls();
+    }
+
+    public StationsClient delegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.client;
+
+import java.time.Duration;
+
+/**
+ * Raised when a call's deadline passes before any of its requests was answered, whether it
+ * was waiting for a quota permit, for the server, or for a hedge.
+ */
+public class DeadlineExceededException extends StationsApiException {
+    private final Duration deadline;
+
+    public DeadlineExceededException(String method, String path, Duration deadline) {
+        super(method + " " + path + " missed its " + deadline.toMillis() + " ms deadline", (Duration) null);
+        this.deadline = deadline;
+    }
+
+    public Duration deadline() {
+        return deadline;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.client;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * When {@link StationsClient} hedges an idempotent read: if the first request has not answered
+ * after the {@code percentile} latency of the endpoint's last {@code window} responses
+ * (clamped to {@code [minDelay, maxDelay]}, and {@code maxDelay} until enough responses are
+ * in), a second identical request is sent and whichever answers first wins.
+ * <p>
+ * Hedges are capped at {@code maxRate} per call, with a burst of {@value #BURST}, so a slow
+ * backend sees at most that much extra load instead of twice the traffic.
+ */
+public final class HedgePolicy {
+    static final int BURST = 10;
+
+    final double percentile;
+    final long minDelayNanos;
+    final long maxDelayNanos;
+    final double maxRate;
+    final int window;
+
+    private HedgePolicy(Builder b) {
+        this.percentile = b.percentile;
+        this.minDelayNanos = b.minDelay.toNanos();
+        this.maxDelayNanos = b.maxDelay.toNanos();
+        this.maxRate = b.maxRate;
+        this.window = b.window;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** p95 delay between 2 ms and 1 s over the last 1000 responses, at most one hedge per 10 calls. */
+    public static HedgePolicy defaults() {
+        return builder().build();
+    }
+
+    public static class Builder {
+        private double percentile = 95;
+        private Duration minDelay = Duration.ofMillis(2);
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private double maxRate = 0.1;
+        private int window = 1_000;
+
+        private Builder() {
+        }
+
+        /** Latency percentile after which the hedge is sent. */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile < 100)) throw new IllegalArgumentException("percentile must be in (0, 100)");
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder minDelay(Duration minDelay) {
+            this.minDelay = Objects.requireNonNull(minDelay);
+            return this;
+        }
+
+        /** Upper bound of the hedge delay, and the delay used until the endpoint has a latency history. */
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = Objects.requireNonNull(maxDelay);
+            return this;
+        }
+
+        /** Hedges allowed per call over time, e.g. 0.1 for at most 10% extra requests. */
+        public Builder maxRate(double maxRate) {
+            if (!(maxRate > 0 && maxRate <= 1)) throw new IllegalArgumentException("maxRate must be in (0, 1]");
+            this.maxRate = maxRate;
+            return this;
+        }
+
+        /** Responses the percentile is computed over. */
+        public Builder window(int responses) {
+            if (responses < Hedger.REFRESH) throw new IllegalArgumentException("window must be at least " + Hedger.REFRESH);
+            this.window = responses;
+            return this;
+        }
+
+        public HedgePolicy build() {
+            if (minDelay.compareTo(maxDelay) > 0) throw new IllegalArgumentException("minDelay exceeds maxDelay");
+            return new HedgePolicy(this);
+        }
+    }
+}
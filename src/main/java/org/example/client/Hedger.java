@@ -0,0 +1,60 @@
+package org.example.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hedging state of one endpoint: a ring of recent response latencies whose percentile is
+ * recomputed every {@value #REFRESH} responses, and the hedge budget. The budget counts in
+ * thousandths of a hedge; every call adds {@code maxRate} of a hedge, every hedge spends one.
+ */
+final class Hedger {
+    static final int REFRESH = 32;
+    private static final long HEDGE = 1_000;
+
+    private final HedgePolicy policy;
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong budget = new AtomicLong();
+    private final long perCall;
+    private final long maxBudget;
+    private volatile long delayNanos;
+
+    Hedger(HedgePolicy policy) {
+        this.policy = policy;
+        this.samples = new AtomicLongArray(policy.window);
+        this.perCall = Math.max(1, Math.round(policy.maxRate * HEDGE));
+        this.maxBudget = HedgePolicy.BURST * HEDGE;
+        this.delayNanos = policy.maxDelayNanos;
+    }
+
+    /** How long to wait for the first request before hedging it. */
+    long delayNanos() {
+        return delayNanos;
+    }
+
+    void recordLatency(long nanos) {
+        long n = recorded.getAndIncrement();
+        samples.set((int) (n % samples.length()), nanos);
+        if ((n + 1) % REFRESH == 0) refresh((int) Math.min(n + 1, samples.length()));
+    }
+
+    /** Earns the hedge budget of one call. */
+    void onCall() {
+        budget.getAndUpdate(b -> Math.min(maxBudget, b + perCall));
+    }
+
+    /** Spends one hedge from the budget; false if it is exhausted. */
+    boolean tryHedge() {
+        return budget.getAndUpdate(b -> b >= HEDGE ? b - HEDGE : b) >= HEDGE;
+    }
+
+    private void refresh(int count) {
+        long[] copy = new long[count];
+        for (int i = 0; i < count; i++) copy[i] = samples.get(i);
+        Arrays.sort(copy);
+        long p = copy[Math.max(0, (int) Math.ceil(policy.percentile / 100 * count) - 1)];
+        delayNanos = Math.max(policy.minDelayNanos, Math.min(policy.maxDelayNanos, p));
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.client;
+
+/**
+ * One station reading as exchanged with the {@code /measurements} API. {@code dt} is in Unix
+ * seconds. Optional values are {@link Double#NaN} when the sensor did not report them and are
+ * left out of the JSON; {@code windSpeed} and {@code precipitation} travel as the API's
+ * {@code wind_speed} and {@code rain_1h}.
+ */
+public record Measurement(String stationId, long dt, double temperature, double windSpeed,
+                          double humidity, double pressure, double precipitation) {
+}
@@ -0,0 +1,18 @@
+package org.example.client;
+
+/**
+ * A weather station as exchanged with the {@code /stations} API.
+ * {@code id} is {@code null} for stations that have not been created yet.
+ */
+public record Station(String id, String externalId, String name,
+                      double latitude, double longitude, double altitude) {
+
+    /** A not-yet-created station definition. */
+    public static Station of(String externalId, String name, double latitude, double longitude, double altitude) {
+        return new Station(null, externalId, name, latitude, longitude, altitude);
+    }
+
+    public Station withId(String newId) {
+        return new Station(newId, externalId, name, latitude, longitude, altitude);
+    }
+}
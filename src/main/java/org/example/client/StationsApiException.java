@@ -0,0 +1,62 @@
+package org.example.client;
+
+import java.time.Duration;
+
+/**
+ * Raised when the Stations API answers with a non-success status, or with a success status
+ * whose body is not the expected JSON (for example the proxy's HTML "Request forbidden" page).
+ */
+public class StationsApiException extends RuntimeException {
+    private final int status;
+    private final String body;
+    private final Duration retryAfter;
+
+    public StationsApiException(int status, String body, String message) {
+        this(status, body, null, message);
+    }
+
+    public StationsApiException(int status, String body, Duration retryAfter, String message) {
+        super(message + " (HTTP " + status + ")");
+        this.status = status;
+        this.body = body;
+        this.retryAfter = retryAfter;
+    }
+
+    public StationsApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = -1;
+        this.body = null;
+        this.retryAfter = null;
+    }
+
+    /** A failure with no response, raised by the client itself before or instead of an exchange. */
+    protected StationsApiException(String message, Duration retryAfter) {
+        super(message);
+        this.status = -1;
+        this.body = null;
+        this.retryAfter = retryAfter;
+    }
+
+    /** HTTP status, or -1 if no response was received. */
+    public int status() {
+        return status;
+    }
+
+    public String body() {
+        return body;
+    }
+
+    /** Server-requested delay from a {@code Retry-After} header, or {@code null}. */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isNotFound() {
+        return status == 404;
+    }
+
+    /** True for statuses worth retrying: 429 and 5xx, or transport failures. */
+    public boolean isRetryable() {
+        return status == -1 || status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,809 @@
+package org.example.client;
+
+import org.example.aggregate.Aggregate;
+import org.example.aggregate.Resolution;
+import org.example.json.JsonException;
+import org.example.json.MeasurementCodec;
+import org.example.json.StationArrayReader;
+import org.example.json.StationCodec;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+import org.example.quota.Priority;
+import org.example.quota.QuotaManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Client for the OpenWeather {@code /stations} API built on {@link HttpClient}; it can also
+ * post batches to {@code /measurements}.
+ * <p>
+ * Every operation comes in two flavours: {@code xxxAsync} returns a {@link CompletableFuture},
+ * the plain variant blocks the calling thread, which is cheap on virtual threads. All clients
+ * built without an explicit {@link HttpClient} share one HTTP/2-capable connection pool.
+ * Bodies are encoded and decoded as bytes by {@link StationCodec}, which accepts either
+ * {@code "id"} or {@code "ID"} as the identifier field; {@link #stream()} and
+ * {@link #forEachStation} read the station list incrementally instead of buffering it. A
+ * {@link ClientMetrics} given to the builder records latency, status, and bytes for every
+ * exchange; a {@link QuotaManager} makes every request wait for a permit from the appid's
+ * budget (reads as {@link Priority#INTERACTIVE}, station writes as {@link Priority#NORMAL},
+ * measurement uploads as {@link Priority#BULK}) and feeds 429s back into it.
+ * <p>
+ * Tail latency is bounded by three optional controls. A {@link Builder#deadline deadline}
+ * caps each call as a whole, quota wait and hedges included, and fails it with
+ * {@link DeadlineExceededException}; {@link #withDeadline} gives a view with a different one.
+ * A {@link HedgePolicy} re-sends single-station and aggregate reads that have not answered
+ * after the endpoint's recent p95 and takes the first response. A {@link CircuitBreaker} per
+ * endpoint fails calls fast with {@link CircuitOpenException} while the endpoint is failing.
+ * Hedges, wins, latency saved, missed deadlines and breaker state go to the metrics.
+ */
+public class StationsClient {
+    private static final int STREAM_BATCH = 256;
+    /** Shortest timeout given to a request sent close to its deadline. */
+    private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final HttpClient SHARED = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final HttpClient http;
+    private final String stationsUrl;
+    private final String measurementsUrl;
+    private final String appIdQuery;
+    private final Duration requestTimeout;
+    private final ClientMetrics metrics;
+    private final String appId;
+    private final QuotaManager quota;
+    private final Priority priority;
+    private final Duration deadline;
+    /** Per endpoint ordinal; null when not configured, and null entries for endpoints that are never hedged. */
+    private final CircuitBreaker[] breakers;
+    private final Hedger[] hedgers;
+
+    private StationsClient(Builder b) {
+        this.http = b.httpClient != null ? b.httpClient : SHARED;
+        String base = b.baseUri.toString();
+        if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
+        this.stationsUrl = base + "/stations";
+        this.appIdQuery = "?appid=" + URLEncoder.encode(b.appId, StandardCharsets.UTF_8);
+        this.measurementsUrl = base + "/measurements" + appIdQuery;
+        this.requestTimeout = b.requestTimeout;
+        this.metrics = b.metrics;
+        this.appId = b.appId;
+        this.quota = b.quota;
+        this.priority = b.priority;
+        this.deadline = b.deadline;
+        this.breakers = b.breaker == null ? null : new CircuitBreaker[Endpoint.values().length];
+        if (breakers != null) {
+            for (Endpoint e : Endpoint.values()) breakers[e.ordinal()] = b.breaker.build(e, metrics);
+        }
+        this.hedgers = b.hedging == null ? null : new Hedger[Endpoint.values().length];
+        if (hedgers != null) {
+            hedgers[Endpoint.READ.ordinal()] = new Hedger(b.hedging);
+            hedgers[Endpoint.GET_MEASUREMENTS.ordinal()] = new Hedger(b.hedging);
+        }
+    }
+
+    private StationsClient(StationsClient base, Duration deadline) {
+        this.http = base.http;
+        this.stationsUrl = base.stationsUrl;
+        this.measurementsUrl = base.measurementsUrl;
+        this.appIdQuery = base.appIdQuery;
+        this.requestTimeout = base.requestTimeout;
+        this.metrics = base.metrics;
+        this.appId = base.appId;
+        this.quota = base.quota;
+        this.priority = base.priority;
+        this.deadline = deadline;
+        this.breakers = base.breakers;
+        this.hedgers = base.hedgers;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Metrics this client records into; {@link ClientMetrics#disabled()} unless configured. */
+    public ClientMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * A view of this client whose calls each fail after {@code deadline} ({@code null} for
+     * none); it shares the connection pool, quota, circuit breakers, hedging state and metrics.
+     */
+    public StationsClient withDeadline(Duration deadline) {
+        return new StationsClient(this, deadline);
+    }
+
+    /** The breaker guarding {@code endpoint}, or {@code null} if none was configured. */
+    public CircuitBreaker circuitBreaker(Endpoint endpoint) {
+        return breakers == null ? null : breakers[endpoint.ordinal()];
+    }
+
+    /** The HTTP client shared by every {@code StationsClient} without an explicit one. */
+    public static HttpClient sharedHttpClient() {
+        return SHARED;
+    }
+
+    // ---- async API ----
+
+    public CompletableFuture<Station> createAsync(Station station) {
+        return sendAsync(postRequest(station)).thenApply(r -> decodeStation(r, 201));
+    }
+
+    public CompletableFuture<Station> getAsync(String id) {
+        return sendAsync(getRequest(id)).thenApply(r -> decodeStation(r, 200));
+    }
+
+    public CompletableFuture<Station> updateAsync(String id, Station station) {
+        return sendAsync(putRequest(id, station)).thenApply(r -> decodeStation(r, 200));
+    }
+
+    public CompletableFuture<Void> deleteAsync(String id) {
+        return sendAsync(deleteRequest(id)).thenApply(r -> {
+            checkDeleted(r);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Station>> listAsync() {
+        return sendAsync(listRequest()).thenApply(StationsClient::decodeList);
+    }
+
+    /** Posts a pre-encoded JSON array of measurements; the API answers 204 with no body. */
+    public CompletableFuture<Void> postMeasurementsAsync(byte[] json, int off, int len) {
+        return sendAsync(measurementsRequest(json, off, len)).thenApply(r -> {
+            checkPosted(r);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> postMeasurementsAsync(Collection<Measurement> measurements) {
+        byte[] json = MeasurementCodec.encodeArray(measurements);
+        return postMeasurementsAsync(json, 0, json.length);
+    }
+
+    /** Aggregated buckets of one station with start in {@code [from, to]} (Unix seconds). */
+    public CompletableFuture<List<Aggregate>> aggregatesAsync(String stationId, Resolution type, long from, long to, int limit) {
+        return sendAsync(aggregatesRequest(stationId, type, from, to, limit)).thenApply(StationsClient::decodeAggregates);
+    }
+
+    // ---- blocking API ----
+
+    public Station create(Station station) {
+        return decodeStation(send(postRequest(station)), 201);
+    }
+
+    public Station get(String id) {
+        return decodeStation(send(getRequest(id)), 200);
+    }
+
+    public Station update(String id, Station station) {
+        return decodeStation(send(putRequest(id, station)), 200);
+    }
+
+    public void delete(String id) {
+        checkDeleted(send(deleteRequest(id)));
+    }
+
+    public List<Station> list() {
+        return decodeList(send(listRequest()));
+    }
+
+    public void postMeasurements(Collection<Measurement> measurements) {
+        byte[] json = MeasurementCodec.encodeArray(measurements);
+        checkPosted(send(measurementsRequest(json, 0, json.length)));
+    }
+
+    // ---- streaming API ----
+
+    /**
+     * Streams {@code GET /stations}, decoding one station at a time off the response body, so
+     * memory stays flat however large the catalogue is. The stream must be closed; closing it
+     * early (or a short-circuiting operation followed by close) abandons the rest of the body
+     * without reading it. A parallel stream reads ahead in batches of {@value #STREAM_BATCH}.
+     */
+    public Stream<Station> stream() {
+        StationArrayReader reader = openList();
+        return StreamSupport.stream(new StationSpliterator(reader), false).onClose(() -> closeList(reader));
+    }
+
+    /**
+     * Hands every station of {@code GET /stations} to {@code action} from {@code parallelism}
+     * virtual threads pulling off one shared reader, so at most {@code parallelism} stations
+     * are held at once. The first exception thrown by {@code action} stops the others and is
+     * rethrown. Returns the number of stations processed.
+     */
+    public long forEachStation(int parallelism, Consumer<? super Station> action) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive");
+        StationArrayReader reader = openList();
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        LongAdder processed = new LongAdder();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < parallelism; i++) {
+                workers.execute(() -> {
+                    try {
+                        Station s;
+                        while (error.get() == null && (s = poll(reader)) != null) {
+                            action.accept(s);
+                            processed.increment();
+                        }
+                    } catch (RuntimeException e) {
+                        error.compareAndSet(null, e);
+                    }
+                });
+            }
+        } finally {
+            closeList(reader);
+        }
+        if (error.get() != null) throw error.get();
+        return processed.sum();
+    }
+
+    public List<Aggregate> aggregates(String stationId, Resolution type, long from, long to, int limit) {
+        return decodeAggregates(send(aggregatesRequest(stationId, type, from, to, limit)));
+    }
+
+    // ---- conditional reads and validator-aware writes (used by CachingStationsClient) ----
+
+    /** A station with its HTTP validators; {@code station} is null when the server answered 304. */
+    record Fetched(Station station, String etag, String lastModified, boolean notModified) {
+    }
+
+    /** GET with {@code If-None-Match}/{@code If-Modified-Since} when validators are given. */
+    CompletableFuture<Fetched> fetchAsync(String id, String etag, String lastModified) {
+        HttpRequest.Builder b = request(stationUrl(id)).GET();
+        if (etag != null) b.header("If-None-Match", etag);
+        if (lastModified != null) b.header("If-Modified-Since", lastModified);
+        return sendAsync(b.build()).thenApply(r -> r.statusCode() == 304
+                ? new Fetched(null, header(r, "ETag"), header(r, "Last-Modified"), true)
+                : fetched(r, 200));
+    }
+
+    CompletableFuture<Fetched> createFetchedAsync(Station station) {
+        return sendAsync(postRequest(station)).thenApply(r -> fetched(r, 201));
+    }
+
+    CompletableFuture<Fetched> updateFetchedAsync(String id, Station station) {
+        return sendAsync(putRequest(id, station)).thenApply(r -> fetched(r, 200));
+    }
+
+    private static Fetched fetched(HttpResponse<byte[]> r, int expected) {
+        return new Fetched(decodeStation(r, expected), header(r, "ETag"), header(r, "Last-Modified"), false);
+    }
+
+    private static String header(HttpResponse<?> r, String name) {
+        return r.headers().firstValue(name).orElse(null);
+    }
+
+    // ---- requests ----
+
+    HttpRequest postRequest(Station s) {
+        return request(stationsUrl + appIdQuery)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(StationCodec.encode(s))).build();
+    }
+
+    HttpRequest getRequest(String id) {
+        return request(stationUrl(id)).GET().build();
+    }
+
+    HttpRequest putRequest(String id, Station s) {
+        return request(stationUrl(id))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(StationCodec.encode(s))).build();
+    }
+
+    HttpRequest deleteRequest(String id) {
+        return request(stationUrl(id)).DELETE().build();
+    }
+
+    HttpRequest listRequest() {
+        return request(stationsUrl + appIdQuery).GET().build();
+    }
+
+    HttpRequest aggregatesRequest(String stationId, Resolution type, long from, long to, int limit) {
+        return request(measurementsUrl + "&station_id=" + URLEncoder.encode(stationId, StandardCharsets.UTF_8)
+                + "&type=" + type.code() + "&from=" + from + "&to=" + to + "&limit=" + limit).GET().build();
+    }
+
+    HttpRequest measurementsRequest(byte[] json, int off, int len) {
+        return request(measurementsUrl)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json, off, len)).build();
+    }
+
+    private String stationUrl(String id) {
+        Objects.requireNonNull(id, "id");
+        return stationsUrl + '/' + URLEncoder.encode(id, StandardCharsets.UTF_8) + appIdQuery;
+    }
+
+    private HttpRequest.Builder request(String url) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).header("Accept", "application/json");
+        if (requestTimeout != null) b.timeout(requestTimeout);
+        return b;
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest req) {
+        if (deadline == null && breakers == null && hedgers == null) {
+            return attemptAsync(req).exceptionallyCompose(e -> CompletableFuture.failedFuture(transportFailure(req, e)));
+        }
+        Endpoint endpoint = Endpoint.of(req.method(), req.uri().getRawPath());
+        long deadlineAt = deadline == null ? 0 : System.nanoTime() + deadline.toNanos();
+        CircuitBreaker breaker = breakers == null ? null : breakers[endpoint.ordinal()];
+        long permit;
+        try {
+            permit = admit(breaker, endpoint);
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Hedger hedger = hedgers == null ? null : hedgers[endpoint.ordinal()];
+        AtomicBoolean sent = new AtomicBoolean();
+        CompletableFuture<HttpResponse<byte[]>> f = hedger == null ? attemptAsync(bounded(req, deadlineAt), deadlineAt, sent)
+                : new HedgedCall(endpoint, req, hedger, deadlineAt, sent).result;
+        if (deadlineAt != 0) f = f.orTimeout(Math.max(0, deadlineAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        f = f.exceptionallyCompose(e -> CompletableFuture.failedFuture(failure(req, endpoint, e, deadlineAt)));
+        return breaker == null ? f : f.whenComplete((r, e) -> {
+            // a call whose deadline ran out waiting for quota never reached the endpoint, so it is not blamed
+            if (!sent.get()) breaker.release(permit);
+            else breaker.record(permit, e == null && r.statusCode() < 500);
+        });
+    }
+
+    /** One request without a deadline: a quota permit, then the exchange. */
+    private CompletableFuture<HttpResponse<byte[]>> attemptAsync(HttpRequest req) {
+        return attemptAsync(req, 0, null);
+    }
+
+    /**
+     * One request: a quota permit, waited for no longer than {@code deadlineAt} allows, then the
+     * exchange. Nothing is sent once the deadline has passed; {@code sent}, if given, is set
+     * when the request goes out.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> attemptAsync(HttpRequest req, long deadlineAt, AtomicBoolean sent) {
+        if (quota == null) return exchangeAsync(req, sent);
+        if (deadlineAt == 0) return quota.acquireAsync(appId, priority(req)).thenCompose(v -> exchangeAsync(req, sent));
+        return quota.tryAcquireAsync(appId, priority(req), Duration.ofNanos(deadlineAt - System.nanoTime()))
+                .thenCompose(granted -> granted && System.nanoTime() - deadlineAt < 0 ? exchangeAsync(req, sent)
+                        : CompletableFuture.failedFuture(new TimeoutException()));
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> exchangeAsync(HttpRequest req, AtomicBoolean sent) {
+        if (sent != null) sent.set(true);
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> f = http.sendAsync(req, HttpResponse.BodyHandlers.ofByteArray());
+        return metrics.isEnabled() || quota != null || hedgers != null ? f.whenComplete((r, e) -> observe(req, r, start)) : f;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest req) {
+        // a request timeout stops counting once the headers are in, so a deadline has to bound the body too
+        if (deadline != null || hedgers != null && hedgers[Endpoint.of(req.method(), req.uri().getRawPath()).ordinal()] != null) {
+            return await(req, sendAsync(req));
+        }
+        return send(req, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Blocking exchange, used for the streamed listing and calls without a deadline. The
+     * deadline here bounds the quota wait and the wait for headers only; a streamed body is read
+     * at the caller's pace.
+     */
+    private <T> HttpResponse<T> send(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+        Endpoint endpoint = null;
+        CircuitBreaker breaker = null;
+        long permit = 0, deadlineAt = 0;
+        if (deadline != null || breakers != null) {
+            endpoint = Endpoint.of(req.method(), req.uri().getRawPath());
+            breaker = breakers == null ? null : breakers[endpoint.ordinal()];
+            permit = admit(breaker, endpoint);
+            deadlineAt = deadline == null ? 0 : System.nanoTime() + deadline.toNanos();
+        }
+        long start = 0;
+        boolean recorded = false;
+        try {
+            if (quota != null && deadlineAt == 0) {
+                quota.acquire(appId, priority(req));
+            } else if (quota != null && !quota.tryAcquire(appId, priority(req), Duration.ofNanos(deadlineAt - System.nanoTime()))) {
+                // the deadline ran out waiting for quota; the endpoint was never called, so it is not blamed
+                throw failure(req, endpoint, new TimeoutException(), deadlineAt);
+            }
+            start = System.nanoTime();
+            HttpResponse<T> r = http.send(bounded(req, deadlineAt), handler);
+            observe(req, r, start);
+            recorded = true;
+            if (breaker != null) breaker.record(permit, r.statusCode() < 500);
+            return r;
+        } catch (IOException e) {
+            observe(req, null, start);
+            recorded = true;
+            if (breaker != null) breaker.record(permit, false);
+            throw failure(req, endpoint, e, deadlineAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StationsApiException("interrupted during " + req.method() + " " + req.uri().getPath(), e);
+        } finally {
+            if (breaker != null && !recorded) breaker.release(permit);
+        }
+    }
+
+    private static <T> T await(HttpRequest req, CompletableFuture<T> f) {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            throw transportFailure(req, e.getCause());
+        } catch (InterruptedException e) {
+            f.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new StationsApiException("interrupted during " + req.method() + " " + req.uri().getPath(), e);
+        }
+    }
+
+    /** Takes a permit from {@code breaker}, if there is one, or throws {@link CircuitOpenException}. */
+    private long admit(CircuitBreaker breaker, Endpoint endpoint) {
+        if (breaker == null) return 0;
+        long permit = breaker.acquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            metrics.recordCircuitRejected(endpoint);
+            throw new CircuitOpenException(endpoint, breaker.retryIn());
+        }
+        return permit;
+    }
+
+    /** {@code req} with its timeout cut to what is left of the deadline; unchanged without one. */
+    private HttpRequest bounded(HttpRequest req, long deadlineAt) {
+        if (deadlineAt == 0) return req;
+        Duration left = Duration.ofNanos(Math.max(MIN_TIMEOUT_NANOS, deadlineAt - System.nanoTime()));
+        if (requestTimeout != null && requestTimeout.compareTo(left) <= 0) return req;
+        return HttpRequest.newBuilder(req, (name, value) -> true).timeout(left).build();
+    }
+
+    /** Maps a failed call to {@link DeadlineExceededException} if its deadline is what stopped it. */
+    private RuntimeException failure(HttpRequest req, Endpoint endpoint, Throwable e, long deadlineAt) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        boolean late = cause instanceof TimeoutException
+                || cause instanceof HttpTimeoutException && System.nanoTime() - deadlineAt > -MIN_TIMEOUT_NANOS;
+        if (deadlineAt == 0 || !late) return transportFailure(req, e);
+        metrics.recordDeadlineExceeded(endpoint);
+        return new DeadlineExceededException(req.method(), req.uri().getPath(), deadline);
+    }
+
+    /**
+     * A hedged read: the first request now and, if nothing has answered after the hedger's
+     * delay and the budget allows, a second one. The first response completes {@link #result};
+     * it fails only when every request sent has failed. The loser is left to finish so the
+     * latency the hedge saved can be measured; its response is discarded.
+     */
+    private final class HedgedCall {
+        final CompletableFuture<HttpResponse<byte[]>> result = new CompletableFuture<>();
+        private final Endpoint endpoint;
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private final AtomicBoolean winRecorded = new AtomicBoolean();
+        private volatile long primaryDoneAt;
+        private volatile long hedgeWonAt;
+
+        HedgedCall(Endpoint endpoint, HttpRequest req, Hedger hedger, long deadlineAt, AtomicBoolean sent) {
+            this.endpoint = endpoint;
+            hedger.onCall();
+            attemptAsync(bounded(req, deadlineAt), deadlineAt, sent).whenComplete(this::primaryDone);
+            long delay = hedger.delayNanos();
+            if (deadlineAt == 0 || deadlineAt - System.nanoTime() > delay) {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> hedge(req, hedger, deadlineAt, sent));
+            }
+        }
+
+        private void hedge(HttpRequest req, Hedger hedger, long deadlineAt, AtomicBoolean sent) {
+            if (result.isDone() || !hedger.tryHedge()) return;
+            // the primary may have failed meanwhile, after which the call is over
+            if (outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) return;
+            metrics.recordHedge(endpoint);
+            attemptAsync(bounded(req, deadlineAt), deadlineAt, sent).whenComplete((r, e) -> {
+                if (r == null) {
+                    failed(e);
+                } else {
+                    long now = System.nanoTime();
+                    if (result.complete(r)) {
+                        hedgeWonAt = now;
+                        recordWin();
+                    }
+                }
+            });
+        }
+
+        private void primaryDone(HttpResponse<byte[]> r, Throwable e) {
+            primaryDoneAt = System.nanoTime();
+            recordWin();
+            if (r != null) result.complete(r);
+            else failed(e);
+        }
+
+        private void failed(Throwable e) {
+            if (outstanding.decrementAndGet() == 0) result.completeExceptionally(e);
+        }
+
+        /** Both sides write their time before calling this, so whichever comes second sees both. */
+        private void recordWin() {
+            long won = hedgeWonAt, primary = primaryDoneAt;
+            if (won != 0 && primary != 0 && winRecorded.compareAndSet(false, true)) {
+                metrics.recordHedgeWin(endpoint, primary - won);
+            }
+        }
+    }
+
+    private Priority priority(HttpRequest req) {
+        if (priority != null) return priority;
+        if (req.method().equals("GET")) return Priority.INTERACTIVE;
+        return req.uri().getRawPath().endsWith("/measurements") ? Priority.BULK : Priority.NORMAL;
+    }
+
+    /**
+     * Records one exchange, passes a 429 on to the quota and feeds the hedge delay; {@code r}
+     * is null when no response arrived.
+     */
+    private void observe(HttpRequest req, HttpResponse<?> r, long start) {
+        if (quota != null && r != null && r.statusCode() == 429) quota.throttled(appId, retryAfter(r));
+        if (!metrics.isEnabled() && hedgers == null) return;
+        long nanos = System.nanoTime() - start;
+        Endpoint endpoint = Endpoint.of(req.method(), req.uri().getRawPath());
+        if (hedgers != null && r != null && hedgers[endpoint.ordinal()] != null) hedgers[endpoint.ordinal()].recordLatency(nanos);
+        if (!metrics.isEnabled()) return;
+        long sent = Math.max(0, req.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L));
+        if (r == null) {
+            metrics.recordTransportError(endpoint, nanos, sent);
+        } else if (r.body() instanceof byte[] body) {
+            boolean forbidden = r.statusCode() == 200 && ClientMetrics.isForbiddenPage(body, 0, body.length);
+            metrics.record(endpoint, r.statusCode(), forbidden, nanos, sent, body.length);
+        } else {
+            // streamed bodies add their bytes once read
+            metrics.record(endpoint, r.statusCode(), false, nanos, sent, 0);
+        }
+    }
+
+    private static RuntimeException transportFailure(HttpRequest req, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof StationsApiException sae) return sae;
+        return new StationsApiException(req.method() + " " + req.uri().getPath() + " failed: " + cause, cause);
+    }
+
+    /** Sends the list request and returns a reader over its body once the status is known to be 200. */
+    private StationArrayReader openList() {
+        HttpResponse<InputStream> r = send(listRequest(), HttpResponse.BodyHandlers.ofInputStream());
+        if (r.statusCode() != 200) {
+            String body;
+            try (InputStream in = r.body()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                body = null;
+            }
+            throw new StationsApiException(r.statusCode(), body, retryAfter(r), "unexpected status from list");
+        }
+        return new StationArrayReader(r.body());
+    }
+
+    private void closeList(StationArrayReader reader) {
+        reader.close();
+        metrics.addBytesReceived(Endpoint.LIST, reader.bytesRead());
+    }
+
+    private static Station poll(StationArrayReader reader) {
+        try {
+            return reader.poll();
+        } catch (JsonException e) {
+            throw new StationsApiException(200, null, "response is not a JSON array of stations: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            throw new StationsApiException("reading GET /stations failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /** Sequential reads off the shared reader; splits hand out fixed-size batches for parallel streams. */
+    private static final class StationSpliterator implements Spliterator<Station> {
+        private final StationArrayReader reader;
+
+        StationSpliterator(StationArrayReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Station> action) {
+            Station s = poll(reader);
+            if (s == null) return false;
+            action.accept(s);
+            return true;
+        }
+
+        @Override
+        public Spliterator<Station> trySplit() {
+            Station[] batch = new Station[STREAM_BATCH];
+            int n = 0;
+            Station s;
+            while (n < batch.length && (s = poll(reader)) != null) batch[n++] = s;
+            return n == 0 ? null : Spliterators.spliterator(batch, 0, n, characteristics());
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    // ---- JSON ----
+
+    private static Station decodeStation(HttpResponse<byte[]> r, int expected) {
+        if (r.statusCode() != expected && r.statusCode() != 200) {
+            throw failure(r, "unexpected status from " + r.request().method());
+        }
+        try {
+            return StationCodec.decode(r.body());
+        } catch (JsonException e) {
+            throw new StationsApiException(r.statusCode(), bodyText(r), "response is not a station JSON object");
+        }
+    }
+
+    private static List<Station> decodeList(HttpResponse<byte[]> r) {
+        if (r.statusCode() != 200) {
+            throw failure(r, "unexpected status from list");
+        }
+        try {
+            return StationCodec.decodeList(r.body());
+        } catch (JsonException e) {
+            throw new StationsApiException(r.statusCode(), bodyText(r), "response is not a JSON array of stations");
+        }
+    }
+
+    private static List<Aggregate> decodeAggregates(HttpResponse<byte[]> r) {
+        if (r.statusCode() != 200) {
+            throw failure(r, "unexpected status from GET /measurements");
+        }
+        try {
+            return MeasurementCodec.decodeAggregates(r.body());
+        } catch (JsonException | IllegalArgumentException e) {
+            throw new StationsApiException(r.statusCode(), bodyText(r), "response is not a JSON array of aggregates");
+        }
+    }
+
+    private static void checkDeleted(HttpResponse<byte[]> r) {
+        if (r.statusCode() != 204 && r.statusCode() != 200) {
+            throw failure(r, "unexpected status from DELETE");
+        }
+    }
+
+    private static void checkPosted(HttpResponse<byte[]> r) {
+        if (r.statusCode() != 204 && r.statusCode() != 200) {
+            throw failure(r, "unexpected status from POST /measurements");
+        }
+    }
+
+    private static StationsApiException failure(HttpResponse<byte[]> r, String message) {
+        return new StationsApiException(r.statusCode(), bodyText(r), retryAfter(r), message);
+    }
+
+    private static String bodyText(HttpResponse<byte[]> r) {
+        return r.body() == null ? null : new String(r.body(), StandardCharsets.UTF_8);
+    }
+
+    /** Parses a delta-seconds {@code Retry-After} header; HTTP-date values are ignored. */
+    static Duration retryAfter(HttpResponse<?> r) {
+        String v = r.headers().firstValue("Retry-After").orElse(null);
+        if (v == null) return null;
+        try {
+            return Duration.ofSeconds(Long.parseLong(v.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static class Builder {
+        private URI baseUri = URI.create("http://api.openweathermap.org/data/3.0");
+        private String appId;
+        private HttpClient httpClient;
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private ClientMetrics metrics = ClientMetrics.disabled();
+        private QuotaManager quota;
+        private Priority priority;
+        private Duration deadline;
+        private HedgePolicy hedging;
+        private CircuitBreaker.Builder breaker;
+
+        /** API root, e.g. {@code http://api.openweathermap.org/data/3.0}. */
+        public Builder baseUri(URI baseUri) {
+            this.baseUri = Objects.requireNonNull(baseUri);
+            return this;
+        }
+
+        public Builder appId(String appId) {
+            this.appId = appId;
+            return this;
+        }
+
+        /** Uses a dedicated {@link HttpClient} instead of the shared pool. */
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /** Per-request timeout; {@code null} disables it. */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /** Records per-endpoint latency, statuses, and bytes into {@code metrics}. */
+        public Builder metrics(ClientMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+
+        /** Takes a permit from {@code quota} for the appid before every request. */
+        public Builder quota(QuotaManager quota) {
+            this.quota = quota;
+            return this;
+        }
+
+        /** Sends every request in this class instead of choosing by method, e.g. BULK for a provisioning client. */
+        public Builder priority(Priority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Fails every call that has not completed after {@code deadline} with
+         * {@link DeadlineExceededException}, counting quota wait and hedges; {@code null} (the
+         * default) leaves only the per-request timeout.
+         */
+        public Builder deadline(Duration deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        /** Hedges single-station and aggregate reads according to {@code policy}; off by default. */
+        public Builder hedging(HedgePolicy policy) {
+            this.hedging = policy;
+            return this;
+        }
+
+        /** Guards every endpoint with its own breaker built from {@code breaker}; off by default. */
+        public Builder circuitBreaker(CircuitBreaker.Builder breaker) {
+            this.breaker = breaker;
+            return this;
+        }
+
+        public StationsClient build() {
+            Objects.requireNonNull(appId, "appId");
+            return new StationsClient(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.gen;
+
+/** Shape of a generated station payload: valid, or broken in one deliberate way. */
+public enum Payload {
+    VALID,
+    MISSING_LATITUDE,
+    MISSING_LONGITUDE,
+    /** Latitude beyond ±90, up to ±999.999999. */
+    LATITUDE_OUT_OF_RANGE,
+    /** Longitude beyond ±180, up to ±999.999999. */
+    LONGITUDE_OUT_OF_RANGE,
+    /** Latitude sent as the string {@code "not-a-number"}. */
+    LATITUDE_NOT_A_NUMBER,
+    /** A valid payload cut off after the latitude, leaving unterminated JSON. */
+    MALFORMED;
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+}
@@ -0,0 +1,265 @@
+package org.example.gen;
+
+import org.example.client.Station;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Seeded generator of station test data, for the places where Faker is too slow.
+ * <p>
+ * Every value is a pure function of the seed and an index: the same seed and index always give
+ * the same station, on any thread, and generating one touches no shared mutable state, so
+ * threads never contend. Callers choose the indices, typically through a per-thread
+ * {@link Cursor}. {@link #write} puts a payload as ASCII JSON straight into a byte array, with
+ * no intermediate {@link Station} or string, in the field order {@code StationCodec} uses.
+ * <p>
+ * External ids are unique per index below 2<sup>48</sup>; names come from a table of South
+ * African places. Coordinates have six decimals like the Faker helpers they replace, and
+ * altitudes run from 5 to 5000 m.
+ */
+public final class StationGenerator {
+    /** Upper bound on the length of any payload {@link #write} produces. */
+    public static final int MAX_PAYLOAD = 160;
+
+    private static final String[] PLACES = {
+            "Johannesburg", "Cape Town", "Durban", "Pretoria", "Gqeberha", "Bloemfontein", "East London",
+            "Pietermaritzburg", "Kimberley", "Polokwane", "Mbombela", "Rustenburg", "George", "Stellenbosch",
+            "Paarl", "Worcester", "Upington", "Mthatha", "Welkom", "Potchefstroom", "Klerksdorp", "Vereeniging",
+            "Emalahleni", "Newcastle", "Richards Bay", "Ladysmith", "Mossel Bay", "Knysna", "Oudtshoorn",
+            "Makhanda", "Komani", "Kroonstad", "Bethlehem", "Harrismith", "Tzaneen", "Makhado", "Musina",
+            "Mahikeng", "Vryburg", "Springbok", "Calvinia", "Beaufort West", "Graaff-Reinet", "Cradock",
+            "Aliwal North", "Kokstad", "Port Shepstone", "Ulundi", "Vryheid", "Ermelo", "Standerton", "Secunda",
+            "Middelburg", "Lydenburg", "Phalaborwa", "Thohoyandou", "Hermanus", "Saldanha", "Vredenburg",
+            "Swellendam", "Plettenberg Bay", "De Aar", "Colesberg", "Sutherland"};
+    private static final String[] FEATURES = {
+            "North", "South", "East", "West", "Central", "Airport", "Harbour", "Ridge",
+            "Valley", "Heights", "Park", "Hill", "Dam", "Farm", "Reserve", "Observatory"};
+    private static final byte[][] PLACE_BYTES = ascii(PLACES);
+    private static final byte[][] FEATURE_BYTES = ascii(FEATURES);
+
+    private static final byte[] EXTERNAL_ID_FIELD = ascii("{\"external_id\":\"ST_");
+    private static final byte[] NAME_FIELD = ascii("\",\"name\":\"");
+    private static final byte[] LATITUDE_FIELD = ascii(",\"latitude\":");
+    private static final byte[] LONGITUDE_FIELD = ascii(",\"longitude\":");
+    private static final byte[] ALTITUDE_FIELD = ascii(",\"altitude\":");
+    private static final byte[] NOT_A_NUMBER = ascii("\"not-a-number\"");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private static final int NAME = 1, LATITUDE = 2, LONGITUDE = 3, ALTITUDE = 4, INVALID = 5, DIGITS = 6;
+    private static final long ID_MASK = (1L << 48) - 1;
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+            100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L,
+            100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+
+    private final long seed;
+
+    public StationGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /** {@code ST_} and twelve hex digits; distinct for every index below 2<sup>48</sup>. */
+    public String externalId(long index) {
+        byte[] b = new byte[15];
+        b[0] = 'S';
+        b[1] = 'T';
+        b[2] = '_';
+        putHex48(b, 3, index);
+        return new String(b, StandardCharsets.US_ASCII);
+    }
+
+    /** A place and a feature, e.g. {@code "Upington Airport"}. */
+    public String name(long index) {
+        long h = draw(index, NAME);
+        return PLACES[bounded(h, PLACES.length)] + ' ' + FEATURES[(int) (h & 15)];
+    }
+
+    /** A place name on its own, in place of Faker's {@code address().cityName()}. */
+    public String place(long index) {
+        return PLACES[bounded(draw(index, NAME), PLACES.length)];
+    }
+
+    public double latitude(long index) {
+        return latitudeMicros(index) / 1e6;
+    }
+
+    public double longitude(long index) {
+        return longitudeMicros(index) / 1e6;
+    }
+
+    public int altitude(long index) {
+        return 5 + bounded(draw(index, ALTITUDE), 4996);
+    }
+
+    /** {@code n} (at most 18) random decimal digits, zero-padded, in place of Faker's {@code number().digits(n)}. */
+    public String digits(long index, int n) {
+        if (n < 1 || n > 18) throw new IllegalArgumentException("digits must be in [1, 18]: " + n);
+        long v = Long.remainderUnsigned(draw(index, DIGITS), POW10[n]);
+        byte[] b = new byte[n];
+        for (int i = n - 1; i >= 0; i--, v /= 10) b[i] = (byte) ('0' + v % 10);
+        return new String(b, StandardCharsets.US_ASCII);
+    }
+
+    /** The valid station at {@code index}; {@link #write} with {@link Payload#VALID} encodes the same values. */
+    public Station station(long index) {
+        return Station.of(externalId(index), name(index), latitude(index), longitude(index), altitude(index));
+    }
+
+    /** The payload at {@code index} as a new array. */
+    public byte[] payload(long index, Payload payload) {
+        byte[] b = new byte[MAX_PAYLOAD];
+        int n = write(index, payload, b, 0);
+        byte[] out = new byte[n];
+        System.arraycopy(b, 0, out, 0, n);
+        return out;
+    }
+
+    /** Writes the payload at {@code index} into the buffer's backing array and advances its position. */
+    public void write(long index, Payload payload, ByteBuffer dst) {
+        if (dst.hasArray()) {
+            dst.position(dst.position() + write(index, payload, dst.array(), dst.arrayOffset() + dst.position()));
+        } else {
+            dst.put(payload(index, payload));
+        }
+    }
+
+    /**
+     * Writes the payload at {@code index} into {@code dst} at {@code off}, which needs room for
+     * {@link #MAX_PAYLOAD} bytes, and returns its length. Allocates nothing.
+     */
+    public int write(long index, Payload payload, byte[] dst, int off) {
+        int p = put(dst, off, EXTERNAL_ID_FIELD);
+        p = putHex48(dst, p, index);
+        p = put(dst, p, NAME_FIELD);
+        long h = draw(index, NAME);
+        p = put(dst, p, PLACE_BYTES[bounded(h, PLACES.length)]);
+        dst[p++] = ' ';
+        p = put(dst, p, FEATURE_BYTES[(int) (h & 15)]);
+        dst[p++] = '"';
+        if (payload != Payload.MISSING_LATITUDE) {
+            p = put(dst, p, LATITUDE_FIELD);
+            p = switch (payload) {
+                case LATITUDE_NOT_A_NUMBER -> put(dst, p, NOT_A_NUMBER);
+                case LATITUDE_OUT_OF_RANGE -> putMicros(dst, p, outOfRange(index, 90_000_001));
+                default -> putMicros(dst, p, latitudeMicros(index));
+            };
+            if (payload == Payload.MALFORMED) {
+                dst[p++] = ',';
+                return p - off;
+            }
+        }
+        if (payload != Payload.MISSING_LONGITUDE) {
+            p = put(dst, p, LONGITUDE_FIELD);
+            p = putMicros(dst, p, payload == Payload.LONGITUDE_OUT_OF_RANGE
+                    ? outOfRange(index, 180_000_001) : longitudeMicros(index));
+        }
+        p = put(dst, p, ALTITUDE_FIELD);
+        p = putWhole(dst, p, altitude(index));
+        dst[p++] = '}';
+        return p - off;
+    }
+
+    /** Walks indices {@code start, start + stride, ...}; give each thread its own. */
+    public Cursor cursor(long start, long stride) {
+        return new Cursor(start, stride);
+    }
+
+    /** Index sequence for one thread. Not thread-safe. */
+    public static final class Cursor {
+        private long next;
+        private final long stride;
+
+        private Cursor(long start, long stride) {
+            if (stride < 1) throw new IllegalArgumentException("stride must be positive");
+            this.next = start;
+            this.stride = stride;
+        }
+
+        public long next() {
+            long i = next;
+            next += stride;
+            return i;
+        }
+    }
+
+    private long latitudeMicros(long index) {
+        return bounded(draw(index, LATITUDE), 180_000_001) - 90_000_000L;
+    }
+
+    private long longitudeMicros(long index) {
+        return bounded(draw(index, LONGITUDE), 360_000_001) - 180_000_000L;
+    }
+
+    /** A magnitude in {@code [min, 999.999999]} micro-degrees, either sign. */
+    private long outOfRange(long index, int min) {
+        long h = draw(index, INVALID);
+        long v = min + bounded(h, 999_999_999 - min + 1);
+        return (h & 1) == 0 ? v : -v;
+    }
+
+    /** SplitMix64 of the seed, index and field: one independent stream per field. */
+    private long draw(long index, int field) {
+        long z = seed + index * 0x9E3779B97F4A7C15L + field * 0xD1B54A32D192ED03L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Maps the high 32 bits of {@code h} onto {@code [0, bound)} by multiply-shift. */
+    private static int bounded(long h, int bound) {
+        return (int) (((h >>> 32) * bound) >>> 32);
+    }
+
+    /** Twelve hex digits of a bijective mix of {@code index + seed} over 48 bits. */
+    private int putHex48(byte[] dst, int p, long index) {
+        long x = (index + seed) & ID_MASK;
+        x = (x * 0x5DEECE66DL) & ID_MASK;
+        x ^= x >>> 24;
+        x = (x * 0x9E3779B97F4BL) & ID_MASK;
+        x ^= x >>> 21;
+        for (int i = 11; i >= 0; i--, x >>>= 4) dst[p + i] = HEX[(int) (x & 15)];
+        return p + 12;
+    }
+
+    /** Writes a micro-degree value as a decimal with six fraction digits. */
+    private static int putMicros(byte[] dst, int p, long micros) {
+        if (micros < 0) {
+            dst[p++] = '-';
+            micros = -micros;
+        }
+        p = putWhole(dst, p, micros / 1_000_000);
+        dst[p++] = '.';
+        int frac = (int) (micros % 1_000_000);
+        for (int i = 5; i >= 0; i--, frac /= 10) dst[p + i] = (byte) ('0' + frac % 10);
+        return p + 6;
+    }
+
+    /** Writes a non-negative value below 10<sup>4</sup>. */
+    private static int putWhole(byte[] dst, int p, long v) {
+        if (v >= 1000) dst[p++] = (byte) ('0' + v / 1000 % 10);
+        if (v >= 100) dst[p++] = (byte) ('0' + v / 100 % 10);
+        if (v >= 10) dst[p++] = (byte) ('0' + v / 10 % 10);
+        dst[p++] = (byte) ('0' + v % 10);
+        return p;
+    }
+
+    private static int put(byte[] dst, int p, byte[] src) {
+        System.arraycopy(src, 0, dst, p, src.length);
+        return p + src.length;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] ascii(String[] s) {
+        byte[][] out = new byte[s.length][];
+        for (int i = 0; i < s.length; i++) out[i] = ascii(s[i]);
+        return out;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.geo;
+
+/** Spherical-earth helpers: unit vectors, haversine distance and chord/arc conversion. */
+public final class Geo {
+    /** Mean earth radius in metres. */
+    public static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    private Geo() {
+    }
+
+    /** Great-circle distance in metres. */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    static double x(double lat, double lon) {
+        return Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(lon));
+    }
+
+    static double y(double lat, double lon) {
+        return Math.cos(Math.toRadians(lat)) * Math.sin(Math.toRadians(lon));
+    }
+
+    static double z(double lat) {
+        return Math.sin(Math.toRadians(lat));
+    }
+
+    /** Squared chord length between unit vectors to arc length in metres. */
+    static double chord2ToMeters(double chord2) {
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(chord2) / 2));
+    }
+
+    /** Arc length in metres to squared chord length (capped at the antipode). */
+    static double metersToChord2(double meters) {
+        double c = 2 * Math.sin(Math.min(meters / EARTH_RADIUS_M, Math.PI) / 2);
+        return c * c;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.geo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rounds coordinates to a grid of {@code precision} degrees so that nearby points share a
+ * cell, e.g. 0.01 (about 1.1 km of latitude) for current weather. A cell is packed into a
+ * {@code long} (latitude index high, longitude index low); its centre is the rounded
+ * coordinate pair. Longitudes are normalised to {@code [-180, 180)}, so 180 and -180 share a
+ * cell; latitudes outside {@code [-90, 90]} and NaNs are rejected.
+ */
+public final class GeoGrid {
+    private final double precision;
+    private final int decimals;
+    private final long maxLon;
+
+    public GeoGrid(double precision) {
+        if (!(precision > 0 && precision <= 90)) throw new IllegalArgumentException("precision must be in (0, 90]: " + precision);
+        this.precision = precision;
+        this.decimals = decimals(precision);
+        this.maxLon = Math.round(180 / precision);
+    }
+
+    public double precision() {
+        return precision;
+    }
+
+    public long cell(double lat, double lon) {
+        if (!(lat >= -90 && lat <= 90)) throw new IllegalArgumentException("latitude out of range: " + lat);
+        if (!Double.isFinite(lon)) throw new IllegalArgumentException("longitude is not finite: " + lon);
+        long latIndex = Math.round(lat / precision);
+        long lonIndex = Math.round(normalizeLongitude(lon) / precision);
+        if (lonIndex >= maxLon) lonIndex -= 2 * maxLon;
+        return latIndex << 32 | (lonIndex & 0xFFFF_FFFFL);
+    }
+
+    /** Latitude of the cell centre. */
+    public double latitude(long cell) {
+        return (cell >> 32) * precision;
+    }
+
+    /** Longitude of the cell centre. */
+    public double longitude(long cell) {
+        return (int) cell * precision;
+    }
+
+    /** A cell-centre coordinate with exactly the decimals the precision needs, e.g. {@code 51.51}. */
+    public String format(double coordinate) {
+        return BigDecimal.valueOf(coordinate).setScale(decimals, RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    /** {@code lat,lon} of the cell centre, a stable text key for the cell. */
+    public String key(long cell) {
+        return format(latitude(cell)) + ',' + format(longitude(cell));
+    }
+
+    static double normalizeLongitude(double lon) {
+        double l = (lon + 180) % 360;
+        if (l < 0) l += 360;
+        return l - 180;
+    }
+
+    /** Fewest decimals that represent every multiple of {@code precision}, e.g. 2 for 0.25. */
+    private static int decimals(double precision) {
+        for (int n = 0; n < 12; n++) {
+            double scaled = precision * Math.pow(10, n);
+            if (Math.abs(scaled - Math.rint(scaled)) < 1e-9 * Math.max(1, scaled)) return n;
+        }
+        return 12;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.geo;
+
+import org.example.client.Station;
+import org.example.client.StationsClient;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link StationsClient} writes that keep a {@link StationIndex} current: successful creates
+ * and updates are put into the index, successful deletes removed from it.
+ */
+public class IndexedStationsClient {
+    private final StationsClient delegate;
+    private final StationIndex index;
+
+    public IndexedStationsClient(StationsClient delegate, StationIndex index) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.index = Objects.requireNonNull(index);
+    }
+
+    /** Builds the index from {@code GET /stations} and wraps the client. */
+    public static IndexedStationsClient load(StationsClient delegate) {
+        return new IndexedStationsClient(delegate, StationIndex.fromApi(delegate));
+    }
+
+    public CompletableFuture<Station> createAsync(Station station) {
+        return delegate.createAsync(station).thenApply(this::indexed);
+    }
+
+    public Station create(Station station) {
+        return indexed(delegate.create(station));
+    }
+
+    public CompletableFuture<Station> updateAsync(String id, Station station) {
+        return delegate.updateAsync(id, station).thenApply(this::indexed);
+    }
+
+    public Station update(String id, Station station) {
+        return indexed(delegate.update(id, station));
+    }
+
+    public CompletableFuture<Void> deleteAsync(String id) {
+        return delegate.deleteAsync(id).thenRun(() -> index.remove(id));
+    }
+
+    public void delete(String id) {
+        delegate.delete(id);
+        index.remove(id);
+    }
+
+    public List<Neighbor> nearest(double latitude, double longitude, int k) {
+        return index.nearest(latitude, longitude, k);
+    }
+
+    public List<Neighbor> withinRadius(double latitude, double longitude, double radiusMeters) {
+        return index.withinRadius(latitude, longitude, radiusMeters);
+    }
+
+    public StationIndex index() {
+        return index;
+    }
+
+    public StationsClient delegate() {
+        return delegate;
+    }
+
+    private Station indexed(Station s) {
+        index.put(s);
+        return s;
+    }
+}
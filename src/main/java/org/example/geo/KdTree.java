@@ -0,0 +1,144 @@
+package org.example.geo;
+
+import org.example.client.Station;
+
+import java.util.function.Predicate;
+
+/**
+ * Immutable, implicitly balanced 3-d tree over stations projected onto the unit sphere. Nodes
+ * live in flat arrays: the root of {@code [lo, hi)} is at the midpoint, split on
+ * {@code depth % 3}. Euclidean (chord) distance between unit vectors grows monotonically
+ * with great-circle distance, so nearest by chord is nearest on the globe and the poles and
+ * the antimeridian need no special handling.
+ */
+final class KdTree {
+    final Station[] stations;
+    private final double[] x, y, z;
+
+    KdTree(Station[] stations) {
+        int n = stations.length;
+        this.stations = stations.clone();
+        this.x = new double[n];
+        this.y = new double[n];
+        this.z = new double[n];
+        for (int i = 0; i < n; i++) {
+            Station s = this.stations[i];
+            x[i] = Geo.x(s.latitude(), s.longitude());
+            y[i] = Geo.y(s.latitude(), s.longitude());
+            z[i] = Geo.z(s.latitude());
+        }
+        build(0, n, 0);
+    }
+
+    int size() {
+        return stations.length;
+    }
+
+    /** Offers every station accepted by {@code valid} within the heap's current bound. */
+    void nearest(double qx, double qy, double qz, NeighborHeap heap, Predicate<Station> valid) {
+        nearest(0, stations.length, 0, qx, qy, qz, heap, valid);
+    }
+
+    private void nearest(int lo, int hi, int depth, double qx, double qy, double qz,
+                         NeighborHeap heap, Predicate<Station> valid) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double dx = x[mid] - qx, dy = y[mid] - qy, dz = z[mid] - qz;
+            double d2 = dx * dx + dy * dy + dz * dz;
+            if (d2 < heap.bound() && valid.test(stations[mid])) heap.offer(stations[mid], d2);
+            double diff = switch (depth % 3) {
+                case 0 -> qx - x[mid];
+                case 1 -> qy - y[mid];
+                default -> qz - z[mid];
+            };
+            int nearLo = diff < 0 ? lo : mid + 1, nearHi = diff < 0 ? mid : hi;
+            int farLo = diff < 0 ? mid + 1 : lo, farHi = diff < 0 ? hi : mid;
+            nearest(nearLo, nearHi, depth + 1, qx, qy, qz, heap, valid);
+            if (diff * diff >= heap.bound()) return;
+            lo = farLo;
+            hi = farHi;
+            depth++;
+        }
+    }
+
+    /** Hands every station within chord distance {@code sqrt(maxD2)} to {@code visitor}. */
+    void within(double qx, double qy, double qz, double maxD2, RangeVisitor visitor) {
+        within(0, stations.length, 0, qx, qy, qz, maxD2, visitor);
+    }
+
+    private void within(int lo, int hi, int depth, double qx, double qy, double qz, double maxD2, RangeVisitor visitor) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double dx = x[mid] - qx, dy = y[mid] - qy, dz = z[mid] - qz;
+            double d2 = dx * dx + dy * dy + dz * dz;
+            if (d2 <= maxD2) visitor.visit(stations[mid], d2);
+            double diff = switch (depth % 3) {
+                case 0 -> qx - x[mid];
+                case 1 -> qy - y[mid];
+                default -> qz - z[mid];
+            };
+            boolean left = diff < 0 || diff * diff <= maxD2;
+            boolean right = diff >= 0 || diff * diff <= maxD2;
+            if (left && right) {
+                within(lo, mid, depth + 1, qx, qy, qz, maxD2, visitor);
+                lo = mid + 1;
+            } else if (left) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+            depth++;
+        }
+    }
+
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            double[] key = depth % 3 == 0 ? x : depth % 3 == 1 ? y : z;
+            select(key, lo, hi - 1, mid);
+            build(lo, mid, depth + 1);
+            lo = mid + 1;
+            depth++;
+        }
+    }
+
+    /** Quickselect: puts the k-th smallest {@code key} at {@code k}, smaller ones before it. */
+    private void select(double[] key, int lo, int hi, int k) {
+        while (hi > lo) {
+            int m = (lo + hi) >>> 1;
+            // median of three as pivot
+            if (key[m] < key[lo]) swap(m, lo);
+            if (key[hi] < key[lo]) swap(hi, lo);
+            if (key[hi] < key[m]) swap(hi, m);
+            double pivot = key[m];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[i] < pivot) i++;
+                while (key[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Station s = stations[a];
+        stations[a] = stations[b];
+        stations[b] = s;
+        double t = x[a];
+        x[a] = x[b];
+        x[b] = t;
+        t = y[a];
+        y[a] = y[b];
+        y[b] = t;
+        t = z[a];
+        z[a] = z[b];
+        z[b] = t;
+    }
+
+    interface RangeVisitor {
+        void visit(Station station, double chord2);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.geo;
+
+import org.example.client.Station;
+
+/** A query result: a station and its great-circle distance from the query point in metres. */
+public record Neighbor(Station station, double distanceMeters) {
+}
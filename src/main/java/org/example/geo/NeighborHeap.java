@@ -0,0 +1,75 @@
+package org.example.geo;
+
+import org.example.client.Station;
+
+import java.util.List;
+
+/** Fixed-size max-heap of the k closest candidates seen so far, keyed by squared chord distance. */
+final class NeighborHeap {
+    private final Station[] stations;
+    private final double[] d2;
+    private int size;
+
+    NeighborHeap(int k) {
+        stations = new Station[k];
+        d2 = new double[k];
+    }
+
+    /** Squared distance a candidate must beat to be kept. */
+    double bound() {
+        return size < d2.length ? Double.POSITIVE_INFINITY : d2[0];
+    }
+
+    void offer(Station s, double dist2) {
+        if (size < d2.length) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (d2[parent] >= dist2) break;
+                stations[i] = stations[parent];
+                d2[i] = d2[parent];
+                i = parent;
+            }
+            stations[i] = s;
+            d2[i] = dist2;
+            return;
+        }
+        if (dist2 >= d2[0]) return;
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && d2[child + 1] > d2[child]) child++;
+            if (d2[child] <= dist2) break;
+            stations[i] = stations[child];
+            d2[i] = d2[child];
+            i = child;
+        }
+        stations[i] = s;
+        d2[i] = dist2;
+    }
+
+    /** Drains the heap into a list sorted nearest first. */
+    List<Neighbor> toSortedList() {
+        Neighbor[] out = new Neighbor[size];
+        for (int i = size - 1; i >= 0; i--) {
+            out[i] = new Neighbor(stations[0], Geo.chord2ToMeters(d2[0]));
+            size--;
+            Station last = stations[size];
+            double lastD = d2[size];
+            int j = 0;
+            while (true) {
+                int child = 2 * j + 1;
+                if (child >= size) break;
+                if (child + 1 < size && d2[child + 1] > d2[child]) child++;
+                if (d2[child] <= lastD) break;
+                stations[j] = stations[child];
+                d2[j] = d2[child];
+                j = child;
+            }
+            stations[j] = last;
+            d2[j] = lastD;
+        }
+        return List.of(out);
+    }
+}
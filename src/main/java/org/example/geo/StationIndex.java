@@ -0,0 +1,153 @@
+package org.example.geo;
+
+import org.example.client.Station;
+import org.example.client.StationsClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Nearest-station and radius queries over station coordinates.
+ * <p>
+ * The bulk of the stations sits in an immutable {@link KdTree}; stations created or updated
+ * since it was built go into a small copy-on-write delta that queries scan linearly. A map of
+ * live stations is the source of truth: a tree or delta entry only counts if it is still the
+ * current version of its id, so updates and deletes never touch the tree. Once the delta or
+ * the number of stale tree entries grows past a fraction of the index, the tree is rebuilt on
+ * the writing thread. Queries take no lock and may run from any number of threads; writers
+ * serialise on the index.
+ */
+public class StationIndex {
+    private static final int BATCH_PARALLEL_THRESHOLD = 256;
+    private static final int MIN_DELTA = 1_024;
+    private static final int MAX_DELTA = 8_192;
+
+    private final ConcurrentHashMap<String, Station> live = new ConcurrentHashMap<>();
+    private final Predicate<Station> current = s -> live.get(s.id()) == s;
+    private volatile Snapshot snapshot = new Snapshot(new KdTree(new Station[0]), new Station[0], new double[0]);
+    private int staleInTree;
+
+    /** Tree plus the stations added since it was built, with their unit vectors at {@code xyz[3i..3i+2]}. */
+    private record Snapshot(KdTree tree, Station[] delta, double[] xyz) {
+    }
+
+    /** Indexes stations that already have ids. */
+    public static StationIndex of(Collection<Station> stations) {
+        StationIndex index = new StationIndex();
+        for (Station s : stations) index.live.put(requireId(s).id(), s);
+        index.rebuild();
+        return index;
+    }
+
+    /** Indexes every station returned by {@code GET /stations}. */
+    public static StationIndex fromApi(StationsClient client) {
+        return of(client.list());
+    }
+
+    /** Adds a created station or replaces an updated one. */
+    public synchronized void put(Station station) {
+        requireId(station);
+        Snapshot snap = snapshot;
+        int n = snap.delta.length;
+        Station[] delta = Arrays.copyOf(snap.delta, n + 1);
+        double[] xyz = Arrays.copyOf(snap.xyz, 3 * (n + 1));
+        delta[n] = station;
+        xyz[3 * n] = Geo.x(station.latitude(), station.longitude());
+        xyz[3 * n + 1] = Geo.y(station.latitude(), station.longitude());
+        xyz[3 * n + 2] = Geo.z(station.latitude());
+        snapshot = new Snapshot(snap.tree, delta, xyz);
+        Station previous = live.put(station.id(), station);
+        if (previous != null) staleInTree++;
+        maybeRebuild();
+    }
+
+    /** Removes a deleted station; returns false if it was not indexed. */
+    public synchronized boolean remove(String id) {
+        if (live.remove(id) == null) return false;
+        staleInTree++;
+        maybeRebuild();
+        return true;
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    /** The {@code k} stations nearest to the point, nearest first. */
+    public List<Neighbor> nearest(double latitude, double longitude, int k) {
+        if (k <= 0) return List.of();
+        double qx = Geo.x(latitude, longitude), qy = Geo.y(latitude, longitude), qz = Geo.z(latitude);
+        Snapshot snap = snapshot;
+        NeighborHeap heap = new NeighborHeap(k);
+        snap.tree.nearest(qx, qy, qz, heap, current);
+        for (int i = 0; i < snap.delta.length; i++) {
+            double d2 = chord2(snap.xyz, i, qx, qy, qz);
+            if (d2 < heap.bound() && current.test(snap.delta[i])) heap.offer(snap.delta[i], d2);
+        }
+        return heap.toSortedList();
+    }
+
+    /** Every station within {@code radiusMeters} of the point, nearest first. */
+    public List<Neighbor> withinRadius(double latitude, double longitude, double radiusMeters) {
+        double qx = Geo.x(latitude, longitude), qy = Geo.y(latitude, longitude), qz = Geo.z(latitude);
+        double max2 = Geo.metersToChord2(radiusMeters);
+        Snapshot snap = snapshot;
+        List<Neighbor> out = new ArrayList<>();
+        KdTree.RangeVisitor collect = (s, d2) -> {
+            if (current.test(s)) out.add(new Neighbor(s, Geo.chord2ToMeters(d2)));
+        };
+        snap.tree.within(qx, qy, qz, max2, collect);
+        for (int i = 0; i < snap.delta.length; i++) {
+            double d2 = chord2(snap.xyz, i, qx, qy, qz);
+            if (d2 <= max2) collect.visit(snap.delta[i], d2);
+        }
+        out.sort(Comparator.comparingDouble(Neighbor::distanceMeters));
+        return out;
+    }
+
+    /** {@link #nearest} for many points; large batches are spread over the common pool. */
+    public List<List<Neighbor>> nearest(double[] latitudes, double[] longitudes, int k) {
+        if (latitudes.length != longitudes.length) throw new IllegalArgumentException("coordinate arrays differ in length");
+        IntStream range = IntStream.range(0, latitudes.length);
+        if (latitudes.length >= BATCH_PARALLEL_THRESHOLD) range = range.parallel();
+        return range.mapToObj(i -> nearest(latitudes[i], longitudes[i], k)).toList();
+    }
+
+    /** {@link #withinRadius} for many points; large batches are spread over the common pool. */
+    public List<List<Neighbor>> withinRadius(double[] latitudes, double[] longitudes, double radiusMeters) {
+        if (latitudes.length != longitudes.length) throw new IllegalArgumentException("coordinate arrays differ in length");
+        IntStream range = IntStream.range(0, latitudes.length);
+        if (latitudes.length >= BATCH_PARALLEL_THRESHOLD) range = range.parallel();
+        return range.mapToObj(i -> withinRadius(latitudes[i], longitudes[i], radiusMeters)).toList();
+    }
+
+    /** Folds the delta into a freshly built tree and drops stale entries. */
+    public synchronized void rebuild() {
+        snapshot = new Snapshot(new KdTree(live.values().toArray(Station[]::new)), new Station[0], new double[0]);
+        staleInTree = 0;
+    }
+
+    /** The delta is scanned by every query, so it stays small; stale tree entries only cost a lookup. */
+    private void maybeRebuild() {
+        int n = live.size();
+        int maxDelta = Math.max(MIN_DELTA, Math.min(MAX_DELTA, 4 * (int) Math.sqrt(n)));
+        if (snapshot.delta.length > maxDelta || staleInTree > Math.max(MIN_DELTA, n / 8)) rebuild();
+    }
+
+    private static double chord2(double[] xyz, int i, double qx, double qy, double qz) {
+        double dx = xyz[3 * i] - qx, dy = xyz[3 * i + 1] - qy, dz = xyz[3 * i + 2] - qz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static Station requireId(Station s) {
+        Objects.requireNonNull(s.id(), "station has no id");
+        return s;
+    }
+}
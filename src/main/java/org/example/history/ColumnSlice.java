@@ -0,0 +1,66 @@
+package org.example.history;
+
+import org.example.client.Measurement;
+
+/**
+ * A run of consecutive rows of one segment, read straight from the mapped file. Accessors
+ * take an index in {@code [0, size())}; nothing is copied until a value is read.
+ */
+public final class ColumnSlice {
+    private final String stationId;
+    private final Segment segment;
+    private final int from;
+    private final int size;
+
+    ColumnSlice(String stationId, Segment segment, int from, int to) {
+        this.stationId = stationId;
+        this.segment = segment;
+        this.from = from;
+        this.size = to - from;
+    }
+
+    public String stationId() {
+        return stationId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long dt(int i) {
+        return segment.dt(row(i));
+    }
+
+    public double temperature(int i) {
+        return segment.value(Segment.TEMPERATURE, row(i));
+    }
+
+    public double windSpeed(int i) {
+        return segment.value(Segment.WIND, row(i));
+    }
+
+    public double humidity(int i) {
+        return segment.value(Segment.HUMIDITY, row(i));
+    }
+
+    public double pressure(int i) {
+        return segment.value(Segment.PRESSURE, row(i));
+    }
+
+    public double precipitation(int i) {
+        return segment.value(Segment.PRECIPITATION, row(i));
+    }
+
+    /** Copies row {@code i} out as a {@link Measurement}. */
+    public Measurement measurement(int i) {
+        int r = row(i);
+        return new Measurement(stationId, segment.dt(r), segment.value(Segment.TEMPERATURE, r),
+                segment.value(Segment.WIND, r), segment.value(Segment.HUMIDITY, r),
+                segment.value(Segment.PRESSURE, r), segment.value(Segment.PRECIPITATION, r));
+    }
+
+    private int row(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return from + i;
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.history;
+
+/** Size of a {@link MeasurementHistory}: stations, live segments, rows and mapped bytes. */
+public record HistoryStats(int stations, int segments, long rows, long mappedBytes) {
+}
@@ -0,0 +1,343 @@
+package org.example.history;
+
+import org.example.client.Measurement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Local, memory-mapped measurement history so historical queries never touch the network.
+ * <p>
+ * Each station has a directory of append-only {@link Segment segments}, one column per field.
+ * Appends to a station are serialised by a per-station lock; scans take no lock at all: they
+ * snapshot the segment list, skip segments whose time range misses the query, locate the rows
+ * with the sparse index and hand them out as {@link ColumnSlice} views over the mapped file.
+ * Readings appended out of time order mark their segment unsorted, which only costs a linear
+ * scan; {@link #compact} rewrites a station into full, time-sorted segments.
+ * <p>
+ * Compaction writes its output under temporary names, renames it into place and only then
+ * deletes the inputs. Every output records the highest input sequence number and the size of
+ * its group, so reopening after a crash either finishes the swap or discards the partial output.
+ */
+public class MeasurementHistory implements AutoCloseable {
+    private static final Pattern PLAIN_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+    private static final Pattern SEGMENT_FILE = Pattern.compile("seg-(\\d{16})\\.col");
+
+    private final Path root;
+    private final int segmentRows;
+    private final ConcurrentHashMap<String, StationLog> stations = new ConcurrentHashMap<>();
+
+    private MeasurementHistory(Builder b) throws IOException {
+        this.root = b.root;
+        this.segmentRows = b.segmentRows;
+        Files.createDirectories(root);
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                String id = decodeId(dir.getFileName().toString());
+                stations.put(id, StationLog.open(dir));
+            }
+        }
+    }
+
+    public static Builder builder(Path root) {
+        return new Builder(root);
+    }
+
+    public void append(Measurement m) {
+        append(m.stationId(), m.dt(), m.temperature(), m.windSpeed(), m.humidity(), m.pressure(), m.precipitation());
+    }
+
+    public void appendAll(Collection<Measurement> measurements) {
+        for (Measurement m : measurements) append(m);
+    }
+
+    /** Appends one reading to the station's newest segment, starting a new one when it is full. */
+    public void append(String stationId, long dt, double temperature, double windSpeed,
+                       double humidity, double pressure, double precipitation) {
+        StationLog log = log(stationId);
+        log.lock.lock();
+        try {
+            List<Segment> segs = log.segments;
+            Segment tail = segs.isEmpty() ? null : segs.get(segs.size() - 1);
+            if (tail == null || tail.isFull()) {
+                tail = Segment.create(log.segmentFile(log.nextSeq), log.nextSeq++, segmentRows, -1, 0);
+                List<Segment> next = new ArrayList<>(segs);
+                next.add(tail);
+                log.segments = List.copyOf(next);
+            }
+            tail.append(dt, temperature, windSpeed, humidity, pressure, precipitation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * Hands every row of {@code stationId} with {@code from <= dt <= to} to {@code sink} as
+     * zero-copy slices, in storage order (time order once compacted). Lock-free; rows appended
+     * during the scan may or may not be seen.
+     */
+    public void scan(String stationId, long from, long to, Consumer<ColumnSlice> sink) {
+        StationLog log = stations.get(stationId);
+        if (log == null) return;
+        for (Segment seg : log.segments) {
+            int n = seg.rows();
+            if (n == 0 || seg.maxDt() < from || seg.minDt() > to) continue;
+            if (seg.sorted()) {
+                int lo = seg.lowerBound(from, n);
+                int hi = to == Long.MAX_VALUE ? n : seg.lowerBound(to + 1, n);
+                if (hi > lo) sink.accept(new ColumnSlice(stationId, seg, lo, hi));
+                continue;
+            }
+            int runStart = -1;
+            for (int row = 0; row < n; row++) {
+                long dt = seg.dt(row);
+                boolean in = dt >= from && dt <= to;
+                if (in && runStart < 0) runStart = row;
+                else if (!in && runStart >= 0) {
+                    sink.accept(new ColumnSlice(stationId, seg, runStart, row));
+                    runStart = -1;
+                }
+            }
+            if (runStart >= 0) sink.accept(new ColumnSlice(stationId, seg, runStart, n));
+        }
+    }
+
+    /** Copies the rows of {@link #scan} out as measurements. */
+    public List<Measurement> read(String stationId, long from, long to) {
+        List<Measurement> out = new ArrayList<>();
+        scan(stationId, from, to, slice -> {
+            for (int i = 0; i < slice.size(); i++) out.add(slice.measurement(i));
+        });
+        return out;
+    }
+
+    /**
+     * Rewrites a station's segments as full, time-sorted ones (stable for equal timestamps).
+     * Returns {@code false} if it already was a single sorted segment. Appends to the station
+     * wait for the rewrite; concurrent scans keep reading the old files.
+     */
+    public boolean compact(String stationId) {
+        StationLog log = stations.get(stationId);
+        if (log == null) return false;
+        log.lock.lock();
+        try {
+            return log.compact(segmentRows);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    public int compactAll() {
+        int n = 0;
+        for (String id : stations.keySet()) if (compact(id)) n++;
+        return n;
+    }
+
+    public Set<String> stations() {
+        return Set.copyOf(stations.keySet());
+    }
+
+    public HistoryStats stats() {
+        int segments = 0;
+        long rows = 0, bytes = 0;
+        for (StationLog log : stations.values()) {
+            for (Segment s : log.segments) {
+                segments++;
+                rows += s.rows();
+                bytes += s.bytes();
+            }
+        }
+        return new HistoryStats(stations.size(), segments, rows, bytes);
+    }
+
+    /** Forces every mapped segment to disk. */
+    public void flush() {
+        for (StationLog log : stations.values()) for (Segment s : log.segments) s.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private StationLog log(String stationId) {
+        Objects.requireNonNull(stationId, "stationId");
+        StationLog log = stations.get(stationId);
+        if (log != null) return log;
+        return stations.computeIfAbsent(stationId, id -> {
+            Path dir = root.resolve(encodeId(id));
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new StationLog(dir, List.of(), 0);
+        });
+    }
+
+    /** Directory name for a station: the id itself when it is a safe file name, otherwise {@code ~hex}. */
+    static String encodeId(String id) {
+        return PLAIN_ID.matcher(id).matches() ? id : "~" + HexFormat.of().formatHex(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeId(String dirName) {
+        return dirName.startsWith("~")
+                ? new String(HexFormat.of().parseHex(dirName, 1, dirName.length()), StandardCharsets.UTF_8)
+                : dirName;
+    }
+
+    private static final class StationLog {
+        final Path dir;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile List<Segment> segments;
+        long nextSeq;
+
+        StationLog(Path dir, List<Segment> segments, long nextSeq) {
+            this.dir = dir;
+            this.segments = segments;
+            this.nextSeq = nextSeq;
+        }
+
+        /** Opens a station directory, completing or rolling back an interrupted compaction. */
+        static StationLog open(Path dir) throws IOException {
+            List<Segment> found = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) {
+                    String name = f.getFileName().toString();
+                    var m = SEGMENT_FILE.matcher(name);
+                    if (m.matches()) found.add(Segment.open(f, Long.parseLong(m.group(1))));
+                    else if (name.endsWith(".tmp")) Files.delete(f);
+                }
+            }
+            Map<Long, Integer> groups = new HashMap<>();
+            for (Segment s : found) if (s.supersedes() >= 0) groups.merge(s.supersedes(), 1, Integer::sum);
+            long superseded = -1;
+            List<Segment> live = new ArrayList<>();
+            for (Segment s : found) {
+                if (s.supersedes() >= 0 && groups.get(s.supersedes()) < s.groupSize()) Files.delete(s.file);
+                else {
+                    live.add(s);
+                    if (s.supersedes() >= 0) superseded = Math.max(superseded, s.supersedes());
+                }
+            }
+            long nextSeq = 0;
+            List<Segment> kept = new ArrayList<>();
+            for (Segment s : live) {
+                nextSeq = Math.max(nextSeq, s.seq + 1);
+                if (s.seq <= superseded) Files.delete(s.file);
+                else kept.add(s);
+            }
+            kept.sort((a, b) -> Long.compare(a.seq, b.seq));
+            return new StationLog(dir, List.copyOf(kept), nextSeq);
+        }
+
+        Path segmentFile(long seq) {
+            return dir.resolve(String.format("seg-%016d.col", seq));
+        }
+
+        boolean compact(int segmentRows) throws IOException {
+            List<Segment> old = segments;
+            if (old.isEmpty() || (old.size() == 1 && old.get(0).sorted())) return false;
+            int total = 0;
+            for (Segment s : old) total += s.rows();
+            long[] dt = new long[total];
+            double[][] cols = new double[Segment.COLUMNS][total];
+            int at = 0;
+            for (Segment s : old) {
+                for (int r = 0, n = s.rows(); r < n; r++, at++) {
+                    dt[at] = s.dt(r);
+                    for (int c = 1; c < Segment.COLUMNS; c++) cols[c][at] = s.value(c, r);
+                }
+            }
+            int[] order = sortedOrder(dt);
+
+            long supersedes = old.get(old.size() - 1).seq;
+            int groupSize = Math.max(1, (total + segmentRows - 1) / segmentRows);
+            List<Segment> written = new ArrayList<>(groupSize);
+            for (int g = 0; g < groupSize; g++) {
+                long seq = nextSeq++;
+                Path tmp = dir.resolve(segmentFile(seq).getFileName() + ".tmp");
+                Segment out = Segment.create(tmp, seq, segmentRows, supersedes, groupSize);
+                for (int i = g * segmentRows, end = Math.min(total, i + segmentRows); i < end; i++) {
+                    int r = order[i];
+                    out.append(dt[r], cols[Segment.TEMPERATURE][r], cols[Segment.WIND][r], cols[Segment.HUMIDITY][r],
+                            cols[Segment.PRESSURE][r], cols[Segment.PRECIPITATION][r]);
+                }
+                out.force();
+                written.add(out);
+            }
+            List<Segment> renamed = new ArrayList<>(groupSize);
+            for (Segment s : written) {
+                Path target = segmentFile(s.seq);
+                Files.move(s.file, target, StandardCopyOption.ATOMIC_MOVE);
+                renamed.add(Segment.open(target, s.seq));
+            }
+            segments = List.copyOf(renamed);
+            for (Segment s : old) Files.deleteIfExists(s.file);
+            return true;
+        }
+
+        /** Row order sorted by timestamp, stable, via a bottom-up merge sort on indices. */
+        private static int[] sortedOrder(long[] keys) {
+            int n = keys.length;
+            int[] a = new int[n], b = new int[n];
+            for (int i = 0; i < n; i++) a[i] = i;
+            for (int width = 1; width < n; width <<= 1) {
+                for (int lo = 0; lo < n; lo += width << 1) {
+                    int mid = Math.min(lo + width, n), hi = Math.min(lo + (width << 1), n);
+                    int i = lo, j = mid, k = lo;
+                    while (i < mid && j < hi) b[k++] = keys[a[j]] < keys[a[i]] ? a[j++] : a[i++];
+                    while (i < mid) b[k++] = a[i++];
+                    while (j < hi) b[k++] = a[j++];
+                }
+                int[] t = a;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+
+    public static class Builder {
+        private final Path root;
+        private int segmentRows = 65_536;
+
+        private Builder(Path root) {
+            this.root = Objects.requireNonNull(root);
+        }
+
+        /** Rows per segment file (48 bytes each). */
+        public Builder segmentRows(int segmentRows) {
+            if (segmentRows < Segment.INDEX_STRIDE || segmentRows > (1 << 22)) {
+                throw new IllegalArgumentException("segmentRows must be in [" + Segment.INDEX_STRIDE + ", 2^22]");
+            }
+            this.segmentRows = segmentRows;
+            return this;
+        }
+
+        public MeasurementHistory build() throws IOException {
+            return new MeasurementHistory(this);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.history;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped, append-only segment of a station's history: a 64-byte header followed by
+ * one fixed-capacity column per field ({@code dt} as longs, the readings as doubles). Rows
+ * below {@link #rows()} never change, so readers need no lock; the single writer fills a row
+ * and then publishes it by bumping the volatile row count. A sparse in-memory index keeps every
+ * {@value #INDEX_STRIDE}th timestamp so range lookups in time-ordered segments are a binary
+ * search plus a short linear probe.
+ */
+final class Segment {
+    static final int INDEX_STRIDE = 64;
+    static final int COLUMNS = 6;
+    static final int DT = 0, TEMPERATURE = 1, WIND = 2, HUMIDITY = 3, PRESSURE = 4, PRECIPITATION = 5;
+
+    private static final int MAGIC = 0x4D534547; // "MSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int H_MAGIC = 0, H_VERSION = 4, H_CAPACITY = 8, H_ROWS = 12, H_MIN_DT = 16, H_MAX_DT = 24,
+            H_SORTED = 32, H_SUPERSEDES = 40, H_GROUP_SIZE = 48;
+
+    final long seq;
+    final Path file;
+    private final MappedByteBuffer buf;
+    private final int capacity;
+    private final long[] sparse;
+    private volatile int rows;
+    private volatile long minDt;
+    private volatile long maxDt;
+    private volatile boolean sorted;
+
+    private Segment(long seq, Path file, MappedByteBuffer buf) {
+        this.seq = seq;
+        this.file = file;
+        this.buf = buf;
+        this.capacity = buf.getInt(H_CAPACITY);
+        this.sparse = new long[(capacity + INDEX_STRIDE - 1) / INDEX_STRIDE];
+        this.rows = buf.getInt(H_ROWS);
+        this.minDt = buf.getLong(H_MIN_DT);
+        this.maxDt = buf.getLong(H_MAX_DT);
+        this.sorted = buf.get(H_SORTED) != 0;
+        for (int i = 0; i < rows; i += INDEX_STRIDE) sparse[i / INDEX_STRIDE] = dt(i);
+    }
+
+    /** Creates and maps a new empty segment file. */
+    static Segment create(Path file, long seq, int capacity, long supersedes, int groupSize) throws IOException {
+        MappedByteBuffer buf = map(file, capacity, true);
+        buf.putInt(H_MAGIC, MAGIC);
+        buf.putInt(H_VERSION, VERSION);
+        buf.putInt(H_CAPACITY, capacity);
+        buf.putInt(H_ROWS, 0);
+        buf.putLong(H_MIN_DT, Long.MAX_VALUE);
+        buf.putLong(H_MAX_DT, Long.MIN_VALUE);
+        buf.put(H_SORTED, (byte) 1);
+        buf.putLong(H_SUPERSEDES, supersedes);
+        buf.putInt(H_GROUP_SIZE, groupSize);
+        return new Segment(seq, file, buf);
+    }
+
+    /** Maps an existing segment file. */
+    static Segment open(Path file, long seq) throws IOException {
+        MappedByteBuffer header;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION) {
+            throw new IOException("not a measurement segment: " + file);
+        }
+        return new Segment(seq, file, map(file, header.getInt(H_CAPACITY), false));
+    }
+
+    private static MappedByteBuffer map(Path file, int capacity, boolean create) throws IOException {
+        long size = HEADER + (long) COLUMNS * capacity * Long.BYTES;
+        try (FileChannel ch = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            return buf;
+        }
+    }
+
+    /** Appends one row; the caller holds the station's write lock and has checked {@link #isFull()}. */
+    void append(long dt, double temperature, double wind, double humidity, double pressure, double precipitation) {
+        int row = rows;
+        buf.putLong(offset(DT, row), dt);
+        buf.putDouble(offset(TEMPERATURE, row), temperature);
+        buf.putDouble(offset(WIND, row), wind);
+        buf.putDouble(offset(HUMIDITY, row), humidity);
+        buf.putDouble(offset(PRESSURE, row), pressure);
+        buf.putDouble(offset(PRECIPITATION, row), precipitation);
+        if (row % INDEX_STRIDE == 0) sparse[row / INDEX_STRIDE] = dt;
+        if (row > 0 && dt < maxDt) {
+            sorted = false;
+            buf.put(H_SORTED, (byte) 0);
+        }
+        if (dt < minDt) buf.putLong(H_MIN_DT, minDt = dt);
+        if (dt > maxDt) buf.putLong(H_MAX_DT, maxDt = dt);
+        buf.putInt(H_ROWS, row + 1);
+        rows = row + 1;
+    }
+
+    /** First row whose timestamp is {@code >= dt}; only meaningful for sorted segments. */
+    int lowerBound(long dt, int rowCount) {
+        int blocks = (rowCount + INDEX_STRIDE - 1) / INDEX_STRIDE;
+        int lo = 0, hi = blocks;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sparse[mid] < dt) lo = mid + 1;
+            else hi = mid;
+        }
+        int row = Math.max(0, (lo - 1) * INDEX_STRIDE);
+        while (row < rowCount && dt(row) < dt) row++;
+        return row;
+    }
+
+    long dt(int row) {
+        return buf.getLong(offset(DT, row));
+    }
+
+    double value(int column, int row) {
+        return buf.getDouble(offset(column, row));
+    }
+
+    void force() {
+        buf.force();
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /** Size of the mapped file. */
+    long bytes() {
+        return HEADER + (long) COLUMNS * capacity * Long.BYTES;
+    }
+
+    boolean isFull() {
+        return rows == capacity;
+    }
+
+    boolean sorted() {
+        return sorted;
+    }
+
+    long minDt() {
+        return minDt;
+    }
+
+    long maxDt() {
+        return maxDt;
+    }
+
+    /** Highest sequence number this segment's compaction replaced, or -1. */
+    long supersedes() {
+        return buf.getLong(H_SUPERSEDES);
+    }
+
+    /** Number of segments written by the compaction that produced this one. */
+    int groupSize() {
+        return buf.getInt(H_GROUP_SIZE);
+    }
+
+    private int offset(int column, int row) {
+        return HEADER + (column * capacity + row) * Long.BYTES;
+    }
+}
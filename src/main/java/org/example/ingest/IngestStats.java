@@ -0,0 +1,9 @@
+package org.example.ingest;
+
+/**
+ * Counters of a {@link MeasurementIngestor}. {@code rejected} readings were refused because the
+ * buffer was full; {@code failed} ones were in batches that exhausted their retries.
+ */
+public record IngestStats(long accepted, long rejected, long sent, long failed, long batches,
+                          long retries, int buffered) {
+}
@@ -0,0 +1,293 @@
+package org.example.ingest;
+
+import org.example.client.Measurement;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.json.JsonWriter;
+import org.example.metrics.Endpoint;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Accepts readings from any number of producer threads and ships them to
+ * {@code POST /measurements} in batches.
+ * <p>
+ * Readings go into a preallocated off-heap {@link MeasurementRing}. One drainer thread encodes
+ * them straight from the ring into a JSON array and posts it once {@code batchSize} readings
+ * are collected or the oldest has waited {@code flushInterval}. At most
+ * {@code maxInFlightBatches} posts are outstanding; when they are all busy the drainer stops
+ * draining, the ring fills and producers see backpressure: {@link #offer} returns
+ * {@code false}, {@link #offer(Measurement, Duration)} waits up to its timeout and
+ * {@link #put} waits indefinitely. Memory is therefore bounded by the ring plus
+ * {@code maxInFlightBatches} encoded batches. Batches failing with 429, 5xx or a transport
+ * error are retried with exponential backoff (or the server's {@code Retry-After}).
+ */
+public class MeasurementIngestor implements AutoCloseable {
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final StationsClient client;
+    private final MeasurementRing ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Semaphore batchPermits;
+    private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<FlushRequest> flushes = new ConcurrentLinkedQueue<>();
+    private final Thread drainer;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile boolean drainerParked;
+
+    private record FlushRequest(long target, CompletableFuture<Void> done) {
+    }
+
+    private MeasurementIngestor(Builder b) {
+        this.client = b.client;
+        this.ring = new MeasurementRing(b.capacity);
+        this.batchSize = b.batchSize;
+        this.flushIntervalNanos = b.flushInterval.toNanos();
+        this.maxAttempts = b.maxAttempts;
+        this.baseBackoff = b.baseBackoff;
+        this.batchPermits = new Semaphore(b.maxInFlightBatches);
+        this.drainer = Thread.ofVirtual().name("measurement-drainer").start(this::drainLoop);
+    }
+
+    public static Builder builder(StationsClient client) {
+        return new Builder(client);
+    }
+
+    /** Buffers a reading without blocking; returns {@code false} if the buffer is full. */
+    public boolean offer(Measurement m) {
+        if (!running) throw new IllegalStateException("ingestor is closed");
+        if (!ring.offer(m)) {
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        if (drainerParked && ring.size() >= batchSize) LockSupport.unpark(drainer);
+        return true;
+    }
+
+    /** Buffers a reading, waiting up to {@code timeout} for space; returns {@code false} on timeout. */
+    public boolean offer(Measurement m, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long backoff = 1_000;
+        while (true) {
+            if (!running) throw new IllegalStateException("ingestor is closed");
+            if (ring.offer(m)) {
+                accepted.increment();
+                if (drainerParked && ring.size() >= batchSize) LockSupport.unpark(drainer);
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                rejected.increment();
+                return false;
+            }
+            LockSupport.parkNanos(Math.min(backoff, remaining));
+            if (Thread.interrupted()) throw new InterruptedException();
+            backoff = Math.min(backoff * 2, MAX_PARK_NANOS);
+        }
+    }
+
+    /** Buffers a reading, waiting as long as it takes for space. */
+    public void put(Measurement m) throws InterruptedException {
+        offer(m, Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    /**
+     * Sends everything buffered so far without waiting for the flush interval. The future
+     * completes once those readings have been posted (or have finally failed).
+     */
+    public CompletableFuture<Void> flush() {
+        FlushRequest req = new FlushRequest(ring.claimed(), new CompletableFuture<>());
+        flushes.add(req);
+        LockSupport.unpark(drainer);
+        return req.done();
+    }
+
+    /** Flushes what is buffered, waits for outstanding batches and stops the drainer. */
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+    }
+
+    public IngestStats stats() {
+        return new IngestStats(accepted.sum(), rejected.sum(), sent.sum(), failed.sum(), batches.sum(),
+                retries.sum(), ring.size());
+    }
+
+    /** Off-heap bytes reserved for the buffer. */
+    public long bufferBytes() {
+        return ring.memoryBytes();
+    }
+
+    private void drainLoop() {
+        JsonWriter w = newBatchWriter();
+        int n = 0;
+        long firstAt = 0;
+        while (true) {
+            int got = ring.drainTo(w, batchSize - n);
+            if (got > 0 && n == 0) firstAt = System.nanoTime();
+            n += got;
+            boolean stopping = !running;
+            boolean flushing = !flushes.isEmpty();
+            long waited = n == 0 ? 0 : System.nanoTime() - firstAt;
+            if (n > 0 && (n >= batchSize || waited >= flushIntervalNanos || (got == 0 && (flushing || stopping)))) {
+                if (!send(w, n)) return;
+                w = newBatchWriter();
+                n = 0;
+                continue;
+            }
+            if (got > 0) continue;
+            if (n == 0) completeFlushes();
+            if (stopping && ring.size() == 0) {
+                flushes.forEach(f -> f.done().complete(null));
+                return;
+            }
+            drainerParked = true;
+            // claimed-but-unpublished slots, pending flushes and shutdown only need a short nap
+            long park = flushing || stopping || ring.size() > 0 ? 100_000
+                    : n > 0 ? flushIntervalNanos - waited : Math.min(flushIntervalNanos, MAX_PARK_NANOS);
+            LockSupport.parkNanos(Math.max(park, 1));
+            drainerParked = false;
+        }
+    }
+
+    private JsonWriter newBatchWriter() {
+        return new JsonWriter(Math.min(batchSize, 4096) * 160).beginArray();
+    }
+
+    /** Posts one batch; blocks while all batch slots are busy. Returns false if interrupted. */
+    private boolean send(JsonWriter w, int count) {
+        w.endArray();
+        try {
+            batchPermits.acquire();
+        } catch (InterruptedException e) {
+            failed.add(count);
+            return false;
+        }
+        batches.increment();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        inFlight.add(done);
+        attempt(w.array(), w.size(), count, 1, done);
+        done.whenComplete((v, e) -> {
+            inFlight.remove(done);
+            batchPermits.release();
+        });
+        return true;
+    }
+
+    private void attempt(byte[] body, int len, int count, int attempt, CompletableFuture<Void> done) {
+        client.postMeasurementsAsync(body, 0, len).whenComplete((v, e) -> {
+            if (e == null) {
+                sent.add(count);
+                done.complete(null);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof StationsApiException sae && sae.isRetryable() && attempt < maxAttempts) {
+                retries.increment();
+                client.metrics().recordRetry(Endpoint.POST_MEASUREMENTS);
+                Duration delay = sae.retryAfter() != null ? sae.retryAfter() : baseBackoff.multipliedBy(1L << (attempt - 1));
+                CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS)
+                        .execute(() -> attempt(body, len, count, attempt + 1, done));
+                return;
+            }
+            failed.add(count);
+            done.complete(null);
+        });
+    }
+
+    /** Completes flush requests whose readings have all been handed to a batch. */
+    private void completeFlushes() {
+        FlushRequest req;
+        while ((req = flushes.peek()) != null && ring.drained() >= req.target()) {
+            flushes.poll();
+            CompletableFuture<Void> done = req.done();
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).whenComplete((v, e) -> done.complete(null));
+        }
+    }
+
+    public static class Builder {
+        private final StationsClient client;
+        private int capacity = 1 << 16;
+        private int batchSize = 500;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private int maxInFlightBatches = 4;
+        private int maxAttempts = 5;
+        private Duration baseBackoff = Duration.ofMillis(200);
+
+        private Builder(StationsClient client) {
+            this.client = Objects.requireNonNull(client);
+        }
+
+        /** Readings the off-heap buffer holds (rounded up to a power of two; 128 bytes each; at most {@link MeasurementRing#MAX_CAPACITY}). */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /** Readings per {@code POST /measurements}. */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) throw new IllegalArgumentException("batchSize must be positive");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /** Longest a buffered reading waits before a partial batch is sent. */
+        public Builder flushInterval(Duration flushInterval) {
+            this.flushInterval = Objects.requireNonNull(flushInterval);
+            return this;
+        }
+
+        public Builder maxInFlightBatches(int maxInFlightBatches) {
+            if (maxInFlightBatches < 1) throw new IllegalArgumentException("maxInFlightBatches must be positive");
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /** Attempts per batch, including the first. */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder baseBackoff(Duration baseBackoff) {
+            this.baseBackoff = baseBackoff;
+            return this;
+        }
+
+        public MeasurementIngestor build() {
+            if (capacity < batchSize) throw new IllegalArgumentException("capacity must be at least batchSize");
+            return new MeasurementIngestor(this);
+        }
+    }
+}
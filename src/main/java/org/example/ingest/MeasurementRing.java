@@ -0,0 +1,183 @@
+package org.example.ingest;
+
+import org.example.client.Measurement;
+import org.example.json.JsonWriter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer, single-consumer queue of readings stored in one preallocated
+ * direct buffer, so a full buffer costs {@code capacity * 128} bytes off-heap and nothing on
+ * the Java heap.
+ * <p>
+ * Each 128-byte slot carries a sequence word (the Vyukov bounded-queue scheme): a producer
+ * claims a position with a CAS on the tail, writes the fields and publishes by storing
+ * {@code position + 1} with release semantics; the consumer reads once it observes that value
+ * and hands the slot back by storing {@code position + capacity}. Offers never block and
+ * never allocate; a full ring simply returns {@code false}.
+ * <p>
+ * Station ids are stored inline and must be at most {@value #MAX_ID_BYTES} printable ASCII
+ * characters without quotes or backslashes (the API's ids are 24 hex digits), which lets the
+ * consumer copy them into JSON without escaping.
+ */
+public final class MeasurementRing {
+    public static final int MAX_ID_BYTES = 64;
+    /** Largest ring: 2^23 slots of 128 bytes is 1 GiB, and one direct buffer stops short of 2 GiB. */
+    public static final int MAX_CAPACITY = 1 << 23;
+
+    private static final int SLOT = 128;
+    private static final int SEQ = 0, DT = 8, TEMPERATURE = 16, WIND = 24, HUMIDITY = 32, PRESSURE = 40,
+            PRECIPITATION = 48, ID_LEN = 56, ID = 64;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buf;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // only the consumer writes head; producers read it for size()
+    private volatile long head;
+    private final byte[] idScratch = new byte[MAX_ID_BYTES + 2];
+
+    /** @param capacity number of slots, rounded up to a power of two; at most {@link #MAX_CAPACITY} */
+    public MeasurementRing(int capacity) {
+        if (capacity < 2 || capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity must be in [2, 2^23]: " + capacity);
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buf = ByteBuffer.allocateDirect(Math.toIntExact((long) this.capacity * SLOT + SLOT))
+                .alignedSlice(SLOT).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < this.capacity; i++) LONGS.setRelease(buf, i * SLOT + SEQ, (long) i);
+        idScratch[0] = '"';
+    }
+
+    public boolean offer(Measurement m) {
+        return offer(m.stationId(), m.dt(), m.temperature(), m.windSpeed(), m.humidity(), m.pressure(), m.precipitation());
+    }
+
+    /**
+     * Appends one reading; returns {@code false} without blocking if the ring is full.
+     * Any thread may call this concurrently.
+     */
+    public boolean offer(String stationId, long dt, double temperature, double windSpeed,
+                         double humidity, double pressure, double precipitation) {
+        checkId(stationId);
+        long pos = tail.get();
+        int base;
+        while (true) {
+            base = (int) (pos & mask) * SLOT;
+            long seq = (long) LONGS.getAcquire(buf, base + SEQ);
+            long diff = seq - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+        buf.putLong(base + DT, dt);
+        buf.putDouble(base + TEMPERATURE, temperature);
+        buf.putDouble(base + WIND, windSpeed);
+        buf.putDouble(base + HUMIDITY, humidity);
+        buf.putDouble(base + PRESSURE, pressure);
+        buf.putDouble(base + PRECIPITATION, precipitation);
+        int n = stationId.length();
+        buf.putInt(base + ID_LEN, n);
+        for (int i = 0; i < n; i++) buf.put(base + ID + i, (byte) stationId.charAt(i));
+        LONGS.setRelease(buf, base + SEQ, pos + 1);
+        return true;
+    }
+
+    /**
+     * Appends up to {@code max} readings to {@code out} as JSON objects (the caller has opened
+     * the array) and frees their slots. Consumer thread only; does not allocate.
+     */
+    public int drainTo(JsonWriter out, int max) {
+        int n = 0;
+        long pos = head;
+        while (n < max) {
+            int base = (int) (pos & mask) * SLOT;
+            if ((long) LONGS.getAcquire(buf, base + SEQ) != pos + 1) break;
+            int idLen = buf.getInt(base + ID_LEN);
+            buf.get(base + ID, idScratch, 1, idLen);
+            idScratch[idLen + 1] = '"';
+            out.beginObject().name("station_id").raw(idScratch, 0, idLen + 2).name("dt").value(buf.getLong(base + DT));
+            optional(out, "temperature", buf.getDouble(base + TEMPERATURE));
+            optional(out, "wind_speed", buf.getDouble(base + WIND));
+            optional(out, "humidity", buf.getDouble(base + HUMIDITY));
+            optional(out, "pressure", buf.getDouble(base + PRESSURE));
+            optional(out, "rain_1h", buf.getDouble(base + PRECIPITATION));
+            out.endObject();
+            LONGS.setRelease(buf, base + SEQ, pos + capacity);
+            head = ++pos;
+            n++;
+        }
+        return n;
+    }
+
+    /** Hands up to {@code max} readings to {@code sink} as objects and frees their slots. Consumer thread only. */
+    public int drain(Consumer<Measurement> sink, int max) {
+        int n = 0;
+        long pos = head;
+        while (n < max) {
+            int base = (int) (pos & mask) * SLOT;
+            if ((long) LONGS.getAcquire(buf, base + SEQ) != pos + 1) break;
+            byte[] id = new byte[buf.getInt(base + ID_LEN)];
+            buf.get(base + ID, id);
+            Measurement m = new Measurement(new String(id, StandardCharsets.US_ASCII),
+                    buf.getLong(base + DT), buf.getDouble(base + TEMPERATURE), buf.getDouble(base + WIND),
+                    buf.getDouble(base + HUMIDITY), buf.getDouble(base + PRESSURE), buf.getDouble(base + PRECIPITATION));
+            LONGS.setRelease(buf, base + SEQ, pos + capacity);
+            head = ++pos;
+            n++;
+            sink.accept(m);
+        }
+        return n;
+    }
+
+    /** Readings claimed by producers but not yet drained (some may still be mid-write). */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Total positions ever claimed by producers. */
+    public long claimed() {
+        return tail.get();
+    }
+
+    /** Total readings ever drained. */
+    public long drained() {
+        return head;
+    }
+
+    /** Off-heap bytes held by the ring. */
+    public long memoryBytes() {
+        return (long) capacity * SLOT;
+    }
+
+    private static void optional(JsonWriter out, String name, double v) {
+        if (!Double.isNaN(v)) out.name(name).value(v);
+    }
+
+    private static void checkId(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("station id must be 1.." + MAX_ID_BYTES + " characters");
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                throw new IllegalArgumentException("station id must be printable ASCII without quotes: " + id);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.json;
+
+/** Thrown when a payload is not well-formed JSON or does not have the expected shape. */
+public class JsonException extends RuntimeException {
+    public JsonException(String message) {
+        super(message);
+    }
+}
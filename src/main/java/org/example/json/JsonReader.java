@@ -0,0 +1,300 @@
+package org.example.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser over a UTF-8 byte range. It never builds a tree: callers walk objects with
+ * {@link #hasNextField()}/{@link #field(byte[][])} and read or {@link #skipValue() skip}
+ * each value. Only the values actually read as strings allocate.
+ */
+public final class JsonReader {
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private byte[] b;
+    private int pos;
+    private int end;
+    private boolean first;
+
+    public JsonReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public JsonReader(byte[] bytes, int off, int len) {
+        reset(bytes, off, len);
+    }
+
+    /** Points this reader at a new range so one instance can be reused. */
+    public JsonReader reset(byte[] bytes, int off, int len) {
+        this.b = bytes;
+        this.pos = off;
+        this.end = off + len;
+        this.first = true;
+        return this;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    /** Encodes field names for {@link #field(byte[][])}. */
+    public static byte[][] keys(String... names) {
+        byte[][] out = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) out[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        return out;
+    }
+
+    public void beginObject() {
+        expect('{');
+        first = true;
+    }
+
+    public void beginArray() {
+        expect('[');
+        first = true;
+    }
+
+    /** Consumes the separator before the next field; returns false (consuming '}') at the end. */
+    public boolean hasNextField() {
+        return hasNext('}');
+    }
+
+    /** Consumes the separator before the next element; returns false (consuming ']') at the end. */
+    public boolean hasNextElement() {
+        return hasNext(']');
+    }
+
+    /**
+     * Reads a field name and its ':' and returns the index of the matching key, or -1.
+     * Names are compared as raw bytes, so escaped names never match.
+     */
+    public int field(byte[][] keys) {
+        skipWs();
+        if (pos >= end || b[pos] != '"') throw error("expected field name");
+        int start = ++pos;
+        while (pos < end && b[pos] != '"') {
+            if (b[pos] == '\\') pos++;
+            pos++;
+        }
+        if (pos >= end) throw error("unterminated field name");
+        int nameLen = pos - start;
+        pos++;
+        expect(':');
+        outer:
+        for (int k = 0; k < keys.length; k++) {
+            byte[] key = keys[k];
+            if (key.length != nameLen) continue;
+            for (int i = 0; i < nameLen; i++) if (key[i] != b[start + i]) continue outer;
+            return k;
+        }
+        return -1;
+    }
+
+    /** Reads a field name and its ':' for callers that handle arbitrary fields. */
+    public String fieldName() {
+        skipWs();
+        if (pos >= end || b[pos] != '"') throw error("expected field name");
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    public boolean peekNull() {
+        skipWs();
+        return pos + 4 <= end && b[pos] == 'n' && b[pos + 1] == 'u' && b[pos + 2] == 'l' && b[pos + 3] == 'l';
+    }
+
+    public boolean peekString() {
+        skipWs();
+        return pos < end && b[pos] == '"';
+    }
+
+    /** Reads a string value, or returns {@code null} for a JSON null. */
+    public String readString() {
+        if (peekNull()) {
+            pos += 4;
+            return null;
+        }
+        if (pos >= end || b[pos] != '"') throw error("expected string");
+        int start = ++pos;
+        while (pos < end) {
+            byte c = b[pos];
+            if (c == '"') {
+                String s = new String(b, start, pos - start, StandardCharsets.UTF_8);
+                pos++;
+                return s;
+            }
+            if (c == '\\') return readEscaped(start);
+            pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    /** Reads a number without allocating on the common (short decimal) path. */
+    public double readDouble() {
+        skipWs();
+        int start = pos;
+        boolean neg = false;
+        if (pos < end && b[pos] == '-') {
+            neg = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        boolean slow = false;
+        while (pos < end) {
+            byte c = b[pos];
+            if (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (dot) fractionDigits++;
+                } else {
+                    slow = true;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if (c == 'e' || c == 'E' || c == '+' || c == '-') {
+                slow = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (digits == 0) {
+            pos = start;
+            throw error("expected number");
+        }
+        if (slow || fractionDigits > 22 || mantissa > (1L << 53)) {
+            try {
+                return Double.parseDouble(new String(b, start, pos - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw error("bad number");
+            }
+        }
+        // exact: mantissa < 2^53 and 10^k (k <= 22) are both representable, so one division rounds correctly
+        double v = fractionDigits == 0 ? mantissa : mantissa / POW10[fractionDigits];
+        return neg ? -v : v;
+    }
+
+    /** Skips one complete value of any type. */
+    public void skipValue() {
+        skipWs();
+        if (pos >= end) throw error("unexpected end of input");
+        byte c = b[pos];
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = b[pos];
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                pos++;
+            } while (depth > 0 && pos < end);
+            if (depth > 0) throw error("unterminated container");
+        } else {
+            int start = pos;
+            while (pos < end) {
+                c = b[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') break;
+                pos++;
+            }
+            if (pos == start) throw error("expected value");
+        }
+    }
+
+    /** Asserts that only whitespace remains. */
+    public void endDocument() {
+        skipWs();
+        if (pos != end) throw error("trailing content");
+    }
+
+    private boolean hasNext(char close) {
+        skipWs();
+        if (pos >= end) throw error("unexpected end of input");
+        if (b[pos] == close) {
+            pos++;
+            first = false;
+            return false;
+        }
+        if (!first) expect(',');
+        first = false;
+        return true;
+    }
+
+    private void skipString() {
+        pos++;
+        while (pos < end) {
+            byte c = b[pos++];
+            if (c == '"') return;
+            if (c == '\\') pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    private String readEscaped(int start) {
+        StringBuilder sb = new StringBuilder(pos - start + 16);
+        int runStart = start;
+        while (pos < end) {
+            byte c = b[pos];
+            if (c == '"') {
+                sb.append(new String(b, runStart, pos - runStart, StandardCharsets.UTF_8));
+                pos++;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                pos++;
+                continue;
+            }
+            sb.append(new String(b, runStart, pos - runStart, StandardCharsets.UTF_8));
+            if (pos + 1 >= end) break;
+            byte e = b[pos + 1];
+            pos += 2;
+            switch (e) {
+                case '"', '\\', '/' -> sb.append((char) e);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > end) throw error("bad unicode escape");
+                    int cp = 0;
+                    for (int i = 0; i < 4; i++) cp = (cp << 4) | Character.digit(b[pos + i], 16);
+                    if (cp < 0) throw error("bad unicode escape");
+                    sb.append((char) cp);
+                    pos += 4;
+                }
+                default -> throw error("bad escape");
+            }
+            runStart = pos;
+        }
+        throw error("unterminated string");
+    }
+
+    private void expect(char c) {
+        skipWs();
+        if (pos >= end || b[pos] != c) throw error("expected '" + c + "'");
+        pos++;
+    }
+
+    private void skipWs() {
+        while (pos < end) {
+            byte c = b[pos];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') pos++;
+            else break;
+        }
+    }
+
+    private JsonException error(String msg) {
+        return new JsonException(msg + " at offset " + pos);
+    }
+}
@@ -0,0 +1,290 @@
+package org.example.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes JSON as UTF-8 straight into a growable byte array, with no intermediate
+ * {@link String}s for field values or numbers.
+ * <p>
+ * Instances are reusable: {@link #borrow()} takes one from a small shared pool and
+ * {@link #close()} returns it, so steady-state encoding does not allocate buffers.
+ * Doubles with magnitude in [1e-3, 1e9) are written with at most 9 decimal places
+ * (about 0.1 mm of latitude); other magnitudes fall back to {@link Double#toString}.
+ */
+public final class JsonWriter implements AutoCloseable {
+    private static final int POOL_SIZE = 256;
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+    private static final ConcurrentLinkedQueue<JsonWriter> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buf;
+    private int len;
+    // bit d set = a value has already been written at nesting depth d, so the next one needs a comma
+    private long commaMask;
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter() {
+        this(256);
+    }
+
+    public JsonWriter(int initialCapacity) {
+        this.buf = new byte[initialCapacity];
+    }
+
+    /** Takes a reset writer from the shared pool, or a new one if the pool is empty. */
+    public static JsonWriter borrow() {
+        JsonWriter w = POOL.poll();
+        if (w == null) return new JsonWriter();
+        POOLED.decrementAndGet();
+        return w;
+    }
+
+    /** Returns this writer to the shared pool; it must not be used afterwards. */
+    @Override
+    public void close() {
+        if (buf.length > MAX_POOLED_CAPACITY) return;
+        reset();
+        if (POOLED.incrementAndGet() <= POOL_SIZE) POOL.offer(this);
+        else POOLED.decrementAndGet();
+    }
+
+    public JsonWriter reset() {
+        len = 0;
+        commaMask = 0;
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        put((byte) '{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        depth--;
+        put((byte) '}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        put((byte) '[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        depth--;
+        put((byte) ']');
+        return this;
+    }
+
+    /** Writes a field name; {@code name} must be plain ASCII without characters needing escapes. */
+    public JsonWriter name(String name) {
+        comma();
+        ensure(name.length() + 3);
+        buf[len++] = '"';
+        for (int i = 0; i < name.length(); i++) buf[len++] = (byte) name.charAt(i);
+        buf[len++] = '"';
+        buf[len++] = ':';
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String s) {
+        beforeValue();
+        if (s == null) return putAscii("null");
+        ensure(s.length() + 2);
+        buf[len++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    ensure(2);
+                    buf[len++] = '\\';
+                    buf[len++] = (byte) c;
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else {
+                    ensure(1);
+                    buf[len++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buf[len++] = (byte) (0xC0 | (c >> 6));
+                buf[len++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                buf[len++] = (byte) (0xF0 | (cp >> 18));
+                buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[len++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                ensure(1);
+                buf[len++] = '?';
+            } else {
+                ensure(3);
+                buf[len++] = (byte) (0xE0 | (c >> 12));
+                buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[len++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensure(1);
+        buf[len++] = '"';
+        return this;
+    }
+
+    public JsonWriter value(long v) {
+        beforeValue();
+        writeLong(v);
+        return this;
+    }
+
+    public JsonWriter value(double v) {
+        beforeValue();
+        if (Double.isNaN(v) || Double.isInfinite(v)) throw new JsonException("cannot write non-finite number " + v);
+        if (v == (long) v && Math.abs(v) < 1e15) {
+            writeLong((long) v);
+            return this;
+        }
+        double a = Math.abs(v);
+        if (a < 1e-3 || a >= 1e9) return putAscii(Double.toString(v));
+        long scaled = Math.round(a * 1e9);
+        long integral = scaled / 1_000_000_000L;
+        long fraction = scaled % 1_000_000_000L;
+        if (v < 0) put((byte) '-');
+        writeLong(integral);
+        if (fraction != 0) {
+            int digits = 9;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            ensure(digits + 1);
+            buf[len++] = '.';
+            for (int i = len + digits - 1; i >= len; i--, fraction /= 10) buf[i] = (byte) ('0' + fraction % 10);
+            len += digits;
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean v) {
+        beforeValue();
+        return putAscii(v ? "true" : "false");
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        return putAscii("null");
+    }
+
+    /** Appends pre-encoded JSON (e.g. an element of another document) as the next value. */
+    public JsonWriter raw(byte[] json, int off, int length) {
+        beforeValue();
+        ensure(length);
+        System.arraycopy(json, off, buf, len, length);
+        len += length;
+        return this;
+    }
+
+    /** Backing array; only the first {@link #size()} bytes are valid. */
+    public byte[] array() {
+        return buf;
+    }
+
+    public int size() {
+        return len;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private void push() {
+        depth++;
+        if (depth >= 64) throw new JsonException("nesting too deep");
+        commaMask &= ~(1L << depth);
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        comma();
+    }
+
+    private void comma() {
+        long bit = 1L << depth;
+        if (depth > 0 && (commaMask & bit) != 0) put((byte) ',');
+        commaMask |= bit;
+    }
+
+    private void writeLong(long v) {
+        if (v == Long.MIN_VALUE) {
+            putAscii(Long.toString(v));
+            return;
+        }
+        if (v < 0) {
+            put((byte) '-');
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) digits++;
+        ensure(digits);
+        for (int i = len + digits - 1; i >= len; i--, v /= 10) buf[i] = (byte) ('0' + v % 10);
+        len += digits;
+    }
+
+    private void escapeControl(char c) {
+        ensure(6);
+        buf[len++] = '\\';
+        switch (c) {
+            case '\n' -> buf[len++] = 'n';
+            case '\r' -> buf[len++] = 'r';
+            case '\t' -> buf[len++] = 't';
+            default -> {
+                buf[len++] = 'u';
+                buf[len++] = '0';
+                buf[len++] = '0';
+                buf[len++] = HEX[c >> 4];
+                buf[len++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private JsonWriter putAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) buf[len++] = (byte) s.charAt(i);
+        return this;
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        buf[len++] = b;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.json;
+
+import org.example.aggregate.Aggregate;
+import org.example.aggregate.Resolution;
+import org.example.aggregate.Stats;
+import org.example.client.Measurement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Encodes and decodes {@code /measurements} payloads: raw readings for {@code POST} and
+ * aggregated buckets for {@code GET}. The counterpart of {@link StationCodec}.
+ */
+public final class MeasurementCodec {
+    private static final int STATION_ID = 0, DT = 1, TEMPERATURE = 2, WIND_SPEED = 3, HUMIDITY = 4, PRESSURE = 5, RAIN_1H = 6;
+    private static final byte[][] KEYS = JsonReader.keys(
+            "station_id", "dt", "temperature", "wind_speed", "humidity", "pressure", "rain_1h");
+    private static final int A_STATION_ID = 0, A_TYPE = 1, A_DATE = 2, A_TEMP = 3, A_WIND = 4, A_HUMIDITY = 5, A_PRESSURE = 6, A_PRECIPITATION = 7;
+    private static final byte[][] AGGREGATE_KEYS = JsonReader.keys(
+            "station_id", "type", "date", "temp", "wind", "humidity", "pressure", "precipitation");
+    private static final int S_MIN = 0, S_MAX = 1, S_SUM = 2, S_WEIGHT = 3;
+    private static final byte[][] STATS_KEYS = JsonReader.keys("min", "max", "sum", "weight");
+
+    private MeasurementCodec() {
+    }
+
+    /** Writes one measurement object; NaN values are omitted. */
+    public static JsonWriter encode(Measurement m, JsonWriter out) {
+        out.beginObject().name("station_id").value(m.stationId()).name("dt").value(m.dt());
+        optional(out, "temperature", m.temperature());
+        optional(out, "wind_speed", m.windSpeed());
+        optional(out, "humidity", m.humidity());
+        optional(out, "pressure", m.pressure());
+        optional(out, "rain_1h", m.precipitation());
+        return out.endObject();
+    }
+
+    /** Request body for {@code POST /measurements}: a JSON array of readings. */
+    public static byte[] encodeArray(Collection<Measurement> measurements) {
+        try (JsonWriter w = JsonWriter.borrow()) {
+            w.beginArray();
+            for (Measurement m : measurements) encode(m, w);
+            return w.endArray().toByteArray();
+        }
+    }
+
+    /** Decodes a JSON array of measurements, handing each to {@code sink} as it is parsed. */
+    public static void decodeArray(byte[] json, Consumer<Measurement> sink) {
+        JsonReader r = new JsonReader(json);
+        r.beginArray();
+        while (r.hasNextElement()) sink.accept(readMeasurement(r));
+        r.endDocument();
+    }
+
+    public static List<Measurement> decodeList(byte[] json) {
+        List<Measurement> out = new ArrayList<>();
+        decodeArray(json, out::add);
+        return out;
+    }
+
+    /** Reads one measurement object; absent or null readings decode as NaN, an absent {@code dt} as 0. */
+    public static Measurement readMeasurement(JsonReader r) {
+        String stationId = null;
+        long dt = 0;
+        double temperature = Double.NaN, wind = Double.NaN, humidity = Double.NaN, pressure = Double.NaN, rain = Double.NaN;
+        r.beginObject();
+        while (r.hasNextField()) {
+            switch (r.field(KEYS)) {
+                case STATION_ID -> {
+                    if (!r.peekString() && !r.peekNull()) throw new JsonException("station_id must be a string");
+                    stationId = r.readString();
+                }
+                case DT -> dt = (long) number(r, "dt");
+                case TEMPERATURE -> temperature = number(r, "temperature");
+                case WIND_SPEED -> wind = number(r, "wind_speed");
+                case HUMIDITY -> humidity = number(r, "humidity");
+                case PRESSURE -> pressure = number(r, "pressure");
+                case RAIN_1H -> rain = number(r, "rain_1h");
+                default -> r.skipValue();
+            }
+        }
+        return new Measurement(stationId, dt, temperature, wind, humidity, pressure, rain);
+    }
+
+    /**
+     * Writes one {@code GET /measurements} element. Each metric is an object with
+     * {@code min}, {@code max}, {@code average}, {@code sum} and {@code weight} (the reading
+     * count), or {@code {}} when the bucket had no readings of it.
+     */
+    public static JsonWriter encodeAggregate(Aggregate a, JsonWriter out) {
+        out.beginObject().name("station_id").value(a.stationId()).name("type").value(a.resolution().code())
+                .name("date").value(a.date());
+        stats(out.name("temp"), a.temperature());
+        stats(out.name("wind"), a.windSpeed());
+        stats(out.name("humidity"), a.humidity());
+        stats(out.name("pressure"), a.pressure());
+        stats(out.name("precipitation"), a.precipitation());
+        return out.endObject();
+    }
+
+    public static List<Aggregate> decodeAggregates(byte[] json) {
+        List<Aggregate> out = new ArrayList<>();
+        JsonReader r = new JsonReader(json);
+        r.beginArray();
+        while (r.hasNextElement()) out.add(readAggregate(r));
+        r.endDocument();
+        return out;
+    }
+
+    public static Aggregate readAggregate(JsonReader r) {
+        String stationId = null;
+        Resolution type = null;
+        long date = 0;
+        Stats temp = Stats.EMPTY, wind = Stats.EMPTY, humidity = Stats.EMPTY, pressure = Stats.EMPTY, rain = Stats.EMPTY;
+        r.beginObject();
+        while (r.hasNextField()) {
+            switch (r.field(AGGREGATE_KEYS)) {
+                case A_STATION_ID -> stationId = r.readString();
+                case A_TYPE -> type = Resolution.fromCode(r.readString());
+                case A_DATE -> date = (long) r.readDouble();
+                case A_TEMP -> temp = readStats(r);
+                case A_WIND -> wind = readStats(r);
+                case A_HUMIDITY -> humidity = readStats(r);
+                case A_PRESSURE -> pressure = readStats(r);
+                case A_PRECIPITATION -> rain = readStats(r);
+                default -> r.skipValue();
+            }
+        }
+        return new Aggregate(stationId, type, date, temp, wind, humidity, pressure, rain);
+    }
+
+    private static void stats(JsonWriter out, Stats s) {
+        out.beginObject();
+        if (!s.isEmpty()) {
+            out.name("min").value(s.min()).name("max").value(s.max()).name("average").value(s.average())
+                    .name("sum").value(s.sum()).name("weight").value(s.count());
+        }
+        out.endObject();
+    }
+
+    private static Stats readStats(JsonReader r) {
+        double min = Double.NaN, max = Double.NaN, sum = 0;
+        long weight = 0;
+        r.beginObject();
+        while (r.hasNextField()) {
+            switch (r.field(STATS_KEYS)) {
+                case S_MIN -> min = r.readDouble();
+                case S_MAX -> max = r.readDouble();
+                case S_SUM -> sum = r.readDouble();
+                case S_WEIGHT -> weight = (long) r.readDouble();
+                default -> r.skipValue();
+            }
+        }
+        return weight == 0 ? Stats.EMPTY : new Stats(min, max, sum, weight);
+    }
+
+    private static void optional(JsonWriter out, String name, double v) {
+        if (!Double.isNaN(v)) out.name(name).value(v);
+    }
+
+    private static double number(JsonReader r, String field) {
+        if (r.peekNull()) {
+            r.skipValue();
+            return Double.NaN;
+        }
+        if (r.peekString()) throw new JsonException(field + " must be a number");
+        return r.readDouble();
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.json;
+
+import org.example.client.Station;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads a JSON array of stations element by element straight off an {@link InputStream}.
+ * <p>
+ * Bytes go through one buffer that holds the element being parsed plus read-ahead; it only
+ * grows when a single element is larger than it, so memory does not depend on the length of
+ * the array. Each complete element is decoded in place by {@link StationCodec}. Closing the
+ * reader closes the stream without reading the rest, which for an HTTP response body aborts
+ * the transfer.
+ * <p>
+ * The {@link Iterator} methods are for a single thread; {@link #poll()} may be called from
+ * any number of threads sharing one reader. It guards the buffer with a {@link ReentrantLock}
+ * rather than a monitor so that virtual threads blocked on the socket do not pin their carrier.
+ */
+public final class StationArrayReader implements Iterator<Station>, AutoCloseable {
+    private static final int MAX_ELEMENT = 16 * 1024 * 1024;
+
+    private final InputStream in;
+    private final ReentrantLock lock = new ReentrantLock();
+    private byte[] buf;
+    private int pos;
+    private int end;
+    private long bytesRead;
+    private boolean started;
+    private boolean finished;
+    private boolean eof;
+    private int count;
+    private Station next;
+
+    public StationArrayReader(InputStream in) {
+        this(in, 16 * 1024);
+    }
+
+    public StationArrayReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buf = new byte[bufferSize];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) next = readNext();
+        return next != null;
+    }
+
+    @Override
+    public Station next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Station s = next;
+        next = null;
+        return s;
+    }
+
+    /** Returns the next station, or {@code null} at the end of the array. Thread-safe. */
+    public Station poll() {
+        lock.lock();
+        try {
+            return hasNext() ? next() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Bytes consumed from the stream so far. */
+    public long bytesRead() {
+        lock.lock();
+        try {
+            return bytesRead;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stations returned so far. */
+    public int count() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Closes the stream first, which also unblocks a thread waiting in {@link #poll()}. */
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.lock();
+            try {
+                finished = true;
+                next = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Station readNext() {
+        if (!started) {
+            if (!skipWs()) throw new JsonException("expected '[' but the body is empty");
+            if (buf[pos] != '[') throw new JsonException("expected '[' at offset " + bytesRead);
+            pos++;
+            started = true;
+            if (!skipWs()) throw new JsonException("unterminated array");
+            if (buf[pos] == ']') return finish();
+        } else {
+            if (!skipWs()) throw new JsonException("unterminated array");
+            if (buf[pos] == ']') return finish();
+            if (buf[pos] != ',') throw new JsonException("expected ',' or ']'");
+            pos++;
+            if (!skipWs()) throw new JsonException("unterminated array");
+        }
+        int len;
+        while ((len = elementLength()) < 0) {
+            if (!fill()) throw new JsonException("unterminated array element");
+        }
+        Station s = StationCodec.decode(buf, pos, len);
+        pos += len;
+        count++;
+        return s;
+    }
+
+    private Station finish() {
+        pos++;
+        finished = true;
+        return null;
+    }
+
+    /** Length of the complete value starting at {@code pos}, or -1 if more input is needed. */
+    private int elementLength() {
+        int i = pos;
+        byte c = buf[i];
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            boolean inString = false;
+            for (; i < end; i++) {
+                c = buf[i];
+                if (inString) {
+                    if (c == '\\') i++;
+                    else if (c == '"') inString = false;
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return i + 1 - pos;
+                }
+            }
+            return -1;
+        }
+        if (c == '"') {
+            for (i++; i < end; i++) {
+                if (buf[i] == '\\') i++;
+                else if (buf[i] == '"') return i + 1 - pos;
+            }
+            return -1;
+        }
+        for (; i < end; i++) {
+            c = buf[i];
+            if (c == ',' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') return i - pos;
+        }
+        return -1;
+    }
+
+    /** Skips whitespace, refilling as needed; false at end of input. */
+    private boolean skipWs() {
+        while (true) {
+            while (pos < end) {
+                byte c = buf[pos];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') pos++;
+                else return true;
+            }
+            if (!fill()) return false;
+        }
+    }
+
+    /** Reads more input after the unconsumed bytes, compacting or growing the buffer; false at EOF. */
+    private boolean fill() {
+        if (eof) return false;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, end - pos);
+            end -= pos;
+            pos = 0;
+        }
+        if (end == buf.length) {
+            if (buf.length >= MAX_ELEMENT) throw new JsonException("array element larger than " + MAX_ELEMENT + " bytes");
+            buf = Arrays.copyOf(buf, Math.min(buf.length * 2, MAX_ELEMENT));
+        }
+        try {
+            int n = in.read(buf, end, buf.length - end);
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            end += n;
+            bytesRead += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.json;
+
+import org.example.client.Station;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Encodes and decodes station payloads directly between {@link Station} and UTF-8 bytes,
+ * without {@code String.format}, maps or a JsonPath tree. Single fields can be pulled out of a
+ * response with {@link #readId}, {@link #readString} and {@link #readDouble}.
+ */
+public final class StationCodec {
+    private static final int ID = 0, ID_UPPER = 1, EXTERNAL_ID = 2, NAME = 3, LATITUDE = 4, LONGITUDE = 5, ALTITUDE = 6;
+    private static final byte[][] KEYS = JsonReader.keys("id", "ID", "external_id", "name", "latitude", "longitude", "altitude");
+
+    private StationCodec() {
+    }
+
+    /** Writes the create/update request body: external_id, name, latitude, longitude, altitude. */
+    public static JsonWriter encode(Station s, JsonWriter out) {
+        return out.beginObject()
+                .name("external_id").value(s.externalId())
+                .name("name").value(s.name())
+                .name("latitude").value(s.latitude())
+                .name("longitude").value(s.longitude())
+                .name("altitude").value(s.altitude())
+                .endObject();
+    }
+
+    /** Request body as an exact-size array, encoded through a pooled writer. */
+    public static byte[] encode(Station s) {
+        try (JsonWriter w = JsonWriter.borrow()) {
+            return encode(s, w).toByteArray();
+        }
+    }
+
+    public static Station decode(byte[] json) {
+        return decode(json, 0, json.length);
+    }
+
+    /**
+     * Decodes one station object, accepting either {@code id} or {@code ID}. Absent or null
+     * coordinates decode as 0; a non-numeric coordinate or non-string name is a {@link JsonException}.
+     */
+    public static Station decode(byte[] json, int off, int len) {
+        JsonReader r = new JsonReader(json, off, len);
+        Station s = readStation(r);
+        r.endDocument();
+        return s;
+    }
+
+    /** Decodes a JSON array of stations, handing each to {@code sink} as it is parsed. */
+    public static void decodeArray(byte[] json, Consumer<Station> sink) {
+        JsonReader r = new JsonReader(json);
+        r.beginArray();
+        while (r.hasNextElement()) sink.accept(readStation(r));
+        r.endDocument();
+    }
+
+    public static List<Station> decodeList(byte[] json) {
+        List<Station> out = new ArrayList<>();
+        decodeArray(json, out::add);
+        return out;
+    }
+
+    /** Reads the next station object from {@code r}, leaving it positioned after the closing brace. */
+    public static Station readStation(JsonReader r) {
+        String id = null, externalId = null, name = null;
+        double lat = 0, lon = 0, alt = 0;
+        r.beginObject();
+        while (r.hasNextField()) {
+            int f = r.field(KEYS);
+            switch (f) {
+                case ID, ID_UPPER -> {
+                    String v = idValue(r);
+                    if (id == null) id = v;
+                }
+                case EXTERNAL_ID -> externalId = string(r, "external_id");
+                case NAME -> name = string(r, "name");
+                case LATITUDE -> lat = number(r, "latitude");
+                case LONGITUDE -> lon = number(r, "longitude");
+                case ALTITUDE -> alt = number(r, "altitude");
+                default -> r.skipValue();
+            }
+        }
+        return new Station(id, externalId, name, lat, lon, alt);
+    }
+
+    /** Returns the top-level {@code id} (or {@code ID}) of a station object, or null if absent. */
+    public static String readId(byte[] json) {
+        JsonReader r = new JsonReader(json);
+        r.beginObject();
+        while (r.hasNextField()) {
+            int f = r.field(KEYS);
+            if (f == ID || f == ID_UPPER) return idValue(r);
+            r.skipValue();
+        }
+        return null;
+    }
+
+    /** Returns a top-level string field, or null if absent. */
+    public static String readString(byte[] json, String field) {
+        JsonReader r = seek(json, field);
+        return r == null ? null : r.readString();
+    }
+
+    /** Returns a top-level numeric field, or {@code dflt} if absent or null. */
+    public static double readDouble(byte[] json, String field, double dflt) {
+        JsonReader r = seek(json, field);
+        return r == null || r.peekNull() ? dflt : r.readDouble();
+    }
+
+    private static JsonReader seek(byte[] json, String field) {
+        byte[][] key = JsonReader.keys(field);
+        JsonReader r = new JsonReader(json);
+        r.beginObject();
+        while (r.hasNextField()) {
+            if (r.field(key) == 0) return r;
+            r.skipValue();
+        }
+        return null;
+    }
+
+    private static String string(JsonReader r, String field) {
+        if (!r.peekString() && !r.peekNull()) throw new JsonException(field + " must be a string");
+        return r.readString();
+    }
+
+    private static double number(JsonReader r, String field) {
+        if (r.peekNull()) {
+            r.skipValue();
+            return 0;
+        }
+        if (r.peekString()) throw new JsonException(field + " must be a number");
+        double v = r.readDouble();
+        if (!Double.isFinite(v)) throw new JsonException(field + " is out of range");
+        return v;
+    }
+
+    private static String idValue(JsonReader r) {
+        if (r.peekString() || r.peekNull()) return r.readString();
+        double v = r.readDouble();
+        return v == (long) v ? Long.toString((long) v) : Double.toString(v);
+    }
+}
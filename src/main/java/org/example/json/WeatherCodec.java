@@ -0,0 +1,116 @@
+package org.example.json;
+
+import org.example.weather.CurrentWeather;
+
+/**
+ * Encodes and decodes the {@code /data/2.5/weather} response: {@code coord}, the first
+ * {@code weather} entry, {@code main}, {@code wind}, {@code clouds}, {@code dt} and
+ * {@code name}. Everything else in the body is skipped; absent numbers decode as NaN.
+ */
+public final class WeatherCodec {
+    private static final int COORD = 0, WEATHER = 1, MAIN = 2, WIND = 3, CLOUDS = 4, DT = 5, NAME = 6;
+    private static final byte[][] KEYS = JsonReader.keys("coord", "weather", "main", "wind", "clouds", "dt", "name");
+    private static final byte[][] COORD_KEYS = JsonReader.keys("lat", "lon");
+    private static final byte[][] CONDITION_KEYS = JsonReader.keys("id", "main", "description");
+    private static final byte[][] MAIN_KEYS = JsonReader.keys("temp", "feels_like", "pressure", "humidity");
+    private static final byte[][] WIND_KEYS = JsonReader.keys("speed", "deg");
+    private static final byte[][] CLOUD_KEYS = JsonReader.keys("all");
+
+    private WeatherCodec() {
+    }
+
+    public static JsonWriter encode(CurrentWeather w, JsonWriter out) {
+        out.beginObject()
+                .name("coord").beginObject().name("lon").value(w.longitude()).name("lat").value(w.latitude()).endObject()
+                .name("weather").beginArray().beginObject()
+                .name("id").value(w.conditionId()).name("main").value(w.condition()).name("description").value(w.description())
+                .endObject().endArray()
+                .name("main").beginObject()
+                .name("temp").value(w.temperature()).name("feels_like").value(w.feelsLike())
+                .name("pressure").value(w.pressure()).name("humidity").value(w.humidity())
+                .endObject()
+                .name("wind").beginObject().name("speed").value(w.windSpeed()).name("deg").value(w.windDeg()).endObject()
+                .name("clouds").beginObject().name("all").value(w.clouds()).endObject()
+                .name("dt").value(w.dt())
+                .name("name").value(w.name())
+                .name("cod").value(200);
+        return out.endObject();
+    }
+
+    public static CurrentWeather decode(byte[] json) {
+        JsonReader r = new JsonReader(json);
+        double lat = Double.NaN, lon = Double.NaN, temp = Double.NaN, feels = Double.NaN, pressure = Double.NaN;
+        double humidity = Double.NaN, speed = Double.NaN, deg = Double.NaN, clouds = Double.NaN;
+        long dt = 0;
+        int conditionId = 0;
+        String condition = null, description = null, name = null;
+        r.beginObject();
+        while (r.hasNextField()) {
+            switch (r.field(KEYS)) {
+                case COORD -> {
+                    r.beginObject();
+                    while (r.hasNextField()) {
+                        switch (r.field(COORD_KEYS)) {
+                            case 0 -> lat = r.readDouble();
+                            case 1 -> lon = r.readDouble();
+                            default -> r.skipValue();
+                        }
+                    }
+                }
+                case WEATHER -> {
+                    r.beginArray();
+                    for (boolean first = true; r.hasNextElement(); first = false) {
+                        if (!first) {
+                            r.skipValue();
+                            continue;
+                        }
+                        r.beginObject();
+                        while (r.hasNextField()) {
+                            switch (r.field(CONDITION_KEYS)) {
+                                case 0 -> conditionId = (int) r.readDouble();
+                                case 1 -> condition = r.readString();
+                                case 2 -> description = r.readString();
+                                default -> r.skipValue();
+                            }
+                        }
+                    }
+                }
+                case MAIN -> {
+                    r.beginObject();
+                    while (r.hasNextField()) {
+                        switch (r.field(MAIN_KEYS)) {
+                            case 0 -> temp = r.readDouble();
+                            case 1 -> feels = r.readDouble();
+                            case 2 -> pressure = r.readDouble();
+                            case 3 -> humidity = r.readDouble();
+                            default -> r.skipValue();
+                        }
+                    }
+                }
+                case WIND -> {
+                    r.beginObject();
+                    while (r.hasNextField()) {
+                        switch (r.field(WIND_KEYS)) {
+                            case 0 -> speed = r.readDouble();
+                            case 1 -> deg = r.readDouble();
+                            default -> r.skipValue();
+                        }
+                    }
+                }
+                case CLOUDS -> {
+                    r.beginObject();
+                    while (r.hasNextField()) {
+                        if (r.field(CLOUD_KEYS) == 0) clouds = r.readDouble();
+                        else r.skipValue();
+                    }
+                }
+                case DT -> dt = (long) r.readDouble();
+                case NAME -> name = r.readString();
+                default -> r.skipValue();
+            }
+        }
+        r.endDocument();
+        return new CurrentWeather(lat, lon, dt, temp, feels, pressure, humidity, speed, deg, clouds,
+                conditionId, condition, description, name);
+    }
+}
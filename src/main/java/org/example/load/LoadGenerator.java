@@ -0,0 +1,336 @@
+package org.example.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.gen.Payload;
+import org.example.gen.StationGenerator;
+import org.example.json.StationCodec;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the {@code /stations} endpoints.
+ * <p>
+ * Requests are issued on a fixed schedule (constant or Poisson inter-arrival) regardless of
+ * how quickly earlier ones complete, so a slow server builds up in-flight requests instead of
+ * silently lowering the offered load. Each request's latency is measured from its
+ * <em>intended</em> start time, which corrects for coordinated omission; plain send-to-response
+ * service time is recorded alongside. Latencies go into HDR histograms per operation and status.
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final HttpClient http;
+    private final String stationsUrl;
+    private final String appIdQuery;
+    private final StationsClient client;
+    private final double rate;
+    private final Duration duration;
+    private final LoadMix mix;
+    private final boolean poisson;
+    private final int maxInFlight;
+    private final int seedStations;
+    private final boolean cleanup;
+    private final StationGenerator generator;
+
+    private final IdPool ids;
+    private final ConcurrentHashMap<Integer, Series> series = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private LoadGenerator(Builder b) {
+        this.http = b.httpClient != null ? b.httpClient : StationsClient.sharedHttpClient();
+        String base = b.baseUri.toString();
+        if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
+        this.stationsUrl = base + "/stations";
+        this.appIdQuery = "?appid=" + URLEncoder.encode(b.appId, StandardCharsets.UTF_8);
+        this.client = StationsClient.builder().baseUri(b.baseUri).appId(b.appId).httpClient(http).build();
+        this.rate = b.rate;
+        this.duration = b.duration;
+        this.mix = b.mix;
+        this.poisson = b.poisson;
+        this.maxInFlight = b.maxInFlight;
+        this.seedStations = b.seedStations;
+        this.cleanup = b.cleanup;
+        this.generator = new StationGenerator(b.seed);
+        this.ids = new IdPool(b.idPoolSize);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public LoadReport run() throws InterruptedException {
+        seed();
+        long intervalNanos = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long scheduled = 0;
+        long intended = start;
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) throw new InterruptedException();
+            dispatch(intended);
+            scheduled++;
+            intended = poisson
+                    ? intended + (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * intervalNanos)
+                    : start + scheduled * intervalNanos;
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) Thread.sleep(5);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        List<LoadReport.Row> rows = new ArrayList<>();
+        for (var e : series.entrySet()) {
+            int key = e.getKey();
+            rows.add(e.getValue().row(Operation.values()[key >>> 16], (short) key));
+        }
+        rows.sort(Comparator.comparing(LoadReport.Row::operation).thenComparingInt(LoadReport.Row::status));
+        if (cleanup) cleanup();
+        return new LoadReport(rate, elapsed, scheduled, completed.sum(), dropped.sum(), rows);
+    }
+
+    private void dispatch(long intendedNanos) {
+        if (inFlight.get() >= maxInFlight) {
+            dropped.increment();
+            return;
+        }
+        Operation op = mix.next();
+        String id = null;
+        if (op == Operation.GET || op == Operation.UPDATE) id = ids.random();
+        else if (op == Operation.DELETE) id = ids.take();
+        if (id == null && op != Operation.LIST) op = Operation.CREATE;
+
+        HttpRequest req = request(op, id);
+        Operation finalOp = op;
+        String finalId = id;
+        inFlight.incrementAndGet();
+        long sendNanos = System.nanoTime();
+        http.sendAsync(req, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((resp, err) -> {
+            long now = System.nanoTime();
+            int status = err == null ? resp.statusCode() : -1;
+            record(finalOp, status, now - intendedNanos, now - sendNanos);
+            if (err == null && finalOp == Operation.CREATE && status / 100 == 2) {
+                String created = StationCodec.readId(resp.body());
+                if (created != null) ids.add(created);
+            } else if (finalOp == Operation.DELETE && status / 100 != 2 && status != 404) {
+                ids.add(finalId);
+            }
+            completed.increment();
+            inFlight.decrementAndGet();
+        });
+    }
+
+    private HttpRequest request(Operation op, String id) {
+        return switch (op) {
+            case CREATE -> HttpRequest.newBuilder(URI.create(stationsUrl + appIdQuery))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(generator.payload(sequence.incrementAndGet(), Payload.VALID))).build();
+            case GET -> HttpRequest.newBuilder(stationUri(id)).GET().build();
+            case UPDATE -> HttpRequest.newBuilder(stationUri(id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(generator.payload(sequence.incrementAndGet(), Payload.VALID))).build();
+            case DELETE -> HttpRequest.newBuilder(stationUri(id)).DELETE().build();
+            case LIST -> HttpRequest.newBuilder(URI.create(stationsUrl + appIdQuery)).GET().build();
+        };
+    }
+
+    private URI stationUri(String id) {
+        return URI.create(stationsUrl + '/' + URLEncoder.encode(id, StandardCharsets.UTF_8) + appIdQuery);
+    }
+
+    private void record(Operation op, int status, long responseNanos, long serviceNanos) {
+        int key = op.ordinal() << 16 | (status & 0xFFFF);
+        series.computeIfAbsent(key, k -> new Series()).record(responseNanos / 1000, serviceNanos / 1000);
+    }
+
+    private void seed() {
+        List<CompletableFuture<Station>> pending = new ArrayList<>(seedStations);
+        for (int i = 0; i < seedStations; i++) pending.add(client.createAsync(generator.station(sequence.incrementAndGet())));
+        for (CompletableFuture<Station> f : pending) ids.add(f.join().id());
+    }
+
+    private void cleanup() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        String id;
+        while ((id = ids.take()) != null) pending.add(client.deleteAsync(id).exceptionally(e -> null));
+        pending.forEach(CompletableFuture::join);
+    }
+
+    /** Recorders for one operation/status pair; writers never lock. */
+    private static final class Series {
+        final Recorder response = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        final Recorder service = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+
+        void record(long responseMicros, long serviceMicros) {
+            response.recordValue(Math.min(Math.max(responseMicros, 0), HIGHEST_TRACKABLE_MICROS));
+            service.recordValue(Math.min(Math.max(serviceMicros, 0), HIGHEST_TRACKABLE_MICROS));
+        }
+
+        LoadReport.Row row(Operation op, int status) {
+            Histogram r = response.getIntervalHistogram();
+            Histogram s = service.getIntervalHistogram();
+            return new LoadReport.Row(op, status, r, s);
+        }
+    }
+
+    /**
+     * Fixed-capacity ring of live station ids: creates overwrite the oldest slot, reads pick a
+     * random slot and deletes claim one with a CAS, so the pool needs no lock. An overwritten id
+     * still names a live station; it moves to an overflow queue that deletes and cleanup drain
+     * first, so no created station is leaked.
+     */
+    private static final class IdPool {
+        private final AtomicReferenceArray<String> slots;
+        private final AtomicLong writes = new AtomicLong();
+        private final ConcurrentLinkedQueue<String> overwritten = new ConcurrentLinkedQueue<>();
+
+        IdPool(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        void add(String id) {
+            String old = slots.getAndSet((int) (writes.getAndIncrement() % slots.length()), id);
+            if (old != null) overwritten.add(old);
+        }
+
+        String random() {
+            int bound = (int) Math.min(writes.get(), slots.length());
+            if (bound == 0) return null;
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            for (int attempt = 0; attempt < 4; attempt++) {
+                String id = slots.get(r.nextInt(bound));
+                if (id != null) return id;
+            }
+            return null;
+        }
+
+        String take() {
+            String old = overwritten.poll();
+            if (old != null) return old;
+            int bound = (int) Math.min(writes.get(), slots.length());
+            if (bound == 0) return null;
+            int startAt = ThreadLocalRandom.current().nextInt(bound);
+            for (int i = 0; i < bound; i++) {
+                int idx = (startAt + i) % bound;
+                String id = slots.get(idx);
+                if (id != null && slots.compareAndSet(idx, id, null)) return id;
+            }
+            return null;
+        }
+    }
+
+    public static class Builder {
+        private URI baseUri = URI.create("http://api.openweathermap.org/data/3.0");
+        private String appId;
+        private HttpClient httpClient;
+        private double rate = 100;
+        private Duration duration = Duration.ofSeconds(30);
+        private LoadMix mix = LoadMix.parse("get=6,create=2,update=1,delete=1");
+        private boolean poisson;
+        private int maxInFlight = 10_000;
+        private int seedStations = 100;
+        private int idPoolSize = 1 << 16;
+        private boolean cleanup = true;
+        private long seed = System.nanoTime();
+
+        public Builder baseUri(URI baseUri) {
+            this.baseUri = Objects.requireNonNull(baseUri);
+            return this;
+        }
+
+        public Builder appId(String appId) {
+            this.appId = appId;
+            return this;
+        }
+
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /** Offered load in requests per second. */
+        public Builder rate(double rate) {
+            if (rate <= 0) throw new IllegalArgumentException("rate must be positive");
+            this.rate = rate;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder mix(LoadMix mix) {
+            this.mix = mix;
+            return this;
+        }
+
+        /** Exponential inter-arrival times instead of a constant interval. */
+        public Builder poisson(boolean poisson) {
+            this.poisson = poisson;
+            return this;
+        }
+
+        /** Requests beyond this many outstanding are counted as dropped rather than queued. */
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /** Stations created before the run so reads, updates and deletes have targets. */
+        public Builder seedStations(int seedStations) {
+            this.seedStations = seedStations;
+            return this;
+        }
+
+        /** Created station ids kept as targets for reads and updates; older ones are only deleted. */
+        public Builder idPoolSize(int idPoolSize) {
+            if (idPoolSize <= 0) throw new IllegalArgumentException("idPoolSize must be positive");
+            this.idPoolSize = idPoolSize;
+            return this;
+        }
+
+        /** Deletes the stations still known to the generator after the run. */
+        public Builder cleanup(boolean cleanup) {
+            this.cleanup = cleanup;
+            return this;
+        }
+
+        /** Seed of the generated station payloads; runs with the same seed send the same stations. */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public LoadGenerator build() {
+            Objects.requireNonNull(appId, "appId");
+            return new LoadGenerator(this);
+        }
+    }
+}
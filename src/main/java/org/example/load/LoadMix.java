@@ -0,0 +1,56 @@
+package org.example.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Weighted mix of operations, e.g. {@code get=6,create=2,update=1,delete=1}. */
+public final class LoadMix {
+    private final Operation[] ops;
+    private final double[] cumulative;
+
+    private LoadMix(Map<Operation, Double> weights) {
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        if (total <= 0) throw new IllegalArgumentException("mix must have a positive weight");
+        ops = weights.keySet().toArray(Operation[]::new);
+        cumulative = new double[ops.length];
+        double acc = 0;
+        for (int i = 0; i < ops.length; i++) {
+            acc += weights.get(ops[i]) / total;
+            cumulative[i] = acc;
+        }
+        cumulative[ops.length - 1] = 1.0;
+    }
+
+    /** Parses {@code op=weight} pairs separated by commas; operation names are case-insensitive. */
+    public static LoadMix parse(String spec) {
+        Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) continue;
+            String[] kv = part.split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("expected op=weight but got '" + part + "'");
+            double w = Double.parseDouble(kv[1].trim());
+            if (w < 0) throw new IllegalArgumentException("negative weight for " + kv[0]);
+            if (w > 0) weights.put(Operation.valueOf(kv[0].trim().toUpperCase()), w);
+        }
+        return new LoadMix(weights);
+    }
+
+    public Operation next() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < cumulative.length; i++) if (r < cumulative[i]) return ops[i];
+        return ops[ops.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        double prev = 0;
+        for (int i = 0; i < ops.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(ops[i].name().toLowerCase()).append('=').append(String.format("%.3f", cumulative[i] - prev));
+            prev = cumulative[i];
+        }
+        return sb.toString();
+    }
+}
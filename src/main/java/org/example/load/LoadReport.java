@@ -0,0 +1,96 @@
+package org.example.load;
+
+import org.HdrHistogram.Histogram;
+import org.example.json.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Result of a {@link LoadGenerator} run. Latencies are in microseconds. {@code response}
+ * histograms are measured from each request's intended start time, so they include any time
+ * the request spent waiting behind a stalled scheduler or server; {@code service} histograms
+ * measure only send-to-response.
+ */
+public record LoadReport(double targetRate, Duration duration, long scheduled, long completed, long dropped,
+                         List<Row> rows) {
+
+    /** Latency for one operation and status code ({@code -1} for transport errors). */
+    public record Row(Operation operation, int status, Histogram response, Histogram service) {
+        public long count() {
+            return response.getTotalCount();
+        }
+    }
+
+    public double achievedRate() {
+        double seconds = duration.toNanos() / 1e9;
+        return seconds == 0 ? 0 : completed / seconds;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("target %.1f req/s, achieved %.1f req/s over %.1fs: scheduled=%d completed=%d dropped=%d%n",
+                targetRate, achievedRate(), duration.toNanos() / 1e9, scheduled, completed, dropped);
+        out.printf("%-22s %6s %9s %10s %10s %10s %10s %10s%n",
+                "endpoint", "status", "count", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "svc99(ms)");
+        for (Row r : rows) {
+            Histogram h = r.response();
+            out.printf("%-22s %6s %9d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    r.operation().endpoint(), r.status() < 0 ? "ERR" : Integer.toString(r.status()), r.count(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()),
+                    ms(r.service().getValueAtPercentile(99)));
+        }
+    }
+
+    /** Writes the report as JSON, including each histogram in compressed, base64-encoded HDR form. */
+    public void writeJson(Path file) throws IOException {
+        try (JsonWriter w = new JsonWriter(4096); OutputStream out = Files.newOutputStream(file)) {
+            w.beginObject()
+                    .name("target_rate").value(targetRate)
+                    .name("achieved_rate").value(achievedRate())
+                    .name("duration_ms").value(duration.toMillis())
+                    .name("scheduled").value(scheduled)
+                    .name("completed").value(completed)
+                    .name("dropped").value(dropped)
+                    .name("unit").value("us")
+                    .name("rows").beginArray();
+            for (Row r : rows) {
+                w.beginObject()
+                        .name("endpoint").value(r.operation().endpoint())
+                        .name("status").value(r.status())
+                        .name("count").value(r.count());
+                writeHistogram(w, "response", r.response());
+                writeHistogram(w, "service", r.service());
+                w.endObject();
+            }
+            w.endArray().endObject();
+            w.writeTo(out);
+        }
+    }
+
+    private static void writeHistogram(JsonWriter w, String name, Histogram h) {
+        ByteBuffer buf = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+        int len = h.encodeIntoCompressedByteBuffer(buf);
+        w.name(name).beginObject()
+                .name("p50").value(h.getValueAtPercentile(50))
+                .name("p90").value(h.getValueAtPercentile(90))
+                .name("p99").value(h.getValueAtPercentile(99))
+                .name("p999").value(h.getValueAtPercentile(99.9))
+                .name("max").value(h.getMaxValue())
+                .name("mean").value(h.getMean())
+                .name("hdr").value(Base64.getEncoder().encodeToString(Arrays.copyOf(buf.array(), len)))
+                .endObject();
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
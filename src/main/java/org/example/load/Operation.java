@@ -0,0 +1,20 @@
+package org.example.load;
+
+/** The {@code /stations} calls a load run can issue. */
+public enum Operation {
+    CREATE("POST /stations"),
+    GET("GET /stations/{id}"),
+    UPDATE("PUT /stations/{id}"),
+    DELETE("DELETE /stations/{id}"),
+    LIST("GET /stations");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+}
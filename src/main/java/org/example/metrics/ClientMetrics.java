@@ -0,0 +1,271 @@
+package org.example.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-{@link Endpoint} client metrics: a latency histogram, response counts by status, 200
+ * responses carrying the proxy's HTML "Request forbidden" page, transport errors, retries and
+ * bytes sent and received, plus the tail-latency controls of {@code StationsClient}: hedges
+ * sent and won, latency the winners saved, missed deadlines, and circuit breaker state.
+ * <p>
+ * The {@code record*} methods are lock-free and do not allocate, so they can sit on the
+ * request path of {@code StationsClient} or a RestAssured filter and be called from any
+ * thread. Metrics are read through {@link #stats}, JMX ({@link #registerMBeans}) or the
+ * Prometheus text format ({@link #writePrometheus}, served by {@link PrometheusEndpoint}).
+ */
+public final class ClientMetrics {
+    /** Circuit breaker states as exported by the {@code stations_client_circuit_state} gauge. */
+    public static final int CIRCUIT_CLOSED = 0, CIRCUIT_OPEN = 1, CIRCUIT_HALF_OPEN = 2;
+
+    private static final ClientMetrics DISABLED = new ClientMetrics(false);
+    private static final byte[] FORBIDDEN = "Request forbidden".getBytes(StandardCharsets.US_ASCII);
+    /** Prometheus histogram bucket bounds in microseconds, and the same in seconds as {@code le} labels. */
+    private static final long[] BUCKETS_MICROS = {500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000,
+            250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+    private static final String[] BUCKET_LABELS = {"0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+            "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+
+    private final boolean enabled;
+    private final EndpointMetrics[] endpoints;
+
+    public ClientMetrics() {
+        this(true);
+    }
+
+    private ClientMetrics(boolean enabled) {
+        this.enabled = enabled;
+        Endpoint[] all = Endpoint.values();
+        this.endpoints = new EndpointMetrics[enabled ? all.length : 0];
+        for (int i = 0; i < endpoints.length; i++) endpoints[i] = new EndpointMetrics(all[i]);
+    }
+
+    /** A shared instance that ignores everything recorded into it. */
+    public static ClientMetrics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Records a response; {@code forbiddenHtml} marks a 200 whose body is the proxy's HTML error page. */
+    public void record(Endpoint endpoint, int status, boolean forbiddenHtml, long nanos, long bytesSent, long bytesReceived) {
+        if (enabled) endpoints[endpoint.ordinal()].record(status, forbiddenHtml, nanos, bytesSent, bytesReceived);
+    }
+
+    /** Records a request that got no response. */
+    public void recordTransportError(Endpoint endpoint, long nanos, long bytesSent) {
+        if (enabled) endpoints[endpoint.ordinal()].recordTransportError(nanos, bytesSent);
+    }
+
+    /** Records that a request is about to be re-sent. */
+    public void recordRetry(Endpoint endpoint) {
+        if (enabled) endpoints[endpoint.ordinal()].recordRetry();
+    }
+
+    /** Records a hedge: a second request sent because the first had not answered in time. */
+    public void recordHedge(Endpoint endpoint) {
+        if (enabled) endpoints[endpoint.ordinal()].recordHedge();
+    }
+
+    /** Records a hedge that answered first, {@code savedNanos} before the request it backed up finished. */
+    public void recordHedgeWin(Endpoint endpoint, long savedNanos) {
+        if (enabled) endpoints[endpoint.ordinal()].recordHedgeWin(savedNanos);
+    }
+
+    public void recordDeadlineExceeded(Endpoint endpoint) {
+        if (enabled) endpoints[endpoint.ordinal()].recordDeadlineExceeded();
+    }
+
+    /** Records a call refused by an open circuit breaker. */
+    public void recordCircuitRejected(Endpoint endpoint) {
+        if (enabled) endpoints[endpoint.ordinal()].recordCircuitRejected();
+    }
+
+    /** Records a breaker transition to one of the {@code CIRCUIT_*} states. */
+    public void recordCircuitState(Endpoint endpoint, int state) {
+        if (enabled) endpoints[endpoint.ordinal()].recordCircuitState(state);
+    }
+
+    public static String circuitStateName(int state) {
+        return switch (state) {
+            case CIRCUIT_OPEN -> "open";
+            case CIRCUIT_HALF_OPEN -> "half_open";
+            default -> "closed";
+        };
+    }
+
+    /** Adds body bytes read after the response was recorded, for streamed bodies. */
+    public void addBytesReceived(Endpoint endpoint, long bytes) {
+        if (enabled) endpoints[endpoint.ordinal()].addBytesReceived(bytes);
+    }
+
+    /**
+     * True if {@code body} looks like the HTML "Request forbidden by administrative rules" page
+     * that the upstream proxy serves with status 200. Does not allocate.
+     */
+    public static boolean isForbiddenPage(byte[] body, int off, int len) {
+        if (body == null) return false;
+        int i = off, end = off + len;
+        while (i < end && (body[i] == ' ' || body[i] == '\n' || body[i] == '\r' || body[i] == '\t')) i++;
+        if (i == end || body[i] != '<') return false;
+        outer:
+        for (int last = end - FORBIDDEN.length; i <= last; i++) {
+            for (int j = 0; j < FORBIDDEN.length; j++) {
+                if (body[i + j] != FORBIDDEN[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public EndpointStats stats(Endpoint endpoint) {
+        if (!enabled) {
+            return new EndpointStats(endpoint, 0, 0, 0, 0, 0, 0, Map.of(), new Histogram(EndpointMetrics.MAX_LATENCY_MICROS, 2),
+                    0, 0, 0, 0, 0, 0, CIRCUIT_CLOSED);
+        }
+        return endpoints[endpoint.ordinal()].stats();
+    }
+
+    // ---- export ----
+
+    /** Registers one MXBean per endpoint as {@code org.example:type=ClientMetrics,name=<name>,endpoint=<ENDPOINT>}. */
+    public List<ObjectName> registerMBeans(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        List<ObjectName> names = new ArrayList<>();
+        try {
+            for (EndpointMetrics m : endpoints) {
+                ObjectName on = objectName(name, m.endpoint);
+                if (server.isRegistered(on)) server.unregisterMBean(on);
+                server.registerMBean(m, on);
+                names.add(on);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register client metrics '" + name + "'", e);
+        }
+        return names;
+    }
+
+    public void unregisterMBeans(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (EndpointMetrics m : endpoints) {
+                ObjectName on = objectName(name, m.endpoint);
+                if (server.isRegistered(on)) server.unregisterMBean(on);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot unregister client metrics '" + name + "'", e);
+        }
+    }
+
+    public static ObjectName objectName(String name, Endpoint endpoint) {
+        try {
+            return new ObjectName("org.example:type=ClientMetrics,name=" + ObjectName.quote(name) + ",endpoint=" + endpoint);
+        } catch (JMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /** Appends every endpoint that has seen traffic in the Prometheus text exposition format. */
+    public void writePrometheus(StringBuilder out) {
+        List<EndpointStats> active = new ArrayList<>();
+        for (EndpointMetrics m : endpoints) {
+            EndpointStats s = m.stats();
+            if (s.requests() + s.transportErrors() + s.retries() + s.circuitRejected() + s.circuitOpened() > 0) active.add(s);
+        }
+        header(out, "stations_client_requests_total", "counter", "Responses received, by endpoint and HTTP status.");
+        for (EndpointStats s : active) {
+            s.statuses().forEach((status, n) -> {
+                labels(out, "stations_client_requests_total", s.endpoint());
+                out.append(",status=\"").append(status == 0 ? "other" : status.toString()).append("\"} ").append(n).append('\n');
+            });
+        }
+        counter(out, active, "stations_client_forbidden_html_total",
+                "200 responses carrying the HTML 'Request forbidden' page.", EndpointStats::forbiddenHtml);
+        counter(out, active, "stations_client_transport_errors_total", "Requests that got no response.", EndpointStats::transportErrors);
+        counter(out, active, "stations_client_retries_total", "Requests re-sent after a retryable failure.", EndpointStats::retries);
+        counter(out, active, "stations_client_sent_bytes_total", "Request body bytes sent.", EndpointStats::bytesSent);
+        counter(out, active, "stations_client_received_bytes_total", "Response body bytes received.", EndpointStats::bytesReceived);
+        counter(out, active, "stations_client_hedges_total", "Second requests sent after the hedge delay.", EndpointStats::hedges);
+        counter(out, active, "stations_client_hedge_wins_total", "Hedges that answered first.", EndpointStats::hedgeWins);
+        header(out, "stations_client_hedge_saved_seconds_total", "counter", "Latency winning hedges saved over the requests they backed up.");
+        for (EndpointStats s : active) {
+            labels(out, "stations_client_hedge_saved_seconds_total", s.endpoint());
+            out.append("} ").append(s.hedgeSavedNanos() / 1e9).append('\n');
+        }
+        counter(out, active, "stations_client_deadline_exceeded_total", "Calls failed by their deadline.", EndpointStats::deadlineExceeded);
+        counter(out, active, "stations_client_circuit_rejected_total", "Calls refused by an open circuit breaker.", EndpointStats::circuitRejected);
+        counter(out, active, "stations_client_circuit_opened_total", "Times the circuit breaker opened.", EndpointStats::circuitOpened);
+        header(out, "stations_client_circuit_state", "gauge", "Circuit breaker state: 0 closed, 1 open, 2 half-open.");
+        for (EndpointStats s : active) {
+            labels(out, "stations_client_circuit_state", s.endpoint());
+            out.append("} ").append(s.circuitState()).append('\n');
+        }
+
+        header(out, "stations_client_request_duration_seconds", "histogram", "Time from send to response.");
+        for (EndpointStats s : active) {
+            Histogram h = s.latency();
+            for (int i = 0; i < BUCKETS_MICROS.length; i++) {
+                labels(out, "stations_client_request_duration_seconds_bucket", s.endpoint());
+                out.append(",le=\"").append(BUCKET_LABELS[i]).append("\"} ")
+                        .append(h.getCountBetweenValues(0, BUCKETS_MICROS[i])).append('\n');
+            }
+            labels(out, "stations_client_request_duration_seconds_bucket", s.endpoint());
+            out.append(",le=\"+Inf\"} ").append(h.getTotalCount()).append('\n');
+            labels(out, "stations_client_request_duration_seconds_sum", s.endpoint());
+            out.append("} ").append(endpoints[s.endpoint().ordinal()].latencyNanos() / 1e9).append('\n');
+            labels(out, "stations_client_request_duration_seconds_count", s.endpoint());
+            out.append("} ").append(h.getTotalCount()).append('\n');
+        }
+    }
+
+    public String prometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        writePrometheus(out);
+        return out.toString();
+    }
+
+    /** Prints one line per endpoint that has seen traffic. */
+    public void print(PrintStream out) {
+        out.printf("%-8s %-16s %8s %6s %6s %7s %6s %9s %9s %9s %11s %11s %9s%n", "method", "endpoint", "count", "errors",
+                "retry", "403html", "hedge", "p50(ms)", "p99(ms)", "max(ms)", "sent", "received", "circuit");
+        for (EndpointMetrics m : endpoints) {
+            EndpointStats s = m.stats();
+            if (s.requests() + s.transportErrors() + s.circuitRejected() == 0) continue;
+            Histogram h = s.latency();
+            out.printf("%-8s %-16s %8d %6d %6d %7d %6d %9.3f %9.3f %9.3f %11d %11d %9s%n", s.endpoint().method(),
+                    s.endpoint().path(), s.requests(), s.transportErrors(), s.retries(), s.forbiddenHtml(), s.hedges(),
+                    h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3, h.getMaxValue() / 1e3,
+                    s.bytesSent(), s.bytesReceived(), circuitStateName(s.circuitState()));
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void labels(StringBuilder out, String name, Endpoint e) {
+        out.append(name).append("{method=\"").append(e.method()).append("\",endpoint=\"").append(e.path()).append('"');
+    }
+
+    private static void counter(StringBuilder out, List<EndpointStats> active, String name, String help,
+                                ToLongFunction<EndpointStats> value) {
+        header(out, name, "counter", help);
+        for (EndpointStats s : active) {
+            labels(out, name, s.endpoint());
+            out.append("} ").append(value.applyAsLong(s)).append('\n');
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.metrics;
+
+/**
+ * The API operations metrics are kept for, identified by HTTP method and path template.
+ */
+public enum Endpoint {
+    CREATE("POST", "/stations"),
+    LIST("GET", "/stations"),
+    READ("GET", "/stations/{id}"),
+    UPDATE("PUT", "/stations/{id}"),
+    DELETE("DELETE", "/stations/{id}"),
+    POST_MEASUREMENTS("POST", "/measurements"),
+    GET_MEASUREMENTS("GET", "/measurements"),
+    /** Current weather by coordinates, {@code /data/2.5/weather}. */
+    WEATHER("GET", "/weather"),
+    OTHER("OTHER", "other");
+
+    private static final String STATIONS = "/stations";
+    private static final String MEASUREMENTS = "/measurements";
+    private static final String WEATHER_25 = "/2.5/weather";
+
+    private final String method;
+    private final String path;
+
+    Endpoint(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    /** Path template relative to the API root, e.g. {@code /stations/{id}}. */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Classifies a request from its method and path or full URI; anything after {@code ?} is
+     * ignored. Does not allocate.
+     */
+    public static Endpoint of(String method, String uri) {
+        int end = uri.indexOf('?');
+        if (end < 0) end = uri.length();
+        int s = uri.indexOf(STATIONS);
+        if (s >= 0 && s < end) {
+            int after = s + STATIONS.length();
+            boolean single = after + 1 < end && uri.charAt(after) == '/';
+            if (!single && after != end && !(after + 1 == end && uri.charAt(after) == '/')) return OTHER;
+            return switch (method) {
+                case "POST" -> single ? OTHER : CREATE;
+                case "GET" -> single ? READ : LIST;
+                case "PUT" -> single ? UPDATE : OTHER;
+                case "DELETE" -> single ? DELETE : OTHER;
+                default -> OTHER;
+            };
+        }
+        int m = uri.indexOf(MEASUREMENTS);
+        if (m >= 0 && m + MEASUREMENTS.length() == end) {
+            return switch (method) {
+                case "POST" -> POST_MEASUREMENTS;
+                case "GET" -> GET_MEASUREMENTS;
+                default -> OTHER;
+            };
+        }
+        if (end >= WEATHER_25.length() && uri.startsWith(WEATHER_25, end - WEATHER_25.length())) {
+            return method.equals("GET") ? WEATHER : OTHER;
+        }
+        return OTHER;
+    }
+}
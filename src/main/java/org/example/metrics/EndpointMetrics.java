@@ -0,0 +1,219 @@
+package org.example.metrics;
+
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram for one endpoint. Recording touches only preallocated
+ * atomics: a fixed-range {@link AtomicHistogram} and one slot per status code in an
+ * {@link AtomicLongArray}; {@link LongAdder} only allocates while its cells first spread
+ * under contention.
+ */
+final class EndpointMetrics implements EndpointMetricsMXBean {
+    /** Latencies above this are recorded as this value. */
+    static final long MAX_LATENCY_MICROS = 60_000_000L;
+    private static final int MAX_STATUS = 600;
+
+    final Endpoint endpoint;
+    private final AtomicHistogram latency = new AtomicHistogram(MAX_LATENCY_MICROS, 2);
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder forbiddenHtml = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgeSavedNanos = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+    private final LongAdder circuitRejected = new LongAdder();
+    private final LongAdder circuitOpened = new LongAdder();
+    private volatile int circuitState;
+
+    EndpointMetrics(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(int status, boolean forbidden, long nanos, long sent, long received) {
+        statuses.incrementAndGet(status >= 100 && status < MAX_STATUS ? status : 0);
+        requests.increment();
+        if (forbidden) forbiddenHtml.increment();
+        recordLatency(nanos);
+        bytesSent.add(sent);
+        bytesReceived.add(received);
+    }
+
+    void recordTransportError(long nanos, long sent) {
+        transportErrors.increment();
+        recordLatency(nanos);
+        bytesSent.add(sent);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void addBytesReceived(long n) {
+        bytesReceived.add(n);
+    }
+
+    void recordHedge() {
+        hedges.increment();
+    }
+
+    void recordHedgeWin(long savedNanos) {
+        hedgeWins.increment();
+        hedgeSavedNanos.add(Math.max(0, savedNanos));
+    }
+
+    void recordDeadlineExceeded() {
+        deadlineExceeded.increment();
+    }
+
+    void recordCircuitRejected() {
+        circuitRejected.increment();
+    }
+
+    void recordCircuitState(int state) {
+        if (state == ClientMetrics.CIRCUIT_OPEN && circuitState != ClientMetrics.CIRCUIT_OPEN) circuitOpened.increment();
+        circuitState = state;
+    }
+
+    private void recordLatency(long nanos) {
+        latencyNanos.add(nanos);
+        latency.recordValue(Math.max(0, Math.min(nanos / 1_000, MAX_LATENCY_MICROS)));
+    }
+
+    long latencyNanos() {
+        return latencyNanos.sum();
+    }
+
+    EndpointStats stats() {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        for (int i = 0; i < MAX_STATUS; i++) {
+            long n = statuses.get(i);
+            if (n != 0) byStatus.put(i, n);
+        }
+        Histogram copy = new Histogram(MAX_LATENCY_MICROS, 2);
+        copy.add(latency);
+        return new EndpointStats(endpoint, requests.sum(), transportErrors.sum(), forbiddenHtml.sum(), retries.sum(),
+                bytesSent.sum(), bytesReceived.sum(), byStatus, copy, hedges.sum(), hedgeWins.sum(),
+                hedgeSavedNanos.sum(), deadlineExceeded.sum(), circuitRejected.sum(), circuitOpened.sum(), circuitState);
+    }
+
+    // ---- JMX ----
+
+    @Override
+    public String getMethod() {
+        return endpoint.method();
+    }
+
+    @Override
+    public String getPath() {
+        return endpoint.path();
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getTransportErrors() {
+        return transportErrors.sum();
+    }
+
+    @Override
+    public long getForbiddenHtml() {
+        return forbiddenHtml.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public double getHedgeSavedMillis() {
+        return hedgeSavedNanos.sum() / 1e6;
+    }
+
+    @Override
+    public long getDeadlineExceeded() {
+        return deadlineExceeded.sum();
+    }
+
+    @Override
+    public long getCircuitRejected() {
+        return circuitRejected.sum();
+    }
+
+    @Override
+    public long getCircuitOpened() {
+        return circuitOpened.sum();
+    }
+
+    @Override
+    public String getCircuitState() {
+        return ClientMetrics.circuitStateName(circuitState);
+    }
+
+    @Override
+    public Map<String, Long> getStatusCounts() {
+        Map<String, Long> out = new TreeMap<>();
+        stats().statuses().forEach((status, n) -> out.put(status == 0 ? "other" : status.toString(), n));
+        return out;
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        return latency.getMean() / 1e3;
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP999Millis() {
+        return latency.getValueAtPercentile(99.9) / 1e3;
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latency.getMaxValue() / 1e3;
+    }
+}
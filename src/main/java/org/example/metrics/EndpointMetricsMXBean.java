@@ -0,0 +1,57 @@
+package org.example.metrics;
+
+import java.util.Map;
+
+/** JMX view of one endpoint's {@link ClientMetrics}; latencies are in milliseconds. */
+public interface EndpointMetricsMXBean {
+    String getMethod();
+
+    String getPath();
+
+    /** Responses received, whatever their status. */
+    long getRequests();
+
+    long getTransportErrors();
+
+    /** 200 responses carrying the proxy's HTML "Request forbidden" page instead of JSON. */
+    long getForbiddenHtml();
+
+    long getRetries();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    /** Second requests sent because the first had not answered within the hedge delay. */
+    long getHedges();
+
+    /** Hedges that answered before the request they backed up. */
+    long getHedgeWins();
+
+    /** Time winning hedges saved over the requests they backed up. */
+    double getHedgeSavedMillis();
+
+    /** Calls that failed because their deadline passed. */
+    long getDeadlineExceeded();
+
+    /** Calls refused without a request because the circuit breaker was open. */
+    long getCircuitRejected();
+
+    long getCircuitOpened();
+
+    /** {@code closed}, {@code open} or {@code half_open}. */
+    String getCircuitState();
+
+    /** Response count per HTTP status code. */
+    Map<String, Long> getStatusCounts();
+
+    double getLatencyMeanMillis();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyP999Millis();
+
+    double getLatencyMaxMillis();
+}
@@ -0,0 +1,25 @@
+package org.example.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Point-in-time copy of one endpoint's metrics. {@code latency} is in microseconds and counts
+ * responses and transport errors alike; {@code statuses} maps HTTP status to response count.
+ * {@code circuitState} is one of the {@code ClientMetrics.CIRCUIT_*} codes.
+ */
+public record EndpointStats(Endpoint endpoint, long requests, long transportErrors, long forbiddenHtml,
+                            long retries, long bytesSent, long bytesReceived, Map<Integer, Long> statuses,
+                            Histogram latency, long hedges, long hedgeWins, long hedgeSavedNanos,
+                            long deadlineExceeded, long circuitRejected, long circuitOpened, int circuitState) {
+
+    public long status(int code) {
+        return statuses.getOrDefault(code, 0L);
+    }
+
+    /** Hedges sent per response received. */
+    public double hedgeRate() {
+        return requests == 0 ? 0 : (double) hedges / requests;
+    }
+}
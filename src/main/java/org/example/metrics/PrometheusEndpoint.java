@@ -0,0 +1,58 @@
+package org.example.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/** Serves a {@link ClientMetrics} in the Prometheus text format at {@code GET /metrics} on loopback. */
+public final class PrometheusEndpoint implements AutoCloseable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer http;
+    private final ClientMetrics metrics;
+
+    private PrometheusEndpoint(HttpServer http, ClientMetrics metrics) {
+        this.http = http;
+        this.metrics = metrics;
+        http.createContext("/metrics", this::handle);
+    }
+
+    /** Starts serving on the given loopback port ({@code 0} picks a free one). */
+    public static PrometheusEndpoint start(ClientMetrics metrics, int port) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 16);
+        PrometheusEndpoint endpoint = new PrometheusEndpoint(http, metrics);
+        http.start();
+        return endpoint;
+    }
+
+    public URI uri() {
+        InetSocketAddress addr = http.getAddress();
+        return URI.create("http://" + addr.getHostString() + ":" + addr.getPort() + "/metrics");
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!ex.getRequestMethod().equals("GET")) {
+                ex.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.prometheus().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
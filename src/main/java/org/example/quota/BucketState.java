@@ -0,0 +1,43 @@
+package org.example.quota;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The two words a {@link TokenBucket} keeps: the theoretical arrival time of the next
+ * permit and the instant until which the server asked us to pause. Both are updated only by
+ * compare-and-set, so the bucket is lock-free whether the words live on the heap or in a
+ * file mapped by several processes.
+ */
+abstract class BucketState {
+    static final int TAT = 0, BLOCKED = 1;
+
+    abstract long get(int word);
+
+    abstract boolean compareAndSet(int word, long expect, long update);
+
+    /** Raises {@code word} to at least {@code value}. */
+    void max(int word, long value) {
+        long current;
+        while ((current = get(word)) < value && !compareAndSet(word, current, value)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /** State private to this JVM; starts far in the past so the first call is never delayed. */
+    static BucketState onHeap() {
+        AtomicLongArray words = new AtomicLongArray(2);
+        words.set(TAT, Long.MIN_VALUE / 4);
+        words.set(BLOCKED, Long.MIN_VALUE / 4);
+        return new BucketState() {
+            @Override
+            long get(int word) {
+                return words.get(word);
+            }
+
+            @Override
+            boolean compareAndSet(int word, long expect, long update) {
+                return words.compareAndSet(word, expect, update);
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.quota;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A small memory-mapped table of bucket states that every process on the host maps. Each
+ * slot holds a key (a hash of the appid) and the two {@link BucketState} words; all updates
+ * are compare-and-set on the shared mapping, so processes coordinate without file locks. The
+ * first process to see a fresh file stamps the header; slots are claimed by CAS-ing the key
+ * from zero, probing linearly on collision.
+ */
+final class CoordinationFile {
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int MAGIC = 0x51554F54; // "QUOT"
+    private static final int HEADER = 64;
+    private static final int SLOT = 32;
+    private static final int SLOTS = 256;
+    private static final int KEY = 0, WORDS = 8;
+
+    private final Path file;
+    private final MappedByteBuffer buf;
+
+    private CoordinationFile(Path file, MappedByteBuffer buf) {
+        this.file = file;
+        this.buf = buf;
+    }
+
+    static CoordinationFile open(Path file) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) SLOTS * SLOT);
+        }
+        int magic = (int) INT.getVolatile(buf, 0);
+        if (magic == 0 && !INT.compareAndSet(buf, 0, 0, MAGIC)) magic = (int) INT.getVolatile(buf, 0);
+        if (magic != 0 && magic != MAGIC) throw new IOException("not a quota coordination file: " + file);
+        return new CoordinationFile(file, buf);
+    }
+
+    /** The shared state of {@code appId}, claiming a slot for it if no process has yet. */
+    BucketState state(String appId) {
+        long key = key(appId);
+        int start = (int) ((key >>> 1) % SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            int base = HEADER + ((start + i) % SLOTS) * SLOT;
+            long k = (long) LONG.getVolatile(buf, base + KEY);
+            if (k == 0 && LONG.compareAndSet(buf, base + KEY, 0L, key)) k = key;
+            else if (k == 0) k = (long) LONG.getVolatile(buf, base + KEY);
+            if (k == key) return slot(base + WORDS);
+        }
+        throw new IllegalStateException("quota coordination file is full: " + file);
+    }
+
+    private BucketState slot(int offset) {
+        return new BucketState() {
+            @Override
+            long get(int word) {
+                return (long) LONG.getVolatile(buf, offset + word * Long.BYTES);
+            }
+
+            @Override
+            boolean compareAndSet(int word, long expect, long update) {
+                return LONG.compareAndSet(buf, offset + word * Long.BYTES, expect, update);
+            }
+        };
+    }
+
+    /** FNV-1a over the UTF-8 appid, never zero so that zero can mark a free slot. */
+    private static long key(String appId) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : appId.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h | 1;
+    }
+}
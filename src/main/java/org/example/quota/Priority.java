@@ -0,0 +1,13 @@
+package org.example.quota;
+
+/**
+ * Call classes competing for one quota. {@link #INTERACTIVE} callers book the next free slot
+ * and queue behind each other; the others only take a slot that is free when they ask, so
+ * booked interactive calls always go first. {@link #BULK} additionally leaves half of the
+ * burst allowance untouched for the other classes.
+ */
+public enum Priority {
+    INTERACTIVE,
+    NORMAL,
+    BULK
+}
@@ -0,0 +1,244 @@
+package org.example.quota;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-appid call budget shared by every caller of the API.
+ * <p>
+ * Each appid gets a lock-free {@link TokenBucket} sized so that no window of the quota's
+ * period ever sees more than {@code utilization * limit} calls, bursts included, while the
+ * sustained rate stays just under that. Callers take a permit before each request;
+ * {@link Priority} decides who goes first when the budget is tight, and a 429 fed back through
+ * {@link #throttled} pauses every caller of that appid for the server's {@code Retry-After}.
+ * <p>
+ * With a {@link Builder#coordinationFile coordination file} the bucket state lives in a
+ * memory-mapped file instead of the heap, so several JVMs on one host draw from the same
+ * budget. They then measure time with the wall clock at millisecond resolution and must be
+ * configured with the same limits.
+ */
+public final class QuotaManager {
+    private static final Duration DEFAULT_PAUSE = Duration.ofSeconds(1);
+
+    private final Map<String, Limit> limits;
+    private final Limit defaultLimit;
+    private final double utilization;
+    private final int burst;
+    private final CoordinationFile shared;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private record Limit(int permits, Duration period) {
+    }
+
+    private QuotaManager(Builder b) throws IOException {
+        this.limits = Map.copyOf(b.limits);
+        this.defaultLimit = b.defaultLimit;
+        this.utilization = b.utilization;
+        this.burst = b.burst;
+        this.shared = b.coordinationFile == null ? null : CoordinationFile.open(b.coordinationFile);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Blocks until a permit is granted. */
+    public void acquire(String appId, Priority priority) throws InterruptedException {
+        acquire(bucket(appId), priority, Long.MAX_VALUE);
+    }
+
+    /** Takes a permit only if one is free right now. */
+    public boolean tryAcquire(String appId, Priority priority) {
+        TokenBucket b = bucket(appId);
+        if (b.reserve(priority, now(), 0) == 0) {
+            b.granted.increment();
+            return true;
+        }
+        b.rejected.increment();
+        return false;
+    }
+
+    /** Waits up to {@code timeout} for a permit. */
+    public boolean tryAcquire(String appId, Priority priority, Duration timeout) throws InterruptedException {
+        return acquire(bucket(appId), priority, timeout.toNanos());
+    }
+
+    /** Completes once a permit is granted, without blocking the caller. */
+    public CompletableFuture<Void> acquireAsync(String appId, Priority priority) {
+        TokenBucket b = bucket(appId);
+        CompletableFuture<Boolean> granted = new CompletableFuture<>();
+        acquireAsync(b, priority, now(), Long.MAX_VALUE, granted);
+        return granted.thenApply(ok -> null);
+    }
+
+    /** Completes with true once a permit is granted, or with false if none comes within {@code timeout}. */
+    public CompletableFuture<Boolean> tryAcquireAsync(String appId, Priority priority, Duration timeout) {
+        TokenBucket b = bucket(appId);
+        CompletableFuture<Boolean> granted = new CompletableFuture<>();
+        long start = now();
+        acquireAsync(b, priority, start, start + Math.max(0, timeout.toNanos()), granted);
+        return granted;
+    }
+
+    /** Pauses every caller of {@code appId} for {@code retryAfter}, or one second if the server gave none. */
+    public void throttled(String appId, Duration retryAfter) {
+        Duration pause = retryAfter != null ? retryAfter : DEFAULT_PAUSE;
+        bucket(appId).blockUntil(now() + pause.toNanos());
+    }
+
+    public QuotaStats stats(String appId) {
+        return bucket(appId).stats();
+    }
+
+    /** Sustained permits per second this manager grants for {@code appId}. */
+    public double rate(String appId) {
+        return 1e9 / bucket(appId).intervalNanos;
+    }
+
+    private boolean acquire(TokenBucket b, Priority priority, long timeoutNanos) throws InterruptedException {
+        long start = now();
+        long deadline = timeoutNanos >= Long.MAX_VALUE - Math.max(0, start) ? Long.MAX_VALUE : start + timeoutNanos;
+        while (true) {
+            long now = now();
+            long r = b.reserve(priority, now, deadline - now);
+            if (r >= 0) {
+                sleep(r);
+                granted(b, now + r - start);
+                return true;
+            }
+            long retryIn = -1 - r;
+            if (retryIn > deadline - now) {
+                b.rejected.increment();
+                return false;
+            }
+            sleep(retryIn);
+        }
+    }
+
+    /** {@code deadline} is on the {@link #now()} clock, {@link Long#MAX_VALUE} for none. */
+    private void acquireAsync(TokenBucket b, Priority priority, long start, long deadline, CompletableFuture<Boolean> granted) {
+        long now = now();
+        long maxWait = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - now;
+        long r = b.reserve(priority, now, maxWait);
+        if (r == 0) {
+            granted(b, now - start);
+            granted.complete(true);
+        } else if (r > 0) {
+            CompletableFuture.delayedExecutor(r, TimeUnit.NANOSECONDS).execute(() -> {
+                granted(b, now + r - start);
+                granted.complete(true);
+            });
+        } else if (-1 - r > maxWait) {
+            b.rejected.increment();
+            granted.complete(false);
+        } else {
+            CompletableFuture.delayedExecutor(-1 - r, TimeUnit.NANOSECONDS)
+                    .execute(() -> acquireAsync(b, priority, start, deadline, granted));
+        }
+    }
+
+    private static void granted(TokenBucket b, long waitedNanos) {
+        b.granted.increment();
+        if (waitedNanos > 0) {
+            b.delayed.increment();
+            b.waitedNanos.add(waitedNanos);
+        }
+    }
+
+    private static void sleep(long nanos) throws InterruptedException {
+        long end = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = end - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    private long now() {
+        return shared != null ? System.currentTimeMillis() * 1_000_000L : System.nanoTime();
+    }
+
+    private TokenBucket bucket(String appId) {
+        TokenBucket b = buckets.get(appId);
+        return b != null ? b : buckets.computeIfAbsent(appId, this::newBucket);
+    }
+
+    /**
+     * Sizes the bucket so that a full window holds at most {@code utilization * permits}
+     * calls: with burst {@code b}, any window of {@code period} admits
+     * {@code period / interval + b}, so the interval is {@code period / (target - b)}.
+     */
+    private TokenBucket newBucket(String appId) {
+        Limit limit = limits.getOrDefault(appId, defaultLimit);
+        if (limit == null) throw new IllegalArgumentException("no quota configured for appid " + appId);
+        int target = (int) Math.floor(limit.permits * utilization);
+        int b = burst > 0 ? burst : Math.max(2, target / 50);
+        b = Math.min(b, target / 2);
+        if (b < 1 || target - b < 1) throw new IllegalArgumentException("quota of " + limit.permits + " is too small");
+        long interval = limit.period.toNanos() / (target - b);
+        BucketState state = shared != null ? shared.state(appId) : BucketState.onHeap();
+        return new TokenBucket(state, interval, b);
+    }
+
+    public static class Builder {
+        private final Map<String, Limit> limits = new HashMap<>();
+        private Limit defaultLimit;
+        private double utilization = 0.99;
+        private int burst;
+        private Path coordinationFile;
+
+        /** Quota of {@code appId}: at most {@code permits} calls per {@code period}. */
+        public Builder limit(String appId, int permits, Duration period) {
+            limits.put(Objects.requireNonNull(appId), limit(permits, period));
+            return this;
+        }
+
+        /** Quota for appids without their own {@link #limit}; without one they are rejected. */
+        public Builder defaultLimit(int permits, Duration period) {
+            this.defaultLimit = limit(permits, period);
+            return this;
+        }
+
+        /** Fraction of each quota to use, leaving headroom for clock skew; default 0.99. */
+        public Builder utilization(double utilization) {
+            if (!(utilization > 0 && utilization <= 1)) throw new IllegalArgumentException("utilization must be in (0, 1]");
+            this.utilization = utilization;
+            return this;
+        }
+
+        /** Calls allowed back to back after an idle spell; defaults to 2% of the quota, at least 2. */
+        public Builder burst(int burst) {
+            if (burst < 1) throw new IllegalArgumentException("burst must be positive");
+            this.burst = burst;
+            return this;
+        }
+
+        /** Shares bucket state with other processes through this file, created if missing. */
+        public Builder coordinationFile(Path file) {
+            this.coordinationFile = file;
+            return this;
+        }
+
+        public QuotaManager build() {
+            try {
+                return new QuotaManager(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static Limit limit(int permits, Duration period) {
+            if (permits < 1) throw new IllegalArgumentException("permits must be positive");
+            if (period.isNegative() || period.isZero()) throw new IllegalArgumentException("period must be positive");
+            return new Limit(permits, period);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.quota;
+
+/**
+ * Counters for one appid's bucket in this JVM. {@code delayed} permits were granted after
+ * waiting, {@code waitedMillis} in total; {@code rejected} calls gave up at their timeout;
+ * {@code throttled} counts 429 / {@code Retry-After} signals fed back into the bucket.
+ */
+public record QuotaStats(long granted, long delayed, long waitedMillis, long rejected, long throttled) {
+}
@@ -0,0 +1,57 @@
+package org.example.quota;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket in its GCRA form: instead of a token count it keeps the theoretical arrival
+ * time ({@code tat}) of the next permit, advanced by one emission interval per permit. A call
+ * at {@code now} conforms while {@code tat - now <= tolerance}, where the tolerance is
+ * {@code burst - 1} intervals; taking a permit is one compare-and-set of {@code tat}. In any
+ * window of {@code interval * n} the bucket admits at most {@code n + burst} permits, which
+ * is what {@link QuotaManager} sizes the interval by.
+ */
+final class TokenBucket {
+    final long intervalNanos;
+    final long toleranceNanos;
+    private final BucketState state;
+
+    final LongAdder granted = new LongAdder();
+    final LongAdder delayed = new LongAdder();
+    final LongAdder waitedNanos = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder throttled = new LongAdder();
+
+    TokenBucket(BucketState state, long intervalNanos, int burst) {
+        this.state = state;
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+    }
+
+    /**
+     * Tries to take a permit at {@code now}. Returns the nanos to wait before using a booked
+     * permit ({@code >= 0}), or {@code -1 - n} when nothing was booked and the caller should
+     * ask again in {@code n} nanos. Only {@link Priority#INTERACTIVE} books ahead, and only up
+     * to {@code maxWaitNanos}.
+     */
+    long reserve(Priority priority, long now, long maxWaitNanos) {
+        long tolerance = priority == Priority.BULK ? toleranceNanos / 2 : toleranceNanos;
+        while (true) {
+            long tat = state.get(BucketState.TAT);
+            long earliest = Math.max(Math.max(tat - tolerance, now), state.get(BucketState.BLOCKED));
+            long wait = earliest - now;
+            if (wait > 0 && (priority != Priority.INTERACTIVE || wait > maxWaitNanos)) return -1 - wait;
+            if (state.compareAndSet(BucketState.TAT, tat, Math.max(tat, earliest) + intervalNanos)) return wait;
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Pauses every class until {@code until}, as asked by a {@code Retry-After}. */
+    void blockUntil(long until) {
+        throttled.increment();
+        state.max(BucketState.BLOCKED, until);
+    }
+
+    QuotaStats stats() {
+        return new QuotaStats(granted.sum(), delayed.sum(), waitedNanos.sum() / 1_000_000, rejected.sum(), throttled.sum());
+    }
+}
@@ -0,0 +1,379 @@
+package org.example.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Recorded HTTP responses in an append-only file, looked up by the hash of a normalized
+ * {@link RequestKey}.
+ * <p>
+ * The data file is a 16-byte header followed by length-prefixed, CRC-checked entries; a newer
+ * entry for a key supersedes older ones. Beside it, {@code <file>.idx} holds the hash and offset
+ * of the newest entry per key, sorted by hash. On open both files are memory-mapped and a
+ * lookup is a binary search over the index plus one read of the mapped entry, so replay never
+ * parses the whole cassette. Entries appended by this instance are found through a small
+ * in-memory overlay and folded into the index on {@link #close()}. A torn tail left by a crash
+ * fails its CRC and is cut off on the next open; an index that doesn't match the data is
+ * rebuilt by scanning it.
+ * <p>
+ * Lookups are lock-free and may run from any number of threads; appends are serialized.
+ */
+public final class Cassette implements AutoCloseable {
+    private static final int MAGIC = 0x53534143; // "CASS"
+    private static final int INDEX_MAGIC = 0x58444943; // "CIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int INDEX_HEADER = 32;
+    private static final int I_MAGIC = 0, I_VERSION = 4, I_DATA_LENGTH = 8, I_COUNT = 16;
+    private static final int INDEX_ENTRY = 16;
+    private static final int MAX_ENTRY = 64 << 20;
+
+    private final Path file;
+    private final Path indexFile;
+    private final CassetteMode mode;
+    private final long maxAgeMillis;
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final long mappedLength;
+    private final MappedByteBuffer index;
+    private final int indexCount;
+    private final ConcurrentHashMap<Long, Long> appended = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+    private volatile long size;
+
+    private Cassette(Builder b) throws IOException {
+        this.file = b.file;
+        this.indexFile = b.file.resolveSibling(b.file.getFileName() + ".idx");
+        this.mode = b.mode;
+        this.maxAgeMillis = b.maxAge == null ? Long.MAX_VALUE : b.maxAge.toMillis();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long length = channel.size();
+            if (length == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC).putInt(VERSION);
+                writeFully(header.clear(), 0);
+                length = HEADER;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+                if (length < HEADER || channel.read(header, 0) < HEADER || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("not a cassette: " + file);
+                }
+            }
+
+            MappedByteBuffer idx = mapIndex(length);
+            long covered = idx == null ? HEADER : idx.getLong(I_DATA_LENGTH);
+            Map<Long, Long> tail = new HashMap<>();
+            long end = scan(covered, length, tail);
+            if (end < length) channel.truncate(end);
+            if (idx == null || !tail.isEmpty()) {
+                writeIndex(idx, tail, end);
+                idx = mapIndex(end);
+                if (idx == null) throw new IOException("could not index cassette " + file);
+            }
+            this.index = idx;
+            this.indexCount = idx.getInt(I_COUNT);
+            this.size = end;
+            this.mappedLength = Math.min(end, Integer.MAX_VALUE);
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, mappedLength);
+            data.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static Builder builder(Path file) {
+        return new Builder(file);
+    }
+
+    public CassetteMode mode() {
+        return mode;
+    }
+
+    /**
+     * The recording to answer {@code key} with, or null if the caller should go to the server
+     * (and {@link #record} the answer). Fresh recordings are replayed in {@code REPLAY} and
+     * {@code REFRESH} mode, stale ones only in {@code REPLAY}.
+     *
+     * @throws IllegalStateException in {@code REPLAY} mode when nothing was recorded for the key
+     */
+    public Recording replay(String key) {
+        if (mode == CassetteMode.RECORD) {
+            misses.increment();
+            return null;
+        }
+        Recording r = find(key);
+        if (r == null && mode == CassetteMode.REPLAY) {
+            misses.increment();
+            throw new IllegalStateException("no recording for " + key.lines().findFirst().orElse(key) + " in " + file);
+        }
+        if (r == null || (mode == CassetteMode.REFRESH && System.currentTimeMillis() - r.recordedAt() > maxAgeMillis)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return r;
+    }
+
+    /** The newest recording for {@code key}, stale or not, or null. */
+    public Recording find(String key) {
+        long hash = RequestKey.hash(key);
+        Long offset = appended.get(hash);
+        long at = offset != null ? offset : lookup(hash);
+        if (at < 0) return null;
+        try {
+            Recording r = read(at);
+            return r.key().equals(key) ? r : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Appends a recording; it supersedes any earlier one for the same key. */
+    public void record(Recording r) {
+        ByteBuffer entry = encode(r);
+        long hash = RequestKey.hash(r.key());
+        writeLock.lock();
+        try {
+            long at = size;
+            writeFully(entry, at);
+            size = at + entry.limit();
+            appended.put(hash, at);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+        recorded.increment();
+    }
+
+    public CassetteStats stats() {
+        int entries = indexCount;
+        for (Long hash : appended.keySet()) if (lookup(hash) < 0) entries++;
+        return new CassetteStats(entries, hits.sum(), misses.sum(), recorded.sum(), size);
+    }
+
+    /** Forces new entries to disk and folds them into the index. */
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (!channel.isOpen()) return;
+            if (!appended.isEmpty()) {
+                channel.force(false);
+                writeIndex(index, appended, size);
+            }
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Binary search of the mapped index; the entry's offset, or -1. */
+    private long lookup(long hash) {
+        int lo = 0, hi = indexCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long h = index.getLong(INDEX_HEADER + mid * INDEX_ENTRY);
+            if (h < hash) lo = mid + 1;
+            else if (h > hash) hi = mid - 1;
+            else return index.getLong(INDEX_HEADER + mid * INDEX_ENTRY + 8);
+        }
+        return -1;
+    }
+
+    private Recording read(long at) throws IOException {
+        ByteBuffer e;
+        if (at + 4 <= mappedLength) {
+            int len = data.getInt((int) at);
+            e = data.slice((int) at + 4, len).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            ByteBuffer len = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(len, at);
+            e = ByteBuffer.allocate(len.getInt(0)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(e, at + 4);
+        }
+        return decode(e);
+    }
+
+    /**
+     * Validates the entries in {@code [from, to)}, adding each one's offset to {@code into};
+     * returns the end of the last intact entry.
+     */
+    private long scan(long from, long to, Map<Long, Long> into) throws IOException {
+        ByteBuffer len = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        long at = from;
+        while (at + 4 <= to) {
+            readFully(len.clear(), at);
+            int n = len.getInt(0);
+            if (n < 8 + 8 + 4 + 4 + 4 + 4 + 4 || n > MAX_ENTRY || at + 4 + n > to) break;
+            ByteBuffer e = ByteBuffer.allocate(n).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(e, at + 4);
+            CRC32C crc = new CRC32C();
+            crc.update(e.array(), 0, n - 4);
+            if ((int) crc.getValue() != e.getInt(n - 4)) break;
+            into.put(e.getLong(0), at);
+            at += 4 + n;
+        }
+        return at;
+    }
+
+    /**
+     * Writes the index of the newest entry per hash, merging the current mapped index (if any)
+     * with {@code newer}, to a temporary file that then replaces {@code <file>.idx}.
+     */
+    private void writeIndex(MappedByteBuffer current, Map<Long, Long> newer, long dataLength) throws IOException {
+        Map<Long, Long> all = new HashMap<>();
+        if (current != null) {
+            int count = current.getInt(I_COUNT);
+            for (int i = 0; i < count; i++) {
+                int at = INDEX_HEADER + i * INDEX_ENTRY;
+                all.put(current.getLong(at), current.getLong(at + 8));
+            }
+        }
+        all.putAll(newer);
+        long[] hashes = all.keySet().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(hashes);
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER + hashes.length * INDEX_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(I_MAGIC, INDEX_MAGIC).putInt(I_VERSION, VERSION).putLong(I_DATA_LENGTH, dataLength).putInt(I_COUNT, hashes.length);
+        out.position(INDEX_HEADER);
+        for (long h : hashes) out.putLong(h).putLong(all.get(h));
+        out.flip();
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) ch.write(out);
+            ch.force(true);
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Maps {@code <file>.idx} if it is a valid index of at most {@code dataLength} bytes of data, else null. */
+    private MappedByteBuffer mapIndex(long dataLength) throws IOException {
+        if (!Files.exists(indexFile)) return null;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long length = ch.size();
+            if (length < INDEX_HEADER) return null;
+            MappedByteBuffer idx = ch.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            idx.order(ByteOrder.LITTLE_ENDIAN);
+            boolean valid = idx.getInt(I_MAGIC) == INDEX_MAGIC && idx.getInt(I_VERSION) == VERSION
+                    && idx.getLong(I_DATA_LENGTH) >= HEADER && idx.getLong(I_DATA_LENGTH) <= dataLength
+                    && length == INDEX_HEADER + (long) idx.getInt(I_COUNT) * INDEX_ENTRY;
+            return valid ? idx : null;
+        }
+    }
+
+    /*
+     * Entry layout, little-endian: int length of what follows, long key hash, long recordedAt,
+     * int status, key, int header count, (name, value) per header, body, int CRC32C of
+     * everything after the length field up to the CRC. Strings and the body are int-length
+     * prefixed.
+     */
+    private static ByteBuffer encode(Recording r) {
+        byte[] key = r.key().getBytes(StandardCharsets.UTF_8);
+        byte[][] headers = new byte[r.headers().size() * 2][];
+        int n = 8 + 8 + 4 + 4 + key.length + 4 + 4 + r.body().length + 4, i = 0;
+        for (Map.Entry<String, String> h : r.headers().entrySet()) {
+            headers[i] = h.getKey().getBytes(StandardCharsets.UTF_8);
+            headers[i + 1] = h.getValue().getBytes(StandardCharsets.UTF_8);
+            n += 8 + headers[i].length + headers[i + 1].length;
+            i += 2;
+        }
+        if (n > MAX_ENTRY) throw new IllegalArgumentException("recording too large: " + n + " bytes");
+        ByteBuffer b = ByteBuffer.allocate(4 + n).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(n).putLong(RequestKey.hash(r.key())).putLong(r.recordedAt()).putInt(r.status());
+        b.putInt(key.length).put(key).putInt(r.headers().size());
+        for (byte[] s : headers) b.putInt(s.length).put(s);
+        b.putInt(r.body().length).put(r.body());
+        CRC32C crc = new CRC32C();
+        crc.update(b.array(), 4, n - 4);
+        b.putInt((int) crc.getValue());
+        return b.flip();
+    }
+
+    private static Recording decode(ByteBuffer e) {
+        e.position(8);
+        long recordedAt = e.getLong();
+        int status = e.getInt();
+        String key = string(e);
+        int headerCount = e.getInt();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) headers.put(string(e), string(e));
+        byte[] body = new byte[e.getInt()];
+        e.get(body);
+        return new Recording(key, status, headers, body, recordedAt);
+    }
+
+    private static String string(ByteBuffer e) {
+        int len = e.getInt();
+        String s;
+        if (e.hasArray()) {
+            s = new String(e.array(), e.arrayOffset() + e.position(), len, StandardCharsets.UTF_8);
+        } else {
+            byte[] b = new byte[len];
+            e.get(e.position(), b);
+            s = new String(b, StandardCharsets.UTF_8);
+        }
+        e.position(e.position() + len);
+        return s;
+    }
+
+    private void readFully(ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) {
+            int n = channel.read(b, at + b.position());
+            if (n < 0) throw new IOException("unexpected end of cassette " + file);
+        }
+        b.flip();
+    }
+
+    private void writeFully(ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) channel.write(b, at + b.position());
+    }
+
+    public static class Builder {
+        private final Path file;
+        private CassetteMode mode = CassetteMode.REFRESH;
+        private Duration maxAge;
+
+        private Builder(Path file) {
+            this.file = file;
+        }
+
+        public Builder mode(CassetteMode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        /** Age after which a recording is stale and re-recorded in {@code REFRESH} mode; unlimited by default. */
+        public Builder maxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        public Cassette build() throws IOException {
+            return new Cassette(this);
+        }
+    }
+}
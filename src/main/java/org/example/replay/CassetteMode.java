@@ -0,0 +1,11 @@
+package org.example.replay;
+
+/** How a {@link Cassette} answers requests. */
+public enum CassetteMode {
+    /** Always go to the server and record the answer, replacing any earlier recording. */
+    RECORD,
+    /** Only replay; a request without a recording is an error. */
+    REPLAY,
+    /** Replay fresh recordings; go to the server for missing or stale ones and record those. */
+    REFRESH
+}
@@ -0,0 +1,5 @@
+package org.example.replay;
+
+/** State of a {@link Cassette}: distinct recordings, and replays, misses and recordings made since it was opened. */
+public record CassetteStats(int entries, long hits, long misses, long recorded, long bytes) {
+}
@@ -0,0 +1,7 @@
+package org.example.replay;
+
+import java.util.Map;
+
+/** One recorded response, filed under its normalized {@link RequestKey request key}. */
+public record Recording(String key, int status, Map<String, String> headers, byte[] body, long recordedAt) {
+}
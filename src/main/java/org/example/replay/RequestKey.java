@@ -0,0 +1,149 @@
+package org.example.replay;
+
+import org.example.json.JsonException;
+import org.example.json.JsonReader;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Normalizes a request into the text a {@link Cassette} files it under, so that requests
+ * differing only in secrets or generated test data share one recording.
+ * <p>
+ * The key is the method, the path, the query parameters in name order and, for a JSON object
+ * body, its fields in name order. A {@linkplain Builder#secret secret} parameter is never
+ * written out: it becomes {@code <secret>} when it carries the configured value and
+ * {@code <other>} when it carries any other, so a wrong key still gets its own recording.
+ * {@linkplain Builder#mask Masked} fields keep only their type (plus emptiness, and the length
+ * of strings over {@value #MASKED_STRING_MAX} characters), and
+ * {@linkplain Builder#maskWithin range-masked} numbers are masked only strictly inside the
+ * range, so an out-of-range or boundary value a negative test sends on purpose stays part of
+ * the key. Bodies that are not JSON objects are keyed verbatim.
+ */
+public final class RequestKey {
+    static final int MASKED_STRING_MAX = 64;
+
+    private final Map<String, String> secrets;
+    private final Map<String, double[]> masks;
+
+    private RequestKey(Builder b) {
+        this.secrets = Map.copyOf(b.secrets);
+        this.masks = Map.copyOf(b.masks);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** The normalized text of a request: one line for the method and target, the body below it. */
+    public String of(String method, URI uri, byte[] body) {
+        StringBuilder sb = new StringBuilder(64 + (body == null ? 0 : body.length));
+        sb.append(method).append(' ').append(uri.getRawPath());
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) appendQuery(sb, query);
+        if (body != null && body.length > 0) {
+            sb.append('\n');
+            if (!appendObject(sb, body)) sb.append(new String(body, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /** 64-bit FNV-1a of the key's UTF-8 bytes. */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private void appendQuery(StringBuilder sb, String query) {
+        List<String> params = new ArrayList<>();
+        for (String p : query.split("&")) {
+            if (p.isEmpty()) continue;
+            int eq = p.indexOf('=');
+            String name = eq < 0 ? p : p.substring(0, eq);
+            String secret = secrets.get(name);
+            if (secret != null) p = name + (secret.equals(eq < 0 ? "" : p.substring(eq + 1)) ? "=<secret>" : "=<other>");
+            params.add(p);
+        }
+        params.sort(null);
+        sb.append('?').append(String.join("&", params));
+    }
+
+    /** Appends a flat JSON object with sorted fields and masked values; false if the body isn't one. */
+    private boolean appendObject(StringBuilder sb, byte[] body) {
+        TreeMap<String, String> fields = new TreeMap<>();
+        try {
+            JsonReader r = new JsonReader(body);
+            r.beginObject();
+            while (r.hasNextField()) {
+                String name = r.fieldName();
+                r.peekNull();
+                int start = r.position();
+                r.skipValue();
+                String raw = new String(body, start, r.position() - start, StandardCharsets.UTF_8);
+                fields.put(name, mask(masks.get(name), raw));
+            }
+            r.endDocument();
+        } catch (JsonException e) {
+            return false;
+        }
+        sb.append('{');
+        fields.forEach((name, value) -> sb.append('"').append(name).append("\":").append(value).append(','));
+        if (!fields.isEmpty()) sb.setLength(sb.length() - 1);
+        sb.append('}');
+        return true;
+    }
+
+    private static String mask(double[] range, String raw) {
+        if (range == null) return raw;
+        char c = raw.charAt(0);
+        if (c == '"') {
+            if (range.length != 0 || raw.length() == 2) return raw;
+            return raw.length() - 2 > MASKED_STRING_MAX ? "\"*:" + (raw.length() - 2) + '"' : "\"*\"";
+        }
+        if (c != '-' && (c < '0' || c > '9')) return raw;
+        if (range.length == 0) return "#";
+        try {
+            double v = Double.parseDouble(raw);
+            return v > range[0] && v < range[1] ? "#" : raw;
+        } catch (NumberFormatException e) {
+            return raw;
+        }
+    }
+
+    public static class Builder {
+        private final Map<String, String> secrets = new HashMap<>();
+        private final Map<String, double[]> masks = new HashMap<>();
+
+        /** Query parameter whose value must never reach the cassette, e.g. {@code appid}. */
+        public Builder secret(String param, String value) {
+            secrets.put(param, value == null ? "" : value);
+            return this;
+        }
+
+        /** Body fields holding generated data: any string or number in them is masked. */
+        public Builder mask(String... fields) {
+            for (String f : fields) masks.put(f, new double[0]);
+            return this;
+        }
+
+        /** Numeric body field masked only when its value lies strictly between {@code min} and {@code max}. */
+        public Builder maskWithin(String field, double min, double max) {
+            if (!(min < max)) throw new IllegalArgumentException("min must be below max");
+            masks.put(field, new double[]{min, max});
+            return this;
+        }
+
+        public RequestKey build() {
+            return new RequestKey(this);
+        }
+    }
+}
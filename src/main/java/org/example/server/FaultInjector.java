@@ -0,0 +1,115 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Applies the current {@link FaultProfile} to each exchange of a {@link StationsServer}. */
+final class FaultInjector {
+    private static final String SLOW_BODY = FaultInjector.class.getName() + ".slowBody";
+    private static final byte[] FORBIDDEN_HTML = ("<html><head><title>Request Rejected</title></head>"
+            + "<body>Request forbidden by administrative rules.</body></html>").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] THROTTLED = ("{\"cod\":429,\"message\":\"Your account is temporary blocked due to "
+            + "exceeding of requests limitation of your subscription type.\"}").getBytes(StandardCharsets.UTF_8);
+
+    private volatile FaultProfile profile = FaultProfile.NONE;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder forbiddenHtml = new LongAdder();
+    private final LongAdder slowBodies = new LongAdder();
+
+    void profile(FaultProfile profile) {
+        this.profile = profile;
+        sequence.set(0);
+    }
+
+    FaultStats stats() {
+        return new FaultStats(requests.sum(), delayed.sum(), resets.sum(), serverErrors.sum(), throttled.sum(),
+                forbiddenHtml.sum(), slowBodies.sum());
+    }
+
+    /**
+     * Delays the exchange and, if a fault is drawn, answers it (or drops the connection by
+     * throwing, which makes the JDK server close the socket unanswered). Returns true when the
+     * exchange was handled here.
+     */
+    boolean apply(HttpExchange ex) throws IOException {
+        FaultProfile p = profile;
+        if (p.isNone()) return false;
+        requests.increment();
+        FaultProfile.Fault f = p.next(sequence.getAndIncrement());
+        if (f.delayNanos() > 0) {
+            delayed.increment();
+            sleep(f.delayNanos());
+        }
+        switch (f.action()) {
+            case RESET -> {
+                resets.increment();
+                throw new IOException("injected connection reset");
+            }
+            case SERVER_ERROR -> {
+                serverErrors.increment();
+                byte[] body = ("{\"cod\":" + f.status() + ",\"message\":\"Internal error\"}").getBytes(StandardCharsets.UTF_8);
+                respond(ex, f.status(), "application/json; charset=utf-8", body);
+                return true;
+            }
+            case THROTTLE -> {
+                throttled.increment();
+                ex.getResponseHeaders().set("Retry-After", Long.toString(Math.max(1, (p.retryAfter.toMillis() + 999) / 1000)));
+                respond(ex, 429, "application/json; charset=utf-8", THROTTLED);
+                return true;
+            }
+            case FORBIDDEN_HTML -> {
+                forbiddenHtml.increment();
+                respond(ex, 200, "text/html", FORBIDDEN_HTML);
+                return true;
+            }
+            case NONE -> {
+                if (f.slowBody()) {
+                    slowBodies.increment();
+                    ex.setAttribute(SLOW_BODY, p);
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** Writes a response body, trickling it out if the exchange drew a slow body. */
+    static void write(HttpExchange ex, OutputStream os, byte[] body, int off, int len) throws IOException {
+        if (!(ex.getAttribute(SLOW_BODY) instanceof FaultProfile p)) {
+            os.write(body, off, len);
+            return;
+        }
+        for (int i = 0; i < len; i += p.chunkBytes) {
+            os.write(body, off + i, Math.min(p.chunkBytes, len - i));
+            os.flush();
+            if (i + p.chunkBytes < len) sleep(p.chunkDelayNanos);
+        }
+    }
+
+    private static void respond(HttpExchange ex, int status, String contentType, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void sleep(long nanos) throws IOException {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while injecting latency", e);
+        }
+    }
+}
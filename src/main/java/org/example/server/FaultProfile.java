@@ -0,0 +1,187 @@
+package org.example.server;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * What a {@link StationsServer} does wrong, and how often: added latency, 5xx and 429
+ * responses, dropped connections, the upstream proxy's 200 + HTML "Request forbidden" page,
+ * and bodies trickled out in small delayed chunks.
+ * <p>
+ * Every request draws from its own generator derived from the seed and the request's sequence
+ * number, so a run with the same seed and request order sees the same faults. Profiles are
+ * immutable; swap them on a running server with {@link StationsServer#injectFaults}.
+ */
+public final class FaultProfile {
+    public static final FaultProfile NONE = builder().build();
+
+    enum Action { NONE, RESET, SERVER_ERROR, THROTTLE, FORBIDDEN_HTML }
+
+    /** The fault drawn for one request. */
+    record Fault(long delayNanos, Action action, int status, boolean slowBody) {
+    }
+
+    private static final int[] SERVER_ERRORS = {500, 502, 503};
+
+    final long seed;
+    final Latency latency;
+    final double resetRate, serverErrorRate, throttleRate, forbiddenHtmlRate, slowBodyRate;
+    final Duration retryAfter;
+    final int chunkBytes;
+    final long chunkDelayNanos;
+
+    private FaultProfile(Builder b) {
+        this.seed = b.seed;
+        this.latency = b.latency;
+        this.resetRate = b.resetRate;
+        this.serverErrorRate = b.serverErrorRate;
+        this.throttleRate = b.throttleRate;
+        this.forbiddenHtmlRate = b.forbiddenHtmlRate;
+        this.slowBodyRate = b.slowBodyRate;
+        this.retryAfter = b.retryAfter;
+        this.chunkBytes = b.chunkBytes;
+        this.chunkDelayNanos = b.chunkDelay.toNanos();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    boolean isNone() {
+        return latency == Latency.NONE && resetRate + serverErrorRate + throttleRate + forbiddenHtmlRate + slowBodyRate == 0;
+    }
+
+    Fault next(long sequence) {
+        SplittableRandom rnd = new SplittableRandom(seed ^ (sequence * 0x9E3779B97F4A7C15L));
+        long delay = latency.sampleNanos(rnd);
+        double u = rnd.nextDouble();
+        Action action = Action.NONE;
+        int status = 0;
+        if ((u -= resetRate) < 0) {
+            action = Action.RESET;
+        } else if ((u -= serverErrorRate) < 0) {
+            action = Action.SERVER_ERROR;
+            status = SERVER_ERRORS[rnd.nextInt(SERVER_ERRORS.length)];
+        } else if ((u -= throttleRate) < 0) {
+            action = Action.THROTTLE;
+            status = 429;
+        } else if ((u - forbiddenHtmlRate) < 0) {
+            action = Action.FORBIDDEN_HTML;
+            status = 200;
+        }
+        boolean slow = action == Action.NONE && rnd.nextDouble() < slowBodyRate;
+        return new Fault(delay, action, status, slow);
+    }
+
+    /**
+     * Parses a comma-separated spec such as
+     * {@code latency=lognormal:20ms:0.5,5xx=0.01,429=0.02,reset=0.005,html=0.01,slow=0.05,seed=7}.
+     * Latency is {@code fixed:D}, {@code lognormal:MEDIAN:SIGMA} or
+     * {@code bimodal:FAST:SLOW:SLOW_FRACTION} (each mode log-normal with sigma 0.25); durations
+     * take {@code ms} or {@code s}.
+     */
+    public static FaultProfile parse(String spec) {
+        Builder b = builder();
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("expected key=value: " + part);
+            String key = part.substring(0, eq).trim(), value = part.substring(eq + 1).trim();
+            switch (key) {
+                case "seed" -> b.seed(Long.parseLong(value));
+                case "latency" -> b.latency(parseLatency(value));
+                case "5xx" -> b.serverErrors(Double.parseDouble(value));
+                case "429" -> b.throttle(Double.parseDouble(value), b.retryAfter);
+                case "retry-after" -> b.throttle(b.throttleRate, parseDuration(value));
+                case "reset" -> b.resets(Double.parseDouble(value));
+                case "html" -> b.forbiddenHtml(Double.parseDouble(value));
+                case "slow" -> b.slowBody(Double.parseDouble(value), b.chunkBytes, b.chunkDelay);
+                default -> throw new IllegalArgumentException("unknown fault: " + key);
+            }
+        }
+        return b.build();
+    }
+
+    private static Latency parseLatency(String value) {
+        String[] p = value.split(":");
+        return switch (p[0]) {
+            case "fixed" -> Latency.fixed(parseDuration(p[1]));
+            case "lognormal" -> Latency.lognormal(parseDuration(p[1]), Double.parseDouble(p[2]));
+            case "bimodal" -> Latency.bimodal(Latency.lognormal(parseDuration(p[1]), 0.25),
+                    Latency.lognormal(parseDuration(p[2]), 0.25), Double.parseDouble(p[3]));
+            default -> throw new IllegalArgumentException("unknown latency model: " + p[0]);
+        };
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        if (value.endsWith("s")) return Duration.ofMillis((long) (Double.parseDouble(value.substring(0, value.length() - 1)) * 1000));
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+
+    public static class Builder {
+        private long seed = 1;
+        private Latency latency = Latency.NONE;
+        private double resetRate, serverErrorRate, throttleRate, forbiddenHtmlRate, slowBodyRate;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private int chunkBytes = 256;
+        private Duration chunkDelay = Duration.ofMillis(20);
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /** Delay added before every response, faulty or not. */
+        public Builder latency(Latency latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /** Fraction of requests whose connection is closed without a response. */
+        public Builder resets(double rate) {
+            this.resetRate = rate(rate);
+            return this;
+        }
+
+        /** Fraction of requests answered with 500, 502 or 503. */
+        public Builder serverErrors(double rate) {
+            this.serverErrorRate = rate(rate);
+            return this;
+        }
+
+        /** Fraction of requests answered with 429 and a {@code Retry-After} of {@code retryAfter}. */
+        public Builder throttle(double rate, Duration retryAfter) {
+            this.throttleRate = rate(rate);
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /** Fraction of requests answered with 200 and the proxy's HTML "Request forbidden" page. */
+        public Builder forbiddenHtml(double rate) {
+            this.forbiddenHtmlRate = rate(rate);
+            return this;
+        }
+
+        /** Fraction of successful responses whose body is written {@code chunkBytes} at a time, {@code chunkDelay} apart. */
+        public Builder slowBody(double rate, int chunkBytes, Duration chunkDelay) {
+            if (chunkBytes < 1) throw new IllegalArgumentException("chunkBytes must be positive");
+            this.slowBodyRate = rate(rate);
+            this.chunkBytes = chunkBytes;
+            this.chunkDelay = chunkDelay;
+            return this;
+        }
+
+        public FaultProfile build() {
+            if (resetRate + serverErrorRate + throttleRate + forbiddenHtmlRate > 1) {
+                throw new IllegalArgumentException("fault rates add up to more than 1");
+            }
+            return new FaultProfile(this);
+        }
+
+        private static double rate(double rate) {
+            if (!(rate >= 0 && rate <= 1)) throw new IllegalArgumentException("rate must be in [0, 1]: " + rate);
+            return rate;
+        }
+    }
+}
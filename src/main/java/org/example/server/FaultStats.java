@@ -0,0 +1,6 @@
+package org.example.server;
+
+/** Requests seen by the fault injector of a {@link StationsServer} and what was done to them. */
+public record FaultStats(long requests, long delayed, long resets, long serverErrors, long throttled,
+                         long forbiddenHtml, long slowBodies) {
+}
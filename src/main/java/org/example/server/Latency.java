@@ -0,0 +1,28 @@
+package org.example.server;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/** A distribution of added response delay, sampled once per request. */
+@FunctionalInterface
+public interface Latency {
+    Latency NONE = rnd -> 0;
+
+    long sampleNanos(RandomGenerator rnd);
+
+    static Latency fixed(Duration delay) {
+        long nanos = delay.toNanos();
+        return rnd -> nanos;
+    }
+
+    /** Log-normal around {@code median}; {@code sigma} of 0.5 gives a p99 about 3.2x the median. */
+    static Latency lognormal(Duration median, double sigma) {
+        double mu = Math.log(median.toNanos());
+        return rnd -> (long) Math.exp(mu + sigma * rnd.nextGaussian());
+    }
+
+    /** Mostly {@code fast}, but {@code slowFraction} of requests draw from {@code slow}, e.g. GC pauses or cold caches. */
+    static Latency bimodal(Latency fast, Latency slow, double slowFraction) {
+        return rnd -> rnd.nextDouble() < slowFraction ? slow.sampleNanos(rnd) : fast.sampleNanos(rnd);
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.server;
+
+import org.example.client.Measurement;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Concurrent in-memory log of posted measurements, grouped by station id. */
+public class MeasurementStore {
+    private final ConcurrentHashMap<String, ConcurrentLinkedQueue<Measurement>> byStation = new ConcurrentHashMap<>();
+    private final LongAdder count = new LongAdder();
+
+    public void add(Measurement m) {
+        byStation.computeIfAbsent(m.stationId(), k -> new ConcurrentLinkedQueue<>()).add(m);
+        count.increment();
+    }
+
+    /** Readings for one station in arrival order. */
+    public List<Measurement> forStation(String stationId) {
+        ConcurrentLinkedQueue<Measurement> q = byStation.get(stationId);
+        return q == null ? List.of() : List.copyOf(q);
+    }
+
+    public long size() {
+        return count.sum();
+    }
+}
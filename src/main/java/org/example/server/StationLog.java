@@ -0,0 +1,725 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log and snapshots behind a durable {@link StationStore}.
+ * <p>
+ * The directory holds WAL segments {@code wal-<start lsn>.log} (a 16-byte little-endian header,
+ * then records of {@code int length, int CRC32C, body}; a record's LSN is the segment's start
+ * plus its position) and at most one committed snapshot {@code snapshot-<lsn>.snap} (a header,
+ * CRC-checked chunks of encoded stations and a table of the chunks). A body is an op byte
+ * followed by the whole station for a put, or its id for a delete, so replaying a record
+ * twice is harmless.
+ * <p>
+ * Writes use group commit: a writer appends its record to a shared buffer and applies its
+ * change to the map under one lock, which keeps log order and map order the same, then waits
+ * until the log is durable past its record. Whichever waiting writer finds no flush in progress
+ * writes everything buffered so far and forces it once for the whole batch.
+ * <p>
+ * A snapshot rolls the log to a new segment and then iterates the live map without holding
+ * the lock. The copy is fuzzy, but every change made after the roll is in the new segment and
+ * replaying it over the snapshot restores the exact state. The snapshot is written to a
+ * temporary file, forced and renamed; only then are older snapshots and segments deleted.
+ * <p>
+ * Recovery loads the snapshot's chunks in parallel, validates the segments after it in one
+ * sequential CRC pass (a torn record at the end of the last segment is cut off), then
+ * replays them in parallel with the records partitioned by station id, so each id still sees
+ * its changes in log order.
+ */
+final class StationLog implements AutoCloseable {
+    private static final int WAL_MAGIC = 0x4C415753; // "SWAL"
+    private static final int SNAPSHOT_MAGIC = 0x504E5353; // "SSNP"
+    private static final int VERSION = 1;
+    private static final int WAL_HEADER = 16;
+    private static final int SNAPSHOT_HEADER = 48;
+    private static final int S_MAGIC = 0, S_VERSION = 4, S_LSN = 8, S_COUNT = 16, S_CHUNKS = 24, S_TABLE = 32;
+    private static final int TABLE_ENTRY = 24;
+    private static final int CHUNK_RECORDS = 1 << 16;
+    private static final int MAX_RECORD = 16 << 20;
+    private static final long SEGMENT_BYTES = 1L << 30;
+    private static final byte PUT = 1, DELETE = 2;
+    private static final byte HEX_ID = 0, TEXT_ID = 1;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path dir;
+    private final boolean fsync;
+    private final long snapshotIntervalNanos;
+    private final long snapshotBytes;
+    private final boolean snapshotOnClose;
+    private final int parallelism;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    private long nextLsn;
+    private long durableLsn;
+    private boolean flushing;
+    private IOException failure;
+    private boolean closed;
+
+    // owned by whoever holds the flushing flag (or the lock while nobody does)
+    private FileChannel segment;
+    private long segmentBytes;
+
+    private volatile long walBytesSinceSnapshot;
+    private volatile long snapshotLsn = -1;
+    private volatile boolean running;
+    private Thread snapshotter;
+    private Map<String, StationRecord> live;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder walBytes = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder snapshotErrors = new LongAdder();
+
+    private Path snapshotFile;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private Recovery recovery;
+
+    /** What {@link #recover} found. */
+    record Recovery(long fromSnapshot, long fromWal, long maxSequence, Duration elapsed) {
+    }
+
+    StationLog(Path dir, boolean fsync, Duration snapshotInterval, long snapshotBytes, boolean snapshotOnClose,
+               int parallelism) throws IOException {
+        this.dir = dir;
+        this.fsync = fsync;
+        this.snapshotIntervalNanos = snapshotInterval.toNanos();
+        this.snapshotBytes = snapshotBytes;
+        this.snapshotOnClose = snapshotOnClose;
+        this.parallelism = parallelism;
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : files.toList()) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(p);
+                } else if (name.startsWith("wal-") && name.endsWith(".log")) {
+                    segments.put(Long.parseUnsignedLong(name.substring(4, name.length() - 4), 16), p);
+                } else if (name.startsWith("snapshot-") && name.endsWith(".snap")) {
+                    long lsn = Long.parseUnsignedLong(name.substring(9, name.length() - 5), 16);
+                    if (lsn > snapshotLsn) {
+                        snapshotFile = p;
+                        snapshotLsn = lsn;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Stations in the snapshot, for sizing the map before {@link #recover}. */
+    long snapshotCount() throws IOException {
+        if (snapshotFile == null) return 0;
+        try (FileChannel ch = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            return readSnapshotHeader(ch).getLong(S_COUNT);
+        }
+    }
+
+    // ---- recovery ----
+
+    /** Loads the snapshot and replays the log after it into {@code into}. */
+    Recovery recover(ConcurrentHashMap<String, StationRecord> into) throws IOException {
+        long start = System.nanoTime();
+        LongAccumulator maxSeq = new LongAccumulator(Math::max, 0);
+        long fromSnapshot = snapshotFile == null ? 0 : loadSnapshot(into, maxSeq);
+        long from = Math.max(snapshotLsn, 0);
+
+        List<WalSegment> wal = new ArrayList<>();
+        long expected = -1;
+        List<Map.Entry<Long, Path>> all = new ArrayList<>(segments.entrySet());
+        for (int i = 0; i < all.size(); i++) {
+            boolean last = i == all.size() - 1;
+            if (!last && all.get(i + 1).getKey() <= from) continue;
+            WalSegment s = WalSegment.validate(all.get(i).getValue(), all.get(i).getKey(), last);
+            if (expected >= 0 && s.start != expected) throw new IOException("missing WAL before " + s.file);
+            expected = s.start + s.count;
+            wal.add(s);
+        }
+        if (!wal.isEmpty() && wal.get(0).start > from) throw new IOException("WAL starts after the snapshot at " + from);
+        nextLsn = wal.isEmpty() ? from : expected;
+        durableLsn = nextLsn;
+
+        LongAdder fromWal = new LongAdder();
+        long replayBytes = 0;
+        for (WalSegment s : wal) replayBytes += s.validBytes;
+        int partitions = Math.max(1, parallelism);
+        try {
+            ForkJoinPool pool = new ForkJoinPool(partitions);
+            try {
+                pool.submit(() -> IntStream.range(0, partitions).parallel()
+                        .forEach(p -> replay(wal, from, p, partitions, into, maxSeq, fromWal))).join();
+            } finally {
+                pool.shutdown();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        walBytesSinceSnapshot = replayBytes;
+        recovery = new Recovery(fromSnapshot, fromWal.sum(), maxSeq.get(), Duration.ofNanos(System.nanoTime() - start));
+        return recovery;
+    }
+
+    private long loadSnapshot(ConcurrentHashMap<String, StationRecord> into, LongAccumulator maxSeq) throws IOException {
+        try (FileChannel ch = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            ByteBuffer header = readSnapshotHeader(ch);
+            int chunks = header.getInt(S_CHUNKS);
+            ByteBuffer table = ByteBuffer.allocate(chunks * TABLE_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(ch, table, header.getLong(S_TABLE));
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+                    long offset = table.getLong(c * TABLE_ENTRY);
+                    int length = table.getInt(c * TABLE_ENTRY + 8);
+                    int records = table.getInt(c * TABLE_ENTRY + 12);
+                    int crc = table.getInt(c * TABLE_ENTRY + 16);
+                    try {
+                        MappedByteBuffer chunk = ch.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                        chunk.order(ByteOrder.LITTLE_ENDIAN);
+                        if (crc(chunk, 0, length) != crc) throw new IOException("snapshot chunk " + c + " is corrupt: " + snapshotFile);
+                        long seq = 0;
+                        for (int i = 0; i < records; i++) {
+                            StationRecord r = getStation(chunk);
+                            into.put(r.id(), r);
+                            seq = Math.max(seq, sequenceOf(r.id()));
+                        }
+                        maxSeq.accumulate(seq);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })).join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+            return header.getLong(S_COUNT);
+        }
+    }
+
+    private ByteBuffer readSnapshotHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        if (ch.size() < SNAPSHOT_HEADER) throw new IOException("not a snapshot: " + snapshotFile);
+        readFully(ch, header, 0);
+        if (header.getInt(S_MAGIC) != SNAPSHOT_MAGIC || header.getInt(S_VERSION) != VERSION) {
+            throw new IOException("not a snapshot: " + snapshotFile);
+        }
+        return header;
+    }
+
+    /** Applies the records of partition {@code p} from LSN {@code from} on, in log order. */
+    private static void replay(List<WalSegment> wal, long from, int p, int partitions,
+                               ConcurrentHashMap<String, StationRecord> into, LongAccumulator maxSeq, LongAdder applied) {
+        long seq = 0, n = 0;
+        for (WalSegment s : wal) {
+            ByteBuffer b = s.data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = (int) Math.max(0, from - s.start); i < s.count; i++) {
+                int body = s.offsets[i] + 8;
+                if (partitions > 1 && Math.floorMod(idHash(b, body + 1), partitions) != p) continue;
+                b.position(body);
+                byte op = b.get();
+                if (op == PUT) {
+                    StationRecord r = getStation(b);
+                    into.put(r.id(), r);
+                    seq = Math.max(seq, sequenceOf(r.id()));
+                } else {
+                    String id = getId(b);
+                    into.remove(id);
+                    seq = Math.max(seq, sequenceOf(id));
+                }
+                n++;
+            }
+        }
+        maxSeq.accumulate(seq);
+        applied.add(n);
+    }
+
+    /** A validated WAL segment: its mapping and the offset of every intact record. */
+    private record WalSegment(Path file, long start, MappedByteBuffer data, int[] offsets, int count, long validBytes) {
+
+        static WalSegment validate(Path file, long start, boolean last) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = ch.size();
+                if (size < WAL_HEADER) {
+                    if (!last) throw new IOException("truncated WAL segment " + file);
+                    writeWalHeader(ch, start);
+                    return new WalSegment(file, start, ch.map(FileChannel.MapMode.READ_ONLY, 0, WAL_HEADER), new int[0], 0, 0);
+                }
+                MappedByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                data.order(ByteOrder.LITTLE_ENDIAN);
+                if (data.getInt(0) != WAL_MAGIC || data.getInt(4) != VERSION || data.getLong(8) != start) {
+                    throw new IOException("not a WAL segment: " + file);
+                }
+                int[] offsets = new int[1024];
+                int count = 0;
+                long pos = WAL_HEADER;
+                while (pos + 8 <= size) {
+                    int len = data.getInt((int) pos);
+                    if (len <= 0 || len > MAX_RECORD || pos + 8 + len > size) break;
+                    if (crc(data, (int) pos + 8, len) != data.getInt((int) pos + 4)) break;
+                    if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+                    offsets[count++] = (int) pos;
+                    pos += 8 + len;
+                }
+                if (pos < size) {
+                    if (!last) throw new IOException("corrupt WAL record at " + pos + " in " + file);
+                    ch.truncate(pos);
+                }
+                return new WalSegment(file, start, data, offsets, count, pos - WAL_HEADER);
+            }
+        }
+    }
+
+    // ---- writing ----
+
+    /** Opens a fresh segment and starts the snapshot thread; call once after {@link #recover}. */
+    void start(Map<String, StationRecord> live) throws IOException {
+        this.live = live;
+        openSegment(nextLsn);
+        running = true;
+        snapshotter = Thread.ofVirtual().name("station-snapshotter").start(this::snapshotLoop);
+    }
+
+    /**
+     * Runs {@code apply} under the log lock and, if it reports a change, logs {@code body} and
+     * waits until it is durable. Returns what {@code apply} returned.
+     */
+    boolean commit(byte[] body, BooleanSupplier apply) {
+        int crc = crc(ByteBuffer.wrap(body), 0, body.length);
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("store is closed");
+            if (failure != null) throw new UncheckedIOException("store is read-only after a write failure", failure);
+            if (!apply.getAsBoolean()) return false;
+            if (pending.remaining() < 8 + body.length) pending = grow(pending, 8 + body.length);
+            pending.putInt(body.length).putInt(crc).put(body);
+            long lsn = nextLsn++;
+            appends.increment();
+            while (durableLsn <= lsn) {
+                if (failure != null) throw new UncheckedIOException("write-ahead log failed", failure);
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                } else {
+                    flush();
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called with the lock held: writes and forces the buffered batch with the lock released. */
+    private void flush() {
+        flushing = true;
+        ByteBuffer batch = pending.flip();
+        pending = spare.clear();
+        long upto = nextLsn;
+        lock.unlock();
+        IOException error = null;
+        try {
+            int bytes = batch.remaining();
+            while (batch.hasRemaining()) segment.write(batch);
+            if (fsync) segment.force(false);
+            segmentBytes += bytes;
+            walBytes.add(bytes);
+            commits.increment();
+            walBytesSinceSnapshot += bytes;
+            if (segmentBytes >= SEGMENT_BYTES) roll(upto);
+            if (walBytesSinceSnapshot >= snapshotBytes && snapshotter != null) LockSupport.unpark(snapshotter);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+            spare = batch;
+            flushing = false;
+            if (error != null) failure = error;
+            else durableLsn = upto;
+            flushed.signalAll();
+        }
+    }
+
+    private void roll(long lsn) throws IOException {
+        segment.force(false);
+        segment.close();
+        openSegment(lsn);
+    }
+
+    private void openSegment(long start) throws IOException {
+        Path file = dir.resolve(String.format("wal-%016x.log", start));
+        segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeWalHeader(segment, start);
+        segment.position(WAL_HEADER);
+        segmentBytes = WAL_HEADER;
+        segments.put(start, file);
+        forceDirectory(dir);
+    }
+
+    private static void writeWalHeader(FileChannel ch, long start) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(WAL_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        h.putInt(WAL_MAGIC).putInt(VERSION).putLong(start).flip();
+        while (h.hasRemaining()) ch.write(h, h.position());
+        ch.force(false);
+    }
+
+    // ---- snapshots ----
+
+    /** Writes a snapshot of the live map and drops the log it makes redundant. */
+    void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long lsn;
+            lock.lock();
+            try {
+                while (flushing) flushed.awaitUninterruptibly();
+                if (failure != null) throw failure;
+                if (pending.position() > 0) {
+                    ByteBuffer batch = pending.flip();
+                    int bytes = batch.remaining();
+                    while (batch.hasRemaining()) segment.write(batch);
+                    pending.clear();
+                    walBytes.add(bytes);
+                    commits.increment();
+                }
+                roll(nextLsn);
+                durableLsn = nextLsn;
+                flushed.signalAll();
+                lsn = nextLsn;
+                walBytesSinceSnapshot = 0;
+            } finally {
+                lock.unlock();
+            }
+
+            Path target = dir.resolve(String.format("snapshot-%016x.snap", lsn));
+            Path tmp = dir.resolve(target.getFileName() + ".tmp");
+            writeSnapshot(tmp, lsn);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(dir);
+
+            snapshotFile = target;
+            snapshotLsn = lsn;
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : files.toList()) {
+                    String name = p.getFileName().toString();
+                    if (name.startsWith("snapshot-") && name.endsWith(".snap") && !p.equals(target)) Files.deleteIfExists(p);
+                }
+            }
+            lock.lock();
+            try {
+                while (flushing) flushed.awaitUninterruptibly(); // a flush may be rolling to a new segment
+                for (var it = segments.headMap(lsn, false).values().iterator(); it.hasNext(); ) {
+                    Files.deleteIfExists(it.next());
+                    it.remove();
+                }
+            } finally {
+                lock.unlock();
+            }
+            snapshots.increment();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void writeSnapshot(Path tmp, long lsn) throws IOException {
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long pos = SNAPSHOT_HEADER;
+            ByteBuffer chunk = ByteBuffer.allocate(4 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer table = ByteBuffer.allocate(64 * TABLE_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+            long count = 0;
+            int records = 0, chunks = 0;
+            for (StationRecord r : live.values()) {
+                byte[] ext = utf8(r.externalId()), name = utf8(r.name());
+                int size = stationSize(r.id(), ext, name);
+                if (records == CHUNK_RECORDS || (records > 0 && chunk.remaining() < size)) {
+                    if (table.remaining() < TABLE_ENTRY) table = grow(table, TABLE_ENTRY);
+                    pos = writeChunk(ch, chunk, records, pos, table);
+                    chunks++;
+                    records = 0;
+                }
+                if (chunk.remaining() < size) chunk = grow(chunk, size);
+                putStation(chunk, r.id(), ext, name, r);
+                records++;
+                count++;
+            }
+            if (records > 0) {
+                if (table.remaining() < TABLE_ENTRY) table = grow(table, TABLE_ENTRY);
+                pos = writeChunk(ch, chunk, records, pos, table);
+                chunks++;
+            }
+            table.flip();
+            writeFully(ch, table, pos);
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(S_MAGIC, SNAPSHOT_MAGIC).putInt(S_VERSION, VERSION).putLong(S_LSN, lsn)
+                    .putLong(S_COUNT, count).putInt(S_CHUNKS, chunks).putLong(S_TABLE, pos);
+            writeFully(ch, header, 0);
+            ch.force(true);
+        }
+    }
+
+    private static long writeChunk(FileChannel ch, ByteBuffer chunk, int records, long pos, ByteBuffer table) throws IOException {
+        chunk.flip();
+        int length = chunk.remaining();
+        table.putLong(pos).putInt(length).putInt(records).putInt(crc(chunk, 0, length)).putInt(0);
+        writeFully(ch, chunk, pos);
+        chunk.clear();
+        return pos + length;
+    }
+
+    private void snapshotLoop() {
+        long last = System.nanoTime();
+        while (running) {
+            LockSupport.parkNanos(Math.max(1, last + snapshotIntervalNanos - System.nanoTime()));
+            if (!running) break;
+            boolean due = System.nanoTime() - last >= snapshotIntervalNanos || walBytesSinceSnapshot >= snapshotBytes;
+            if (!due) continue;
+            last = System.nanoTime();
+            if (walBytesSinceSnapshot == 0) continue;
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                snapshotErrors.increment();
+            }
+        }
+    }
+
+    // ---- lifecycle and stats ----
+
+    @Override
+    public void close() throws IOException {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(snapshotter);
+        try {
+            snapshotter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (snapshotOnClose && failure == null && walBytesSinceSnapshot > 0) snapshot();
+        lock.lock();
+        try {
+            while (flushing) flushed.awaitUninterruptibly();
+            closed = true;
+            segment.force(false);
+            segment.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    StoreStats stats(long stations) {
+        Recovery r = recovery;
+        return new StoreStats(stations, appends.sum(), commits.sum(), walBytes.sum(), snapshots.sum(), snapshotErrors.sum(),
+                snapshotLsn, r == null ? 0 : r.fromSnapshot(), r == null ? 0 : r.fromWal(),
+                r == null ? Duration.ZERO : r.elapsed());
+    }
+
+    // ---- encoding ----
+
+    static byte[] encodePut(StationRecord r) {
+        byte[] ext = utf8(r.externalId()), name = utf8(r.name());
+        ByteBuffer b = ByteBuffer.allocate(1 + stationSize(r.id(), ext, name)).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(PUT);
+        putStation(b, r.id(), ext, name, r);
+        return b.array();
+    }
+
+    static byte[] encodeDelete(String id) {
+        ByteBuffer b = ByteBuffer.allocate(1 + idSize(id)).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(DELETE);
+        putId(b, id);
+        return b.array();
+    }
+
+    private static int stationSize(String id, byte[] ext, byte[] name) {
+        return idSize(id) + varintSize(ext.length) + ext.length + varintSize(name.length) + name.length + 5 * 8;
+    }
+
+    private static void putStation(ByteBuffer b, String id, byte[] ext, byte[] name, StationRecord r) {
+        putId(b, id);
+        putVarint(b, ext.length);
+        b.put(ext);
+        putVarint(b, name.length);
+        b.put(name);
+        b.putDouble(r.latitude()).putDouble(r.longitude()).putDouble(r.altitude())
+                .putLong(r.createdAt()).putLong(r.updatedAt());
+    }
+
+    private static StationRecord getStation(ByteBuffer b) {
+        String id = getId(b);
+        String ext = getString(b);
+        String name = getString(b);
+        return new StationRecord(id, ext, name, b.getDouble(), b.getDouble(), b.getDouble(), b.getLong(), b.getLong());
+    }
+
+    /** Ids shaped like {@link StationStore#nextId()} take 13 bytes; anything else is stored as text. */
+    private static boolean isHexId(String id) {
+        if (id.length() != 24) return false;
+        for (int i = 0; i < 24; i++) {
+            char c = id.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+
+    private static int idSize(String id) {
+        if (isHexId(id)) return 13;
+        int n = utf8(id).length;
+        return 1 + varintSize(n) + n;
+    }
+
+    private static void putId(ByteBuffer b, String id) {
+        if (isHexId(id)) {
+            b.put(HEX_ID);
+            for (int i = 0; i < 24; i += 2) b.put((byte) (Character.digit(id.charAt(i), 16) << 4 | Character.digit(id.charAt(i + 1), 16)));
+        } else {
+            byte[] text = utf8(id);
+            b.put(TEXT_ID);
+            putVarint(b, text.length);
+            b.put(text);
+        }
+    }
+
+    private static String getId(ByteBuffer b) {
+        if (b.get() == TEXT_ID) return getString(b);
+        char[] out = new char[24];
+        for (int i = 0; i < 24; i += 2) {
+            int v = b.get() & 0xFF;
+            out[i] = HEX[v >>> 4];
+            out[i + 1] = HEX[v & 15];
+        }
+        return new String(out);
+    }
+
+    /** Hash of the raw id bytes at {@code at}, without decoding them. */
+    private static int idHash(ByteBuffer b, int at) {
+        int h = b.get(at);
+        int len, from;
+        if (h == HEX_ID) {
+            len = 12;
+            from = at + 1;
+        } else {
+            int v = 0, shift = 0, p = at + 1;
+            byte x;
+            do {
+                x = b.get(p++);
+                v |= (x & 0x7F) << shift;
+                shift += 7;
+            } while (x < 0);
+            len = v;
+            from = p;
+        }
+        for (int i = 0; i < len; i++) h = 31 * h + b.get(from + i);
+        return h ^ (h >>> 16);
+    }
+
+    /** The sequence part of an id from {@link StationStore#nextId()}, 0 for other ids. */
+    static long sequenceOf(String id) {
+        if (!isHexId(id)) return 0;
+        return Long.parseUnsignedLong(id, 8, 24, 16);
+    }
+
+    private static String getString(ByteBuffer b) {
+        int n = getVarint(b);
+        if (b.hasArray()) {
+            String s = new String(b.array(), b.arrayOffset() + b.position(), n, StandardCharsets.UTF_8);
+            b.position(b.position() + n);
+            return s;
+        }
+        byte[] bytes = new byte[n];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int varintSize(int v) {
+        int n = 1;
+        while ((v >>>= 7) != 0) n++;
+        return n;
+    }
+
+    private static void putVarint(ByteBuffer b, int v) {
+        while ((v & ~0x7F) != 0) {
+            b.put((byte) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        b.put((byte) v);
+    }
+
+    private static int getVarint(ByteBuffer b) {
+        int v = 0, shift = 0;
+        byte x;
+        do {
+            x = b.get();
+            v |= (x & 0x7F) << shift;
+            shift += 7;
+        } while (x < 0);
+        return v;
+    }
+
+    // ---- io helpers ----
+
+    private static int crc(ByteBuffer b, int from, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(b.slice(from, length));
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer grow(ByteBuffer b, int needed) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(b.capacity() * 2, b.position() + needed)).order(ByteOrder.LITTLE_ENDIAN);
+        return bigger.put(b.flip());
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) {
+            int n = ch.read(b, at + b.position());
+            if (n < 0) throw new IOException("unexpected end of file");
+        }
+        b.flip();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer b, long at) throws IOException {
+        long p = at;
+        while (b.hasRemaining()) p += ch.write(b, p);
+    }
+
+    private static void forceDirectory(Path dir) {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException e) {
+            // not every platform can sync a directory; the rename itself is still atomic
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.server;
+
+import org.example.json.JsonWriter;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * A station as held by the stand-in server, including the bookkeeping timestamps
+ * (epoch millis) that the real API reports as {@code created_at}/{@code updated_at}.
+ */
+public record StationRecord(String id, String externalId, String name,
+                            double latitude, double longitude, double altitude,
+                            long createdAt, long updatedAt) {
+
+    /** Strong validator: changes whenever the stored content or its update time changes. */
+    String etag() {
+        int content = Objects.hash(externalId, name, latitude, longitude, altitude);
+        return "\"" + Long.toHexString(updatedAt) + '-' + Integer.toHexString(content) + '"';
+    }
+
+    String lastModified() {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(updatedAt).atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Writes the station as the API does; {@code idField} is {@code "ID"} for POST/PUT
+     * responses and {@code "id"} for reads, matching the casing quirk of the real service.
+     */
+    JsonWriter writeJson(JsonWriter w, String idField) {
+        return w.beginObject()
+                .name(idField).value(id)
+                .name("external_id").value(externalId)
+                .name("name").value(name)
+                .name("latitude").value(latitude)
+                .name("longitude").value(longitude)
+                .name("altitude").value(altitude)
+                .name("created_at").value(Instant.ofEpochMilli(createdAt).toString())
+                .name("updated_at").value(Instant.ofEpochMilli(updatedAt).toString())
+                .endObject();
+    }
+}
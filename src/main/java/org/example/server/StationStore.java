@@ -0,0 +1,161 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent station table keyed by the server-assigned id.
+ * <p>
+ * {@code new StationStore()} lives in memory only. {@link #durable(Path)} opens one backed by a
+ * directory: every successful put, replace and remove is in the write-ahead log before it
+ * returns, snapshots are taken in the background, and opening the directory again restores
+ * the table (see {@link StationLog} for the formats). Reads never touch the disk.
+ */
+public class StationStore implements AutoCloseable {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ConcurrentHashMap<String, StationRecord> stations;
+    private final AtomicLong sequence = new AtomicLong();
+    private final StationLog log;
+
+    public StationStore() {
+        this.stations = new ConcurrentHashMap<>();
+        this.log = null;
+    }
+
+    private StationStore(Builder b) throws IOException {
+        StationLog log = new StationLog(b.dir, b.fsync, b.snapshotInterval, b.snapshotBytes, b.snapshotOnClose, b.parallelism);
+        this.stations = new ConcurrentHashMap<>((int) Math.min(log.snapshotCount() * 4 / 3 + 16, 1 << 30));
+        StationLog.Recovery recovered = log.recover(stations);
+        sequence.set(recovered.maxSequence());
+        log.start(stations);
+        this.log = log;
+    }
+
+    /** A store persisted in {@code dir}, recovering whatever is already there. */
+    public static Builder durable(Path dir) {
+        return new Builder(dir);
+    }
+
+    /** Allocates a 24-hex-digit id shaped like the ObjectIds the real API returns. */
+    public String nextId() {
+        long seconds = System.currentTimeMillis() / 1000;
+        long seq = sequence.incrementAndGet();
+        char[] out = new char[24];
+        for (int i = 7; i >= 0; i--, seconds >>>= 4) out[i] = HEX[(int) (seconds & 0xF)];
+        for (int i = 23; i >= 8; i--, seq >>>= 4) out[i] = HEX[(int) (seq & 0xF)];
+        return new String(out);
+    }
+
+    public StationRecord get(String id) {
+        return stations.get(id);
+    }
+
+    public void put(StationRecord station) {
+        if (log == null) {
+            stations.put(station.id(), station);
+            return;
+        }
+        log.commit(StationLog.encodePut(station), () -> {
+            stations.put(station.id(), station);
+            return true;
+        });
+    }
+
+    /** Replaces an existing station; returns {@code false} if the id is unknown. */
+    public boolean replace(StationRecord station) {
+        if (log == null) return stations.replace(station.id(), station) != null;
+        return log.commit(StationLog.encodePut(station), () -> stations.replace(station.id(), station) != null);
+    }
+
+    public StationRecord remove(String id) {
+        if (log == null) return stations.remove(id);
+        StationRecord[] removed = new StationRecord[1];
+        log.commit(StationLog.encodeDelete(id), () -> (removed[0] = stations.remove(id)) != null);
+        return removed[0];
+    }
+
+    public Collection<StationRecord> all() {
+        return stations.values();
+    }
+
+    public int size() {
+        return stations.size();
+    }
+
+    /** Writes a snapshot now and drops the log it covers; does nothing for an in-memory store. */
+    public void snapshot() throws IOException {
+        if (log != null) log.snapshot();
+    }
+
+    public StoreStats stats() {
+        if (log == null) return new StoreStats(stations.size(), 0, 0, 0, 0, 0, -1, 0, 0, Duration.ZERO);
+        return log.stats(stations.size());
+    }
+
+    /** Stops background snapshots, takes a final one if configured, and closes the log. */
+    @Override
+    public void close() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class Builder {
+        private final Path dir;
+        private boolean fsync = true;
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+        private long snapshotBytes = 256L << 20;
+        private boolean snapshotOnClose = true;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private Builder(Path dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * Forces each group commit to disk before acknowledging it (the default). Without it,
+         * acknowledged writes survive a crash of the process but not of the machine.
+         */
+        public Builder fsync(boolean fsync) {
+            this.fsync = fsync;
+            return this;
+        }
+
+        /** Takes a snapshot at least this often while there are changes. */
+        public Builder snapshotEvery(Duration interval) {
+            this.snapshotInterval = interval;
+            return this;
+        }
+
+        /** Takes a snapshot as soon as this many log bytes were written since the last one. */
+        public Builder snapshotAfterBytes(long bytes) {
+            this.snapshotBytes = bytes;
+            return this;
+        }
+
+        /** Snapshots on {@link #close()}, so the next open need not replay the log; on by default. */
+        public Builder snapshotOnClose(boolean snapshot) {
+            this.snapshotOnClose = snapshot;
+            return this;
+        }
+
+        /** Threads used to load the snapshot and replay the log at open. */
+        public Builder recoveryParallelism(int threads) {
+            this.parallelism = threads;
+            return this;
+        }
+
+        public StationStore open() throws IOException {
+            return new StationStore(this);
+        }
+    }
+}
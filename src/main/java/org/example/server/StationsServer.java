@@ -0,0 +1,490 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.aggregate.Aggregate;
+import org.example.aggregate.MeasurementAggregator;
+import org.example.aggregate.Resolution;
+import org.example.client.Measurement;
+import org.example.client.Station;
+import org.example.json.JsonException;
+import org.example.json.JsonWriter;
+import org.example.json.MeasurementCodec;
+import org.example.json.StationCodec;
+import org.example.json.WeatherCodec;
+import org.example.weather.CurrentWeather;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the OpenWeather {@code /data/3.0/stations} API.
+ * <p>
+ * Serves POST, GET (single and list), PUT and DELETE on loopback from a concurrent
+ * {@link StationStore}, in memory unless a durable one is passed to
+ * {@link #start(int, String, StationStore)}, one virtual thread per exchange. Requests without the
+ * configured {@code appid} get the same 401 the real service returns. Validation mirrors
+ * what the test suite has observed upstream: an empty {@code name} or non-numeric
+ * coordinates are rejected, missing coordinates default to 0 and out-of-range values are
+ * accepted. Single-station reads carry {@code ETag}/{@code Last-Modified} and honour
+ * conditional requests with 304. {@code POST /measurements} accepts an array of readings
+ * into a {@link MeasurementStore} and a {@link MeasurementAggregator} and answers 204;
+ * {@code GET /measurements?station_id=&type=m|h|d&from=&to=&limit=} serves the aggregates.
+ * <p>
+ * {@link #injectFaults} switches on a seeded {@link FaultProfile}: added latency, 5xx and 429
+ * responses, dropped connections, the proxy's 200 + HTML page and slowly streamed bodies,
+ * for measuring client tail latency and resilience on demand.
+ * <p>
+ * {@code GET /data/2.5/weather?lat=&lon=&units=} answers with synthetic current conditions that
+ * depend only on the coordinate and a ten-minute time bucket, in the shape
+ * {@link WeatherCodec} reads; {@link #weatherRequests()} counts the requests it served.
+ */
+public class StationsServer implements AutoCloseable {
+    public static final String API_PREFIX = "/data/3.0";
+    private static final String STATIONS = API_PREFIX + "/stations";
+    private static final String MEASUREMENTS = API_PREFIX + "/measurements";
+    public static final String WEATHER_PREFIX = "/data/2.5";
+    private static final String WEATHER = WEATHER_PREFIX + "/weather";
+    /** Initial listing buffer cap; the writer grows past it for larger bodies. */
+    private static final int MAX_PREALLOCATED = 1 << 20;
+    private static final String[] CONDITIONS = {"Clear", "Clouds", "Rain", "Drizzle", "Snow", "Mist"};
+    private static final int[] CONDITION_IDS = {800, 803, 500, 300, 600, 701};
+    private static final String[] DESCRIPTIONS = {"clear sky", "broken clouds", "light rain", "light intensity drizzle", "light snow", "mist"};
+
+    private static final String UNAUTHORIZED = "{\"cod\":401,\"message\":\"Invalid API key. "
+            + "Please see https://openweathermap.org/faq#error401 for more info.\"}";
+    private static final String NOT_FOUND = "{\"code\":404001,\"message\":\"Station not found\"}";
+
+    static {
+        // the JDK server writes headers and body separately; without TCP_NODELAY, Nagle adds latency per exchange
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final StationStore store;
+    private final MeasurementStore measurements = new MeasurementStore();
+    private final MeasurementAggregator aggregator = MeasurementAggregator.builder().build();
+    private final FaultInjector faults = new FaultInjector();
+    private final String appId;
+    private final LongAdder weatherRequests = new LongAdder();
+
+    private StationsServer(HttpServer http, StationStore store, String appId) {
+        this.http = http;
+        this.store = store;
+        this.appId = appId;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        http.setExecutor(executor);
+        http.createContext(STATIONS, this::handleStations);
+        http.createContext(MEASUREMENTS, this::handleMeasurements);
+        http.createContext(WEATHER, this::handleWeather);
+    }
+
+    /** Starts a server on an ephemeral loopback port accepting only {@code appId}. */
+    public static StationsServer start(String appId) throws IOException {
+        return start(0, appId);
+    }
+
+    /** Starts a server on the given loopback port ({@code 0} picks a free one). */
+    public static StationsServer start(int port, String appId) throws IOException {
+        return start(port, appId, new StationStore());
+    }
+
+    /** Starts a server over {@code store}, e.g. a {@link StationStore#durable durable} one; closing the server closes it. */
+    public static StationsServer start(int port, String appId, StationStore store) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        StationsServer server = new StationsServer(http, store, appId);
+        http.start();
+        return server;
+    }
+
+    /** Base URI equivalent to {@code http://api.openweathermap.org/data/3.0}. */
+    public URI baseUri() {
+        InetSocketAddress addr = http.getAddress();
+        return URI.create("http://" + addr.getHostString() + ":" + addr.getPort() + API_PREFIX);
+    }
+
+    /** Base URI equivalent to {@code http://api.openweathermap.org/data/2.5}, for current weather. */
+    public URI weatherUri() {
+        InetSocketAddress addr = http.getAddress();
+        return URI.create("http://" + addr.getHostString() + ":" + addr.getPort() + WEATHER_PREFIX);
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public StationStore store() {
+        return store;
+    }
+
+    public MeasurementStore measurements() {
+        return measurements;
+    }
+
+    public MeasurementAggregator aggregator() {
+        return aggregator;
+    }
+
+    /** Applies {@code profile} to every request from now on; {@link FaultProfile#NONE} switches faults off. */
+    public void injectFaults(FaultProfile profile) {
+        faults.profile(profile);
+    }
+
+    public FaultStats faultStats() {
+        return faults.stats();
+    }
+
+    /** Current-weather requests answered with 200. */
+    public long weatherRequests() {
+        return weatherRequests.sum();
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        executor.close();
+        store.close();
+    }
+
+    private void handleStations(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (faults.apply(ex)) return;
+            if (!authorized(ex.getRequestURI().getRawQuery())) {
+                send(ex, 401, UNAUTHORIZED);
+                return;
+            }
+            String path = ex.getRequestURI().getPath();
+            String id = null;
+            if (path.length() > STATIONS.length()) {
+                if (path.charAt(STATIONS.length()) != '/') {
+                    send(ex, 404, NOT_FOUND);
+                    return;
+                }
+                id = path.substring(STATIONS.length() + 1);
+                if (id.isEmpty() || id.indexOf('/') >= 0) {
+                    send(ex, 404, NOT_FOUND);
+                    return;
+                }
+            }
+            String method = ex.getRequestMethod();
+            if (id == null) {
+                switch (method) {
+                    case "GET" -> list(ex);
+                    case "POST" -> create(ex);
+                    default -> send(ex, 405, badRequest("Method not allowed"));
+                }
+            } else {
+                switch (method) {
+                    case "GET" -> read(ex, id);
+                    case "PUT" -> update(ex, id);
+                    case "DELETE" -> delete(ex, id);
+                    default -> send(ex, 405, badRequest("Method not allowed"));
+                }
+            }
+        }
+    }
+
+    private void handleMeasurements(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (faults.apply(ex)) return;
+            if (!authorized(ex.getRequestURI().getRawQuery())) {
+                send(ex, 401, UNAUTHORIZED);
+                return;
+            }
+            if (!ex.getRequestURI().getPath().equals(MEASUREMENTS)) {
+                send(ex, 404, NOT_FOUND);
+                return;
+            }
+            switch (ex.getRequestMethod()) {
+                case "POST" -> postMeasurements(ex);
+                case "GET" -> aggregates(ex);
+                default -> send(ex, 405, badRequest("Method not allowed"));
+            }
+        }
+    }
+
+    private void handleWeather(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (faults.apply(ex)) return;
+            String query = ex.getRequestURI().getRawQuery();
+            if (!authorized(query)) {
+                send(ex, 401, UNAUTHORIZED);
+                return;
+            }
+            if (!ex.getRequestMethod().equals("GET") || !ex.getRequestURI().getPath().equals(WEATHER)) {
+                send(ex, 404, "{\"cod\":\"404\",\"message\":\"Internal error\"}");
+                return;
+            }
+            String lat = queryParam(query, "lat"), lon = queryParam(query, "lon");
+            if (lat == null || lon == null) {
+                send(ex, 400, "{\"cod\":\"400\",\"message\":\"Nothing to geocode\"}");
+                return;
+            }
+            double latitude, longitude;
+            try {
+                latitude = Double.parseDouble(lat);
+                longitude = Double.parseDouble(lon);
+            } catch (NumberFormatException e) {
+                latitude = longitude = Double.NaN;
+            }
+            if (!(latitude >= -90 && latitude <= 90)) {
+                send(ex, 400, "{\"cod\":\"400\",\"message\":\"wrong latitude\"}");
+                return;
+            }
+            if (!(longitude >= -180 && longitude <= 180)) {
+                send(ex, 400, "{\"cod\":\"400\",\"message\":\"wrong longitude\"}");
+                return;
+            }
+            String units = queryParam(query, "units");
+            CurrentWeather w = syntheticWeather(latitude, longitude, System.currentTimeMillis() / 1000, units == null ? "standard" : units);
+            weatherRequests.increment();
+            try (JsonWriter out = JsonWriter.borrow()) {
+                send(ex, 200, WeatherCodec.encode(w, out));
+            }
+        }
+    }
+
+    /**
+     * Plausible conditions for a coordinate: colder towards the poles, varying smoothly with
+     * longitude, and changing only once per ten-minute bucket of {@code now} (Unix seconds).
+     */
+    static CurrentWeather syntheticWeather(double lat, double lon, long now, String units) {
+        long dt = now - now % 600;
+        double phase = Math.sin(Math.toRadians(lon) + dt / 86_400.0 * 2 * Math.PI);
+        double celsius = 30 - Math.abs(lat) * 0.6 + 5 * phase;
+        double wind = 2 + 3 * Math.abs(Math.cos(Math.toRadians(lat * 3 + lon)));
+        int kind = Math.floorMod(Math.round(lat * 7 + lon * 13) + dt / 600, CONDITIONS.length);
+        double temp = switch (units) {
+            case "metric" -> celsius;
+            case "imperial" -> celsius * 9 / 5 + 32;
+            default -> celsius + 273.15;
+        };
+        double feels = temp - (units.equals("imperial") ? wind * 1.8 : wind) / 2;
+        if (units.equals("imperial")) wind *= 2.237;
+        return new CurrentWeather(lat, lon, dt, round(temp), round(feels), 1013 + Math.round(8 * phase),
+                Math.round(60 + 30 * phase), round(wind), Math.floorMod(Math.round(lon * 10), 360), kind * 20,
+                CONDITION_IDS[kind], CONDITIONS[kind], DESCRIPTIONS[kind], "");
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    private void postMeasurements(HttpExchange ex) throws IOException {
+        List<Measurement> batch;
+        try {
+            batch = MeasurementCodec.decodeList(ex.getRequestBody().readAllBytes());
+        } catch (JsonException e) {
+            send(ex, 400, badRequest("Invalid JSON: " + e.getMessage()));
+            return;
+        }
+        for (Measurement m : batch) {
+            if (m.stationId() == null || m.stationId().isEmpty() || m.dt() <= 0) {
+                send(ex, 400, badRequest("Bad station_id or dt"));
+                return;
+            }
+        }
+        for (Measurement m : batch) {
+            measurements.add(m);
+            aggregator.add(m);
+        }
+        send(ex, 204, (String) null);
+    }
+
+    private void aggregates(HttpExchange ex) throws IOException {
+        String query = ex.getRequestURI().getRawQuery();
+        String stationId = queryParam(query, "station_id");
+        String type = queryParam(query, "type");
+        Resolution resolution;
+        long from, to;
+        int limit;
+        try {
+            if (stationId == null || type == null) throw new IllegalArgumentException("station_id and type are required");
+            resolution = Resolution.fromCode(type);
+            from = parseLong(queryParam(query, "from"), Long.MIN_VALUE / 2);
+            to = parseLong(queryParam(query, "to"), Long.MAX_VALUE / 2);
+            limit = (int) parseLong(queryParam(query, "limit"), 100);
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, badRequest(e.getMessage()));
+            return;
+        }
+        List<Aggregate> buckets = aggregator.query(stationId, resolution, from, to, limit);
+        try (JsonWriter w = new JsonWriter(listingCapacity(buckets.size()))) {
+            w.beginArray();
+            for (Aggregate a : buckets) MeasurementCodec.encodeAggregate(a, w);
+            send(ex, 200, w.endArray());
+        }
+    }
+
+    private void list(HttpExchange ex) throws IOException {
+        try (JsonWriter w = new JsonWriter(listingCapacity(store.size()))) {
+            w.beginArray();
+            for (StationRecord s : store.all()) s.writeJson(w, "id");
+            send(ex, 200, w.endArray());
+        }
+    }
+
+    /** About 256 bytes per item, computed in long so a large catalog cannot overflow, and capped. */
+    private static int listingCapacity(int items) {
+        return (int) Math.min(256L * Math.max(1, items), MAX_PREALLOCATED);
+    }
+
+    private void read(HttpExchange ex, String id) throws IOException {
+        StationRecord s = store.get(id);
+        if (s == null) {
+            send(ex, 404, NOT_FOUND);
+            return;
+        }
+        String etag = s.etag();
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Last-Modified", s.lastModified());
+        if (notModified(ex, s, etag)) {
+            ex.sendResponseHeaders(304, -1);
+            return;
+        }
+        try (JsonWriter w = JsonWriter.borrow()) {
+            send(ex, 200, s.writeJson(w, "id"));
+        }
+    }
+
+    private void create(HttpExchange ex) throws IOException {
+        StationRecord parsed = parse(ex, store.nextId(), System.currentTimeMillis());
+        if (parsed == null) return;
+        store.put(parsed);
+        ex.getResponseHeaders().set("ETag", parsed.etag());
+        try (JsonWriter w = JsonWriter.borrow()) {
+            send(ex, 201, parsed.writeJson(w, "ID"));
+        }
+    }
+
+    private void update(HttpExchange ex, String id) throws IOException {
+        StationRecord existing = store.get(id);
+        if (existing == null) {
+            send(ex, 404, NOT_FOUND);
+            return;
+        }
+        StationRecord parsed = parse(ex, id, existing.createdAt());
+        if (parsed == null) return;
+        if (!store.replace(parsed)) {
+            send(ex, 404, NOT_FOUND);
+            return;
+        }
+        ex.getResponseHeaders().set("ETag", parsed.etag());
+        try (JsonWriter w = JsonWriter.borrow()) {
+            send(ex, 200, parsed.writeJson(w, "ID"));
+        }
+    }
+
+    private void delete(HttpExchange ex, String id) throws IOException {
+        if (store.remove(id) == null) send(ex, 404, NOT_FOUND);
+        else send(ex, 204, (String) null);
+    }
+
+    /** Evaluates If-None-Match (preferred) or If-Modified-Since against the stored station. */
+    private static boolean notModified(HttpExchange ex, StationRecord s, String etag) {
+        String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) return ifNoneMatch.equals(etag) || ifNoneMatch.equals("*");
+        String ifModifiedSince = ex.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince == null) return false;
+        try {
+            long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return s.updatedAt() / 1000 <= since;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /** Parses and validates a station body; sends the 400 itself and returns null on failure. */
+    private StationRecord parse(HttpExchange ex, String id, long createdAt) throws IOException {
+        Station s;
+        try {
+            s = StationCodec.decode(ex.getRequestBody().readAllBytes());
+        } catch (JsonException e) {
+            send(ex, 400, badRequest("Invalid JSON: " + e.getMessage()));
+            return null;
+        }
+        if (s.externalId() == null || s.externalId().isEmpty()) {
+            send(ex, 400, badRequest("Bad external id"));
+            return null;
+        }
+        if (s.name() == null || s.name().isEmpty()) {
+            send(ex, 400, badRequest("Bad or zero length station name"));
+            return null;
+        }
+        return new StationRecord(id, s.externalId(), s.name(), s.latitude(), s.longitude(), s.altitude(),
+                createdAt, System.currentTimeMillis());
+    }
+
+    private boolean authorized(String rawQuery) {
+        if (rawQuery == null) return false;
+        int from = 0;
+        while (from <= rawQuery.length()) {
+            int amp = rawQuery.indexOf('&', from);
+            int end = amp < 0 ? rawQuery.length() : amp;
+            if (rawQuery.startsWith("appid=", from)) {
+                return rawQuery.regionMatches(from + 6, appId, 0, appId.length())
+                        && end - from - 6 == appId.length();
+            }
+            from = end + 1;
+        }
+        return false;
+    }
+
+    /** First value of a query parameter, URL-decoded, or null. */
+    private static String queryParam(String rawQuery, String name) {
+        if (rawQuery == null) return null;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq == name.length() && pair.startsWith(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static long parseLong(String value, long dflt) {
+        return value == null ? dflt : Long.parseLong(value);
+    }
+
+    private static String badRequest(String message) {
+        try (JsonWriter w = JsonWriter.borrow()) {
+            return w.beginObject().name("code").value(400002).name("message").value(message).endObject().toString();
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, JsonWriter body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.size());
+        try (OutputStream os = ex.getResponseBody()) {
+            FaultInjector.write(ex, os, body.array(), 0, body.size());
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, String body) throws IOException {
+        if (body == null) {
+            ex.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            FaultInjector.write(ex, os, bytes, 0, bytes.length);
+        }
+    }
+}
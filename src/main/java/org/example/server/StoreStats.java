@@ -0,0 +1,35 @@
+package org.example.server;
+
+import java.time.Duration;
+
+/**
+ * Counters of a {@link StationStore}; everything but {@code stations} stays zero for an
+ * in-memory store.
+ *
+ * @param appends        changes written to the write-ahead log since open
+ * @param commits        log writes (one force each when fsync is on); appends per commit is the
+ *                       group-commit batch size
+ * @param walBytes       bytes appended to the log since open
+ * @param snapshots      snapshots written since open
+ * @param snapshotErrors background snapshots that failed; the log still holds their changes
+ * @param snapshotLsn    log position the current snapshot covers, or -1 without one
+ * @param recoveredFromSnapshot stations loaded from the snapshot at open
+ * @param recoveredFromWal      log records replayed at open
+ * @param recovery       time taken to recover at open
+ */
+public record StoreStats(long stations, long appends, long commits, long walBytes, long snapshots, long snapshotErrors,
+                         long snapshotLsn, long recoveredFromSnapshot, long recoveredFromWal, Duration recovery) {
+
+    /** Average number of changes made durable by one commit. */
+    public double averageBatch() {
+        return commits == 0 ? 0 : (double) appends / commits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("stations=%d appends=%d commits=%d batch=%.1f walBytes=%d snapshots=%d snapshotErrors=%d "
+                        + "recovered=%d+%d in %.3fs",
+                stations, appends, commits, averageBatch(), walBytes, snapshots, snapshotErrors,
+                recoveredFromSnapshot, recoveredFromWal, recovery.toNanos() / 1e9);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.weather;
+
+/**
+ * Current conditions at a coordinate, as returned by OpenWeather's {@code /data/2.5/weather}.
+ * Temperatures are in the units the client asked for (Kelvin, Celsius or Fahrenheit), as is
+ * wind speed (m/s or mph); pressure is hPa, humidity and clouds percent, {@code dt} Unix
+ * seconds. {@code conditionId} is OpenWeather's condition code, e.g. 800 for a clear sky.
+ */
+public record CurrentWeather(double latitude, double longitude, long dt, double temperature, double feelsLike,
+                             double pressure, double humidity, double windSpeed, double windDeg, double clouds,
+                             int conditionId, String condition, String description, String name) {
+}
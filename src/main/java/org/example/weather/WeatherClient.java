@@ -0,0 +1,436 @@
+package org.example.weather;
+
+import org.example.cache.BoundedCache;
+import org.example.cache.CacheStats;
+import org.example.cache.SingleFlight;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.geo.GeoGrid;
+import org.example.json.JsonException;
+import org.example.json.WeatherCodec;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+import org.example.quota.Priority;
+import org.example.quota.QuotaManager;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Client for OpenWeather's current weather by coordinates, {@code GET /data/2.5/weather}.
+ * <p>
+ * Coordinates are rounded to a {@link GeoGrid} of {@link Builder#precision} degrees and one
+ * request is made per grid cell, so stations a few hundred metres apart share a response.
+ * Responses are cached per cell for a short {@link Builder#ttl TTL} in a {@link BoundedCache},
+ * and concurrent loads of one cell share a request ({@link SingleFlight}).
+ * <p>
+ * {@link #current(double[], double[])} takes a whole batch: a dispatcher thread groups the
+ * points by cell, answers fresh cells from the cache at once and starts a virtual thread per
+ * remaining cell, at most {@link Builder#concurrency} at a time. Results come back as a
+ * stream in completion order, so the first ones are usable while the slow cells are still
+ * in flight; closing the stream stops the dispatch of cells not yet started. Requests go
+ * through the optional {@link QuotaManager} and are recorded under {@link Endpoint#WEATHER}.
+ */
+public final class WeatherClient {
+    public enum Units {
+        /** Kelvin and m/s, the API's default. */
+        STANDARD,
+        /** Celsius and m/s. */
+        METRIC,
+        /** Fahrenheit and mph. */
+        IMPERIAL
+    }
+
+    private final HttpClient http;
+    private final String weatherUrl;
+    private final String querySuffix;
+    private final Duration requestTimeout;
+    private final ClientMetrics metrics;
+    private final String appId;
+    private final QuotaManager quota;
+    private final Priority priority;
+    private final GeoGrid grid;
+    private final int concurrency;
+    private final BoundedCache<CurrentWeather> cache;
+    private final SingleFlight<String, CurrentWeather> flights = new SingleFlight<>();
+
+    private final LongAdder points = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private WeatherClient(Builder b) {
+        this.http = b.httpClient != null ? b.httpClient : StationsClient.sharedHttpClient();
+        String base = b.baseUri.toString();
+        if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
+        this.weatherUrl = base + "/weather";
+        this.querySuffix = "&units=" + b.units.name().toLowerCase(Locale.ROOT)
+                + "&appid=" + URLEncoder.encode(b.appId, StandardCharsets.UTF_8);
+        this.requestTimeout = b.requestTimeout;
+        this.metrics = b.metrics;
+        this.appId = b.appId;
+        this.quota = b.quota;
+        this.priority = b.priority;
+        this.grid = new GeoGrid(b.precision);
+        this.concurrency = b.concurrency;
+        this.cache = new BoundedCache<>(b.cacheSize, b.ttl);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public GeoGrid grid() {
+        return grid;
+    }
+
+    /** Conditions for the grid cell of one point, from the cache if fresh. */
+    public CompletableFuture<CurrentWeather> currentAsync(double lat, double lon) {
+        long cell;
+        try {
+            cell = grid.cell(lat, lon);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        points.increment();
+        cells.increment();
+        String key = grid.key(cell);
+        CurrentWeather cached = fresh(key);
+        return cached != null ? CompletableFuture.completedFuture(cached) : fetch(cell, key);
+    }
+
+    /** Blocking {@link #currentAsync}; throws {@link IllegalArgumentException} for an invalid coordinate. */
+    public CurrentWeather current(double lat, double lon) {
+        try {
+            return currentAsync(lat, lon).get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StationsApiException("interrupted fetching weather at " + lat + "," + lon, e);
+        }
+    }
+
+    /**
+     * Conditions for every point {@code (lats[i], lons[i])}, one {@link WeatherResult} per point
+     * in the order cells complete. A failed cell yields results carrying the error for each of
+     * its points rather than failing the stream. The stream should be closed (try-with-resources)
+     * if it is not consumed to the end.
+     */
+    public Stream<WeatherResult> current(double[] lats, double[] lons) {
+        if (lats.length != lons.length) throw new IllegalArgumentException("lats and lons differ in length");
+        Batch batch = new Batch(lats, lons);
+        batch.dispatcher = Thread.ofVirtual().name("weather-dispatch").start(batch::dispatch);
+        return StreamSupport.stream(batch, false).onClose(batch::cancel);
+    }
+
+    /** Counters since the client was built. */
+    public WeatherStats stats() {
+        return new WeatherStats(points.sum(), cells.sum(), cacheHits.sum(), flights.calls(), flights.shared(), failures.sum());
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    private CurrentWeather fresh(String key) {
+        BoundedCache.Entry<CurrentWeather> e = cache.lookup(key);
+        if (e != null && e.isFresh()) {
+            cache.recordHit();
+            cacheHits.increment();
+            return e.value();
+        }
+        cache.recordMiss();
+        return null;
+    }
+
+    private CompletableFuture<CurrentWeather> fetch(long cell, String key) {
+        return flights.execute(key, k -> send(request(cell)).thenApply(r -> {
+            CurrentWeather w = decode(r);
+            cache.put(k, w, null, null);
+            return w;
+        })).whenComplete((w, e) -> {
+            if (e != null) failures.increment();
+        });
+    }
+
+    private HttpRequest request(long cell) {
+        String url = weatherUrl + "?lat=" + grid.format(grid.latitude(cell)) + "&lon=" + grid.format(grid.longitude(cell)) + querySuffix;
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).header("Accept", "application/json").GET();
+        if (requestTimeout != null) b.timeout(requestTimeout);
+        return b.build();
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest req) {
+        CompletableFuture<Void> permit = quota == null ? CompletableFuture.completedFuture(null) : quota.acquireAsync(appId, priority);
+        return permit.thenCompose(v -> {
+            long start = System.nanoTime();
+            return http.sendAsync(req, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((r, e) -> observe(r, start));
+        }).exceptionallyCompose(e -> CompletableFuture.failedFuture(transportFailure(req, e)));
+    }
+
+    private void observe(HttpResponse<byte[]> r, long start) {
+        if (quota != null && r != null && r.statusCode() == 429) quota.throttled(appId, retryAfter(r));
+        if (!metrics.isEnabled()) return;
+        long nanos = System.nanoTime() - start;
+        if (r == null) {
+            metrics.recordTransportError(Endpoint.WEATHER, nanos, 0);
+        } else {
+            byte[] body = r.body();
+            boolean forbidden = r.statusCode() == 200 && ClientMetrics.isForbiddenPage(body, 0, body.length);
+            metrics.record(Endpoint.WEATHER, r.statusCode(), forbidden, nanos, 0, body.length);
+        }
+    }
+
+    private static CurrentWeather decode(HttpResponse<byte[]> r) {
+        String body = new String(r.body(), StandardCharsets.UTF_8);
+        if (r.statusCode() != 200) {
+            throw new StationsApiException(r.statusCode(), body, retryAfter(r), "unexpected status from current weather");
+        }
+        try {
+            return WeatherCodec.decode(r.body());
+        } catch (JsonException e) {
+            throw new StationsApiException(200, body, "response is not current weather JSON: " + e.getMessage());
+        }
+    }
+
+    private static RuntimeException transportFailure(HttpRequest req, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof StationsApiException sae) return sae;
+        return new StationsApiException("GET " + req.uri().getPath() + " failed: " + cause, cause);
+    }
+
+    private static RuntimeException unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof RuntimeException re ? re : new StationsApiException("current weather failed: " + cause, cause);
+    }
+
+    /** Parses a delta-seconds {@code Retry-After} header; HTTP-date values are ignored. */
+    private static Duration retryAfter(HttpResponse<?> r) {
+        String v = r.headers().firstValue("Retry-After").orElse(null);
+        if (v == null) return null;
+        try {
+            return Duration.ofSeconds(Long.parseLong(v.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One batch: the dispatcher pushes finished points onto {@link #done}, the stream takes them
+     * off until every point has been emitted.
+     */
+    private final class Batch implements Spliterator<WeatherResult> {
+        private final double[] lats, lons;
+        private final BlockingQueue<WeatherResult> done = new LinkedBlockingQueue<>();
+        private final Semaphore slots = new Semaphore(concurrency);
+        private volatile Thread dispatcher;
+        private int emitted;
+
+        Batch(double[] lats, double[] lons) {
+            this.lats = lats;
+            this.lons = lons;
+        }
+
+        void dispatch() {
+            Map<Long, List<Integer>> byCell = new HashMap<>();
+            for (int i = 0; i < lats.length; i++) {
+                long cell;
+                try {
+                    cell = grid.cell(lats[i], lons[i]);
+                } catch (IllegalArgumentException e) {
+                    done.add(new WeatherResult(i, lats[i], lons[i], null, e, false));
+                    continue;
+                }
+                byCell.computeIfAbsent(cell, c -> new ArrayList<>(1)).add(i);
+            }
+            points.add(lats.length);
+            cells.add(byCell.size());
+            try {
+                for (Map.Entry<Long, List<Integer>> group : byCell.entrySet()) {
+                    long cell = group.getKey();
+                    String key = grid.key(cell);
+                    CurrentWeather cached = fresh(key);
+                    if (cached != null) {
+                        emit(group.getValue(), cached, null, true);
+                        continue;
+                    }
+                    slots.acquire();
+                    Thread.ofVirtual().start(() -> {
+                        try {
+                            emit(group.getValue(), fetch(cell, key).get(), null, false);
+                        } catch (ExecutionException e) {
+                            emit(group.getValue(), null, unwrap(e.getCause()), false);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                // the stream was closed; cells already started finish and fill the cache
+            }
+        }
+
+        private void emit(List<Integer> indexes, CurrentWeather weather, RuntimeException error, boolean cached) {
+            for (int i : indexes) done.add(new WeatherResult(i, lats[i], lons[i], weather, error, cached));
+        }
+
+        void cancel() {
+            dispatcher.interrupt();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super WeatherResult> action) {
+            if (emitted == lats.length) return false;
+            WeatherResult r;
+            try {
+                r = done.take();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new StationsApiException("interrupted waiting for current weather", e);
+            }
+            emitted++;
+            action.accept(r);
+            return true;
+        }
+
+        @Override
+        public Spliterator<WeatherResult> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return lats.length - emitted;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.NONNULL;
+        }
+    }
+
+    public static class Builder {
+        private URI baseUri = URI.create("http://api.openweathermap.org/data/2.5");
+        private String appId;
+        private HttpClient httpClient;
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private ClientMetrics metrics = ClientMetrics.disabled();
+        private QuotaManager quota;
+        private Priority priority = Priority.INTERACTIVE;
+        private Units units = Units.STANDARD;
+        private double precision = 0.01;
+        private int concurrency = 64;
+        private Duration ttl = Duration.ofMinutes(2);
+        private int cacheSize = 100_000;
+
+        private Builder() {
+        }
+
+        /** API root, e.g. {@code http://api.openweathermap.org/data/2.5}. */
+        public Builder baseUri(URI baseUri) {
+            this.baseUri = Objects.requireNonNull(baseUri);
+            return this;
+        }
+
+        public Builder appId(String appId) {
+            this.appId = appId;
+            return this;
+        }
+
+        /** Uses a dedicated {@link HttpClient} instead of the pool shared with {@link StationsClient}. */
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /** Per-request timeout; {@code null} disables it. */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /** Records requests under {@link Endpoint#WEATHER}. */
+        public Builder metrics(ClientMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+
+        /** Takes a permit from {@code quota} for the appid before every request. */
+        public Builder quota(QuotaManager quota) {
+            this.quota = quota;
+            return this;
+        }
+
+        /** Quota class of the requests; {@link Priority#INTERACTIVE} by default. */
+        public Builder priority(Priority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
+        public Builder units(Units units) {
+            this.units = Objects.requireNonNull(units);
+            return this;
+        }
+
+        /**
+         * Grid size in degrees that points are rounded to; 0.01 (about 1.1 km) by default. Points
+         * in one cell share a request and a cache entry.
+         */
+        public Builder precision(double degrees) {
+            if (!(degrees > 0 && degrees <= 90)) throw new IllegalArgumentException("precision must be in (0, 90]: " + degrees);
+            this.precision = degrees;
+            return this;
+        }
+
+        /** Most requests a batch has in flight at once; 64 by default. */
+        public Builder concurrency(int requests) {
+            if (requests < 1) throw new IllegalArgumentException("concurrency must be positive");
+            this.concurrency = requests;
+            return this;
+        }
+
+        /** How long a cell's conditions are served from the cache; 2 minutes by default. */
+        public Builder ttl(Duration ttl) {
+            this.ttl = Objects.requireNonNull(ttl);
+            return this;
+        }
+
+        /** Most cells kept in the cache. */
+        public Builder cacheSize(int cells) {
+            if (cells < 1) throw new IllegalArgumentException("cacheSize must be positive");
+            this.cacheSize = cells;
+            return this;
+        }
+
+        public WeatherClient build() {
+            Objects.requireNonNull(appId, "appId");
+            return new WeatherClient(this);
+        }
+    }
+}
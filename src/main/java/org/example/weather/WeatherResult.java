@@ -0,0 +1,20 @@
+package org.example.weather;
+
+/**
+ * Outcome for one point of a {@link WeatherClient#current(double[], double[])} batch.
+ *
+ * @param index     position of the point in the input arrays
+ * @param latitude  the point as given, not rounded
+ * @param longitude the point as given, not rounded
+ * @param weather   conditions for the point's grid cell, or null on failure
+ * @param error     why the cell could not be fetched (a {@code StationsApiException}, or an
+ *                  {@link IllegalArgumentException} for an invalid coordinate), or null
+ * @param cached    served from the cell cache without a request
+ */
+public record WeatherResult(int index, double latitude, double longitude, CurrentWeather weather,
+                            RuntimeException error, boolean cached) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
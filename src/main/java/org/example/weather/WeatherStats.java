@@ -0,0 +1,25 @@
+package org.example.weather;
+
+/**
+ * Snapshot of {@link WeatherClient} counters.
+ *
+ * @param points    coordinates asked for, single or in batches
+ * @param cells     distinct grid cells those points rounded to, per call
+ * @param cacheHits cells answered from a fresh cache entry
+ * @param fetches   requests sent
+ * @param shared    cells that joined a request already in flight instead of sending one
+ * @param failures  cells whose request failed
+ */
+public record WeatherStats(long points, long cells, long cacheHits, long fetches, long shared, long failures) {
+
+    /** Points per request sent: how much rounding, caching and sharing saved. */
+    public double dedupRatio() {
+        return fetches == 0 ? 0 : (double) points / fetches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("points=%d cells=%d cacheHits=%d fetches=%d shared=%d failures=%d dedup=%.1fx",
+                points, cells, cacheHits, fetches, shared, failures, dedupRatio());
+    }
+}
@@ -1,15 +1,30 @@
 package openWeather;
-import com.github.javafaker.Faker;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.example.gen.StationGenerator;
+import org.example.json.StationCodec;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.PrometheusEndpoint;
+import org.example.replay.Cassette;
+import org.example.replay.CassetteMode;
+import org.example.replay.CassetteStats;
+import org.example.replay.RequestKey;
+import org.example.server.StationsServer;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.hasKey;
@@ -22,8 +37,31 @@ public class BaseTest {
     protected static String BASE_URL;
     protected static String APP_ID;
 
-    //faker object to generate random test data
-    protected static Faker faker = new Faker();
+    //seeded test data for the helpers below; -DdataSeed=N reproduces a run
+    protected static final long DATA_SEED = Long.getLong("dataSeed", System.nanoTime());
+    protected static final StationGenerator DATA = new StationGenerator(DATA_SEED);
+    //each thread walks its own block of generator indices, so the helpers never contend
+    private static final AtomicLong DATA_THREADS = new AtomicLong();
+    private static final ThreadLocal<StationGenerator.Cursor> DATA_CURSOR =
+            ThreadLocal.withInitial(() -> DATA.cursor(DATA_THREADS.getAndIncrement() << 40, 1));
+
+    //request spec carrying the base URI, built once per test instance instead of relying on RestAssured.baseURI
+    private RequestSpecification spec;
+
+    //in-process stand-in for the Stations API, started with -DlocalServer=true (off by default, so runs hit baseUrl)
+    protected static StationsServer localServer;
+
+    //latency/status/bytes per endpoint for every request made through given(); visible over JMX as name=rest-assured
+    protected static final ClientMetrics METRICS = new ClientMetrics();
+    private static PrometheusEndpoint metricsEndpoint;
+
+    //connect and read timeout of every request made through given(), so a degraded network fails a test instead of hanging it
+    protected static Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static RestAssuredConfig TIMEOUTS;
+
+    //recorded responses for @Replayable classes, opened when -Dcassette (or cassette= in config) names a file
+    protected static Cassette CASSETTE;
+    private static RequestKey CASSETTE_KEYS;
 
     @BeforeSuite //runs once before all tests in the suite
     public void globalSetUp() throws IOException{
@@ -36,36 +74,104 @@ public class BaseTest {
         //override properties with system properties if provided
         BASE_URL = System.getProperty("baseUrl", CONFIG.getProperty("baseUrl"));
         APP_ID   = System.getProperty("appid",   CONFIG.getProperty("appid"));
+        System.out.println("[info] test data seed " + DATA_SEED + " (rerun with -DdataSeed=" + DATA_SEED + ")");
+        REQUEST_TIMEOUT = Duration.parse(System.getProperty("requestTimeout", CONFIG.getProperty("requestTimeout", "PT30S")));
+        int timeoutMillis = (int) REQUEST_TIMEOUT.toMillis();
+        TIMEOUTS = RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig()
+                .setParam("http.connection.timeout", timeoutMillis)
+                .setParam("http.socket.timeout", timeoutMillis));
 
-        //initialize faker with South African locale
-        faker = new Faker(new Locale("en-ZA"));
+        //run against the loopback stand-in instead of the live API if requested
+        if (Boolean.parseBoolean(System.getProperty("localServer", CONFIG.getProperty("localServer", "false")))) {
+            localServer = StationsServer.start(APP_ID);
+            BASE_URL = localServer.baseUri().toString();
+        }
 
-        //set up RestAssured with base URL and logging to help debug test failures
-        RestAssured.baseURI = BASE_URL;
+        //set up RestAssured logging to help debug test failures (base URL is applied per request via given())
         RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
+
+        //expose request metrics over JMX, and as Prometheus text when -DmetricsPort is given
+        METRICS.registerMBeans("rest-assured");
+        String metricsPort = System.getProperty("metricsPort");
+        if (metricsPort != null) {
+            metricsEndpoint = PrometheusEndpoint.start(METRICS, Integer.parseInt(metricsPort));
+            System.out.println("[info] metrics at " + metricsEndpoint.uri());
+        }
+
+        //record/replay: refresh (default) replays fresh recordings and records missing or stale ones, replay never goes live
+        String cassette = System.getProperty("cassette", CONFIG.getProperty("cassette", ""));
+        if (!cassette.isBlank()) {
+            String maxAge = System.getProperty("cassetteMaxAge", CONFIG.getProperty("cassetteMaxAge", ""));
+            CASSETTE = Cassette.builder(Path.of(cassette))
+                    .mode(CassetteMode.valueOf(System.getProperty("cassetteMode", CONFIG.getProperty("cassetteMode", "refresh")).toUpperCase(Locale.ROOT)))
+                    .maxAge(maxAge.isBlank() ? null : Duration.parse(maxAge))
+                    .build();
+            //the appid never reaches the file; generated values are masked, boundary and out-of-range values stay in the key
+            CASSETTE_KEYS = RequestKey.builder()
+                    .secret("appid", APP_ID)
+                    .mask("external_id", "name")
+                    .maskWithin("latitude", -90, 90)
+                    .maskWithin("longitude", -180, 180)
+                    .maskWithin("altitude", 0, 9000)
+                    .build();
+        }
     }
+
+    @AfterSuite(alwaysRun = true) //prints request metrics and stops the local stand-in server, if one was started
+    public void globalTearDown() {
+        METRICS.print(System.out);
+        METRICS.unregisterMBeans("rest-assured");
+        if (CASSETTE != null) {
+            CassetteStats stats = CASSETTE.stats();
+            System.out.println("[info] cassette: " + stats.hits() + " replayed, " + stats.recorded() + " recorded, "
+                    + stats.entries() + " entries");
+            CASSETTE.close();
+            CASSETTE = null;
+        }
+        if (metricsEndpoint != null) {
+            metricsEndpoint.close();
+            metricsEndpoint = null;
+        }
+        if (localServer != null) {
+            localServer.close();
+            localServer = null;
+        }
+    }
+    //starts a request against BASE_URL; use instead of RestAssured.given() so tests don't share global state
+    protected RequestSpecification given() {
+        if (spec == null) {
+            RequestSpecBuilder b = new RequestSpecBuilder().setBaseUri(BASE_URL).setConfig(TIMEOUTS);
+            //ahead of the metrics filter, so replayed responses don't count as traffic
+            if (CASSETTE != null && getClass().isAnnotationPresent(Replayable.class)) b.addFilter(new CassetteFilter(CASSETTE, CASSETTE_KEYS));
+            spec = b.addFilter(new MetricsFilter(METRICS)).build();
+        }
+        return RestAssured.given().spec(spec);
+    }
+
     //helper methods to construct common query parameters
     protected String appIdQuery() { return "?appid=" + APP_ID; }
     protected ContentType JSON() { return ContentType.JSON; }//to specify JSON content type
 
-    // ---- Helpers: numeric-safe generators (avoid comma decimals) ----
+    // ---- Helpers: numeric-safe generators (avoid comma decimals), each call draws the thread's next index ----
+    protected long nextIndex() { return DATA_CURSOR.get().next(); }
     protected double randLat() {
-        // randomDouble(maxDecimals, minInt, maxInt)
-        return faker.number().randomDouble(6, -90, 90);
+        // 6 decimals in [-90, 90]
+        return DATA.latitude(nextIndex());
     }
     protected double randLon() {
-        return faker.number().randomDouble(6, -180, 180);
+        return DATA.longitude(nextIndex());
     }
     protected int randAlt() {
-        return faker.number().numberBetween(5, 5000);
+        return DATA.altitude(nextIndex());
     }
+    protected String digits(int n) { return DATA.digits(nextIndex(), n); }
+    protected String cityName() { return DATA.place(nextIndex()); }
+    protected String stationName() { return DATA.name(nextIndex()); }
 
-    // --- Robust extractor: accepts "id" or "ID" from API ---
+    // --- Robust extractor: accepts "id" or "ID" from API (POST/PUT sometimes return "ID") ---
+    // pulls the single field off the raw bytes instead of materializing a JsonPath map
     protected String extractStationId(Response r) {
-        Map<String, Object> json = r.jsonPath().getMap("$");
-        Object v = json.get("id");
-        if (v == null) v = json.get("ID");  // POST/PUT sometimes returns "ID"
-        return v == null ? null : v.toString();
+        return StationCodec.readId(r.asByteArray());
     }
 
     // --- Assertion helper to accept either casing in response ---
@@ -0,0 +1,186 @@
+package openWeather;
+
+import org.example.bulk.AdaptiveLimiter;
+import org.example.bulk.BulkProvisioner;
+import org.example.bulk.ProvisionReport;
+import org.example.bulk.StationCsv;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.server.FaultProfile;
+import org.example.server.StationRecord;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Test class for the bulk provisioning pipeline, run against a dedicated loopback server
+public class BulkProvisionerTest extends BaseTest {
+    private static final int STATIONS = 300;
+
+    private StationsServer server;
+    private StationsClient client;
+    private Path csv;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+
+        List<String> lines = new ArrayList<>();
+        lines.add("external_id,name,latitude,longitude,altitude");
+        for (int i = 0; i < STATIONS; i++) {
+            lines.add(String.format("BULK_%05d,\"Station, %s\",%s,%s,%s",
+                    i, cityName(), randLat(), randLon(), randAlt()));
+        }
+        csv = Files.createTempFile("stations", ".csv");
+        Files.write(csv, lines);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() throws IOException {
+        server.close();
+        Files.deleteIfExists(csv);
+    }
+
+    //---------Test that every CSV row is created exactly once---------
+    @Test(priority = 1)
+    public void provision_createsAllStations() throws Exception {
+        ProvisionReport report;
+        try (Stream<Station> defs = StationCsv.read(csv)) {
+            report = BulkProvisioner.builder(client).initialConcurrency(8).maxConcurrency(32).build()
+                    .run(defs.iterator());
+        }
+
+        Assert.assertEquals(report.submitted(), STATIONS);
+        Assert.assertEquals(report.created(), STATIONS, report.failures().toString());
+        Assert.assertEquals(report.failed(), 0);
+        Assert.assertEquals(server.store().size(), STATIONS);
+    }
+
+    //---------Test that re-running the same file is idempotent by external_id---------
+    @Test(priority = 2, dependsOnMethods = "provision_createsAllStations")
+    public void rerun_skipsExistingExternalIds() throws Exception {
+        ProvisionReport report;
+        try (Stream<Station> defs = StationCsv.read(csv)) {
+            report = BulkProvisioner.builder(client).build().run(defs.iterator());
+        }
+
+        Assert.assertEquals(report.skipped(), STATIONS);
+        Assert.assertEquals(report.created(), 0);
+        Assert.assertEquals(server.store().size(), STATIONS, "no duplicates may be created");
+    }
+
+    //---------Test the quoted-field CSV parsing---------
+    @Test
+    public void csvLine_withQuotedComma() {
+        Station s = StationCsv.parseLine("ST_1,\"Cape Town, \"\"CBD\"\"\",-33.9,18.4,25");
+        Assert.assertEquals(s.name(), "Cape Town, \"CBD\"");
+        Assert.assertEquals(s.altitude(), 25.0);
+    }
+
+    //---------Test that the limiter halves on overload and grows back on success---------
+    @Test
+    public void limiter_aimd() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(32, 1, 64, 0, TimeUnit.MILLISECONDS);
+        limiter.onOverload();
+        Assert.assertEquals(limiter.limit(), 16);
+        for (int i = 0; i < 20; i++) limiter.onSuccess();
+        Assert.assertEquals(limiter.limit(), 17);
+        for (int i = 0; i < 10; i++) limiter.onOverload();
+        Assert.assertEquals(limiter.limit(), 1, "limit must not drop below the floor");
+    }
+
+    /** {@code n} fresh definitions, provisioned against a server of their own so faults stay local to the test. */
+    private List<Station> definitions(int n) {
+        return LongStream.range(0, n).mapToObj(i -> DATA.station(nextIndex())).toList();
+    }
+
+    private static Set<String> remoteExternalIds(StationsServer server) {
+        return server.store().all().stream().map(StationRecord::externalId).collect(Collectors.toSet());
+    }
+
+    //---------Test that 429s back off and are retried until every station is created---------
+    @Test
+    public void throttled_backsOffAndCreatesAll() throws Exception {
+        try (StationsServer server = StationsServer.start(APP_ID)) {
+            server.injectFaults(FaultProfile.builder().seed(3).throttle(0.2, Duration.ofSeconds(1)).build());
+            List<Station> defs = definitions(40);
+            ProvisionReport report = BulkProvisioner.builder(StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build())
+                    .initialConcurrency(8).maxAttempts(20).skipExisting(false).build()
+                    .run(defs.iterator());
+
+            Assert.assertEquals(report.failed(), 0, report.failures().toString());
+            Assert.assertEquals(report.created(), 40);
+            Assert.assertTrue(report.retries() > 0, "some requests were throttled: " + report);
+            Assert.assertEquals(server.store().size(), 40);
+            Assert.assertEquals(remoteExternalIds(server), defs.stream().map(Station::externalId).collect(Collectors.toSet()));
+        }
+    }
+
+    //---------Test that a definition still throttled after maxAttempts is reported as failed---------
+    @Test
+    public void throttled_givesUpAfterMaxAttempts() throws Exception {
+        try (StationsServer server = StationsServer.start(APP_ID)) {
+            server.injectFaults(FaultProfile.builder().throttle(1.0, Duration.ofSeconds(1)).build());
+            ProvisionReport report = BulkProvisioner.builder(StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build())
+                    .initialConcurrency(8).maxAttempts(2).skipExisting(false).build()
+                    .run(definitions(10).iterator());
+
+            Assert.assertEquals(report.failed(), 10);
+            Assert.assertEquals(report.created(), 0);
+            Assert.assertTrue(report.failures().stream().allMatch(f -> f.reason().startsWith("rate limited")), report.failures().toString());
+            Assert.assertEquals(server.store().size(), 0);
+        }
+    }
+
+    //---------Test that creates failing with 5xx are confirmed by external_id and re-driven without duplicates---------
+    @Test
+    public void serverErrors_reDrivenWithoutDuplicates() throws Exception {
+        try (StationsServer server = StationsServer.start(APP_ID)) {
+            server.injectFaults(FaultProfile.builder().seed(5).serverErrors(0.2).build());
+            List<Station> defs = definitions(60);
+            ProvisionReport report = BulkProvisioner.builder(StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build())
+                    .initialConcurrency(8).maxRounds(10).skipExisting(false).build()
+                    .run(defs.iterator());
+
+            Assert.assertEquals(report.failed(), 0, report.failures().toString());
+            Assert.assertEquals(report.created(), 60);
+            Assert.assertTrue(report.retries() > 0, "some creates were re-driven: " + report);
+            Assert.assertEquals(server.store().size(), 60, "no duplicates");
+            Assert.assertEquals(remoteExternalIds(server), defs.stream().map(Station::externalId).collect(Collectors.toSet()));
+        }
+    }
+
+    //---------Test that creates still unconfirmed when the retry rounds run out are reported as failed---------
+    @Test
+    public void serverErrors_failWhenRoundsRunOut() throws Exception {
+        try (StationsServer server = StationsServer.start(APP_ID)) {
+            // one request at a time, so the seeded draws line up: with seed 5 requests 0-2 and 4-6
+            // (the creates of both rounds) fail and 3 and 7 (the confirming listings) succeed
+            server.injectFaults(FaultProfile.builder().seed(5).serverErrors(0.8).build());
+            ProvisionReport report = BulkProvisioner.builder(StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build())
+                    .initialConcurrency(1).maxConcurrency(1).maxRounds(2).skipExisting(false).build()
+                    .run(definitions(3).iterator());
+
+            Assert.assertEquals(report.created(), 0);
+            Assert.assertEquals(report.failed(), 3, "every station is accounted for: " + report);
+            Assert.assertTrue(report.failures().stream().allMatch(f -> f.reason().equals("unconfirmed after 2 rounds")),
+                    report.failures().toString());
+            Assert.assertEquals(server.faultStats().requests(), 8);
+            Assert.assertEquals(server.store().size(), 0);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package openWeather;
+
+import org.example.cache.CacheStats;
+import org.example.client.CachingStationsClient;
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.server.FaultProfile;
+import org.example.server.Latency;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+// Test class for the read-through station cache, run against a dedicated loopback server
+public class CachingStationsClientTest extends BaseTest {
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private Station newStation() {
+        return Station.of("ST_" + digits(6), "Cached_" + cityName(),
+                randLat(), randLon(), randAlt());
+    }
+
+    //---------Test that a second read of a fresh entry is served from the cache---------
+    @Test
+    public void repeatedGet_isHit() {
+        CachingStationsClient cache = new CachingStationsClient(client, 100, Duration.ofMinutes(1));
+        String id = client.create(newStation()).id();
+
+        Station first = cache.get(id);
+        Station second = cache.get(id);
+
+        Assert.assertEquals(second, first);
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(stats.misses(), 1);
+        Assert.assertEquals(stats.hits(), 1);
+    }
+
+    //---------Test that stale entries are revalidated with a conditional GET (304)---------
+    @Test
+    public void staleEntry_isRevalidated_thenRefetchedWhenChanged() throws Exception {
+        CachingStationsClient cache = new CachingStationsClient(client, 100, Duration.ofMillis(1));
+        Station created = client.create(newStation());
+
+        cache.get(created.id());
+        Thread.sleep(5);
+        cache.get(created.id());
+        Assert.assertEquals(cache.stats().revalidations(), 1, "unchanged station should be confirmed by 304");
+
+        // another writer changes the station behind the cache's back
+        Station changed = client.update(created.id(), Station.of(created.externalId(), "Renamed", 1, 2, 3));
+        Thread.sleep(5);
+        Assert.assertEquals(cache.get(created.id()).name(), changed.name());
+        Assert.assertEquals(cache.stats().misses(), 2);
+    }
+
+    //---------Test that a miss never joins an in-flight revalidation and gets its bodiless 304---------
+    @Test
+    public void missDuringRevalidation_fetchesTheBody() throws Exception {
+        try (StationsServer slow = StationsServer.start(APP_ID)) {
+            StationsClient slowClient = StationsClient.builder().baseUri(slow.baseUri()).appId(APP_ID).build();
+            CachingStationsClient cache = new CachingStationsClient(slowClient, 100, Duration.ofMillis(1));
+            Station created = slowClient.create(newStation());
+            cache.get(created.id());
+            Thread.sleep(5);
+
+            slow.injectFaults(FaultProfile.builder().latency(Latency.fixed(Duration.ofMillis(300))).build());
+            CompletableFuture<Station> revalidation = cache.getAsync(created.id());
+            cache.invalidate(created.id());
+            Station missed = cache.get(created.id());
+
+            Assert.assertEquals(missed, created);
+            Assert.assertEquals(revalidation.join(), created);
+        }
+    }
+
+    //---------Test that a read in flight across this client's own update or delete never puts the old station back---------
+    @Test
+    public void readInFlightAcrossWrites_doesNotCacheStaleStation() throws Exception {
+        try (StationsServer slow = StationsServer.start(APP_ID)) {
+            StationsClient slowClient = StationsClient.builder().baseUri(slow.baseUri()).appId(APP_ID).build();
+            CachingStationsClient cache = new CachingStationsClient(slowClient, 100, Duration.ofMinutes(1));
+            Station created = slowClient.create(newStation());
+            FaultProfile slowBody = FaultProfile.builder().slowBody(1.0, 16, Duration.ofMillis(20)).build();
+
+            // the server reads the station at once, then trickles the old body out after the update
+            CompletableFuture<Station> beforeUpdate = readStarted(slow, slowBody, cache, created.id());
+            Station renamed = cache.update(created.id(), Station.of(created.externalId(), "Renamed", 1, 2, 3));
+            Assert.assertEquals(cache.get(created.id()), renamed, "read after the update must not join the old fetch");
+            Assert.assertEquals(beforeUpdate.join(), created);
+            Assert.assertEquals(cache.get(created.id()), renamed, "old fetch finished after the update and was cached");
+
+            cache.invalidate(created.id());
+            CompletableFuture<Station> beforeDelete = readStarted(slow, slowBody, cache, created.id());
+            cache.delete(created.id());
+            Assert.assertTrue(Assert.expectThrows(StationsApiException.class, () -> cache.get(created.id())).isNotFound());
+            Assert.assertEquals(beforeDelete.join().name(), "Renamed");
+            Assert.assertTrue(Assert.expectThrows(StationsApiException.class, () -> cache.get(created.id())).isNotFound(),
+                    "old fetch finished after the delete and was cached");
+        }
+    }
+
+    /** Starts a read of {@code id} under {@code profile}, then switches faults off once the server has taken it. */
+    private static CompletableFuture<Station> readStarted(StationsServer server, FaultProfile profile,
+                                                          CachingStationsClient cache, String id) throws InterruptedException {
+        long before = server.faultStats().slowBodies();
+        server.injectFaults(profile);
+        CompletableFuture<Station> read = cache.getAsync(id);
+        while (server.faultStats().slowBodies() == before) Thread.sleep(1);
+        server.injectFaults(FaultProfile.NONE);
+        return read;
+    }
+
+    //---------Test write-through: PUT updates the entry, DELETE drops it---------
+    @Test
+    public void writesThroughCache_updateAndInvalidate() {
+        CachingStationsClient cache = new CachingStationsClient(client, 100, Duration.ofMinutes(1));
+        Station created = cache.create(newStation());
+
+        Station updated = cache.update(created.id(), Station.of(created.externalId(), "Updated_name", 1, 2, 3));
+        Assert.assertEquals(cache.get(created.id()).name(), "Updated_name");
+        Assert.assertEquals(cache.stats().hits(), 1, "read after write must not go to the network");
+        Assert.assertEquals(updated.id(), created.id());
+
+        cache.delete(created.id());
+        StationsApiException e = Assert.expectThrows(StationsApiException.class, () -> cache.get(created.id()));
+        Assert.assertTrue(e.isNotFound());
+    }
+
+    //---------Test the cache never grows past its bound and keeps the hot key---------
+    @Test
+    public void boundedSize_evictsColdKeys() {
+        CachingStationsClient cache = new CachingStationsClient(client, 4, Duration.ofMinutes(1));
+        String hot = client.create(newStation()).id();
+        for (int i = 0; i < 5; i++) cache.get(hot);
+
+        for (int i = 0; i < 12; i++) cache.get(client.create(newStation()).id());
+
+        CacheStats stats = cache.stats();
+        Assert.assertTrue(stats.size() <= 4, "size " + stats.size());
+        Assert.assertTrue(stats.evictions() + stats.rejections() >= 9, stats.toString());
+        long hitsBefore = stats.hits();
+        cache.get(hot);
+        Assert.assertEquals(cache.stats().hits(), hitsBefore + 1, "frequently read station should survive eviction");
+    }
+}
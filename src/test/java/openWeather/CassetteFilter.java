@@ -0,0 +1,66 @@
+package openWeather;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.example.replay.Cassette;
+import org.example.replay.Recording;
+import org.example.replay.RequestKey;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//RestAssured filter answering requests from a Cassette, going to the server only for requests it has no usable recording of
+public class CassetteFilter implements Filter {
+    private final Cassette cassette;
+    private final RequestKey keys;
+
+    public CassetteFilter(Cassette cassette, RequestKey keys) {
+        this.cassette = cassette;
+        this.keys = keys;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        String key = keys.of(req.getMethod(), URI.create(req.getURI()), body(req.getBody()));
+        Recording hit = cassette.replay(key);
+        if (hit != null) return response(hit);
+
+        Response r = ctx.next(req, res);
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Header h : r.getHeaders()) headers.merge(h.getName(), h.getValue(), (a, b) -> a + ", " + b);
+        cassette.record(new Recording(key, r.statusCode(), headers, r.asByteArray(), System.currentTimeMillis()));
+        return r;
+    }
+
+    private static Response response(Recording hit) {
+        List<Header> headers = new ArrayList<>(hit.headers().size());
+        String contentType = null;
+        for (Map.Entry<String, String> h : hit.headers().entrySet()) {
+            headers.add(new Header(h.getKey(), h.getValue()));
+            if (h.getKey().equalsIgnoreCase("Content-Type")) contentType = h.getValue();
+        }
+        ResponseBuilder b = new ResponseBuilder()
+                .setStatusCode(hit.status())
+                .setStatusLine("HTTP/1.1 " + hit.status())
+                .setHeaders(new Headers(headers))
+                .setBody(hit.body());
+        if (contentType != null) b.setContentType(contentType);
+        return b.build();
+    }
+
+    private static byte[] body(Object body) {
+        if (body instanceof byte[] b) return b;
+        if (body instanceof String s) return s.getBytes(StandardCharsets.UTF_8);
+        return null;
+    }
+}
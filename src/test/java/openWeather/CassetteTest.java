@@ -0,0 +1,187 @@
+package openWeather;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.example.replay.Cassette;
+import org.example.replay.CassetteMode;
+import org.example.replay.Recording;
+import org.example.replay.RequestKey;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Test class for the record/replay cassette and its request normalization
+//singleThreaded keeps the per-method temp directory in setUp/tearDown from being deleted mid-test when methods run in parallel
+@Test(singleThreaded = true)
+public class CassetteTest extends BaseTest {
+    private static final RequestKey KEYS = RequestKey.builder()
+            .secret("appid", "SECRET")
+            .mask("external_id", "name")
+            .maskWithin("latitude", -90, 90)
+            .maskWithin("longitude", -180, 180)
+            .maskWithin("altitude", -500, 9000)
+            .build();
+
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cassette");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    private String missingLatitude() {
+        return String.format("{\"external_id\": \"NEG_%s\", \"name\": \"%s\", \"longitude\": %s, \"altitude\": %s}",
+                digits(4), stationName(), randLon(), randAlt());
+    }
+
+    private static RequestSpecification through(URI base, Cassette cassette) {
+        return RestAssured.given().baseUri(base.toString()).filter(new CassetteFilter(cassette, KEYS));
+    }
+
+    //---------Test that the key masks secrets and generated data but keeps what a negative test is about---------
+    @Test
+    public void requestKey_masksGeneratedValues() {
+        URI uri = URI.create("http://localhost/stations?b=2&appid=SECRET&a=1");
+        String a = KEYS.of("POST", uri, "{\"name\":\"x\",\"latitude\":12.5,\"longitude\":3}".getBytes(StandardCharsets.UTF_8));
+        String b = KEYS.of("POST", uri, "{ \"longitude\": -170.25, \"latitude\": -80, \"name\": \"other\" }".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a, "POST /stations?a=1&appid=<secret>&b=2\n{\"latitude\":#,\"longitude\":#,\"name\":\"*\"}");
+
+        Assert.assertNotEquals(KEYS.of("POST", uri, "{\"latitude\":999.99}".getBytes(StandardCharsets.UTF_8)),
+                KEYS.of("POST", uri, "{\"latitude\":12}".getBytes(StandardCharsets.UTF_8)), "out-of-range value stays");
+        Assert.assertNotEquals(KEYS.of("POST", uri, "{\"latitude\":\"not-a-number\"}".getBytes(StandardCharsets.UTF_8)),
+                KEYS.of("POST", uri, "{\"latitude\":12}".getBytes(StandardCharsets.UTF_8)), "type mismatch stays");
+        Assert.assertNotEquals(KEYS.of("POST", uri, "{\"latitude\":12}".getBytes(StandardCharsets.UTF_8)),
+                KEYS.of("POST", uri, "{\"longitude\":12}".getBytes(StandardCharsets.UTF_8)), "missing field stays");
+
+        Assert.assertEquals(KEYS.of("POST", uri, "{\"latitude\":90,\"name\":\"\"}".getBytes(StandardCharsets.UTF_8)),
+                "POST /stations?a=1&appid=<secret>&b=2\n{\"latitude\":90,\"name\":\"\"}", "boundary and empty values stay");
+        Assert.assertTrue(KEYS.of("POST", uri, ("{\"name\":\"" + "x".repeat(500) + "\"}").getBytes(StandardCharsets.UTF_8))
+                .endsWith("{\"name\":\"*:500\"}"), "oversized strings keep their length");
+
+        String wrongKey = KEYS.of("GET", URI.create("http://localhost/stations?appid=INVALID_KEY"), null);
+        Assert.assertEquals(wrongKey, "GET /stations?appid=<other>");
+        Assert.assertNotEquals(wrongKey, KEYS.of("GET", URI.create("http://localhost/stations"), null));
+        Assert.assertEquals(KEYS.of("POST", uri, "{ oops".getBytes(StandardCharsets.UTF_8)).lines().skip(1).findFirst().orElse(""), "{ oops");
+    }
+
+    //---------Test that recorded negative cases replay with freshly generated data after the server is gone---------
+    @Test
+    public void recordThenReplay_withoutServer() throws Exception {
+        Path file = dir.resolve("neg.cassette");
+        StationsServer server = StationsServer.start("SECRET");
+        int live;
+        try (Cassette cassette = Cassette.builder(file).build()) {
+            Response r = through(server.baseUri(), cassette).contentType(JSON()).body(missingLatitude()).post("/stations?appid=SECRET");
+            live = r.statusCode();
+            through(server.baseUri(), cassette).get("/stations?appid=INVALID_KEY").then().statusCode(401);
+            Assert.assertEquals(cassette.stats().recorded(), 2);
+        } finally {
+            server.close();
+        }
+        Assert.assertTrue(Files.exists(dir.resolve("neg.cassette.idx")));
+        Assert.assertFalse(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).contains("SECRET"), "appid leaked");
+
+        try (Cassette cassette = Cassette.builder(file).mode(CassetteMode.REPLAY).build()) {
+            Response r = through(server.baseUri(), cassette).contentType(JSON()).body(missingLatitude()).post("/stations?appid=SECRET");
+            Assert.assertEquals(r.statusCode(), live);
+            through(server.baseUri(), cassette).get("/stations?appid=INVALID_KEY").then().statusCode(401);
+            Assert.expectThrows(IllegalStateException.class,
+                    () -> through(server.baseUri(), cassette).get("/stations?appid=SECRET&unrecorded=1"));
+            Assert.assertEquals(cassette.stats().hits(), 2);
+            Assert.assertEquals(cassette.stats().entries(), 2);
+        }
+    }
+
+    //---------Test that refresh mode re-records only stale entries---------
+    @Test
+    public void refresh_reRecordsOnlyStale() throws Exception {
+        Path file = dir.resolve("stale.cassette");
+        try (Cassette cassette = Cassette.builder(file).build()) {
+            cassette.record(new Recording("GET /old", 200, Map.of(), "old".getBytes(StandardCharsets.UTF_8), System.currentTimeMillis() - 60_000));
+            cassette.record(new Recording("GET /new", 200, Map.of(), "new".getBytes(StandardCharsets.UTF_8), System.currentTimeMillis()));
+        }
+        try (Cassette cassette = Cassette.builder(file).maxAge(Duration.ofSeconds(30)).build()) {
+            Assert.assertNull(cassette.replay("GET /old"), "stale entry goes live");
+            Assert.assertEquals(new String(cassette.replay("GET /new").body(), StandardCharsets.UTF_8), "new");
+            cassette.record(new Recording("GET /old", 200, Map.of(), "fresh".getBytes(StandardCharsets.UTF_8), System.currentTimeMillis()));
+            Assert.assertEquals(new String(cassette.replay("GET /old").body(), StandardCharsets.UTF_8), "fresh");
+            Assert.assertEquals(cassette.stats().entries(), 2);
+        }
+        try (Cassette cassette = Cassette.builder(file).mode(CassetteMode.REPLAY).build()) {
+            Assert.assertEquals(new String(cassette.find("GET /old").body(), StandardCharsets.UTF_8), "fresh", "newest entry wins");
+        }
+    }
+
+    //---------Test that a torn tail is cut off and a missing index is rebuilt---------
+    @Test
+    public void tornTail_andMissingIndex_recover() throws Exception {
+        Path file = dir.resolve("torn.cassette");
+        try (Cassette cassette = Cassette.builder(file).build()) {
+            for (int i = 0; i < 10; i++) {
+                cassette.record(new Recording("GET /s/" + i, 200, Map.of("Content-Type", "application/json"),
+                        ("{\"i\":" + i + "}").getBytes(StandardCharsets.UTF_8), System.currentTimeMillis()));
+            }
+        }
+        long intact = Files.size(file);
+        Files.write(file, new byte[]{40, 0, 0, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+        Files.delete(dir.resolve("torn.cassette.idx"));
+        try (Cassette cassette = Cassette.builder(file).mode(CassetteMode.REPLAY).build()) {
+            Assert.assertEquals(Files.size(file), intact);
+            Assert.assertEquals(cassette.stats().entries(), 10);
+            Recording r = cassette.find("GET /s/7");
+            Assert.assertEquals(new String(r.body(), StandardCharsets.UTF_8), "{\"i\":7}");
+            Assert.assertEquals(r.headers().get("Content-Type"), "application/json");
+        }
+    }
+
+    //---------Test that replay serves many threads at once from the mapped index---------
+    @Test
+    public void replay_isParallel() throws Exception {
+        Path file = dir.resolve("parallel.cassette");
+        try (Cassette cassette = Cassette.builder(file).build()) {
+            for (int i = 0; i < 2_000; i++) {
+                cassette.record(new Recording("GET /s/" + i, 200, Map.of(), Integer.toString(i).getBytes(StandardCharsets.UTF_8), System.currentTimeMillis()));
+            }
+        }
+        try (Cassette cassette = Cassette.builder(file).mode(CassetteMode.REPLAY).build();
+             ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<Integer>> results = IntStream.range(0, 8).mapToObj(t -> pool.submit(() -> {
+                int ok = 0;
+                for (int i = t; i < 2_000; i += 8) {
+                    if (new String(cassette.replay("GET /s/" + i).body(), StandardCharsets.UTF_8).equals(Integer.toString(i))) ok++;
+                }
+                return ok;
+            })).collect(Collectors.toList());
+            int ok = 0;
+            for (Future<Integer> f : results) ok += f.get();
+            Assert.assertEquals(ok, 2_000);
+            Assert.assertEquals(cassette.stats().hits(), 2_000);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package openWeather;
+
+import org.example.bulk.CatalogReconciler;
+import org.example.bulk.Change;
+import org.example.bulk.SyncPlan;
+import org.example.bulk.SyncReport;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.gen.StationGenerator;
+import org.example.server.StationRecord;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Test class for catalog reconciliation, run against a dedicated loopback server seeded with REMOTE stations
+//singleThreaded keeps the per-method loopback server in setUp/tearDown from being swapped out mid-test when methods run in parallel
+@Test(singleThreaded = true)
+public class CatalogReconcilerTest extends BaseTest {
+    private static final int REMOTE = 5_000;
+    private static final int NEW = 100;
+
+    private final StationGenerator catalogData = new StationGenerator(21);
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < REMOTE; i++) {
+            Station s = catalogData.station(i);
+            server.store().put(new StationRecord(server.store().nextId(), s.externalId(), s.name(),
+                    s.latitude(), s.longitude(), s.altitude(), now, now));
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    /** Every 50 rows: one renamed, one moved up 10 m, one dropped; then NEW stations appended. */
+    private List<Station> editedCatalog() {
+        List<Station> catalog = new ArrayList<>(REMOTE + NEW);
+        for (int i = 0; i < REMOTE; i++) {
+            Station s = catalogData.station(i);
+            switch (i % 50) {
+                case 0 -> catalog.add(Station.of(s.externalId(), s.name() + " Renamed", s.latitude(), s.longitude(), s.altitude()));
+                case 1 -> catalog.add(Station.of(s.externalId(), s.name(), s.latitude(), s.longitude(), s.altitude() + 10));
+                case 2 -> { }
+                default -> catalog.add(s);
+            }
+        }
+        for (int i = REMOTE; i < REMOTE + NEW; i++) catalog.add(catalogData.station(i));
+        return catalog;
+    }
+
+    private CatalogReconciler reconciler() {
+        return CatalogReconciler.builder(client).initialConcurrency(16).maxConcurrency(64).build();
+    }
+
+    private void assertRemoteMatches(List<Station> catalog) {
+        Map<String, StationRecord> remote = new HashMap<>();
+        for (StationRecord r : server.store().all()) {
+            Assert.assertNull(remote.put(r.externalId(), r), "duplicate external_id " + r.externalId());
+        }
+        Assert.assertEquals(remote.size(), catalog.size());
+        for (Station s : catalog) {
+            StationRecord r = remote.get(s.externalId());
+            Assert.assertNotNull(r, s.externalId());
+            Assert.assertEquals(r.name(), s.name());
+            Assert.assertEquals(r.altitude(), s.altitude(), 1e-9);
+        }
+    }
+
+    //---------Test that the plan holds only the creates, field-level updates and deletes that differ---------
+    @Test
+    public void plan_isMinimal_andDryRunTouchesNothing() {
+        SyncPlan plan = reconciler().plan(editedCatalog().iterator());
+
+        Assert.assertEquals(plan.count(Change.Kind.CREATE), NEW);
+        Assert.assertEquals(plan.count(Change.Kind.UPDATE), 2 * REMOTE / 50);
+        Assert.assertEquals(plan.count(Change.Kind.DELETE), REMOTE / 50);
+        Assert.assertEquals(plan.unchanged(), REMOTE - 3 * REMOTE / 50);
+        for (Change c : plan.changes()) {
+            if (c.kind() != Change.Kind.UPDATE) continue;
+            Assert.assertNotNull(c.id());
+            Assert.assertTrue(c.fields().equals(Set.of(Change.Field.NAME)) || c.fields().equals(Set.of(Change.Field.ALTITUDE)),
+                    c.toString());
+        }
+        Assert.assertEquals(server.store().size(), REMOTE, "planning must not write");
+
+        SyncPlan keep = CatalogReconciler.builder(client).deletes(false).build().plan(editedCatalog().iterator());
+        Assert.assertEquals(keep.count(Change.Kind.DELETE), 0);
+    }
+
+    //---------Test that applying the plan converges in one pass and a second plan is empty---------
+    @Test
+    public void apply_converges() throws Exception {
+        List<Station> catalog = editedCatalog();
+        CatalogReconciler reconciler = reconciler();
+        SyncPlan plan = reconciler.plan(catalog.iterator());
+        SyncReport report = reconciler.apply(plan);
+        System.out.println("[info] sync " + report);
+
+        Assert.assertEquals(report.failed(), 0, report.failures().toString());
+        Assert.assertEquals(report.created(), NEW);
+        Assert.assertEquals(report.updated(), 2 * REMOTE / 50);
+        Assert.assertEquals(report.deleted(), REMOTE / 50);
+        assertRemoteMatches(catalog);
+        Assert.assertTrue(reconciler.plan(catalog.iterator()).isEmpty(), "second sync has nothing to do");
+    }
+
+    //---------Test that a saved plan interrupted mid-run resumes from its journal without creating duplicates---------
+    @Test
+    public void savedPlan_resumesAfterCrash() throws Exception {
+        // 1500 creates up front, so the crash after 1024 submissions lands among them
+        List<Station> catalog = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) catalog.add(catalogData.station(REMOTE + NEW + i));
+        catalog.addAll(editedCatalog());
+        Path file = Files.createTempFile("sync", ".plan");
+        Path journal = Path.of(file + ".journal");
+        try {
+            reconciler().plan(catalog.iterator()).write(file);
+            SyncPlan plan = SyncPlan.read(file);
+            Assert.assertEquals(plan.toString(), reconciler().plan(catalog.iterator()).toString(), "plan file round-trips");
+
+            Files.write(journal, new byte[16]);
+            Assert.expectThrows(IllegalStateException.class, () -> reconciler().apply(plan, journal));
+            Files.delete(journal);
+
+            CatalogReconciler crashing = CatalogReconciler.builder(client).initialConcurrency(16).maxConcurrency(64)
+                    .progress(r -> {
+                        throw new IllegalStateException("simulated crash");
+                    })
+                    .build();
+            Assert.expectThrows(IllegalStateException.class, () -> crashing.apply(plan, journal));
+            long applied = (Files.size(journal) - 16) / 4;
+            Assert.assertTrue(applied >= 1024 && applied < plan.changes().size(), "crashed mid-run after " + applied);
+            // lose the last whole entry and tear the one before, as if the process died mid-write:
+            // two applied creates are now missing from the journal
+            try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                ch.truncate(ch.size() - 6);
+            }
+
+            SyncReport report = reconciler().apply(plan, journal);
+            System.out.println("[info] resumed " + report);
+            Assert.assertEquals(report.failed(), 0, report.failures().toString());
+            Assert.assertEquals(report.resumed(), applied, "journalled rows plus the confirmed creates");
+            Assert.assertEquals(report.created() + report.updated() + report.deleted(), plan.changes().size() - applied);
+            Assert.assertFalse(Files.exists(journal), "journal removed after a clean run");
+            assertRemoteMatches(catalog);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    //---------Test that a duplicated external_id is rejected locally and cleaned up remotely---------
+    @Test
+    public void duplicates_rejectedLocally_deletedRemotely() throws Exception {
+        List<Station> catalog = editedCatalog();
+        catalog.add(catalog.get(7));
+        Assert.expectThrows(IllegalArgumentException.class, () -> reconciler().plan(catalog.iterator()));
+
+        Station copy = catalogData.station(3);
+        String copyId = client.create(copy).id();
+        catalog.remove(catalog.size() - 1);
+        SyncPlan plan = reconciler().plan(catalog.iterator());
+        Assert.assertEquals(plan.count(Change.Kind.DELETE), REMOTE / 50 + 1);
+        Assert.assertEquals(reconciler().apply(plan).failed(), 0);
+        assertRemoteMatches(catalog);
+        Assert.assertTrue(server.store().get(copyId) != null ^ plan.changes().stream()
+                .anyMatch(c -> c.kind() == Change.Kind.DELETE && copyId.equals(c.id())), "exactly one copy deleted");
+    }
+}
@@ -0,0 +1,206 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+import org.example.metrics.EndpointStats;
+import org.example.metrics.PrometheusEndpoint;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+// Test class for per-endpoint client metrics
+public class ClientMetricsTest extends BaseTest {
+    private StationsServer server;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private StationsClient client(ClientMetrics metrics) {
+        return StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).metrics(metrics).build();
+    }
+
+    private Station newStation() {
+        return new Station(null, "EXT_" + digits(8), cityName(), randLat(), randLon(), randAlt());
+    }
+
+    //---------Test that requests are classified into endpoints by method and path---------
+    @Test
+    public void endpoint_classification() {
+        Assert.assertEquals(Endpoint.of("POST", "/data/3.0/stations"), Endpoint.CREATE);
+        Assert.assertEquals(Endpoint.of("GET", "http://h:1/data/3.0/stations?appid=x"), Endpoint.LIST);
+        Assert.assertEquals(Endpoint.of("GET", "/data/3.0/stations/stations1?appid=x"), Endpoint.READ);
+        Assert.assertEquals(Endpoint.of("PUT", "/data/3.0/stations/abc"), Endpoint.UPDATE);
+        Assert.assertEquals(Endpoint.of("DELETE", "/data/3.0/stations/abc"), Endpoint.DELETE);
+        Assert.assertEquals(Endpoint.of("POST", "/data/3.0/measurements?appid=x"), Endpoint.POST_MEASUREMENTS);
+        Assert.assertEquals(Endpoint.of("GET", "/data/3.0/weather?q=x"), Endpoint.OTHER);
+        Assert.assertEquals(Endpoint.of("GET", "/data/2.5/weather?lat=1&lon=2"), Endpoint.WEATHER);
+        Assert.assertEquals(Endpoint.of("POST", "/data/2.5/weather"), Endpoint.OTHER);
+        Assert.assertEquals(Endpoint.of("DELETE", "/data/3.0/stations"), Endpoint.OTHER);
+    }
+
+    //---------Test that the client records statuses, bytes and latency per endpoint---------
+    @Test
+    public void client_recordsEachEndpoint() {
+        ClientMetrics metrics = new ClientMetrics();
+        StationsClient client = client(metrics);
+        Station created = client.create(newStation());
+        client.get(created.id());
+        client.update(created.id(), newStation());
+        client.list();
+        client.delete(created.id());
+        Assert.expectThrows(StationsApiException.class, () -> client.get(created.id()));
+
+        EndpointStats create = metrics.stats(Endpoint.CREATE);
+        Assert.assertEquals(create.requests(), 1);
+        Assert.assertEquals(create.status(201), 1);
+        Assert.assertTrue(create.bytesSent() > 0);
+        Assert.assertTrue(create.bytesReceived() > 0);
+        Assert.assertEquals(create.latency().getTotalCount(), 1);
+
+        EndpointStats read = metrics.stats(Endpoint.READ);
+        Assert.assertEquals(read.requests(), 2);
+        Assert.assertEquals(read.status(200), 1);
+        Assert.assertEquals(read.status(404), 1);
+        Assert.assertEquals(read.bytesSent(), 0);
+
+        Assert.assertEquals(metrics.stats(Endpoint.UPDATE).status(200), 1);
+        Assert.assertEquals(metrics.stats(Endpoint.DELETE).status(204), 1);
+        Assert.assertEquals(metrics.stats(Endpoint.LIST).status(200), 1);
+        Assert.assertEquals(metrics.stats(Endpoint.POST_MEASUREMENTS).requests(), 0);
+    }
+
+    //---------Test that streamed list bodies are counted once read---------
+    @Test
+    public void client_countsStreamedBytes() {
+        ClientMetrics metrics = new ClientMetrics();
+        StationsClient client = client(metrics);
+        client.create(newStation());
+        try (var stations = client.stream()) {
+            Assert.assertTrue(stations.count() > 0);
+        }
+        EndpointStats list = metrics.stats(Endpoint.LIST);
+        Assert.assertEquals(list.status(200), 1);
+        Assert.assertTrue(list.bytesReceived() > 0);
+    }
+
+    //---------Test that the 200 + HTML "Request forbidden" page is told apart from JSON---------
+    @Test
+    public void forbiddenHtmlPage_isDetected() {
+        byte[] html = "\n<html><head><title>Request Rejected</title></head><body>Request forbidden by administrative rules.</body></html>"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] json = "{\"message\":\"Request forbidden\"}".getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(ClientMetrics.isForbiddenPage(html, 0, html.length));
+        Assert.assertFalse(ClientMetrics.isForbiddenPage(json, 0, json.length));
+        Assert.assertFalse(ClientMetrics.isForbiddenPage(html, 0, 20));
+
+        ClientMetrics metrics = new ClientMetrics();
+        metrics.record(Endpoint.READ, 200, true, 1_000_000, 0, html.length);
+        Assert.assertEquals(metrics.stats(Endpoint.READ).forbiddenHtml(), 1);
+        Assert.assertTrue(metrics.prometheus().contains(
+                "stations_client_forbidden_html_total{method=\"GET\",endpoint=\"/stations/{id}\"} 1"));
+    }
+
+    //---------Test that the RestAssured filter records the same metrics---------
+    @Test
+    public void restAssuredFilter_records() {
+        ClientMetrics metrics = new ClientMetrics();
+        MetricsFilter filter = new MetricsFilter(metrics);
+        String base = server.baseUri().toString();
+        given().filter(filter).get(base + "/stations/000000000000000000000000?appid=" + APP_ID).then().statusCode(404);
+        given().filter(filter).get(base + "/stations").then().statusCode(401);
+        given().filter(filter).contentType(JSON()).body("{\"external_id\":\"EXT_RA\",\"name\":\"RA\",\"latitude\":1,\"longitude\":2,\"altitude\":3}")
+                .post(base + "/stations?appid=" + APP_ID).then().statusCode(201);
+
+        Assert.assertEquals(metrics.stats(Endpoint.READ).status(404), 1);
+        Assert.assertEquals(metrics.stats(Endpoint.LIST).status(401), 1);
+        EndpointStats create = metrics.stats(Endpoint.CREATE);
+        Assert.assertEquals(create.status(201), 1);
+        Assert.assertTrue(create.bytesSent() > 0);
+    }
+
+    //---------Test that metrics are published over JMX---------
+    @Test
+    public void jmx_exposesEndpointMBeans() throws Exception {
+        ClientMetrics metrics = new ClientMetrics();
+        String name = "jmx-test-" + System.nanoTime();
+        metrics.registerMBeans(name);
+        try {
+            metrics.record(Endpoint.DELETE, 204, false, 2_000_000, 0, 0);
+            metrics.recordRetry(Endpoint.DELETE);
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = ClientMetrics.objectName(name, Endpoint.DELETE);
+            Assert.assertEquals(mbs.getAttribute(on, "Requests"), 1L);
+            Assert.assertEquals(mbs.getAttribute(on, "Retries"), 1L);
+            Assert.assertEquals(mbs.getAttribute(on, "Method"), "DELETE");
+            Assert.assertTrue((Double) mbs.getAttribute(on, "LatencyMaxMillis") >= 1.9);
+        } finally {
+            metrics.unregisterMBeans(name);
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(ClientMetrics.objectName(name, Endpoint.DELETE)));
+    }
+
+    //---------Test that the Prometheus endpoint serves counters and histograms---------
+    @Test
+    public void prometheus_servesTextFormat() throws Exception {
+        ClientMetrics metrics = new ClientMetrics();
+        StationsClient client = client(metrics);
+        client.create(newStation());
+        metrics.recordRetry(Endpoint.CREATE);
+        try (PrometheusEndpoint endpoint = PrometheusEndpoint.start(metrics, 0)) {
+            HttpResponse<String> r = HttpClient.newHttpClient().send(HttpRequest.newBuilder(endpoint.uri()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(r.statusCode(), 200);
+            Assert.assertTrue(r.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+            String body = r.body();
+            Assert.assertTrue(body.contains("# TYPE stations_client_request_duration_seconds histogram"), body);
+            Assert.assertTrue(body.contains("stations_client_requests_total{method=\"POST\",endpoint=\"/stations\",status=\"201\"} 1"), body);
+            Assert.assertTrue(body.contains("stations_client_retries_total{method=\"POST\",endpoint=\"/stations\"} 1"), body);
+            Assert.assertTrue(body.contains("stations_client_request_duration_seconds_bucket{method=\"POST\",endpoint=\"/stations\",le=\"+Inf\"} 1"), body);
+            Assert.assertTrue(body.contains("stations_client_request_duration_seconds_count{method=\"POST\",endpoint=\"/stations\"} 1"), body);
+            Assert.assertFalse(body.contains("endpoint=\"/measurements\""), "idle endpoints are omitted");
+            Assert.assertEquals(URI.create(endpoint.uri().toString()).getPath(), "/metrics");
+        }
+    }
+
+    //---------Test that recording does not allocate once warmed up---------
+    @Test
+    public void record_doesNotAllocate() {
+        ClientMetrics metrics = new ClientMetrics();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Runnable burst = () -> {
+            for (int i = 0; i < 100_000; i++) {
+                Endpoint e = Endpoint.of("GET", "/data/3.0/stations/abc?appid=x");
+                metrics.record(e, 200 + (i & 3), false, 1_000L * (i & 0xFFFF), 0, 512);
+                metrics.recordRetry(e);
+            }
+        };
+        burst.run();
+        long tid = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        burst.run();
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+        Assert.assertTrue(allocated < 16 * 1024, "recording allocated " + allocated + " bytes");
+        Assert.assertEquals(metrics.stats(Endpoint.READ).requests(), 200_000);
+    }
+}
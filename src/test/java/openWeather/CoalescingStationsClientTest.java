@@ -0,0 +1,145 @@
+package openWeather;
+
+import org.example.cache.SingleFlight;
+import org.example.client.CoalescingStationsClient;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Test class for single-flight coalescing of station reads, run against a dedicated loopback server
+public class CoalescingStationsClientTest extends BaseTest {
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private Station newStation() {
+        return Station.of("ST_" + digits(6), "Coalesced_" + cityName(),
+                randLat(), randLon(), randAlt());
+    }
+
+    //---------Test that callers arriving while a load is in flight share it and its result---------
+    @Test
+    public void concurrentCallers_shareOneLoad() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            callers.add(flight.execute("k", k -> {
+                loads.incrementAndGet();
+                return pending;
+            }));
+        }
+        Assert.assertEquals(flight.inFlight(), 1);
+        pending.complete("v");
+
+        for (CompletableFuture<String> c : callers) Assert.assertEquals(c.join(), "v");
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(flight.calls(), 1);
+        Assert.assertEquals(flight.shared(), 9);
+        Assert.assertEquals(flight.inFlight(), 0);
+    }
+
+    //---------Test that a failure reaches every waiter and the next call starts a fresh load---------
+    @Test
+    public void failure_isShared_andNotRemembered() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> a = flight.execute("k", k -> pending);
+        CompletableFuture<String> b = flight.execute("k", k -> CompletableFuture.completedFuture("unused"));
+        pending.completeExceptionally(new IllegalStateException("boom"));
+
+        Assert.assertThrows(CompletionException.class, a::join);
+        Assert.assertThrows(CompletionException.class, b::join);
+        Assert.assertEquals(flight.execute("k", k -> CompletableFuture.completedFuture("retry")).join(), "retry");
+        Assert.assertEquals(flight.calls(), 2);
+    }
+
+    //---------Test that cancelling one caller's future does not cancel the shared load---------
+    @Test
+    public void cancellingOneCaller_leavesOthersWaiting() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> a = flight.execute("k", k -> pending);
+        CompletableFuture<String> b = flight.execute("k", k -> pending);
+
+        a.cancel(true);
+        pending.complete("v");
+
+        Assert.assertEquals(b.join(), "v");
+    }
+
+    //---------Test that many concurrent GETs of one station agree and account for every call---------
+    @Test
+    public void concurrentGets_sameStation() throws Exception {
+        CoalescingStationsClient coalescing = new CoalescingStationsClient(client);
+        Station created = client.create(newStation());
+        int callers = 64;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Station>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    go.await();
+                    return coalescing.get(created.id());
+                }));
+            }
+            go.countDown();
+            for (Future<Station> f : results) Assert.assertEquals(f.get(), created);
+        }
+        Assert.assertEquals(coalescing.callsIssued() + coalescing.callsSaved(), callers);
+    }
+
+    //---------Test that a bulk read returns found stations in order, dropping duplicates and 404s---------
+    @Test
+    public void getAll_skipsMissing() {
+        CoalescingStationsClient coalescing = new CoalescingStationsClient(client);
+        Station a = client.create(newStation());
+        Station b = client.create(newStation());
+
+        Map<String, Station> got = coalescing.getAll(List.of(b.id(), "000000000000000000000000", a.id(), b.id()));
+
+        Assert.assertEquals(List.copyOf(got.keySet()), List.of(b.id(), a.id()));
+        Assert.assertEquals(got.get(a.id()), a);
+        Assert.assertEquals(coalescing.callsIssued(), 3);
+    }
+
+    //---------Test that the coalesced listing contains a created station---------
+    @Test
+    public void list_containsCreated() {
+        CoalescingStationsClient coalescing = new CoalescingStationsClient(client);
+        Station created = client.create(newStation());
+
+        CompletableFuture<List<Station>> first = coalescing.listAsync();
+        CompletableFuture<List<Station>> second = coalescing.listAsync();
+
+        Assert.assertTrue(first.join().contains(created));
+        Assert.assertEquals(second.join(), first.join());
+    }
+}
@@ -0,0 +1,163 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.metrics.ClientMetrics;
+import org.example.server.FaultProfile;
+import org.example.server.FaultStats;
+import org.example.server.Latency;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Test class for fault and latency injection in the loopback server
+@Test(singleThreaded = true)
+public class FaultInjectionTest extends BaseTest {
+    private StationsServer server;
+    private StationsClient client;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<byte[]> rawGet(String path) throws Exception {
+        URI uri = URI.create(server.baseUri() + path + appIdQuery());
+        return http.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static long[] sample(Latency latency, long seed, int n) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long[] out = new long[n];
+        for (int i = 0; i < n; i++) out[i] = latency.sampleNanos(rnd);
+        Arrays.sort(out);
+        return out;
+    }
+
+    //---------Test that latency models are seeded and shaped as configured---------
+    @Test
+    public void latencyModels_seededAndShaped() {
+        Latency lognormal = Latency.lognormal(Duration.ofMillis(20), 0.5);
+        long[] a = sample(lognormal, 42, 20_000);
+        Assert.assertEquals(sample(lognormal, 42, 20_000), a, "same seed, same samples");
+        Assert.assertEquals(a[a.length / 2] / 1e6, 20, 1.0, "median");
+        Assert.assertEquals(a[(int) (a.length * 0.99)] / (double) a[a.length / 2], Math.exp(0.5 * 2.326), 0.4, "p99/p50");
+
+        Latency bimodal = Latency.bimodal(Latency.fixed(Duration.ofMillis(5)), Latency.fixed(Duration.ofMillis(400)), 0.05);
+        long slow = Arrays.stream(sample(bimodal, 7, 20_000)).filter(v -> v == 400_000_000L).count();
+        Assert.assertEquals(slow / 20_000.0, 0.05, 0.01);
+    }
+
+    //---------Test that injected error rates land near their configured fractions---------
+    @Test
+    public void errorRates_matchProfile() throws Exception {
+        server.injectFaults(FaultProfile.builder().seed(3).serverErrors(0.2).throttle(0.2, Duration.ofSeconds(2))
+                .forbiddenHtml(0.2).build());
+        int ok = 0, server5xx = 0, throttled = 0, html = 0;
+        for (int i = 0; i < 500; i++) {
+            HttpResponse<byte[]> r = rawGet("/stations");
+            byte[] body = r.body();
+            if (r.statusCode() >= 500) server5xx++;
+            else if (r.statusCode() == 429) {
+                throttled++;
+                Assert.assertEquals(r.headers().firstValue("Retry-After").orElse(null), "2");
+            } else if (ClientMetrics.isForbiddenPage(body, 0, body.length)) {
+                html++;
+                Assert.assertEquals(r.statusCode(), 200);
+                Assert.assertTrue(r.headers().firstValue("Content-Type").orElse("").startsWith("text/html"));
+            } else ok++;
+        }
+        for (int n : new int[]{server5xx, throttled, html}) Assert.assertEquals(n / 500.0, 0.2, 0.06);
+        Assert.assertEquals(ok / 500.0, 0.4, 0.08);
+        FaultStats stats = server.faultStats();
+        Assert.assertEquals(stats.requests(), 500);
+        Assert.assertEquals(stats.throttled(), throttled);
+    }
+
+    //---------Test that the same seed reproduces the same fault sequence---------
+    @Test
+    public void sameSeed_sameFaultSequence() throws Exception {
+        FaultProfile profile = FaultProfile.parse("seed=11,5xx=0.3,429=0.3");
+        List<Integer> first = new ArrayList<>(), second = new ArrayList<>();
+        server.injectFaults(profile);
+        for (int i = 0; i < 40; i++) first.add(rawGet("/stations").statusCode());
+        server.injectFaults(profile);
+        for (int i = 0; i < 40; i++) second.add(rawGet("/stations").statusCode());
+        Assert.assertEquals(second, first);
+        Assert.assertTrue(first.contains(200) && first.contains(429));
+    }
+
+    //---------Test that the client surfaces each fault the way the real API's misbehaviour looks---------
+    @Test
+    public void client_seesEachFault() {
+        Station created = client.create(new Station(null, "EXT_F", "Fault", 1, 2, 3));
+
+        server.injectFaults(FaultProfile.builder().forbiddenHtml(1).build());
+        StationsApiException html = Assert.expectThrows(StationsApiException.class, () -> client.get(created.id()));
+        Assert.assertEquals(html.status(), 200);
+        Assert.assertTrue(html.body().contains("Request forbidden by administrative rules"));
+
+        server.injectFaults(FaultProfile.builder().throttle(1, Duration.ofSeconds(3)).build());
+        StationsApiException throttled = Assert.expectThrows(StationsApiException.class, () -> client.get(created.id()));
+        Assert.assertEquals(throttled.status(), 429);
+        Assert.assertEquals(throttled.retryAfter(), Duration.ofSeconds(3));
+
+        server.injectFaults(FaultProfile.builder().resets(1).build());
+        StationsApiException reset = Assert.expectThrows(StationsApiException.class, () -> client.get(created.id()));
+        Assert.assertEquals(reset.status(), -1);
+        Assert.assertTrue(reset.isRetryable());
+
+        server.injectFaults(FaultProfile.NONE);
+        Assert.assertEquals(client.get(created.id()).name(), "Fault");
+    }
+
+    //---------Test that fixed latency and slow bodies delay responses without corrupting them---------
+    @Test
+    public void latencyAndSlowBody_delayResponses() {
+        for (int i = 0; i < 20; i++) client.create(new Station(null, "EXT_S" + i, "Slow " + i, i, i, i));
+        List<Station> expected = client.list();
+
+        server.injectFaults(FaultProfile.builder().latency(Latency.fixed(Duration.ofMillis(150))).build());
+        long t0 = System.nanoTime();
+        client.list();
+        Assert.assertTrue(System.nanoTime() - t0 >= 150_000_000L);
+
+        server.injectFaults(FaultProfile.builder().slowBody(1, 512, Duration.ofMillis(30)).build());
+        t0 = System.nanoTime();
+        List<Station> slow = client.list();
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        Assert.assertEquals(slow, expected);
+        Assert.assertTrue(elapsedMs >= 30L * (expected.size() * 100 / 512 - 1), "took " + elapsedMs + "ms");
+        Assert.assertEquals(server.faultStats().slowBodies(), 1);
+    }
+
+    //---------Test that fault specs are parsed and validated---------
+    @Test
+    public void parse_validatesSpec() {
+        FaultProfile.parse("latency=bimodal:5ms:1s:0.01,5xx=0.01,429=0.02,retry-after=2s,reset=0.001,html=0.01,slow=0.05,seed=9");
+        FaultProfile.parse("latency=lognormal:20ms:0.5");
+        Assert.expectThrows(IllegalArgumentException.class, () -> FaultProfile.parse("bogus=1"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> FaultProfile.parse("5xx=0.7,429=0.5"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> FaultProfile.parse("reset=2"));
+    }
+}
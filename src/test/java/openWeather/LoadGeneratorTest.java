@@ -0,0 +1,102 @@
+package openWeather;
+
+import org.example.json.JsonReader;
+import org.example.load.LoadGenerator;
+import org.example.load.LoadMix;
+import org.example.load.LoadReport;
+import org.example.load.Operation;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Test class for the open-model load generator, run against a dedicated loopback server
+//singleThreaded keeps runs from sharing the server, whose store each one expects to find empty after cleanup
+@Test(singleThreaded = true)
+public class LoadGeneratorTest extends BaseTest {
+    private StationsServer server;
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = StationsServer.start(APP_ID);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.close();
+    }
+
+    //---------Test a short fixed-rate run records every scheduled request per operation/status---------
+    @Test
+    public void fixedRateRun_recordsAllRequests() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+                .baseUri(server.baseUri()).appId(APP_ID)
+                .rate(400).duration(Duration.ofSeconds(1))
+                .mix(LoadMix.parse("get=5,create=2,update=2,delete=1,list=0"))
+                .seedStations(20)
+                .build()
+                .run();
+
+        Assert.assertEquals(report.scheduled(), 400, "a fixed-rate schedule is rate x duration, however late the sends run");
+        Assert.assertEquals(report.completed() + report.dropped(), report.scheduled());
+        long recorded = report.rows().stream().mapToLong(LoadReport.Row::count).sum();
+        Assert.assertEquals(recorded, report.completed());
+        Assert.assertTrue(report.rows().stream().anyMatch(r -> r.operation() == Operation.GET && r.status() == 200));
+        Assert.assertTrue(report.rows().stream().noneMatch(r -> r.operation() == Operation.LIST));
+        Assert.assertEquals(server.store().size(), 0, "cleanup should delete what the run created");
+    }
+
+    //---------Test that stations pushed out of a full id pool are still deleted by cleanup---------
+    @Test
+    public void fullIdPool_leaksNoStations() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+                .baseUri(server.baseUri()).appId(APP_ID)
+                .rate(100).duration(Duration.ofMillis(200))
+                .mix(LoadMix.parse("create=1"))
+                .seedStations(30).idPoolSize(8)
+                .build()
+                .run();
+
+        Assert.assertEquals(report.scheduled(), 20);
+        Assert.assertTrue(report.rows().stream().allMatch(r -> r.operation() == Operation.CREATE && r.status() == 201), report.rows().toString());
+        Assert.assertEquals(server.store().size(), 0, "cleanup should delete ids overwritten in the pool");
+    }
+
+    //---------Test the JSON report is well-formed and carries the summary fields---------
+    @Test
+    public void jsonReport_isWritten() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+                .baseUri(server.baseUri()).appId(APP_ID)
+                .rate(100).duration(Duration.ofMillis(300)).poisson(true).seedStations(5)
+                .build()
+                .run();
+        Path file = Files.createTempFile("load", ".json");
+        try {
+            report.writeJson(file);
+            JsonReader r = new JsonReader(Files.readAllBytes(file));
+            byte[][] keys = JsonReader.keys("scheduled", "rows");
+            int seen = 0;
+            r.beginObject();
+            while (r.hasNextField()) {
+                if (r.field(keys) >= 0) seen++;
+                r.skipValue();
+            }
+            r.endDocument();
+            Assert.assertEquals(seen, 2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //---------Negative: a malformed mix is rejected---------
+    @Test
+    public void mix_rejectsUnknownOperation() {
+        Assert.expectThrows(IllegalArgumentException.class, () -> LoadMix.parse("fetch=1"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> LoadMix.parse("get=0"));
+    }
+}
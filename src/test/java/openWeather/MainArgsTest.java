@@ -0,0 +1,46 @@
+package openWeather;
+
+import org.example.Main;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Test class for command-line argument parsing
+public class MainArgsTest extends BaseTest {
+
+    //---------Test that valued options take the next argument or an = suffix, and positionals keep their order---------
+    @Test
+    public void options_takeValues() {
+        Map<String, String> opts = new HashMap<>();
+        String[] positional = Main.parseArgs(new String[]{"provision", "--appid", "K", "stations.csv", "--concurrency=8"}, opts);
+        Assert.assertEquals(positional, new String[]{"provision", "stations.csv"});
+        Assert.assertEquals(opts, Map.of("appid", "K", "concurrency", "8"));
+    }
+
+    //---------Test that a switch before a positional does not swallow it---------
+    @Test
+    public void switches_neverTakeTheNextArgument() {
+        Map<String, String> opts = new HashMap<>();
+        Assert.assertEquals(Main.parseArgs(new String[]{"sync", "--dry-run", "stations.csv"}, opts), new String[]{"sync", "stations.csv"});
+        Assert.assertEquals(opts, Map.of("dry-run", "true"));
+
+        opts.clear();
+        Assert.assertEquals(Main.parseArgs(new String[]{"import", "--no-checkpoint", "x.ndjson", "--no-skip-existing"}, opts),
+                new String[]{"import", "x.ndjson"});
+        Assert.assertEquals(opts, Map.of("no-checkpoint", "true", "no-skip-existing", "true"));
+
+        opts.clear();
+        Assert.assertEquals(Main.parseArgs(new String[]{"load", "--local", "--poisson", "--rate", "50"}, opts), new String[]{"load"});
+        Assert.assertEquals(opts, Map.of("local", "true", "poisson", "true", "rate", "50"));
+    }
+
+    //---------Test that an invocation with only options has no command rather than failing---------
+    @Test
+    public void optionsOnly_haveNoPositionals() {
+        Map<String, String> opts = new HashMap<>();
+        Assert.assertEquals(Main.parseArgs(new String[]{"--appid", "K"}, opts).length, 0);
+        Assert.assertEquals(Main.parseArgs(new String[0], opts).length, 0);
+    }
+}
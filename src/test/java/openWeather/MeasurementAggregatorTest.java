@@ -0,0 +1,191 @@
+package openWeather;
+
+import org.example.aggregate.Aggregate;
+import org.example.aggregate.MeasurementAggregator;
+import org.example.aggregate.Metric;
+import org.example.aggregate.Resolution;
+import org.example.aggregate.Stats;
+import org.example.client.Measurement;
+import org.example.client.StationsClient;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Test class for the incremental minute/hour/day aggregation engine
+public class MeasurementAggregatorTest extends BaseTest {
+    private static final long T0 = 1_700_000_000L - 1_700_000_000L % 86_400;
+
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private static Measurement temp(String station, long dt, double temperature) {
+        return new Measurement(station, dt, temperature, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    //---------Test that readings fold into the right minute, hour and day buckets---------
+    @Test
+    public void buckets_minMaxSumCount() {
+        MeasurementAggregator agg = MeasurementAggregator.builder().build();
+        agg.add(temp("s", T0 + 10, 10));
+        agg.add(temp("s", T0 + 50, 20));
+        agg.add(temp("s", T0 + 70, -5));
+        agg.add(new Measurement("s", T0 + 3_700, 7, 3.5, 80, 1012, Double.NaN));
+
+        List<Aggregate> minutes = agg.query("s", Resolution.MINUTE, T0, T0 + 86_400, 100);
+        Assert.assertEquals(minutes.size(), 3);
+        Assert.assertEquals(minutes.get(0).date(), T0);
+        Assert.assertEquals(minutes.get(0).temperature(), new Stats(10, 20, 30, 2));
+        Assert.assertEquals(minutes.get(0).temperature().average(), 15.0);
+        Assert.assertTrue(minutes.get(0).windSpeed().isEmpty());
+
+        List<Aggregate> hours = agg.query("s", Resolution.HOUR, T0, T0 + 86_400, 100);
+        Assert.assertEquals(hours.size(), 2);
+        Assert.assertEquals(hours.get(0).temperature(), new Stats(-5, 20, 25, 3));
+        Assert.assertEquals(hours.get(1).pressure(), new Stats(1012, 1012, 1012, 1));
+
+        List<Aggregate> days = agg.query("s", Resolution.DAY, T0, T0, 100);
+        Assert.assertEquals(days.size(), 1);
+        Assert.assertEquals(days.get(0).temperature().count(), 4);
+    }
+
+    //---------Test that range queries honour from/to and keep the most recent buckets under a limit---------
+    @Test
+    public void query_rangeAndLimit() {
+        MeasurementAggregator agg = MeasurementAggregator.builder().build();
+        for (int h = 0; h < 10; h++) agg.add(temp("s", T0 + h * 3_600L, h));
+
+        List<Aggregate> range = agg.query("s", Resolution.HOUR, T0 + 3_600, T0 + 5 * 3_600, 100);
+        Assert.assertEquals(range.stream().map(Aggregate::date).toList(),
+                List.of(T0 + 3_600, T0 + 7_200, T0 + 10_800, T0 + 14_400, T0 + 18_000));
+
+        List<Aggregate> last = agg.query("s", Resolution.HOUR, T0, T0 + 86_400, 3);
+        Assert.assertEquals(last.get(0).temperature().max(), 7.0);
+        Assert.assertEquals(last.get(2).temperature().max(), 9.0);
+
+        Assert.assertEquals(agg.summarize("s", Resolution.HOUR, Metric.TEMPERATURE, T0, T0 + 86_400),
+                new Stats(0, 9, 45, 10));
+        Assert.assertTrue(agg.query("unknown", Resolution.HOUR, T0, T0 + 86_400, 10).isEmpty());
+    }
+
+    //---------Test that buckets older than the retention window are dropped and recycled---------
+    @Test
+    public void retention_dropsOldBuckets() {
+        MeasurementAggregator agg = MeasurementAggregator.builder().retention(5, 5, 5).build();
+        for (int m = 0; m < 20; m++) agg.add(temp("s", T0 + m * 60L, m));
+
+        List<Aggregate> minutes = agg.query("s", Resolution.MINUTE, T0, T0 + 86_400, 100);
+        Assert.assertEquals(minutes.stream().map(a -> a.temperature().max()).toList(), List.of(15.0, 16.0, 17.0, 18.0, 19.0));
+
+        agg.add(temp("s", T0, 99));
+        Assert.assertEquals(agg.query("s", Resolution.MINUTE, T0, T0 + 86_400, 100).size(), 5);
+    }
+
+    //---------Test the engine against a brute-force reference on random, out-of-order readings---------
+    @Test
+    public void randomReadings_matchReference() {
+        int retentionMinutes = 300;
+        MeasurementAggregator agg = MeasurementAggregator.builder().retention(retentionMinutes, 48, 10).build();
+        Random rnd = new Random(42);
+        List<Measurement> all = new ArrayList<>();
+        long latest = T0;
+        for (int i = 0; i < 20_000; i++) {
+            long dt = T0 + rnd.nextInt(6 * 3_600);
+            double t = Math.round(rnd.nextGaussian() * 100) / 10.0;
+            Measurement m = temp("s", dt, t);
+            agg.add(m);
+            all.add(m);
+            latest = Math.max(latest, dt);
+        }
+
+        long oldestKeptMinute = latest / 60 - retentionMinutes + 1;
+        TreeMap<Long, double[]> reference = new TreeMap<>();
+        for (Measurement m : all) {
+            long minute = m.dt() / 60;
+            if (minute < oldestKeptMinute) continue;
+            double[] r = reference.computeIfAbsent(minute * 60, k -> new double[]{Double.MAX_VALUE, -Double.MAX_VALUE, 0, 0});
+            r[0] = Math.min(r[0], m.temperature());
+            r[1] = Math.max(r[1], m.temperature());
+            r[2] += m.temperature();
+            r[3]++;
+        }
+        List<Aggregate> minutes = agg.query("s", Resolution.MINUTE, T0, T0 + 86_400, 10_000);
+        Assert.assertEquals(minutes.size(), reference.size());
+        for (Aggregate a : minutes) {
+            double[] r = reference.get(a.date());
+            Assert.assertNotNull(r, "unexpected bucket " + a.date());
+            Assert.assertEquals(a.temperature().min(), r[0]);
+            Assert.assertEquals(a.temperature().max(), r[1]);
+            Assert.assertEquals(a.temperature().count(), (long) r[3]);
+        }
+        // minute buckets only cover the retention window, but the day bucket has seen every reading
+        Assert.assertEquals(agg.summarize("s", Resolution.DAY, Metric.TEMPERATURE, T0, T0).count(), 20_000);
+    }
+
+    //---------Test that concurrent writers across many stations lose no readings---------
+    @Test
+    public void concurrentWriters_countEverything() {
+        MeasurementAggregator agg = MeasurementAggregator.builder().shards(8).build();
+        int writers = 8, perWriter = 5_000, stations = 50;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < writers; w++) {
+                int seed = w;
+                pool.submit(() -> {
+                    Random rnd = new Random(seed);
+                    for (int i = 0; i < perWriter; i++) agg.add(temp("st" + rnd.nextInt(stations), T0 + rnd.nextInt(86_400), 1));
+                });
+            }
+        }
+        long total = 0;
+        for (int s = 0; s < stations; s++) total += agg.summarize("st" + s, Resolution.DAY, Metric.TEMPERATURE, T0, T0).count();
+        Assert.assertEquals(total, writers * perWriter);
+        Assert.assertEquals(agg.stations(), stations);
+    }
+
+    //---------Test that posted measurements are served back as hourly aggregates by the API---------
+    @Test
+    public void api_servesAggregates() {
+        String station = "AGG_" + digits(8);
+        client.postMeasurements(List.of(temp(station, T0 + 60, 12.5), temp(station, T0 + 120, 17.5),
+                temp(station, T0 + 7_200, 3)));
+
+        List<Aggregate> hours = client.aggregates(station, Resolution.HOUR, T0, T0 + 86_400, 10);
+
+        Assert.assertEquals(hours.size(), 2);
+        Assert.assertEquals(hours.get(0).stationId(), station);
+        Assert.assertEquals(hours.get(0).resolution(), Resolution.HOUR);
+        Assert.assertEquals(hours.get(0).temperature(), new Stats(12.5, 17.5, 30, 2));
+        Assert.assertTrue(hours.get(1).humidity().isEmpty());
+    }
+
+    //---------Test that an aggregate query without a type is rejected---------
+    @Test
+    public void api_missingType_returns400() {
+        given()
+                .queryParam("appid", APP_ID)
+                .queryParam("station_id", "x")
+                .when()
+                .get(server.baseUri() + "/measurements")
+                .then()
+                .statusCode(400);
+    }
+}
@@ -0,0 +1,148 @@
+package openWeather;
+
+import org.example.client.Measurement;
+import org.example.history.ColumnSlice;
+import org.example.history.MeasurementHistory;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Test class for the memory-mapped columnar measurement history
+@Test(singleThreaded = true)
+public class MeasurementHistoryTest extends BaseTest {
+    private static final long T0 = 1_700_000_000L;
+
+    private Path dir;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("history");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private MeasurementHistory open() throws IOException {
+        return MeasurementHistory.builder(dir).segmentRows(128).build();
+    }
+
+    private static Measurement reading(String station, long dt) {
+        return new Measurement(station, dt, dt % 40 - 10, 2.5, 60, 1000 + dt % 30, Double.NaN);
+    }
+
+    //---------Test that a range scan returns exactly the rows in range, across segments and after reopening---------
+    @Test
+    public void scan_timeRange_acrossSegmentsAndReopen() throws Exception {
+        try (MeasurementHistory history = open()) {
+            for (int i = 0; i < 1_000; i++) history.append(reading("st1", T0 + i * 60L));
+            Assert.assertEquals(history.stats().segments(), 8);
+        }
+        try (MeasurementHistory history = open()) {
+            List<ColumnSlice> slices = new ArrayList<>();
+            history.scan("st1", T0 + 100 * 60, T0 + 299 * 60, slices::add);
+
+            Assert.assertEquals(slices.stream().mapToInt(ColumnSlice::size).sum(), 200);
+            Assert.assertEquals(slices.get(0).dt(0), T0 + 100 * 60);
+            ColumnSlice last = slices.get(slices.size() - 1);
+            Assert.assertEquals(last.dt(last.size() - 1), T0 + 299 * 60);
+            Assert.assertEquals(last.measurement(last.size() - 1), reading("st1", T0 + 299 * 60));
+            Assert.assertTrue(history.read("st1", T0 - 100, T0 - 1).isEmpty());
+            Assert.assertEquals(history.stats().rows(), 1_000);
+        }
+    }
+
+    //---------Test that out-of-order appends are found by scans and sorted by compaction---------
+    @Test
+    public void outOfOrder_thenCompacted() throws Exception {
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 500; i++) times.add(T0 + i * 10L);
+        Collections.shuffle(times, new Random(7));
+        try (MeasurementHistory history = open()) {
+            times.forEach(t -> history.append(reading("st1", t)));
+            List<Measurement> before = history.read("st1", T0 + 1_000, T0 + 2_000);
+            Assert.assertEquals(before.size(), 101);
+
+            Assert.assertTrue(history.compact("st1"));
+            Assert.assertFalse(history.compact("st2"));
+
+            List<Measurement> after = history.read("st1", T0, Long.MAX_VALUE);
+            Assert.assertEquals(after.size(), 500);
+            for (int i = 1; i < after.size(); i++) Assert.assertTrue(after.get(i - 1).dt() < after.get(i).dt());
+            Assert.assertEquals(history.stats().segments(), 4);
+        }
+        try (MeasurementHistory history = open()) {
+            Assert.assertEquals(history.read("st1", T0 + 1_000, T0 + 2_000).size(), 101);
+            try (Stream<Path> files = Files.list(dir.resolve("st1"))) {
+                Assert.assertEquals(files.count(), 4);
+            }
+        }
+    }
+
+    //---------Test that inputs left behind by an interrupted compaction are discarded on reopen---------
+    @Test
+    public void interruptedCompaction_finishedOnReopen() throws Exception {
+        Path stale;
+        try (MeasurementHistory history = open()) {
+            for (int i = 300; i > 0; i--) history.append(reading("st1", T0 + i));
+            Path first;
+            try (Stream<Path> files = Files.list(dir.resolve("st1"))) {
+                first = files.sorted().findFirst().orElseThrow();
+            }
+            stale = dir.resolve("stale.bak");
+            Files.copy(first, stale);
+            history.compact("st1");
+            // simulate a crash between renaming the output into place and deleting the inputs
+            Files.move(stale, first);
+        }
+        try (MeasurementHistory history = open()) {
+            Assert.assertEquals(history.read("st1", T0, Long.MAX_VALUE).size(), 300);
+            Assert.assertEquals(history.stats().segments(), 3);
+        }
+    }
+
+    //---------Test that station ids which are not safe file names round-trip---------
+    @Test
+    public void unusualStationId_roundTrips() throws Exception {
+        String id = "st/ü 1";
+        try (MeasurementHistory history = open()) {
+            history.append(reading(id, T0));
+        }
+        try (MeasurementHistory history = open()) {
+            Assert.assertTrue(history.stations().contains(id));
+            Assert.assertEquals(history.read(id, T0, T0), List.of(reading(id, T0)));
+        }
+    }
+
+    //---------Test that lock-free scans during appends always see a consistent, ordered prefix---------
+    @Test
+    public void scanWhileAppending_seesOrderedPrefix() throws Exception {
+        try (MeasurementHistory history = open()) {
+            Thread writer = Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 5_000; i++) history.append(reading("st1", T0 + i));
+            });
+            int lastSeen = 0;
+            while (writer.isAlive() || lastSeen < 5_000) {
+                List<Measurement> rows = history.read("st1", T0, Long.MAX_VALUE);
+                Assert.assertTrue(rows.size() >= lastSeen);
+                for (int i = 0; i < rows.size(); i++) Assert.assertEquals(rows.get(i).dt(), T0 + i);
+                lastSeen = rows.size();
+            }
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package openWeather;
+
+import org.example.client.Measurement;
+import org.example.client.StationsClient;
+import org.example.ingest.IngestStats;
+import org.example.ingest.MeasurementIngestor;
+import org.example.ingest.MeasurementRing;
+import org.example.json.JsonWriter;
+import org.example.json.MeasurementCodec;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Test class for the batched measurements ingestion path, run against a dedicated loopback server
+public class MeasurementIngestorTest extends BaseTest {
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private Measurement reading(String stationId) {
+        SplittableRandom r = new SplittableRandom(DATA_SEED + nextIndex());
+        return new Measurement(stationId, 1_700_000_000L + r.nextInt(0, 86_400),
+                r.nextInt(-200, 400) / 10.0, r.nextInt(0, 300) / 10.0,
+                r.nextInt(0, 100), r.nextInt(950, 1050), Double.NaN);
+    }
+
+    //---------Test that a measurement survives the codec and NaN readings are omitted---------
+    @Test
+    public void codec_roundTrip_omitsMissing() {
+        Measurement m = new Measurement("st1", 1_700_000_000L, 18.7, 1.2, Double.NaN, 1021, 0.5);
+        byte[] json = MeasurementCodec.encodeArray(List.of(m));
+
+        Assert.assertFalse(new String(json).contains("humidity"));
+        Assert.assertEquals(MeasurementCodec.decodeList(json), List.of(m));
+    }
+
+    //---------Test that the ring refuses offers when full and frees slots once drained---------
+    @Test
+    public void ring_fullThenDrained() {
+        MeasurementRing ring = new MeasurementRing(4);
+        for (int i = 0; i < 4; i++) Assert.assertTrue(ring.offer(reading("st" + i)));
+        Assert.assertFalse(ring.offer(reading("overflow")));
+
+        List<Measurement> out = new ArrayList<>();
+        Assert.assertEquals(ring.drain(out::add, 2), 2);
+        Assert.assertEquals(out.get(0).stationId(), "st0");
+        Assert.assertTrue(ring.offer(reading("st4")));
+
+        try (JsonWriter w = JsonWriter.borrow()) {
+            w.beginArray();
+            Assert.assertEquals(ring.drainTo(w, 10), 3);
+            List<Measurement> decoded = MeasurementCodec.decodeList(w.endArray().toByteArray());
+            Assert.assertEquals(decoded.get(2).stationId(), "st4");
+        }
+        Assert.assertEquals(ring.size(), 0);
+
+        Assert.expectThrows(IllegalArgumentException.class, () -> new MeasurementRing(MeasurementRing.MAX_CAPACITY + 1));
+        Assert.expectThrows(IllegalArgumentException.class, () -> new MeasurementRing(1));
+    }
+
+    //---------Test that ids which would need JSON escaping are rejected---------
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void ring_rejectsQuotedId() {
+        new MeasurementRing(4).offer(reading("bad\"id"));
+    }
+
+    //---------Test that readings from many producers all arrive, in full batches---------
+    @Test
+    public void concurrentProducers_allDelivered() throws Exception {
+        String station = "ING_" + digits(8);
+        int producers = 8, perProducer = 2_500;
+        MeasurementIngestor ingestor = MeasurementIngestor.builder(client)
+                .capacity(4096).batchSize(500).flushInterval(Duration.ofMillis(200)).build();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int p = 0; p < producers; p++) {
+                pool.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) ingestor.put(reading(station));
+                    return null;
+                });
+            }
+        }
+        ingestor.close();
+
+        IngestStats stats = ingestor.stats();
+        Assert.assertEquals(stats.accepted(), producers * perProducer);
+        Assert.assertEquals(stats.sent(), producers * perProducer);
+        Assert.assertEquals(stats.failed(), 0);
+        Assert.assertTrue(stats.batches() >= producers * perProducer / 500, "batches: " + stats.batches());
+        Assert.assertEquals(server.measurements().forStation(station).size(), producers * perProducer);
+    }
+
+    //---------Test that a partial batch is sent once the flush interval passes---------
+    @Test
+    public void partialBatch_flushedByTime() throws Exception {
+        String station = "ING_" + digits(8);
+        try (MeasurementIngestor ingestor = MeasurementIngestor.builder(client)
+                .batchSize(1000).flushInterval(Duration.ofMillis(50)).build()) {
+            for (int i = 0; i < 3; i++) Assert.assertTrue(ingestor.offer(reading(station)));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (server.measurements().forStation(station).size() < 3 && System.nanoTime() < deadline) Thread.sleep(10);
+            Assert.assertEquals(server.measurements().forStation(station).size(), 3);
+        }
+    }
+
+    //---------Test that flush() completes once everything buffered has been posted---------
+    @Test
+    public void flush_waitsForDelivery() {
+        String station = "ING_" + digits(8);
+        try (MeasurementIngestor ingestor = MeasurementIngestor.builder(client)
+                .batchSize(1000).flushInterval(Duration.ofMinutes(1)).build()) {
+            for (int i = 0; i < 10; i++) ingestor.offer(reading(station));
+            ingestor.flush().join();
+
+            Assert.assertEquals(server.measurements().forStation(station).size(), 10);
+            Assert.assertEquals(ingestor.stats().sent(), 10);
+        }
+    }
+
+    //---------Test that a stalled server fills the buffer and producers are pushed back---------
+    @Test
+    public void stalledServer_appliesBackpressure() throws Exception {
+        try (ServerSocket blackhole = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            StationsClient stalled = StationsClient.builder()
+                    .baseUri(URI.create("http://127.0.0.1:" + blackhole.getLocalPort() + StationsServer.API_PREFIX))
+                    .appId(APP_ID).requestTimeout(Duration.ofMillis(300)).build();
+            MeasurementIngestor ingestor = MeasurementIngestor.builder(stalled)
+                    .capacity(4).batchSize(2).maxInFlightBatches(1).maxAttempts(1)
+                    .flushInterval(Duration.ofMillis(10)).build();
+
+            boolean pushedBack = false;
+            for (int i = 0; i < 50 && !pushedBack; i++) {
+                pushedBack = !ingestor.offer(reading("stalled"), Duration.ofMillis(50));
+            }
+            Assert.assertTrue(pushedBack);
+            Assert.assertTrue(ingestor.stats().rejected() >= 1);
+            Assert.assertTrue(ingestor.stats().accepted() <= 4 + 2 + 2, "accepted: " + ingestor.stats().accepted());
+
+            ingestor.close();
+            Assert.assertEquals(ingestor.stats().failed(), ingestor.stats().accepted());
+        }
+    }
+
+    //---------Test that the server rejects a batch containing a reading without station_id---------
+    @Test
+    public void postMeasurements_missingStationId_returns400() {
+        given()
+                .queryParam("appid", APP_ID)
+                .contentType(JSON())
+                .body("[{\"dt\":1700000000,\"temperature\":10}]")
+                .when()
+                .post(server.baseUri() + "/measurements")
+                .then()
+                .statusCode(400);
+    }
+}
@@ -0,0 +1,46 @@
+package openWeather;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+
+import java.nio.charset.StandardCharsets;
+
+//RestAssured filter recording every request into a ClientMetrics, the same way StationsClient does
+public class MetricsFilter implements Filter {
+    private final ClientMetrics metrics;
+
+    public MetricsFilter(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        Endpoint endpoint = Endpoint.of(req.getMethod(), req.getURI());
+        long sent = bodyLength(req.getBody());
+        long start = System.nanoTime();
+        Response r;
+        try {
+            r = ctx.next(req, res);
+        } catch (RuntimeException e) {
+            metrics.recordTransportError(endpoint, System.nanoTime() - start, sent);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        //RestAssured has already buffered the body, so reading it here costs no extra I/O
+        byte[] body = r.asByteArray();
+        boolean forbidden = r.statusCode() == 200 && ClientMetrics.isForbiddenPage(body, 0, body.length);
+        metrics.record(endpoint, r.statusCode(), forbidden, nanos, sent, body.length);
+        return r;
+    }
+
+    private static long bodyLength(Object body) {
+        if (body instanceof byte[] b) return b.length;
+        if (body instanceof String s) return s.getBytes(StandardCharsets.UTF_8).length;
+        return 0;
+    }
+}
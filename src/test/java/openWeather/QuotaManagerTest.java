@@ -0,0 +1,156 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.quota.Priority;
+import org.example.quota.QuotaManager;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Test class for the shared per-appid token-bucket quota
+public class QuotaManagerTest extends BaseTest {
+    private StationsServer server;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    //---------Test that heavy contention stays under the quota in every window while using most of it---------
+    @Test
+    public void contention_neverOvershootsAnyWindow() throws Exception {
+        int limit = 200;
+        QuotaManager quota = QuotaManager.builder().limit("k", limit, Duration.ofSeconds(1)).build();
+        AtomicLongArray grants = new AtomicLongArray(2_000);
+        AtomicLong n = new AtomicLong();
+        long start = System.nanoTime(), end = start + TimeUnit.MILLISECONDS.toNanos(2_500);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 32; t++) {
+                Priority p = Priority.values()[t % 3];
+                pool.execute(() -> {
+                    try {
+                        while (System.nanoTime() < end) {
+                            if (!quota.tryAcquire("k", p, Duration.ofNanos(end - System.nanoTime()))) break;
+                            long now = System.nanoTime();
+                            if (now < end) grants.set((int) n.getAndIncrement(), now);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        long[] times = new long[(int) n.get()];
+        for (int i = 0; i < times.length; i++) times[i] = grants.get(i);
+        Arrays.sort(times);
+        int worst = 0;
+        for (int lo = 0, hi = 0; hi < times.length; hi++) {
+            while (times[hi] - times[lo] >= 1_000_000_000L) lo++;
+            worst = Math.max(worst, hi - lo + 1);
+        }
+        Assert.assertTrue(worst <= limit, "busiest 1s window saw " + worst + " calls");
+        double perSecond = times.length / 2.5;
+        Assert.assertTrue(perSecond >= 0.95 * limit - 4, "only " + perSecond + " calls/s of " + limit);
+        Assert.assertTrue(quota.stats("k").granted() >= times.length);
+    }
+
+    //---------Test that a later interactive call overtakes a waiting bulk call---------
+    @Test
+    public void interactive_goesAheadOfBulk() throws Exception {
+        // one permit every 2s / (9 - 2) = ~286 ms after the burst of two
+        QuotaManager quota = QuotaManager.builder().limit("k", 10, Duration.ofSeconds(2)).burst(2).build();
+        Assert.assertTrue(quota.tryAcquire("k", Priority.INTERACTIVE));
+        Assert.assertTrue(quota.tryAcquire("k", Priority.INTERACTIVE));
+        Assert.assertFalse(quota.tryAcquire("k", Priority.BULK), "burst is spent");
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread bulk = Thread.ofVirtual().start(() -> {
+            try {
+                quota.acquire("k", Priority.BULK);
+                order.add("bulk");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // bulk does not book ahead; once it is parked waiting for the next permit, interactive callers book the next two
+        while (bulk.getState() != Thread.State.TIMED_WAITING && bulk.getState() != Thread.State.WAITING) {
+            Assert.assertTrue(bulk.isAlive() && order.isEmpty(), "bulk got a permit without waiting");
+            Thread.onSpinWait();
+        }
+        List<CompletableFuture<Void>> interactive = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            interactive.add(quota.acquireAsync("k", Priority.INTERACTIVE).thenRun(() -> order.add("interactive")));
+        }
+        bulk.join(5_000);
+        for (CompletableFuture<Void> f : interactive) f.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(order, List.of("interactive", "interactive", "bulk"));
+    }
+
+    //---------Test that Retry-After pauses every caller of the appid---------
+    @Test
+    public void retryAfter_pausesCallers() throws Exception {
+        QuotaManager quota = QuotaManager.builder().defaultLimit(1_000, Duration.ofSeconds(1)).build();
+        Assert.assertTrue(quota.tryAcquire("a", Priority.INTERACTIVE));
+        quota.throttled("a", Duration.ofMillis(300));
+        Assert.assertFalse(quota.tryAcquire("a", Priority.INTERACTIVE));
+        Assert.assertTrue(quota.tryAcquire("b", Priority.INTERACTIVE), "other appids are unaffected");
+        long t0 = System.nanoTime();
+        quota.acquire("a", Priority.NORMAL);
+        Assert.assertTrue(System.nanoTime() - t0 >= TimeUnit.MILLISECONDS.toNanos(250));
+        Assert.assertEquals(quota.stats("a").throttled(), 1);
+        Assert.assertEquals(quota.stats("a").delayed(), 1);
+    }
+
+    //---------Test that managers sharing a coordination file share one budget---------
+    @Test
+    public void coordinationFile_sharesBudget() throws Exception {
+        Path file = Files.createTempFile("quota", ".bin");
+        try {
+            QuotaManager one = QuotaManager.builder().limit("k", 60, Duration.ofMinutes(1)).burst(2).coordinationFile(file).build();
+            QuotaManager two = QuotaManager.builder().limit("k", 60, Duration.ofMinutes(1)).burst(2).coordinationFile(file).build();
+            Assert.assertTrue(one.tryAcquire("k", Priority.INTERACTIVE));
+            Assert.assertTrue(two.tryAcquire("k", Priority.INTERACTIVE));
+            Assert.assertFalse(one.tryAcquire("k", Priority.INTERACTIVE));
+            Assert.assertFalse(two.tryAcquire("k", Priority.INTERACTIVE));
+            Assert.expectThrows(IllegalArgumentException.class, () -> one.tryAcquire("unknown", Priority.NORMAL));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //---------Test that the client takes a permit for every call, blocking and async---------
+    @Test
+    public void client_takesPermitPerCall() {
+        QuotaManager quota = QuotaManager.builder().limit(APP_ID, 6_000, Duration.ofMinutes(1)).build();
+        StationsClient client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).quota(quota).build();
+        Station created = client.create(new Station(null, "EXT_Q", cityName(), randLat(), randLon(), randAlt()));
+        client.get(created.id());
+        CompletableFuture<List<Station>> list = client.listAsync();
+        Assert.assertFalse(list.join().isEmpty());
+        client.delete(created.id());
+        Assert.assertEquals(quota.stats(APP_ID).granted(), 4);
+        Assert.assertTrue(quota.rate(APP_ID) > 95 && quota.rate(APP_ID) < 100, "rate " + quota.rate(APP_ID));
+    }
+}
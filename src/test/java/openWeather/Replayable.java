@@ -0,0 +1,13 @@
+package openWeather;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//marks a test class whose requests may be answered from the suite's cassette (-Dcassette=...);
+//only for classes that never assert on values the server echoes back from random test data
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Replayable {
+}
@@ -0,0 +1,87 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.json.JsonException;
+import org.example.json.JsonWriter;
+import org.example.json.StationCodec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Test class for the byte-level station encoder/decoder used by the client and the stand-in server
+public class StationCodecTest extends BaseTest {
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    //---------Test that encoding then decoding a StationGenerator station is lossless---------
+    @Test
+    public void roundTrip_preservesAllFields() {
+        Station in = Station.of("ST_" + digits(6), "Station_" + cityName(),
+                randLat(), randLon(), randAlt());
+
+        Station out = StationCodec.decode(StationCodec.encode(in));
+
+        Assert.assertEquals(out, in);
+    }
+
+    //---------Test escaping of quotes, control characters and non-ASCII names---------
+    @Test
+    public void roundTrip_escapesAndUnicode() {
+        Station in = Station.of("ST_\"1\"", "Ga-Rankuwa \\ Kwažulu\nété 🌦", -33.918861, 18.4233, 0.5);
+
+        byte[] json = StationCodec.encode(in);
+
+        Assert.assertEquals(StationCodec.decode(json), in);
+        Assert.assertEquals(new String(json, StandardCharsets.UTF_8),
+                "{\"external_id\":\"ST_\\\"1\\\"\",\"name\":\"Ga-Rankuwa \\\\ Kwažulu\\nété 🌦\","
+                        + "\"latitude\":-33.918861,\"longitude\":18.4233,\"altitude\":0.5}");
+    }
+
+    //---------Test that both id casings are read and other fields are skipped---------
+    @Test
+    public void readId_acceptsBothCasings() {
+        Assert.assertEquals(StationCodec.readId(utf8("{\"ID\":\"abc\",\"name\":\"x\"}")), "abc");
+        Assert.assertEquals(StationCodec.readId(utf8("{\"rank\":{\"a\":[1,\"}\"]},\"id\":\"def\"}")), "def");
+        Assert.assertNull(StationCodec.readId(utf8("{\"name\":\"x\"}")));
+        Assert.assertEquals(StationCodec.readDouble(utf8("{\"latitude\":-1.5e1}"), "latitude", 0), -15.0);
+        Assert.assertEquals(StationCodec.readString(utf8("{\"name\":\"A\\u0042\"}"), "name"), "AB");
+    }
+
+    //---------Test decoding of a listing array---------
+    @Test
+    public void decodeList_readsEveryElement() {
+        List<Station> list = StationCodec.decodeList(utf8(
+                "[{\"id\":\"1\",\"external_id\":\"a\",\"name\":\"n1\",\"latitude\":1,\"longitude\":2,\"altitude\":3},"
+                        + " {\"id\":\"2\",\"external_id\":\"b\",\"name\":\"n2\",\"latitude\":null}]"));
+
+        Assert.assertEquals(list.size(), 2);
+        Assert.assertEquals(list.get(0), new Station("1", "a", "n1", 1, 2, 3));
+        Assert.assertEquals(list.get(1).latitude(), 0.0);
+    }
+
+    //---------Negative: malformed JSON and type mismatches are rejected---------
+    @Test
+    public void decode_rejectsMalformedAndTypeMismatch() {
+        Assert.expectThrows(JsonException.class, () -> StationCodec.decode(utf8(
+                "{ \"external_id\": \"BAD_JSON\", \"name\": \"oops\", \"latitude\": 1.23, ")));
+        Assert.expectThrows(JsonException.class, () -> StationCodec.decode(utf8(
+                "{\"external_id\":\"x\",\"name\":\"n\",\"latitude\":\"not-a-number\"}")));
+        Assert.expectThrows(JsonException.class, () -> StationCodec.decode(utf8("{\"name\":\"n\"} trailing")));
+    }
+
+    //---------Test that pooled writers are reset between uses---------
+    @Test
+    public void pooledWriter_isResetOnReuse() {
+        try (JsonWriter w = JsonWriter.borrow()) {
+            w.beginArray().value(1).value(2.25).endArray();
+            Assert.assertEquals(w.toString(), "[1,2.25]");
+        }
+        try (JsonWriter w = JsonWriter.borrow()) {
+            Assert.assertEquals(w.size(), 0);
+        }
+    }
+}
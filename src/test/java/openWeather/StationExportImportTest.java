@@ -0,0 +1,188 @@
+package openWeather;
+
+import org.example.bulk.BulkProvisioner;
+import org.example.bulk.ProvisionReport;
+import org.example.bulk.StationNdjson;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.server.StationRecord;
+import org.example.server.StationStore;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Test class for NDJSON catalog export and the checkpointed, resumable import
+@Test(singleThreaded = true)
+public class StationExportImportTest extends BaseTest {
+    private static final int STATIONS = 2_000;
+
+    private StationsServer source;
+    private StationsServer target;
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        source = StationsServer.start(APP_ID);
+        target = StationsServer.start(APP_ID);
+        dir = Files.createTempDirectory("catalog");
+        StationStore store = source.store();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < STATIONS; i++) {
+            Station s = DATA.station(nextIndex());
+            store.put(new StationRecord(store.nextId(), s.externalId(), s.name(), s.latitude(), s.longitude(), s.altitude(), now, now));
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        source.close();
+        target.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private StationsClient client(StationsServer server) {
+        return StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    private Path export() throws Exception {
+        Path file = dir.resolve("stations.ndjson.gz");
+        try (Stream<Station> stations = client(source).stream()) {
+            Assert.assertEquals(StationNdjson.write(stations.iterator(), file), STATIONS);
+        }
+        return file;
+    }
+
+    /** Stations of a server by external_id, without their server-assigned ids. */
+    private Map<String, Station> catalog(StationsServer server) {
+        return client(server).list().stream().map(s -> s.withId(null))
+                .collect(Collectors.toMap(Station::externalId, Function.identity()));
+    }
+
+    //---------Test that an export is gzipped NDJSON that reads back and imports into another environment unchanged---------
+    @Test
+    public void exportThenImport_copiesTheCatalog() throws Exception {
+        Path file = export();
+        try (InputStream in = Files.newInputStream(file)) {
+            Assert.assertEquals(in.read(), 0x1f, "gzip magic");
+            Assert.assertEquals(in.read(), 0x8b);
+        }
+        Assert.assertFalse(Files.exists(dir.resolve("stations.ndjson.gz.part")), "part file renamed into place");
+        try (Stream<Station> read = StationNdjson.read(file)) {
+            List<Station> stations = read.toList();
+            Assert.assertEquals(stations.size(), STATIONS);
+            Assert.assertTrue(stations.stream().allMatch(s -> s.id() != null && source.store().get(s.id()) != null), "source ids kept");
+        }
+
+        Path checkpoint = dir.resolve("import.checkpoint");
+        ProvisionReport report;
+        try (Stream<Station> defs = StationNdjson.read(file)) {
+            report = BulkProvisioner.builder(client(target)).initialConcurrency(8).maxConcurrency(32).build()
+                    .run(defs.iterator(), checkpoint);
+        }
+        System.out.println("[info] import " + report);
+        Assert.assertEquals(report.created(), STATIONS, report.failures().toString());
+        Assert.assertEquals(catalog(target), catalog(source));
+        Assert.assertFalse(Files.exists(checkpoint), "checkpoint removed after a clean run");
+    }
+
+    //---------Test that an interrupted import resumes from its checkpoint without creating duplicates---------
+    @Test
+    public void interruptedImport_resumesFromCheckpoint() throws Exception {
+        Path file = export();
+        Path checkpoint = dir.resolve("import.checkpoint");
+        BulkProvisioner provisioner = BulkProvisioner.builder(client(target)).initialConcurrency(8).maxConcurrency(32).build();
+
+        try (Stream<Station> defs = StationNdjson.read(file)) {
+            Iterator<Station> it = defs.iterator();
+            Iterator<Station> failing = new Iterator<>() {
+                int read;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Station next() {
+                    if (++read > 1_500) throw new IllegalStateException("input lost");
+                    return it.next();
+                }
+            };
+            Assert.expectThrows(IllegalStateException.class, () -> provisioner.run(failing, checkpoint));
+        }
+        Assert.assertEquals(Files.readString(checkpoint).trim(), "1500", "in-flight creates finish before the final save");
+        Assert.assertEquals(target.store().size(), 1_500);
+        // a process killed outright leaves the last periodic save, behind what was actually created
+        long watermark = 1_024;
+        Files.writeString(checkpoint, Long.toString(watermark));
+
+        ProvisionReport report;
+        try (Stream<Station> defs = StationNdjson.read(file)) {
+            report = provisioner.run(defs.iterator(), checkpoint);
+        }
+        System.out.println("[info] resumed " + report);
+        Assert.assertEquals(report.resumed(), watermark);
+        Assert.assertEquals(report.submitted(), STATIONS - watermark);
+        Assert.assertEquals(report.skipped(), 1_500 - watermark, "created before the crash but after the checkpoint");
+        Assert.assertEquals(report.created(), STATIONS - 1_500);
+        Assert.assertEquals(target.store().size(), STATIONS, "no duplicates");
+        Assert.assertEquals(catalog(target), catalog(source));
+        Assert.assertFalse(Files.exists(checkpoint));
+    }
+
+    //---------Test that an import with failed definitions keeps its checkpoint at the first one for a re-run---------
+    @Test
+    public void importWithFailures_keepsCheckpoint() throws Exception {
+        Path file = dir.resolve("stations.ndjson");
+        StationNdjson.write(List.of(Station.of("A", "a", 1, 2, 3), Station.of("B", "", 1, 2, 3),
+                Station.of("C", "c", 1, 2, 3)).iterator(), file);
+        Path checkpoint = dir.resolve("import.checkpoint");
+
+        ProvisionReport report;
+        try (Stream<Station> defs = StationNdjson.read(file)) {
+            report = BulkProvisioner.builder(client(target)).build().run(defs.iterator(), checkpoint);
+        }
+        Assert.assertEquals(report.created(), 2);
+        Assert.assertEquals(report.failed(), 1, report.failures().toString());
+        Assert.assertTrue(Files.exists(checkpoint), "checkpoint kept after a run with failures");
+        Assert.assertEquals(Files.readString(checkpoint).trim(), "1", "watermark stops at the failed definition");
+    }
+
+    //---------Test that plain files, blank lines, CRLF and lines longer than the read buffer parse, and a bad line is reported---------
+    @Test
+    public void read_handlesPlainTextAndReportsBadLines() throws Exception {
+        String longName = "x".repeat(200_000);
+        Path file = dir.resolve("stations.ndjson");
+        Files.writeString(file, "{\"external_id\":\"A\",\"name\":\"a\",\"latitude\":1,\"longitude\":2,\"altitude\":3}\r\n"
+                + "\n   \n"
+                + "{\"external_id\":\"B\",\"name\":\"" + longName + "\",\"latitude\":-1.5,\"longitude\":2.5,\"altitude\":0}\n"
+                + "{\"external_id\":\"C\",\"name\":\"c\",\"latitude\":0,\"longitude\":0,\"altitude\":0}", StandardCharsets.UTF_8);
+        try (Stream<Station> read = StationNdjson.read(file)) {
+            List<Station> stations = read.toList();
+            Assert.assertEquals(stations, List.of(Station.of("A", "a", 1, 2, 3), Station.of("B", longName, -1.5, 2.5, 0),
+                    Station.of("C", "c", 0, 0, 0)));
+        }
+
+        Files.writeString(file, "{\"external_id\":\"A\",\"name\":\"a\"}\n{\"external_id\":\"B\",\"name\":\n");
+        try (Stream<Station> read = StationNdjson.read(file)) {
+            IllegalArgumentException e = Assert.expectThrows(IllegalArgumentException.class, read::toList);
+            Assert.assertTrue(e.getMessage().startsWith("line 2:"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.gen.Payload;
+import org.example.gen.StationGenerator;
+import org.example.json.JsonException;
+import org.example.json.StationCodec;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Test class for the seeded station payload generator
+public class StationGeneratorTest extends BaseTest {
+
+    //---------Test that the same seed and index always give the same station, and valid payloads decode to it---------
+    @Test
+    public void seeded_reproducibleAndConsistent() {
+        StationGenerator a = new StationGenerator(7), b = new StationGenerator(7), other = new StationGenerator(8);
+        byte[] buf = new byte[StationGenerator.MAX_PAYLOAD];
+        int differing = 0;
+        for (long i = 0; i < 10_000; i++) {
+            Station s = a.station(i);
+            Assert.assertEquals(b.station(i), s);
+            if (!other.station(i).equals(s)) differing++;
+            Assert.assertTrue(s.latitude() >= -90 && s.latitude() <= 90, "latitude " + s.latitude());
+            Assert.assertTrue(s.longitude() >= -180 && s.longitude() <= 180, "longitude " + s.longitude());
+            Assert.assertTrue(s.altitude() >= 5 && s.altitude() <= 5000, "altitude " + s.altitude());
+            Assert.assertEquals(Math.round(s.latitude() * 1e6) / 1e6, s.latitude(), "six decimals");
+
+            int n = a.write(i, Payload.VALID, buf, 0);
+            Station decoded = StationCodec.decode(buf, 0, n);
+            Assert.assertEquals(decoded, s, new String(buf, 0, n, StandardCharsets.US_ASCII));
+        }
+        Assert.assertEquals(differing, 10_000, "a different seed gives different data");
+    }
+
+    //---------Test that external ids never repeat and helper values have the requested shape---------
+    @Test
+    public void externalIds_unique() {
+        StationGenerator g = new StationGenerator(DATA_SEED);
+        Set<String> ids = new HashSet<>();
+        for (long i = 0; i < 200_000; i++) Assert.assertTrue(ids.add(g.externalId(i)), "duplicate at " + i);
+        Assert.assertTrue(g.externalId(0).matches("ST_[0-9a-f]{12}"));
+        Assert.assertTrue(g.digits(3, 6).matches("[0-9]{6}"));
+        Assert.assertTrue(g.name(3).startsWith(g.place(3) + " "));
+        Assert.expectThrows(IllegalArgumentException.class, () -> g.digits(0, 19));
+    }
+
+    //---------Test that each invalid payload is broken in exactly its intended way---------
+    @Test
+    public void invalidPayloads_brokenAsDescribed() {
+        StationGenerator g = new StationGenerator(11);
+        for (long i = 0; i < 1_000; i++) {
+            Station valid = g.station(i);
+            Station noLat = StationCodec.decode(g.payload(i, Payload.MISSING_LATITUDE));
+            Assert.assertEquals(noLat.latitude(), 0.0);
+            Assert.assertEquals(noLat.longitude(), valid.longitude());
+            Station noLon = StationCodec.decode(g.payload(i, Payload.MISSING_LONGITUDE));
+            Assert.assertEquals(noLon.longitude(), 0.0);
+            Assert.assertEquals(noLon.latitude(), valid.latitude());
+
+            double lat = StationCodec.decode(g.payload(i, Payload.LATITUDE_OUT_OF_RANGE)).latitude();
+            Assert.assertTrue(Math.abs(lat) > 90 && Math.abs(lat) < 1000, "latitude " + lat);
+            double lon = StationCodec.decode(g.payload(i, Payload.LONGITUDE_OUT_OF_RANGE)).longitude();
+            Assert.assertTrue(Math.abs(lon) > 180 && Math.abs(lon) < 1000, "longitude " + lon);
+
+            Assert.assertTrue(new String(g.payload(i, Payload.LATITUDE_NOT_A_NUMBER), StandardCharsets.US_ASCII)
+                    .contains("\"latitude\":\"not-a-number\""));
+            long index = i;
+            Assert.expectThrows(JsonException.class, () -> StationCodec.decode(g.payload(index, Payload.MALFORMED)));
+        }
+    }
+
+    //---------Test that the loopback server accepts valid payloads and rejects the invalid ones the way the API does---------
+    @Test
+    public void server_judgesEachPayload() throws Exception {
+        try (StationsServer server = StationsServer.start(APP_ID)) {
+            HttpClient http = HttpClient.newHttpClient();
+            URI uri = URI.create(server.baseUri() + "/stations" + appIdQuery());
+            for (Payload p : Payload.values()) {
+                HttpRequest req = HttpRequest.newBuilder(uri).header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(DATA.payload(nextIndex(), p))).build();
+                int status = http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (p.isValid()) Assert.assertEquals(status, 201, p.name());
+                else if (p == Payload.MALFORMED || p == Payload.LATITUDE_NOT_A_NUMBER) Assert.assertEquals(status, 400, p.name());
+                else Assert.assertTrue(status == 201 || status == 400, p + " gave " + status);
+            }
+        }
+    }
+
+    //---------Test that threads walking their own cursors over one generator write exactly what a single thread would---------
+    @Test
+    public void parallel_cursorsMatchSerial() throws Exception {
+        StationGenerator g = new StationGenerator(DATA_SEED);
+        int threads = 4, perThread = 50_000;
+        // throughput of this loop is measured by DataGenBenchmark.generatorPayloadParallel, not asserted here
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            List<Future<long[]>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                StationGenerator.Cursor cursor = g.cursor(t, threads);
+                done.add(pool.submit(() -> {
+                    byte[] buf = new byte[StationGenerator.MAX_PAYLOAD];
+                    long[] hashes = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        int len = g.write(cursor.next(), Payload.VALID, buf, 0);
+                        hashes[i] = Arrays.hashCode(Arrays.copyOf(buf, len));
+                    }
+                    return hashes;
+                }));
+            }
+            byte[] buf = new byte[StationGenerator.MAX_PAYLOAD];
+            for (int t = 0; t < threads; t++) {
+                long[] hashes = done.get(t).get();
+                for (int i = 0; i < perThread; i++) {
+                    int len = g.write((long) i * threads + t, Payload.VALID, buf, 0);
+                    Assert.assertEquals(hashes[i], Arrays.hashCode(Arrays.copyOf(buf, len)), "index " + ((long) i * threads + t));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.geo.Geo;
+import org.example.geo.IndexedStationsClient;
+import org.example.geo.Neighbor;
+import org.example.geo.StationIndex;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+// Test class for the geospatial nearest-station index
+public class StationIndexTest extends BaseTest {
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private static List<Station> randomStations(int n, long seed) {
+        Random rnd = new Random(seed);
+        List<Station> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // uniform on the sphere rather than in lat/lon, so the poles are not oversampled
+            double lat = Math.toDegrees(Math.asin(2 * rnd.nextDouble() - 1));
+            double lon = rnd.nextDouble() * 360 - 180;
+            out.add(new Station("id" + i, "EXT_" + i, "Station " + i, lat, lon, 0));
+        }
+        return out;
+    }
+
+    private static List<String> bruteForce(List<Station> stations, double lat, double lon, int k) {
+        return stations.stream()
+                .sorted(Comparator.comparingDouble(s -> Geo.haversine(lat, lon, s.latitude(), s.longitude())))
+                .limit(k).map(Station::id).toList();
+    }
+
+    private static List<String> ids(List<Neighbor> neighbors) {
+        return neighbors.stream().map(n -> n.station().id()).toList();
+    }
+
+    //---------Test that k-NN results match a brute-force haversine scan---------
+    @Test
+    public void nearest_matchesBruteForce() {
+        List<Station> stations = randomStations(5_000, 1);
+        StationIndex index = StationIndex.of(stations);
+        Random rnd = new Random(2);
+        for (int q = 0; q < 50; q++) {
+            double lat = rnd.nextDouble() * 180 - 90, lon = rnd.nextDouble() * 360 - 180;
+            List<Neighbor> got = index.nearest(lat, lon, 10);
+            Assert.assertEquals(ids(got), bruteForce(stations, lat, lon, 10));
+            Neighbor first = got.get(0);
+            Assert.assertEquals(first.distanceMeters(),
+                    Geo.haversine(lat, lon, first.station().latitude(), first.station().longitude()), 0.01);
+        }
+    }
+
+    //---------Test that radius queries return exactly the stations within range---------
+    @Test
+    public void withinRadius_matchesBruteForce() {
+        List<Station> stations = randomStations(5_000, 3);
+        StationIndex index = StationIndex.of(stations);
+        Random rnd = new Random(4);
+        for (int q = 0; q < 50; q++) {
+            double lat = rnd.nextDouble() * 180 - 90, lon = rnd.nextDouble() * 360 - 180;
+            double radius = 500_000;
+            List<String> expected = stations.stream()
+                    .filter(s -> Geo.haversine(lat, lon, s.latitude(), s.longitude()) <= radius)
+                    .sorted(Comparator.comparingDouble(s -> Geo.haversine(lat, lon, s.latitude(), s.longitude())))
+                    .map(Station::id).toList();
+            Assert.assertEquals(ids(index.withinRadius(lat, lon, radius)), expected);
+        }
+    }
+
+    //---------Test that neighbours across the antimeridian and near a pole are found---------
+    @Test
+    public void antimeridianAndPole() {
+        Station east = new Station("east", "E", "E", 0, 179.9, 0);
+        Station west = new Station("west", "W", "W", 0, -170, 0);
+        Station pole = new Station("pole", "P", "P", 89.9, 45, 0);
+        StationIndex index = StationIndex.of(List.of(east, west, pole));
+
+        Assert.assertEquals(index.nearest(0, -179.9, 1).get(0).station(), east);
+        Assert.assertEquals(index.nearest(89.95, -135, 1).get(0).station(), pole);
+        Assert.assertEquals(index.withinRadius(0, -179.95, 50_000).size(), 1);
+    }
+
+    //---------Test that puts, updates and removes are visible before and after rebuilds---------
+    @Test
+    public void incrementalUpdates() {
+        List<Station> stations = randomStations(2_000, 5);
+        StationIndex index = StationIndex.of(stations);
+        Station added = new Station("new", "N", "N", 10, 10, 0);
+        index.put(added);
+        Assert.assertEquals(index.nearest(10, 10, 1).get(0).station(), added);
+
+        Station moved = new Station("new", "N", "N", -40, 100, 0);
+        index.put(moved);
+        Assert.assertEquals(index.nearest(-40, 100, 1).get(0).station(), moved);
+        Assert.assertNotEquals(ids(index.nearest(10, 10, 1)), List.of("new"));
+
+        Station victim = index.nearest(50, 50, 1).get(0).station();
+        Assert.assertTrue(index.remove(victim.id()));
+        Assert.assertFalse(ids(index.nearest(50, 50, 5)).contains(victim.id()));
+        Assert.assertFalse(index.remove(victim.id()));
+
+        // enough writes to force rebuilds along the way
+        List<Station> more = randomStations(3_000, 6).stream().map(s -> s.withId("more" + s.id())).toList();
+        more.forEach(index::put);
+        List<Station> all = new ArrayList<>(stations);
+        all.remove(victim);
+        all.add(moved);
+        all.addAll(more);
+        Assert.assertEquals(index.size(), all.size());
+        Assert.assertEquals(ids(index.nearest(12.5, -33, 7)), bruteForce(all, 12.5, -33, 7));
+    }
+
+    //---------Test that a batch query gives the same answers as individual queries---------
+    @Test
+    public void batch_matchesSingleQueries() {
+        StationIndex index = StationIndex.of(randomStations(3_000, 7));
+        Random rnd = new Random(8);
+        double[] lats = new double[500], lons = new double[500];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = rnd.nextDouble() * 180 - 90;
+            lons[i] = rnd.nextDouble() * 360 - 180;
+        }
+        List<List<Neighbor>> batch = index.nearest(lats, lons, 3);
+        for (int i = 0; i < lats.length; i++) Assert.assertEquals(batch.get(i), index.nearest(lats[i], lons[i], 3));
+        Assert.assertEquals(index.withinRadius(lats, lons, 300_000).get(9), index.withinRadius(lats[9], lons[9], 300_000));
+    }
+
+    //---------Test that the indexed client tracks creates and deletes made through the API---------
+    @Test
+    public void indexedClient_tracksApiWrites() {
+        client.create(Station.of("GEO_" + digits(6), "Geo seed", randLat(), randLon(), randAlt()));
+        IndexedStationsClient indexed = IndexedStationsClient.load(client);
+        int before = indexed.index().size();
+        Assert.assertEquals(before, client.list().size());
+
+        Station created = indexed.create(Station.of("GEO_" + digits(6), "Geo station", -33.9249, 18.4241, 10));
+        Assert.assertEquals(indexed.nearest(-33.92, 18.42, 1).get(0).station().id(), created.id());
+
+        indexed.delete(created.id());
+        Assert.assertEquals(indexed.index().size(), before);
+        Assert.assertNotEquals(indexed.nearest(-33.92, 18.42, 1).get(0).station().id(), created.id());
+    }
+}
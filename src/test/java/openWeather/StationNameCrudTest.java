@@ -4,10 +4,11 @@ import io.restassured.response.Response;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 
 // Test class to perform CRUD operations on weather stations focusing on station names
+//singleThreaded keeps the create -> read -> update -> delete chain ordered when methods run in parallel
+@Test(singleThreaded = true)
 public class StationNameCrudTest extends BaseTest{
     private String stationId;
 
@@ -16,7 +17,7 @@ public class StationNameCrudTest extends BaseTest{
     @Test(priority = 1)
     // Test to create a weather station with a specific name format and assert it was saved correctly
     public void create_withAStationName_assertSaved() {
-        String name = "A-Station_" + faker.address().streetName().replace(' ', '_');
+        String name = "A-Station_" + stationName().replace(' ', '_');
         String body = String.format("""
             {
               "external_id": "ST_%s",
@@ -25,7 +26,7 @@ public class StationNameCrudTest extends BaseTest{
               "longitude": %s,
               "altitude": %s
             }""",
-                faker.number().digits(6),
+                digits(6),
                 name,
                 randLat(),
                 randLon(),
@@ -62,7 +63,7 @@ public class StationNameCrudTest extends BaseTest{
     //---------Test to update the station's name and assert the update was successful---------
     @Test(priority = 3, dependsOnMethods = "create_withAStationName_assertSaved")
     public void update_changeName_assertUpdated() {
-        String newName = "A-Station_Updated_" + faker.address().cityName().replace(' ', '_');
+        String newName = "A-Station_Updated_" + cityName().replace(' ', '_');
         String updated = String.format("""
             {
               "external_id": "ST_UPD_%s",
@@ -71,7 +72,7 @@ public class StationNameCrudTest extends BaseTest{
               "longitude": %s,
               "altitude": %s
             }""",
-                faker.number().digits(6),
+                digits(6),
                 newName,
                 randLat(),
                 randLon(),
@@ -166,7 +167,7 @@ public class StationNameCrudTest extends BaseTest{
               "longitude": %s,
               "altitude": %s
             }""",
-                faker.number().digits(6),
+                digits(6),
                 randLat(),
                 randLon(),
                 randAlt());
@@ -0,0 +1,246 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.gen.StationGenerator;
+import org.example.server.StationRecord;
+import org.example.server.StationStore;
+import org.example.server.StationsServer;
+import org.example.server.StoreStats;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Test class for the write-ahead log, snapshots and recovery of a durable station store
+//singleThreaded keeps the per-method store directory in setUp/tearDown from being deleted mid-test when methods run in parallel
+@Test(singleThreaded = true)
+public class StationStoreDurabilityTest extends BaseTest {
+    private final StationGenerator gen = new StationGenerator(22);
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("stations");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        deleteTree(dir);
+    }
+
+    private static void deleteTree(Path root) throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private StationRecord record(StationStore store, long index) {
+        Station s = gen.station(index);
+        long now = System.currentTimeMillis();
+        return new StationRecord(store.nextId(), s.externalId(), s.name(), s.latitude(), s.longitude(), s.altitude(), now, now);
+    }
+
+    private static Map<String, StationRecord> contents(StationStore store) {
+        Map<String, StationRecord> out = new HashMap<>();
+        for (StationRecord r : store.all()) out.put(r.id(), r);
+        return out;
+    }
+
+    /** Copies the directory of a store that is still open, as a crash would leave it. */
+    private Path crashCopy() throws Exception {
+        Path copy = Files.createTempDirectory("stations-crash");
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.copy(p, copy.resolve(p.getFileName()));
+        }
+        return copy;
+    }
+
+    //---------Test that puts, replaces and removes come back after a restart, from the log and from a snapshot---------
+    @Test
+    public void reopen_restoresEveryChange() throws Exception {
+        Map<String, StationRecord> expected;
+        try (StationStore store = StationStore.durable(dir).snapshotOnClose(false).open()) {
+            List<StationRecord> added = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                StationRecord r = record(store, i);
+                store.put(r);
+                added.add(r);
+            }
+            for (int i = 0; i < 100; i++) {
+                StationRecord r = added.get(i);
+                Assert.assertTrue(store.replace(new StationRecord(r.id(), r.externalId(), r.name() + " (moved)",
+                        r.latitude(), r.longitude(), r.altitude() + 1, r.createdAt(), r.updatedAt() + 1)));
+                Assert.assertNotNull(store.remove(added.get(1_000 + i).id()));
+            }
+            Assert.assertFalse(store.replace(record(store, 9_999)), "replace of an unknown id");
+            Assert.assertNull(store.remove("missing"));
+            expected = contents(store);
+            Assert.assertEquals(store.stats().appends(), 2_200, "only successful changes are logged");
+        }
+
+        long maxStored = expected.keySet().stream().mapToLong(id -> Long.parseLong(id.substring(8), 16)).max().orElseThrow();
+        try (StationStore store = StationStore.durable(dir).open()) {
+            StoreStats stats = store.stats();
+            Assert.assertEquals(stats.recoveredFromSnapshot(), 0);
+            Assert.assertEquals(stats.recoveredFromWal(), 2_200);
+            Assert.assertEquals(contents(store), expected);
+            Assert.assertTrue(Long.parseLong(store.nextId().substring(8), 16) > maxStored, "ids keep counting after a restart");
+        }
+        try (StationStore store = StationStore.durable(dir).open()) {
+            StoreStats stats = store.stats();
+            Assert.assertEquals(stats.recoveredFromSnapshot(), expected.size(), "closed with a snapshot");
+            Assert.assertEquals(stats.recoveredFromWal(), 0);
+            Assert.assertEquals(contents(store), expected);
+            Assert.assertTrue(Long.parseLong(store.nextId().substring(8), 16) > maxStored, "sequence restored from the snapshot");
+        }
+    }
+
+    //---------Test that acknowledged writes survive a crash and a torn last record is cut off---------
+    @Test
+    public void ackedWrites_surviveCrash_andTornTailIsCut() throws Exception {
+        Path copy;
+        Map<String, StationRecord> expected;
+        try (StationStore store = StationStore.durable(dir).open()) {
+            for (int i = 0; i < 500; i++) store.put(record(store, i));
+            expected = contents(store);
+            copy = crashCopy();
+        }
+        try {
+            Path wal;
+            try (Stream<Path> files = Files.list(copy)) {
+                wal = files.filter(p -> p.getFileName().toString().startsWith("wal-")).max(Path::compareTo).orElseThrow();
+            }
+            long intact = Files.size(wal);
+            Files.write(wal, new byte[]{90, 0, 0, 0, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+            try (StationStore store = StationStore.durable(copy).open()) {
+                Assert.assertEquals(contents(store), expected);
+                Assert.assertEquals(store.stats().recoveredFromWal(), 500);
+                Assert.assertEquals(Files.size(wal), intact, "torn record truncated");
+                store.put(record(store, 500));
+            }
+            try (StationStore store = StationStore.durable(copy).open()) {
+                Assert.assertEquals(store.size(), 501);
+            }
+        } finally {
+            deleteTree(copy);
+        }
+    }
+
+    //---------Test that snapshots taken under concurrent writes plus the log replay to the exact final state---------
+    @Test
+    public void snapshotUnderConcurrentWrites_replaysExactly() throws Exception {
+        int threads = 8, ops = 1_500;
+        try (StationStore store = StationStore.durable(dir).fsync(false).open()) {
+            String[] ids = new String[2_000];
+            for (int i = 0; i < ids.length; i++) ids[i] = store.nextId();
+            try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+                List<Future<?>> done = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int seed = t;
+                    done.add(pool.submit(() -> {
+                        SplittableRandom r = new SplittableRandom(seed);
+                        for (int i = 0; i < ops; i++) {
+                            String id = ids[r.nextInt(ids.length)];
+                            Station s = gen.station(r.nextInt(100_000));
+                            StationRecord rec = new StationRecord(id, s.externalId(), s.name(), s.latitude(), s.longitude(), s.altitude(), i, i);
+                            switch (r.nextInt(3)) {
+                                case 0 -> store.put(rec);
+                                case 1 -> store.replace(rec);
+                                default -> store.remove(id);
+                            }
+                        }
+                    }));
+                }
+                for (int i = 0; i < 3; i++) store.snapshot();
+                for (Future<?> f : done) f.get();
+            }
+            store.snapshot();
+            for (int i = 0; i < 50; i++) store.remove(ids[i]);
+            Map<String, StationRecord> expected = contents(store);
+
+            Path copy = crashCopy();
+            try {
+                try (Stream<Path> files = Files.list(copy)) {
+                    List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+                    Assert.assertEquals(names.stream().filter(n -> n.endsWith(".snap")).count(), 1, names.toString());
+                    Assert.assertEquals(names.stream().filter(n -> n.endsWith(".log")).count(), 1, "older segments dropped: " + names);
+                }
+                try (StationStore recovered = StationStore.durable(copy).snapshotOnClose(false).open()) {
+                    Assert.assertEquals(contents(recovered), expected);
+                }
+            } finally {
+                deleteTree(copy);
+            }
+            Assert.assertEquals(store.stats().snapshots(), 4);
+        }
+    }
+
+    //---------Test that concurrent writers share forced commits---------
+    @Test
+    public void groupCommit_batchesConcurrentWriters() throws Exception {
+        try (StationStore store = StationStore.durable(dir).open();
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            long t0 = System.nanoTime();
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 64; t++) {
+                int base = t * 200;
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) store.put(record(store, base + i));
+                }));
+            }
+            for (Future<?> f : done) f.get();
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            StoreStats stats = store.stats();
+            System.out.printf("[info] durable puts %.0f/s, %s%n", stats.appends() / seconds, stats);
+            Assert.assertEquals(stats.appends(), 64 * 200);
+            Assert.assertTrue(stats.averageBatch() > 1, "commits were shared: " + stats);
+        }
+    }
+
+    //---------Test that 200k stations recover in parallel, from the log and then from a snapshot---------
+    @Test
+    public void parallelRecovery_largeStore() throws Exception {
+        int n = 200_000;
+        try (StationStore store = StationStore.durable(dir).fsync(false).snapshotOnClose(false).open()) {
+            IntStream.range(0, n).parallel().forEach(i -> store.put(record(store, i)));
+        }
+        for (boolean fromSnapshot : new boolean[]{false, true}) {
+            try (StationStore store = StationStore.durable(dir).recoveryParallelism(4).open()) {
+                StoreStats stats = store.stats();
+                System.out.println("[info] reopened " + stats);
+                Assert.assertEquals(store.size(), n);
+                Assert.assertEquals(fromSnapshot ? stats.recoveredFromSnapshot() : stats.recoveredFromWal(), n);
+            }
+        }
+    }
+
+    //---------Test that the stand-in server keeps its stations across a restart---------
+    @Test
+    public void server_keepsStationsAcrossRestart() throws Exception {
+        List<Station> created = new ArrayList<>();
+        try (StationsServer server = StationsServer.start(0, APP_ID, StationStore.durable(dir).open())) {
+            StationsClient client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+            for (int i = 0; i < 5; i++) created.add(client.create(gen.station(i)));
+        }
+        try (StationsServer server = StationsServer.start(0, APP_ID, StationStore.durable(dir).open())) {
+            StationsClient client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+            for (Station s : created) Assert.assertEquals(client.get(s.id()), s);
+            Assert.assertEquals(client.list().size(), created.size());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.json.JsonException;
+import org.example.json.JsonWriter;
+import org.example.json.StationArrayReader;
+import org.example.json.StationCodec;
+import org.example.server.StationRecord;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Test class for streaming GET /stations element by element
+public class StationStreamTest extends BaseTest {
+    private static final int STATIONS = 5_000;
+
+    private StationsServer server;
+    private StationsClient client;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        client = StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).build();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < STATIONS; i++) {
+            server.store().put(new StationRecord(server.store().nextId(), "EXT_" + i, "Station \"" + i + "\" [x]",
+                    randLat(), randLon(), randAlt(), now, now));
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private static byte[] array(int n) {
+        JsonWriter w = new JsonWriter().beginArray();
+        for (int i = 0; i < n; i++) {
+            StationCodec.encode(new Station("id" + i, "EXT_" + i, "Name {" + i + "}", i % 90, i % 180, i), w);
+        }
+        return w.endArray().toByteArray();
+    }
+
+    /** Hands out at most {@code chunk} bytes per read, like a slow socket. */
+    private static InputStream trickle(byte[] data, int chunk) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    //---------Test that the streamed catalogue matches the buffered list---------
+    @Test
+    public void stream_matchesList() {
+        List<String> expected = client.list().stream().map(Station::id).toList();
+        try (Stream<Station> stations = client.stream()) {
+            Assert.assertEquals(stations.map(Station::id).toList(), expected);
+        }
+    }
+
+    //---------Test that elements split across reads and larger than the buffer decode correctly---------
+    @Test
+    public void reader_handlesSplitReadsAndBufferGrowth() {
+        byte[] json = array(2_000);
+        List<Station> got = new ArrayList<>();
+        try (StationArrayReader reader = new StationArrayReader(trickle(json, 7), 32)) {
+            reader.forEachRemaining(got::add);
+            Assert.assertEquals(reader.bytesRead(), json.length);
+        }
+        Assert.assertEquals(got, StationCodec.decodeList(json));
+    }
+
+    //---------Test that closing early leaves the rest of the body unread---------
+    @Test
+    public void reader_closeEarly_doesNotReadRest() {
+        byte[] json = array(50_000);
+        try (StationArrayReader reader = new StationArrayReader(new ByteArrayInputStream(json))) {
+            for (int i = 0; i < 10; i++) Assert.assertEquals(reader.next().externalId(), "EXT_" + i);
+            Assert.assertTrue(reader.bytesRead() < json.length / 20,
+                    "read " + reader.bytesRead() + " of " + json.length + " bytes");
+        }
+        try (Stream<Station> stations = client.stream()) {
+            Assert.assertEquals(stations.limit(10).count(), 10);
+        }
+        Assert.assertEquals(client.list().size(), STATIONS, "connection is still usable after an aborted body");
+    }
+
+    //---------Test that an empty array and a non-JSON body are handled---------
+    @Test
+    public void reader_emptyAndHtmlBodies() {
+        try (StationArrayReader reader = new StationArrayReader(new ByteArrayInputStream(" [ ] ".getBytes(StandardCharsets.UTF_8)))) {
+            Assert.assertFalse(reader.hasNext());
+        }
+        byte[] html = "<html><body>Request forbidden by administrative rules.</body></html>".getBytes(StandardCharsets.UTF_8);
+        try (StationArrayReader reader = new StationArrayReader(new ByteArrayInputStream(html))) {
+            Assert.expectThrows(JsonException.class, reader::hasNext);
+        }
+    }
+
+    //---------Test that parallel streams and parallel consumers see every station once---------
+    @Test
+    public void parallelConsumers_seeEveryStationOnce() {
+        Set<String> expected = client.list().stream().map(Station::id).collect(Collectors.toSet());
+        try (Stream<Station> stations = client.stream()) {
+            Assert.assertEquals(stations.parallel().map(Station::id).collect(Collectors.toSet()), expected);
+        }
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        long processed = client.forEachStation(8, s -> Assert.assertTrue(seen.add(s.id()), "duplicate " + s.id()));
+        Assert.assertEquals(processed, STATIONS);
+        Assert.assertEquals(seen, expected);
+    }
+
+    //---------Test that a failing consumer stops the others and is rethrown---------
+    @Test
+    public void forEachStation_propagatesFailure() {
+        IllegalStateException boom = new IllegalStateException("boom");
+        IllegalStateException thrown = Assert.expectThrows(IllegalStateException.class,
+                () -> client.forEachStation(4, s -> {
+                    throw boom;
+                }));
+        Assert.assertSame(thrown, boom);
+    }
+
+    //---------Test that a bad app id surfaces as an API error before streaming starts---------
+    @Test
+    public void stream_unauthorized_throws() {
+        StationsClient bad = StationsClient.builder().baseUri(server.baseUri()).appId("wrong").build();
+        StationsApiException e = Assert.expectThrows(StationsApiException.class, bad::stream);
+        Assert.assertEquals(e.status(), 401);
+    }
+}
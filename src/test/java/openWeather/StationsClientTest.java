@@ -0,0 +1,79 @@
+package openWeather;
+
+import org.example.client.Station;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Test class to exercise the main-module StationsClient against the configured base URL
+//singleThreaded keeps the create -> read/update -> delete chain ordered when methods run in parallel
+@Test(singleThreaded = true)
+public class StationsClientTest extends BaseTest {
+    private StationsClient client;
+    private String stationId;
+
+    @BeforeClass
+    public void setUpClient() {
+        client = StationsClient.builder().baseUri(URI.create(BASE_URL)).appId(APP_ID).build();
+    }
+
+    //---------Test to create a station through the client and read back the id (id/ID casing)---------
+    @Test(priority = 1)
+    public void create_returnsStationWithId() {
+        Station draft = Station.of("ST_" + digits(6), "Client_" + cityName(),
+                randLat(), randLon(), randAlt());
+
+        Station created = client.create(draft);
+
+        Assert.assertNotNull(created.id(), "client must read the id from either 'id' or 'ID'");
+        Assert.assertEquals(created.name(), draft.name());
+        Assert.assertEquals(created.latitude(), draft.latitude(), 1e-9);
+        stationId = created.id();
+    }
+
+    //---------Test to read, update and list asynchronously---------
+    @Test(priority = 2, dependsOnMethods = "create_returnsStationWithId")
+    public void asyncReadUpdateList() {
+        Station read = client.getAsync(stationId).join();
+        Assert.assertEquals(read.id(), stationId);
+
+        Station changed = Station.of(read.externalId(), read.name() + "_upd", randLat(), randLon(), randAlt());
+        Station updated = client.updateAsync(stationId, changed).join();
+        Assert.assertEquals(updated.id(), stationId, "PUT should keep the same station id");
+        Assert.assertEquals(updated.name(), changed.name());
+
+        List<Station> all = client.listAsync().join();
+        Assert.assertTrue(all.stream().anyMatch(s -> stationId.equals(s.id())), "listing should contain the station");
+    }
+
+    //---------Test to delete and confirm a subsequent read fails with 404---------
+    @Test(priority = 3, dependsOnMethods = "create_returnsStationWithId")
+    public void delete_thenGetIsNotFound() {
+        client.delete(stationId);
+
+        CompletableFuture<Station> read = client.getAsync(stationId);
+        StationsApiException e = Assert.expectThrows(StationsApiException.class, () -> {
+            try {
+                read.join();
+            } catch (RuntimeException ex) {
+                throw ex.getCause() instanceof StationsApiException sae ? sae : ex;
+            }
+        });
+        // the proxy may answer 200 + HTML instead of 404; both surface as an API exception
+        Assert.assertTrue(e.isNotFound() || e.status() == 200, "unexpected status " + e.status());
+    }
+
+    //---------Test that a wrong appid surfaces as a 401 API exception---------
+    @Test
+    public void invalidAppId_throws401() {
+        StationsClient bad = StationsClient.builder().baseUri(URI.create(BASE_URL)).appId("INVALID_KEY").build();
+        StationsApiException e = Assert.expectThrows(StationsApiException.class, bad::list);
+        Assert.assertEquals(e.status(), 401);
+    }
+}
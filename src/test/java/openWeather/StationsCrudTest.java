@@ -4,20 +4,21 @@ import io.restassured.response.Response;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 
+//singleThreaded keeps the create -> get chain on one thread when the suite runs methods in parallel
+@Test(singleThreaded = true)
 public class StationsCrudTest extends BaseTest {
-    //to store the station ID created during tests
-    private static String stationId;
+    //to store the station ID created during tests (per instance, so parallel classes don't share it)
+    private String stationId;
 
     //---------Test to create a new weather station---------
     @Test(priority = 1)
     public void createStationTest() {
 
         //generate random external ID and station name using faker
-        String externalId = "ST_" + faker.number().digits(6);
-        String stationName = "Station_" + faker.address().cityName();
+        String externalId = "ST_" + digits(6);
+        String stationName = "Station_" + cityName();
 
         //generate random latitude, longitude, and altitude values
         double lat = randLat();
@@ -65,8 +66,8 @@ public class StationsCrudTest extends BaseTest {
     //---------Test to update the created weather station---------
    /* @Test(priority = 3, dependsOnMethods = "createStationTest")
     public void updateStation() {
-        String newExternalId = "ST_UPD_" + faker.number().digits(6);
-        String newName = "Station_" + faker.address().streetName().replace(' ', '_');
+        String newExternalId = "ST_UPD_" + digits(6);
+        String newName = "Station_" + stationName().replace(' ', '_');
         double newLat = randLat();
         double newLon = randLon();
         int newAlt    = randAlt();
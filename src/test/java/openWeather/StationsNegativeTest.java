@@ -1,90 +1,86 @@
 package openWeather;
 
 import io.restassured.response.Response;
+import org.example.client.Station;
+import org.example.client.StationsClient;
+import org.example.gen.StationGenerator;
+import org.example.replay.CassetteMode;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
-import static io.restassured.RestAssured.given;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
+
+@Replayable
 public class StationsNegativeTest  extends BaseTest{
+    //probes per matrix cell; each one is its own DataProvider row (-Dprobes=100 sends ~3300 requests)
+    private static final int PROBES = Integer.getInteger("probes", 32);
 
-    //---Test to create a weather station with missing latitude and expect 400 or document default behaviour---
-    @Test
-    public void missingLatitude_400_or_Default() {
-        String body = String.format("""
-            {
-              "external_id": "%s",
-              "name": "%s",
-              "longitude": %s,
-              "altitude": %s
-            }""",
-                "NEG_" + faker.number().digits(4),
-                "Station_" + faker.company().name().replace(' ', '_'),
-                randLon(),
-                randAlt());
+    //fixed seed, so the matrix sends the same bodies on every run and replays cleanly from a cassette
+    private static final StationGenerator PROBE_DATA = new StationGenerator(20_000L);
 
-        Response res = given()
-                .contentType(JSON())
-                .body(body)
-                .when()
-                .post("/stations" + appIdQuery())
-                .then()
-                .extract()
-                .response();
+    //observed status codes per cell, "field/fault" -> status -> count
+    private static final ConcurrentMap<String, ConcurrentMap<Integer, LongAdder>> OBSERVED = new ConcurrentHashMap<>();
 
-        int status = res.getStatusCode();
-        String responseBody = res.asString();
+    //stations the API accepted despite the broken field, deleted in bulk after the class
+    private static final Queue<String> ACCEPTED = new ConcurrentLinkedQueue<>();
 
-        // Preferred behaviour: API rejects missing latitude
-        if (status >= 400 && status < 500) {
-            System.out.println("[assert] API rejected missing latitude as expected. Status: " + status);
-            Assert.assertTrue(status >= 400 && status < 500);
+    enum Field {
+        EXTERNAL_ID("external_id", false, 0), NAME("name", false, 0),
+        LATITUDE("latitude", true, 90), LONGITUDE("longitude", true, 180), ALTITUDE("altitude", true, 0);
+
+        final String json;
+        final boolean numeric;
+        final double limit; //|value| at the edge of the valid range (altitude: sea level)
+
+        Field(String json, boolean numeric, double limit) {
+            this.json = json;
+            this.numeric = numeric;
+            this.limit = limit;
         }
-        // Actual behaviour we observed: API returns 201 and sets latitude to 0
-        else if (status >= 200 && status < 300) {
-            System.out.println("[warn] API accepted station with missing latitude. Status: " + status);
-            System.out.println("[warn] This reveals missing validation on server side.");
-            Double lat = null;
-            try {
-                lat = res.jsonPath().getDouble("latitude");
-            } catch (Exception e) {
-                // ignore
-            }
-            // Assert what really happens (lat often defaults to 0)
-            if (lat != null) {
-                System.out.println("[info] Server stored latitude as: " + lat);
-                // soft assertion – we just document behaviour
-                Assert.assertTrue(true, "Latitude field present in response (actual behaviour documented).");
-            } else {
-                System.out.println("[info] No latitude field found in response JSON.");
-                Assert.assertTrue(true, "No validation error, but response structure documented.");
+    }
+
+    enum Fault {
+        MISSING, NULL, WRONG_TYPE, OUT_OF_RANGE, BOUNDARY, OVERSIZED, MALFORMED_JSON;
+
+        //strings have no range to leave; too long is OVERSIZED
+        boolean appliesTo(Field f) { return this != OUT_OF_RANGE || f.numeric; }
+
+        //a number on the edge of its range (±90, ±180, sea level) is valid; an empty string is not
+        boolean expectAccepted(Field f) { return this == BOUNDARY && f.numeric; }
+    }
+
+    //---Matrix of every field crossed with every fault, PROBES rows per cell, run in parallel (data-provider-thread-count in the suite xml)---
+    @DataProvider(name = "fieldFaults", parallel = true)
+    public Object[][] fieldFaults() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Field field : Field.values()) {
+            for (Fault fault : Fault.values()) {
+                if (!fault.appliesTo(field)) continue;
+                for (int probe = 0; probe < PROBES; probe++) rows.add(new Object[]{field, fault, probe});
             }
         }
-        // Anything else is truly unexpected
-        else {
-            Assert.fail("Unexpected status for missing latitude test: " + status +
-                    "\nResponse body: " + responseBody);
-        }
+        return rows.toArray(new Object[0][]);
     }
 
-    //---Test to create a weather station with missing longitude and expect 400 or document default behaviour---
-    @Test
-    public void missingLongitude_400_or_Default() {
-        String body = String.format("""
-            {
-              "external_id": "%s",
-              "name": "%s",
-              "latitude": %s,
-              "altitude": %s
-            }""",
-                "NEG_" + faker.number().digits(4),
-                "Station_" + faker.company().name().replace(' ', '_'),
-                randLat(),
-                randAlt());
-
+    //---Test to create a weather station with one broken field and expect 4xx or a documented default, never a server error---
+    @Test(dataProvider = "fieldFaults")
+    public void fieldFault_400_or_Default(Field field, Fault fault, int probe) {
         Response res = given()
                 .contentType(JSON())
-                .body(body)
+                .body(body(field, fault, probe))
                 .when()
                 .post("/stations" + appIdQuery())
                 .then()
@@ -92,31 +88,54 @@ public class StationsNegativeTest  extends BaseTest{
                 .response();
 
         int status = res.getStatusCode();
-        String responseBody = res.asString();
+        OBSERVED.computeIfAbsent(field.json + "/" + fault, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, k -> new LongAdder()).increment();
 
-        if (status >= 400 && status < 500) {
-            System.out.println("[assert] API rejected missing longitude as expected. Status: " + status);
-            Assert.assertTrue(status >= 400 && status < 500);
-        } else if (status >= 200 && status < 300) {
-            System.out.println("[warn] API accepted station with missing longitude. Status: " + status);
-            System.out.println("[warn] This reveals missing validation on server side.");
-            Double lon = null;
-            try {
-                lon = res.jsonPath().getDouble("longitude");
-            } catch (Exception e) {
-                // ignore
-            }
-            if (lon != null) {
-                System.out.println("[info] Server stored longitude as: " + lon);
-                Assert.assertTrue(true, "Longitude field present in response (actual behaviour documented).");
-            } else {
-                System.out.println("[info] No longitude field found in response JSON.");
-                Assert.assertTrue(true, "No validation error, but response structure documented.");
-            }
-        } else {
-            Assert.fail("Unexpected status for missing longitude test: " + status +
-                    "\nResponse body: " + responseBody);
+        // The API accepted it: remember the station so probes don't pile up on the account
+        if (status >= 200 && status < 300) {
+            String id = extractStationId(res);
+            if (id != null) ACCEPTED.add(id);
         }
+
+        Assert.assertTrue(status >= 200 && status < 500,
+                "Unexpected status for " + field.json + "/" + fault + ": " + status + "\nResponse body: " + res.asString());
+        if (fault == Fault.MALFORMED_JSON) {
+            Assert.assertTrue(status >= 400, "Malformed JSON should normally produce 4xx, but got " + status);
+        }
+    }
+
+    //---Test that prints what the server did per cell and checks every probe of a cell was treated alike---
+    @Test(dependsOnMethods = "fieldFault_400_or_Default")
+    public void matrix_consistentPerCell() {
+        Map<String, Map<Integer, LongAdder>> cells = new TreeMap<>(OBSERVED);
+        StringBuilder table = new StringBuilder(String.format("%-26s %s%n", "field/fault", "status x probes"));
+        List<String> mixed = new ArrayList<>();
+        cells.forEach((cell, statuses) -> {
+            Map<Integer, LongAdder> sorted = new TreeMap<>(statuses);
+            StringBuilder row = new StringBuilder();
+            sorted.forEach((status, n) -> row.append(status).append(" x").append(n.sum()).append("  "));
+            boolean accepted = sorted.keySet().iterator().next() < 400;
+            String[] key = cell.split("/");
+            boolean expected = Fault.valueOf(key[1]).expectAccepted(field(key[0]));
+            String outcome = accepted ? "accepted" : "rejected";
+            table.append(String.format("%-26s %-20s %s%n", cell, row,
+                    accepted == expected ? outcome : "[warn] " + outcome + ", expected " + (expected ? "accepted" : "rejected")));
+            if (sorted.keySet().stream().map(s -> s / 100).distinct().count() > 1) mixed.add(cell);
+        });
+        System.out.print(table);
+        Assert.assertEquals(cells.size(), expectedCells(), "every cell was probed");
+        Assert.assertTrue(mixed.isEmpty(), "cells answered inconsistently: " + mixed);
+    }
+
+    //deletes accepted probes through the async client, which costs far less per call than RestAssured;
+    //a cassette in replay mode never touches the server, so there is nothing to clean up
+    @AfterClass(alwaysRun = true)
+    public void deleteAcceptedProbes() {
+        if (CASSETTE != null && CASSETTE.mode() == CassetteMode.REPLAY) return;
+        StationsClient client = StationsClient.builder().baseUri(URI.create(BASE_URL)).appId(APP_ID).build();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String id; (id = ACCEPTED.poll()) != null; ) pending.add(client.deleteAsync(id).exceptionally(e -> null));
+        pending.forEach(CompletableFuture::join);
     }
 
     //---Test to access stations endpoint with invalid API key and expect 401 Unauthorized---
@@ -139,201 +158,49 @@ public class StationsNegativeTest  extends BaseTest{
                 .statusCode(401);
     }
 
-    //---Test to create a weather station with out-of-range latitude
-    // and expect 400 or document default behaviour---
-    @Test
-    public void badLatitudeRange_400_or_Accepted() {
-        String body = String.format("""
-            {
-              "external_id": "%s",
-              "name": "%s",
-              "latitude": 999.99,
-              "longitude": %s,
-              "altitude": %s
-            }""",
-                "NEG_" + faker.number().digits(4),
-                "Station_" + faker.commerce().productName().replace(' ', '_'),
-                randLon(),
-                randAlt());
-
-        Response res = given()
-                .contentType(JSON())
-                .body(body)
-                .when()
-                .post("/stations" + appIdQuery())
-                .then()
-                .extract()
-                .response();
-
-        int status = res.getStatusCode();
-        String bodyText = res.asString();
-
-        if (status >= 400 && status < 500) {
-            System.out.println("[assert] API rejected out-of-range latitude as expected. Status: " + status);
-            Assert.assertTrue(status >= 400 && status < 500);
-        } else if (status >= 200 && status < 300) {
-            System.out.println("[warn] API accepted out-of-range latitude. Status: " + status);
-            System.out.println("[warn] This shows weak validation on coordinates.");
-            Assert.assertTrue(true, "Server accepted invalid latitude; behaviour documented.");
-        } else {
-            Assert.fail("Unexpected status for badLatitudeRange test: " + status +
-                    "\nResponse body: " + bodyText);
-        }
+    private static Field field(String json) {
+        for (Field f : Field.values()) if (f.json.equals(json)) return f;
+        throw new IllegalArgumentException(json);
     }
 
-    //---Test to create a weather station with out-of-range longitude
-    // and expect 400 or document default behaviour---
-    @Test
-    public void badLongitudeRange_400_or_Accepted() {
-        String body = String.format("""
-            {
-              "external_id": "%s",
-              "name": "%s",
-              "latitude": %s,
-              "longitude": 999.99,
-              "altitude": %s
-            }""",
-                "NEG_" + faker.number().digits(4),
-                "Station_" + faker.commerce().productName().replace(' ', '_'),
-                randLat(),
-                randAlt());
-
-        Response res = given()
-                .contentType(JSON())
-                .body(body)
-                .when()
-                .post("/stations" + appIdQuery())
-                .then()
-                .extract()
-                .response();
-
-        int status = res.getStatusCode();
-        String bodyText = res.asString();
-
-        if (status >= 400 && status < 500) {
-            System.out.println("[assert] API rejected out-of-range longitude as expected. Status: " + status);
-            Assert.assertTrue(status >= 400 && status < 500);
-        } else if (status >= 200 && status < 300) {
-            System.out.println("[warn] API accepted out-of-range longitude. Status: " + status);
-            System.out.println("[warn] This shows weak validation on coordinates.");
-            Assert.assertTrue(true, "Server accepted invalid longitude; behaviour documented.");
-        } else {
-            Assert.fail("Unexpected status for badLongitudeRange test: " + status +
-                    "\nResponse body: " + bodyText);
-        }
-    }
-
-    //---Test to create a weather station with latitude as string
-    // and expect 400 or document default behaviour---
-    @Test
-    public void typeMismatchLatitude_400_or_Accepted() {
-        String body = String.format("""
-            {
-              "external_id": "%s",
-              "name": "%s",
-              "latitude": "not-a-number",
-              "longitude": %s,
-              "altitude": %s
-            }""",
-                "NEG_" + faker.number().digits(4),
-                "Station_" + faker.company().name().replace(' ', '_'),
-                randLon(),
-                randAlt());
-
-        Response res = given()
-                .contentType(JSON())
-                .body(body)
-                .when()
-                .post("/stations" + appIdQuery())
-                .then()
-                .extract()
-                .response();
-
-        int status = res.getStatusCode();
-        String bodyText = res.asString();
-
-        if (status >= 400 && status < 500) {
-            System.out.println("[assert] API rejected type mismatch for latitude as expected. Status: " + status);
-            Assert.assertTrue(status >= 400 && status < 500);
-        } else if (status >= 200 && status < 300) {
-            System.out.println("[warn] API accepted latitude as string. Status: " + status);
-            System.out.println("[warn] This shows weak type validation.");
-            Assert.assertTrue(true, "Server accepted type mismatch; behaviour documented.");
-        } else {
-            Assert.fail("Unexpected status for typeMismatchLatitude test: " + status +
-                    "\nResponse body: " + bodyText);
-        }
+    private static int expectedCells() {
+        int n = 0;
+        for (Field field : Field.values()) for (Fault fault : Fault.values()) if (fault.appliesTo(field)) n++;
+        return n;
     }
 
-    //---Test to create a weather station with malformed JSON
-    // and expect 400 or document default behaviour---
-    @Test
-    public void malformedJson_400_or_Other() {
-        String badJson = "{ \"external_id\": \"BAD_JSON\", \"name\": \"oops\", \"latitude\": 1.23, ";
-        Response res = given()
-                .contentType(JSON())
-                .body(badJson)
-                .when()
-                .post("/stations" + appIdQuery())
-                .then()
-                .extract()
-                .response();
-
-        int status = res.getStatusCode();
-        String bodyText = res.asString();
-
-        if (status >= 400 && status < 500) {
-            System.out.println("[assert] API rejected malformed JSON as expected. Status: " + status);
-            Assert.assertTrue(status >= 400 && status < 500);
-        } else {
-            // Very unlikely API would accept malformed JSON, but we still handle it
-            System.out.println("[warn] Unexpected status for malformed JSON: " + status);
-            System.out.println("[warn] Body: " + bodyText);
-            Assert.fail("Malformed JSON should normally produce 4xx, but got " + status);
+    // --- Body builder: a valid generated station with exactly one field broken ---
+    static String body(Field field, Fault fault, int probe) {
+        Station s = PROBE_DATA.station(probe);
+        Object[] values = {s.externalId(), s.name(), s.latitude(), s.longitude(), (int) s.altitude()};
+        StringBuilder sb = new StringBuilder(256).append('{');
+        for (Field f : Field.values()) {
+            String value = f == field ? broken(f, fault, probe, values[f.ordinal()]) : literal(values[f.ordinal()]);
+            if (value == null) continue;
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(f.json).append("\":").append(value);
         }
+        return sb.append('}').toString();
     }
 
-    /*@Test
-    public void getNotFound_404() {
-        given()
-                .when()
-                .get("/stations/DOES_NOT_EXIST" + appIdQuery())
-                .then()
-                .statusCode(404);
+    private static String broken(Field f, Fault fault, int probe, Object valid) {
+        double sign = probe % 2 == 0 ? 1 : -1;
+        return switch (fault) {
+            case MISSING -> null;
+            case NULL -> "null";
+            case WRONG_TYPE -> f.numeric ? "\"not-a-number\"" : Integer.toString(10_000 + probe);
+            case OUT_OF_RANGE -> f == Field.ALTITUDE
+                    ? literal(sign > 0 ? 10_000 + probe * 1_000 : -12_000 - probe * 1_000)
+                    : literal(sign * (f.limit + 0.000001 + probe * 7.25));
+            case BOUNDARY -> f.numeric ? literal(f == Field.ALTITUDE ? 0 : sign * f.limit) : "\"\"";
+            case OVERSIZED -> f.numeric ? "1" + "0".repeat(400) : literal(String.valueOf(valid).repeat(4096 / String.valueOf(valid).length() + 1));
+            case MALFORMED_JSON -> f.numeric ? "12.5.6" : String.valueOf(valid);
+        };
     }
 
-    @Test
-    public void updateNotFound_404() {
-        String body = String.format("""
-            {
-              "external_id": "%s",
-              "name": "%s",
-              "latitude": %s,
-              "longitude": %s,
-              "altitude": %s
-            }""",
-                "NEG_UPD_" + faker.number().digits(4),
-                "Station_" + faker.address().cityName().replace(' ', '_'),
-                randLat(),
-                randLon(),
-                randAlt());
-
-        given()
-                .contentType(JSON())
-                .body(body)
-                .when()
-                .put("/stations/DOES_NOT_EXIST" + appIdQuery())
-                .then()
-                .statusCode(404);
+    private static String literal(Object v) {
+        if (v instanceof String str) return '"' + str + '"';
+        if (v instanceof Double d && d == Math.rint(d)) return Long.toString(d.longValue());
+        return String.valueOf(v);
     }
-
-    @Test
-    public void deleteNotFound_404() {
-        given()
-                .when()
-                .delete("/stations/DOES_NOT_EXIST" + appIdQuery())
-                .then()
-                .statusCode(404);
-    }*/
-
 }
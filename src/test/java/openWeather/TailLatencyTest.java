@@ -0,0 +1,200 @@
+package openWeather;
+
+import org.example.client.CircuitBreaker;
+import org.example.client.CircuitOpenException;
+import org.example.client.DeadlineExceededException;
+import org.example.client.HedgePolicy;
+import org.example.client.StationsApiException;
+import org.example.client.StationsClient;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+import org.example.metrics.EndpointStats;
+import org.example.quota.QuotaManager;
+import org.example.server.FaultProfile;
+import org.example.server.Latency;
+import org.example.server.StationsServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+// Test class for hedged reads, call deadlines and circuit breaking in StationsClient, against a loopback server with injected latency and errors
+@Test(singleThreaded = true)
+public class TailLatencyTest extends BaseTest {
+    private StationsServer server;
+    private String stationId;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+        stationId = client(new ClientMetrics()).build().create(DATA.station(nextIndex())).id();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private StationsClient.Builder client(ClientMetrics metrics) {
+        return StationsClient.builder().baseUri(server.baseUri()).appId(APP_ID).metrics(metrics);
+    }
+
+    /** Sorted latencies in milliseconds of {@code n} sequential reads. */
+    private double[] readLatencies(StationsClient client, int n) {
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) {
+            long start = System.nanoTime();
+            client.get(stationId);
+            out[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    //---------Test that hedging a read after a latency percentile cuts p99 when a few responses are very slow---------
+    @Test
+    public void hedging_cutsTheTail() {
+        // 4% of requests take 250 ms, the rest 3 ms; a hedge draws afresh, so it is almost always fast.
+        // Hedging at p90 keeps the delay in the fast mode even when a window happens to hold over 5% slow ones.
+        server.injectFaults(FaultProfile.builder().seed(23)
+                .latency(Latency.bimodal(Latency.fixed(Duration.ofMillis(3)), Latency.fixed(Duration.ofMillis(250)), 0.04))
+                .build());
+        double[] plain = readLatencies(client(new ClientMetrics()).build(), 300);
+
+        ClientMetrics metrics = new ClientMetrics();
+        StationsClient hedged = client(metrics)
+                .hedging(HedgePolicy.builder().percentile(90).maxDelay(Duration.ofMillis(100)).maxRate(0.2).build())
+                .build();
+        readLatencies(hedged, 64);
+        double[] withHedges = readLatencies(hedged, 300);
+        EndpointStats s = metrics.stats(Endpoint.READ);
+        System.out.printf("[info] read p50/p99 %.1f/%.1f ms plain, %.1f/%.1f ms hedged; %d hedges, %d won, %.0f ms saved%n",
+                plain[150], plain[297], withHedges[150], withHedges[297], s.hedges(), s.hedgeWins(), s.hedgeSavedNanos() / 1e6);
+
+        Assert.assertTrue(plain[297] >= 200, "slow mode shows in the plain p99: " + plain[297]);
+        Assert.assertTrue(withHedges[297] < 150, "hedged p99 " + withHedges[297]);
+        Assert.assertTrue(s.hedgeWins() > 0 && s.hedgeSavedNanos() > 0, "hedges won and saved time");
+        Assert.assertTrue(s.hedges() <= 0.2 * 364 + 10, "hedges stay within the budget: " + s.hedges());
+        Assert.assertTrue(metrics.prometheus().contains(
+                "stations_client_hedges_total{method=\"GET\",endpoint=\"/stations/{id}\"} " + s.hedges()));
+    }
+
+    //---------Test that a call fails at its deadline, blocking or async, hedged or not---------
+    @Test
+    public void deadline_failsSlowCallsOnTime() throws Exception {
+        server.injectFaults(FaultProfile.builder().latency(Latency.fixed(Duration.ofMillis(400))).build());
+        ClientMetrics metrics = new ClientMetrics();
+        StationsClient client = client(metrics).deadline(Duration.ofMillis(80)).build();
+
+        long start = System.nanoTime();
+        DeadlineExceededException e = Assert.expectThrows(DeadlineExceededException.class, () -> client.get(stationId));
+        Assert.assertTrue((System.nanoTime() - start) / 1e6 < 300, "failed near the deadline");
+        Assert.assertEquals(e.deadline(), Duration.ofMillis(80));
+        Assert.assertTrue(e.isRetryable());
+
+        ExecutionException async = Assert.expectThrows(ExecutionException.class, () -> client.getAsync(stationId).get());
+        Assert.assertTrue(async.getCause() instanceof DeadlineExceededException, async.getCause().toString());
+        Assert.expectThrows(DeadlineExceededException.class, () -> client.create(DATA.station(nextIndex())));
+
+        StationsClient hedged = client(metrics).hedging(HedgePolicy.builder().maxDelay(Duration.ofMillis(20)).build())
+                .deadline(Duration.ofMillis(80)).build();
+        Assert.expectThrows(DeadlineExceededException.class, () -> hedged.get(stationId));
+
+        Assert.assertEquals(client.withDeadline(Duration.ofSeconds(5)).get(stationId).id(), stationId);
+        Assert.assertEquals(client.withDeadline(null).get(stationId).id(), stationId);
+        Assert.assertEquals(metrics.stats(Endpoint.READ).deadlineExceeded(), 3);
+        Assert.assertEquals(metrics.stats(Endpoint.CREATE).deadlineExceeded(), 1);
+    }
+
+    //---------Test that a call whose deadline runs out waiting for quota is never sent and does not count against the breaker---------
+    @Test
+    public void quotaWaitPastDeadline_isNotABreakerFailure() {
+        ClientMetrics metrics = new ClientMetrics();
+        QuotaManager quota = QuotaManager.builder().limit(APP_ID, 10, Duration.ofMinutes(1)).build();
+        StationsClient client = client(metrics).deadline(Duration.ofMillis(50)).quota(quota)
+                .circuitBreaker(CircuitBreaker.builder().window(4).minimumCalls(4).failureRate(0.5)).build();
+        CircuitBreaker breaker = client.circuitBreaker(Endpoint.READ);
+
+        int served = 0;
+        for (int i = 0; i < 12; i++) {
+            try {
+                if (i % 2 == 0) client.get(stationId);
+                else client.getAsync(stationId).join();
+                served++;
+            } catch (DeadlineExceededException e) {
+                Assert.assertEquals(e.deadline(), Duration.ofMillis(50));
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof DeadlineExceededException, e.getCause().toString());
+            }
+        }
+        Assert.assertTrue(served < 12, "quota should run out: " + served);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED, "the server was never called for the timed-out reads");
+        Assert.assertEquals(metrics.stats(Endpoint.READ).deadlineExceeded(), 12 - served);
+        Assert.assertEquals(quota.stats(APP_ID).rejected(), 12 - served, "no permit is booked for a call that cannot use it in time");
+    }
+
+    //---------Test that a blocking call's deadline also bounds a response body that trickles in after the headers---------
+    @Test
+    public void blockingCall_deadlineBoundsSlowBody() {
+        server.injectFaults(FaultProfile.builder().slowBody(1.0, 8, Duration.ofMillis(50)).build());
+        StationsClient client = client(new ClientMetrics()).deadline(Duration.ofMillis(200)).build();
+
+        long start = System.nanoTime();
+        Assert.expectThrows(DeadlineExceededException.class, () -> client.create(DATA.station(nextIndex())));
+        Assert.expectThrows(DeadlineExceededException.class, client::list);
+        double ms = (System.nanoTime() - start) / 1e6;
+        Assert.assertTrue(ms < 1_000, "two bodies of over a second each, cut at 200 ms: " + ms);
+    }
+
+    //---------Test that the breaker opens on 5xx, fails fast, re-opens on a failed probe and closes on good ones---------
+    @Test
+    public void circuitBreaker_opensFailsFastAndRecovers() throws Exception {
+        ClientMetrics metrics = new ClientMetrics();
+        StationsClient client = client(metrics).circuitBreaker(CircuitBreaker.builder()
+                .window(10).minimumCalls(10).failureRate(0.5).openFor(Duration.ofMillis(300)).probes(2)).build();
+        CircuitBreaker breaker = client.circuitBreaker(Endpoint.READ);
+
+        for (int i = 0; i < 20; i++) {
+            StationsApiException notFound = Assert.expectThrows(StationsApiException.class, () -> client.get("missing"));
+            Assert.assertTrue(notFound.isNotFound(), notFound.toString());
+        }
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED, "404s are answers, not failures");
+
+        server.injectFaults(FaultProfile.builder().serverErrors(1.0).build());
+        // the window still holds 404s, so the fifth failure brings it to 50%
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+            Assert.assertTrue(Assert.expectThrows(StationsApiException.class, () -> client.get(stationId)).status() >= 500);
+        }
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+        long served = server.faultStats().requests();
+        CircuitOpenException open = Assert.expectThrows(CircuitOpenException.class, () -> client.get(stationId));
+        Assert.assertTrue(open.retryAfter().compareTo(Duration.ofMillis(300)) <= 0 && open.isRetryable());
+        ExecutionException async = Assert.expectThrows(ExecutionException.class, () -> client.getAsync(stationId).get());
+        Assert.assertTrue(async.getCause() instanceof CircuitOpenException, async.getCause().toString());
+        Assert.assertEquals(server.faultStats().requests(), served, "rejected calls never reach the server");
+        Assert.assertEquals(client.circuitBreaker(Endpoint.LIST).state(), CircuitBreaker.State.CLOSED, "breakers are per endpoint");
+        Assert.assertTrue(metrics.prometheus().contains("stations_client_circuit_state{method=\"GET\",endpoint=\"/stations/{id}\"} 1"));
+
+        Thread.sleep(350);
+        Assert.assertTrue(Assert.expectThrows(StationsApiException.class, () -> client.get(stationId)).status() >= 500);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.OPEN, "a failed probe opens it again");
+
+        server.injectFaults(FaultProfile.NONE);
+        Thread.sleep(350);
+        client.get(stationId);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.HALF_OPEN);
+        client.get(stationId);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+
+        EndpointStats s = metrics.stats(Endpoint.READ);
+        Assert.assertEquals(s.circuitOpened(), 2);
+        Assert.assertEquals(s.circuitRejected(), 2);
+        Assert.assertEquals(s.circuitState(), ClientMetrics.CIRCUIT_CLOSED);
+    }
+}
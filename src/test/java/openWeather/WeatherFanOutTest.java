@@ -0,0 +1,172 @@
+package openWeather;
+
+import org.example.client.StationsApiException;
+import org.example.metrics.ClientMetrics;
+import org.example.metrics.Endpoint;
+import org.example.server.FaultProfile;
+import org.example.server.Latency;
+import org.example.server.StationsServer;
+import org.example.weather.CurrentWeather;
+import org.example.weather.WeatherClient;
+import org.example.weather.WeatherResult;
+import org.example.weather.WeatherStats;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// Test class for the current-weather fan-out: grid rounding, per-cell caching, the concurrency cap and streamed results
+@Test(singleThreaded = true)
+public class WeatherFanOutTest extends BaseTest {
+    private StationsServer server;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        server = StationsServer.start(APP_ID);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        server.close();
+    }
+
+    private WeatherClient.Builder client() {
+        return WeatherClient.builder().baseUri(server.weatherUri()).appId(APP_ID);
+    }
+
+    /** {@code cells} grid cells of 0.01 degrees with {@code perCell} points scattered inside each. */
+    private static double[][] points(int cells, int perCell, long seed) {
+        SplittableRandom r = new SplittableRandom(seed);
+        double[] lats = new double[cells * perCell], lons = new double[cells * perCell];
+        for (int c = 0; c < cells; c++) {
+            double lat = 40 + c * 0.05, lon = -3 + c * 0.07;
+            for (int p = 0; p < perCell; p++) {
+                lats[c * perCell + p] = lat + r.nextDouble(-0.004, 0.004);
+                lons[c * perCell + p] = lon + r.nextDouble(-0.004, 0.004);
+            }
+        }
+        return new double[][]{lats, lons};
+    }
+
+    //---------Test that nearby points share one request per grid cell and a repeat batch is served from the cache---------
+    @Test
+    public void batch_dedupsByCellAndCaches() {
+        ClientMetrics metrics = new ClientMetrics();
+        WeatherClient client = client().metrics(metrics).units(WeatherClient.Units.METRIC).build();
+        double[][] p = points(200, 25, 24);
+
+        BitSet seen = new BitSet();
+        List<WeatherResult> results;
+        try (Stream<WeatherResult> s = client.current(p[0], p[1])) {
+            results = s.toList();
+        }
+        Assert.assertEquals(results.size(), 5_000);
+        for (WeatherResult r : results) {
+            Assert.assertTrue(r.isSuccess(), String.valueOf(r.error()));
+            Assert.assertFalse(seen.get(r.index()), "index emitted twice: " + r.index());
+            seen.set(r.index());
+            Assert.assertEquals(r.latitude(), p[0][r.index()]);
+            Assert.assertEquals(r.weather().latitude(), r.latitude(), 0.0051, "cell centre near the point");
+            Assert.assertTrue(r.weather().temperature() > -60 && r.weather().temperature() < 60, "metric: " + r.weather());
+        }
+        Assert.assertEquals(server.weatherRequests(), 200, "one request per cell");
+        Assert.assertEquals(metrics.stats(Endpoint.WEATHER).requests(), 200);
+
+        try (Stream<WeatherResult> s = client.current(p[0], p[1])) {
+            Assert.assertTrue(s.allMatch(WeatherResult::cached));
+        }
+        Assert.assertEquals(server.weatherRequests(), 200, "second batch served from the cache");
+        Assert.assertEquals(client.current(p[0][7], p[1][7]), results.stream()
+                .filter(r -> r.index() == 7).findFirst().orElseThrow().weather());
+
+        WeatherStats stats = client.stats();
+        System.out.println("[info] weather " + stats);
+        Assert.assertEquals(stats.points(), 10_001);
+        Assert.assertEquals(stats.cells(), 401);
+        Assert.assertEquals(stats.cacheHits(), 201);
+        Assert.assertEquals(stats.fetches(), 200);
+        Assert.assertTrue(stats.dedupRatio() > 40, stats.toString());
+    }
+
+    //---------Test that results stream as cells complete, under the concurrency cap, and closing the stream stops the fan-out---------
+    @Test
+    public void batch_streamsUnderConcurrencyCap() throws Exception {
+        server.injectFaults(FaultProfile.builder().latency(Latency.fixed(Duration.ofMillis(100))).build());
+        WeatherClient client = client().concurrency(4).build();
+        double[][] p = points(40, 3, 7);
+
+        long start = System.nanoTime();
+        long[] first = new long[1];
+        long count;
+        try (Stream<WeatherResult> s = client.current(p[0], p[1])) {
+            count = s.peek(r -> {
+                if (first[0] == 0) first[0] = System.nanoTime() - start;
+            }).filter(WeatherResult::isSuccess).count();
+        }
+        double totalMs = (System.nanoTime() - start) / 1e6, firstMs = first[0] / 1e6;
+        System.out.printf("[info] first result after %.0f ms, all 120 after %.0f ms%n", firstMs, totalMs);
+        Assert.assertEquals(count, 120);
+        Assert.assertTrue(totalMs >= 950, "40 cells, 4 at a time, 100 ms each: " + totalMs);
+        Assert.assertTrue(firstMs < totalMs / 3, "first results arrive before the batch is done: " + firstMs);
+
+        double[][] q = points(40, 1, 8);
+        for (int i = 0; i < q[0].length; i++) q[0][i] -= 10;
+        try (Stream<WeatherResult> s = client.current(q[0], q[1])) {
+            Assert.assertEquals(s.limit(2).count(), 2);
+        }
+        Thread.sleep(300);
+        Assert.assertTrue(server.weatherRequests() < 40 + 12, "closing stopped the dispatch: " + server.weatherRequests());
+    }
+
+    //---------Test that a cell is fetched again once its entry is older than the TTL---------
+    @Test
+    public void cache_expiresAfterTtl() throws Exception {
+        WeatherClient client = client().ttl(Duration.ofMillis(150)).build();
+        CurrentWeather w = client.current(51.5074, -0.1278);
+        Assert.assertEquals(w.latitude(), 51.51, 1e-9);
+        Assert.assertEquals(w.longitude(), -0.13, 1e-9);
+        Assert.assertTrue(w.temperature() > 200, "Kelvin by default: " + w.temperature());
+        client.current(51.5051, -0.1301);
+        Assert.assertEquals(server.weatherRequests(), 1);
+        Thread.sleep(200);
+        client.current(51.5074, -0.1278);
+        Assert.assertEquals(server.weatherRequests(), 2);
+    }
+
+    //---------Test that failed cells come back as error results in a batch and as exceptions for a single point---------
+    @Test
+    public void errors_areCarriedPerPoint() {
+        server.injectFaults(FaultProfile.builder().serverErrors(1.0).build());
+        WeatherClient client = client().build();
+        double[] lats = {10, 10.001, 95, 20}, lons = {10, 10.001, 0, 20};
+
+        List<WeatherResult> results;
+        try (Stream<WeatherResult> s = client.current(lats, lons)) {
+            results = s.toList();
+        }
+        Assert.assertEquals(results.size(), 4);
+        for (WeatherResult r : results) {
+            Assert.assertFalse(r.isSuccess());
+            if (r.index() == 2) {
+                Assert.assertTrue(r.error() instanceof IllegalArgumentException, r.error().toString());
+            } else {
+                Assert.assertTrue(((StationsApiException) r.error()).status() >= 500, r.error().toString());
+            }
+        }
+        Assert.assertEquals(client.stats().failures(), 2);
+
+        Assert.assertTrue(Assert.expectThrows(StationsApiException.class, () -> client.current(10, 10)).status() >= 500);
+        Assert.expectThrows(IllegalArgumentException.class, () -> client.current(-91, 0));
+        Assert.expectThrows(IllegalArgumentException.class, () -> client.current(new double[1], new double[2]));
+
+        server.injectFaults(FaultProfile.NONE);
+        WeatherClient wrongKey = WeatherClient.builder().baseUri(server.weatherUri()).appId("wrong").build();
+        Assert.assertEquals(Assert.expectThrows(StationsApiException.class, () -> wrongKey.current(10, 10)).status(), 401);
+    }
+}